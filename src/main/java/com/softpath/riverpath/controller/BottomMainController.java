@@ -1,6 +1,9 @@
 package com.softpath.riverpath.controller;
 
 import com.softpath.riverpath.custom.event.EventManager;
+import com.softpath.riverpath.custom.event.SolverEventChannel;
+import com.softpath.riverpath.fileparser.SolverEvent;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Label;
@@ -27,19 +30,17 @@ public class BottomMainController implements Initializable {
     private MainController mainController;
 
     private double totalIncrement;
+    // immersed objects being converted or loaded in background
+    private int pendingImports;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // subscribe event listener
-        EventManager.addEventHandler(PROGRESS_BAR_UPDATE, event -> {
-            // update progress bar
-            if (!progressBar.isVisible()) {
-                progressBar.setVisible(true);
-                percentageLabel.setVisible(true);
+        // subscribe event listener, time steps parsed from the solver output, on the output reader thread
+        SolverEventChannel.getInstance().addListener(event -> {
+            if (event.type() == SolverEvent.Type.TIME_STEP) {
+                int increment = (int) event.value();
+                Platform.runLater(() -> updateProgress(increment));
             }
-            double v = ((Integer) event.getObject()) / totalIncrement;
-            percentageLabel.setText(Math.round(v * 100) + "%");
-            progressBar.setProgress(v);
         });
         EventManager.addEventHandler(NEW_TOTAL_INCREMENT_VALUE, event -> {
             this.totalIncrement = (Double) event.getObject();
@@ -48,5 +49,30 @@ public class BottomMainController implements Initializable {
             progressBar.setVisible(false);
             percentageLabel.setVisible(false);
         });
+        // indeterminate progress while immersed objects are imported in background
+        EventManager.addEventHandler(OBJECT_IMPORT_STARTED, event -> {
+            pendingImports++;
+            progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+            progressBar.setVisible(true);
+            percentageLabel.setText(event.getMessage());
+            percentageLabel.setVisible(true);
+        });
+        EventManager.addEventHandler(OBJECT_IMPORT_ENDED, event -> {
+            pendingImports = Math.max(0, pendingImports - 1);
+            if (pendingImports == 0 && progressBar.isIndeterminate()) {
+                progressBar.setVisible(false);
+                percentageLabel.setVisible(false);
+            }
+        });
+    }
+
+    private void updateProgress(int increment) {
+        if (!progressBar.isVisible()) {
+            progressBar.setVisible(true);
+            percentageLabel.setVisible(true);
+        }
+        double v = increment / totalIncrement;
+        percentageLabel.setText(Math.round(v * 100) + "%");
+        progressBar.setProgress(v);
     }
 }
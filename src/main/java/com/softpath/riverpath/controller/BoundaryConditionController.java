@@ -34,7 +34,7 @@ import java.util.ResourceBundle;
 public class BoundaryConditionController extends ValidAndCancelController implements Initializable {
 
     @FXML
-    @ValidatedField(nullable = true)
+    @ValidatedField(nullable = true, isDouble = true)
     private TextField priorityValue;
     @FXML
     private Label titledName;
@@ -129,6 +129,25 @@ public class BoundaryConditionController extends ValidAndCancelController implem
         return titledName.getText();
     }
 
+    /**
+     * Get the priority of the condition, 0 when not set or not a number
+     *
+     * @return the priority, the highest is applied first
+     */
+    public double getPriority() {
+        String txt = priorityValue.getText();
+        if (txt == null || txt.isBlank()) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(txt.trim());
+        } catch (NumberFormatException e) {
+            // pasted or loaded text skips the key filter, keep sorting the other conditions
+            log.warn("Invalid priority '{}' for condition {}, 0 is used", txt, getLabel());
+            return 0.0;
+        }
+    }
+
     public void setLabel(String text) {
         titledName.setText(text);
     }
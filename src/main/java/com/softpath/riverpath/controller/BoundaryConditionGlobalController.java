@@ -11,7 +11,9 @@ import javafx.fxml.FXMLLoader;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -49,6 +51,28 @@ public class BoundaryConditionGlobalController {
         return controllerMap.values();
     }
 
+    /**
+     * Get all conditions sorted by priority, highest first. Conditions with the same priority keep their order.
+     *
+     * @return the sorted conditions
+     */
+    public List<BoundaryConditionController> getConditionsByPriority() {
+        return controllerMap.values().stream()
+                .sorted(Comparator.comparingDouble(BoundaryConditionController::getPriority).reversed())
+                .toList();
+    }
+
+    /**
+     * Get the priority of the condition applied to a boundary
+     *
+     * @param boundaryName boundary or boundary condition name
+     * @return the priority, negative infinity if the boundary has no condition
+     */
+    public double getPriority(String boundaryName) {
+        BoundaryConditionController controller = controllerMap.get(boundaryName);
+        return controller == null ? Double.NEGATIVE_INFINITY : controller.getPriority();
+    }
+
     public void updateBoundaryName(String oldNameField, String newName) {
         BoundaryConditionController boundaryConditionController = controllerMap.get(oldNameField);
         if (boundaryConditionController != null) {
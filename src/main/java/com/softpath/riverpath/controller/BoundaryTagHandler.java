@@ -0,0 +1,340 @@
+package com.softpath.riverpath.controller;
+
+import com.softpath.riverpath.fileparser.CFDTriangleMesh;
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.BoundaryClassifier;
+import com.softpath.riverpath.geometry.BoundaryRegion;
+import com.softpath.riverpath.model.ShapeType;
+import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.ProgressReporter;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
+
+/**
+ * Preview which domain boundary faces each boundary definition captures before running the solver.
+ * <p>
+ * Faces are classified against the analytic region of every standard boundary definition off the FX
+ * application thread. Only the definition that changed is re-classified, then each face is given to the
+ * definition with the highest condition priority, as in the solver input, and coloured accordingly.
+ * </p>
+ *
+ * @author rhajou
+ */
+@Slf4j
+public class BoundaryTagHandler {
+
+    private static final List<Color> TAG_COLORS = Arrays.asList(Color.DODGERBLUE, Color.LIMEGREEN, Color.ORANGE,
+            Color.MEDIUMPURPLE, Color.TURQUOISE, Color.GOLD, Color.HOTPINK, Color.SIENNA, Color.OLIVEDRAB, Color.SLATEBLUE);
+    private static final double RELATIVE_TOLERANCE = 1e-5;
+
+    @Getter
+    private final Group tagGroup = new Group();
+    private final Consumer<MeshView> applyScale;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Boundary-Classifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Tagged definitions by controller id, in definition order
+     */
+    private final Map<String, TagDefinition> definitions = new LinkedHashMap<>();
+    /**
+     * Priority of the condition applied to a boundary name
+     */
+    @Setter
+    private ToDoubleFunction<String> priorityProvider = name -> 0;
+    private volatile BoundaryClassifier classifier;
+    /**
+     * Latest owners of the boundary faces, for the picking queries
+     */
+    private volatile Resolution resolution;
+    private boolean is3D;
+    private double tolerance;
+    private int colorIndex;
+
+    /**
+     * @param applyScale applies the domain scale to the tag mesh views
+     */
+    public BoundaryTagHandler(Consumer<MeshView> applyScale) {
+        this.applyScale = applyScale;
+    }
+
+    /**
+     * Set the domain whose boundary faces are tagged: triangles in 3D, edges in 2D
+     *
+     * @param meshResolution the domain mesh
+     */
+    public void setMeshResolution(MeshResolution meshResolution) {
+        is3D = DomainProperties.getInstance().is3D();
+        classifier = is3D
+                ? new BoundaryClassifier(meshResolution.getCoordinates(), meshResolution.getTriangles(), 3,
+                meshResolution.getNbTriangles())
+                : new BoundaryClassifier(meshResolution.getCoordinates(), meshResolution.getBoundaryEdges(), 2,
+                meshResolution.getNbBoundaryEdges());
+        tolerance = Math.max(meshResolution.getBounds().getDiagonal() * RELATIVE_TOLERANCE, Float.MIN_NORMAL);
+        definitions.clear();
+        tagGroup.getChildren().clear();
+        resolution = null;
+    }
+
+    /**
+     * Name of the boundary definition owning a boundary face after priority
+     *
+     * @param face the boundary face, triangle in 3D and edge in 2D
+     * @return the definition name, null if the face is not captured or the owners are not resolved yet
+     */
+    public String getFaceOwnerName(int face) {
+        Resolution current = resolution;
+        if (current == null || current.classifier() != classifier || face < 0 || face >= current.owners().length) {
+            return null;
+        }
+        int owner = current.owners()[face];
+        return owner == BoundaryClassifier.NO_OWNER ? null : current.order().get(owner).name();
+    }
+
+    /**
+     * Re-classify the faces against a validated boundary definition
+     *
+     * @param controller the boundary definition
+     */
+    public void update(BoundaryDefinitionController controller) {
+        if (classifier == null) {
+            return;
+        }
+        String id = controller.toString();
+        BoundaryRegion region;
+        try {
+            region = toRegion(controller);
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot preview boundary {}: {}", controller.getNameInitialValue(), e.getMessage());
+            region = null;
+        }
+        if (region == null) {
+            // immersed objects do not tag the domain boundary
+            remove(controller);
+            return;
+        }
+        TagDefinition existing = definitions.get(id);
+        Color color = existing != null ? existing.color() : TAG_COLORS.get(colorIndex++ % TAG_COLORS.size());
+        definitions.put(id, new TagDefinition(id, controller.getNameInitialValue(), color));
+        BoundaryRegion finalRegion = region;
+        List<TagDefinition> order = definitionsByPriority();
+        BoundaryClassifier currentClassifier = classifier;
+        executor.execute(() -> {
+            currentClassifier.update(id, finalRegion);
+            resolveAndDisplay(currentClassifier, order);
+        });
+    }
+
+    /**
+     * Forget a removed boundary definition
+     *
+     * @param controller the boundary definition
+     */
+    public void remove(BoundaryDefinitionController controller) {
+        String id = controller.toString();
+        if (classifier == null || definitions.remove(id) == null) {
+            return;
+        }
+        List<TagDefinition> order = definitionsByPriority();
+        BoundaryClassifier currentClassifier = classifier;
+        executor.execute(() -> {
+            currentClassifier.remove(id);
+            resolveAndDisplay(currentClassifier, order);
+        });
+    }
+
+    /**
+     * Resolve the owners again, to be called when the condition priorities change
+     */
+    public void refresh() {
+        if (classifier == null || definitions.isEmpty()) {
+            return;
+        }
+        List<TagDefinition> order = definitionsByPriority();
+        BoundaryClassifier currentClassifier = classifier;
+        executor.execute(() -> resolveAndDisplay(currentClassifier, order));
+    }
+
+    /**
+     * Sort the definitions by priority, highest first, keeping the definition order for equal priorities
+     */
+    private List<TagDefinition> definitionsByPriority() {
+        return definitions.values().stream()
+                .sorted(Comparator.comparingDouble((TagDefinition definition) ->
+                        priorityProvider.applyAsDouble(definition.name())).reversed())
+                .toList();
+    }
+
+    private void resolveAndDisplay(BoundaryClassifier currentClassifier, List<TagDefinition> order) {
+        try {
+            List<String> ids = order.stream().map(TagDefinition::id).toList();
+            int[] owners = currentClassifier.resolveOwners(ids);
+            List<CFDTriangleMesh> meshes = buildTagMeshes(currentClassifier, owners, order.size());
+            report(currentClassifier, order, owners);
+            resolution = new Resolution(currentClassifier, owners, order);
+            Platform.runLater(() -> {
+                if (currentClassifier != classifier) {
+                    // the domain changed in the meantime
+                    return;
+                }
+                List<MeshView> views = new ArrayList<>();
+                for (int rank = 0; rank < meshes.size(); rank++) {
+                    if (meshes.get(rank) != null) {
+                        views.add(createTagView(meshes.get(rank), order.get(rank).color()));
+                    }
+                }
+                tagGroup.getChildren().setAll(views);
+            });
+        } catch (RuntimeException e) {
+            log.error("Error while classifying the boundary faces", e);
+        }
+    }
+
+    /**
+     * Build one mesh per owner with only the vertices it uses, null for definitions owning no face
+     */
+    private List<CFDTriangleMesh> buildTagMeshes(BoundaryClassifier currentClassifier, int[] owners, int nbOwners) {
+        float[] coordinates = currentClassifier.getCoordinates();
+        int[] faces = currentClassifier.getFaces();
+        int nbVerticesPerFace = currentClassifier.getNbVerticesPerFace();
+        int[] faceCounts = new int[nbOwners];
+        for (int owner : owners) {
+            if (owner != BoundaryClassifier.NO_OWNER) {
+                faceCounts[owner]++;
+            }
+        }
+        List<CFDTriangleMesh> meshes = new ArrayList<>();
+        int[] localIndex = new int[coordinates.length / 3];
+        for (int rank = 0; rank < nbOwners; rank++) {
+            if (faceCounts[rank] == 0) {
+                meshes.add(null);
+                continue;
+            }
+            Arrays.fill(localIndex, -1);
+            float[] points = new float[faceCounts[rank] * nbVerticesPerFace * 3];
+            int[] triangles = new int[faceCounts[rank] * 6];
+            int nbPoints = 0;
+            int position = 0;
+            for (int face = 0; face < owners.length; face++) {
+                if (owners[face] != rank) {
+                    continue;
+                }
+                int[] local = new int[nbVerticesPerFace];
+                for (int k = 0; k < nbVerticesPerFace; k++) {
+                    int vertex = faces[face * nbVerticesPerFace + k];
+                    if (localIndex[vertex] < 0) {
+                        System.arraycopy(coordinates, vertex * 3, points, nbPoints * 3, 3);
+                        localIndex[vertex] = nbPoints++;
+                    }
+                    local[k] = localIndex[vertex];
+                }
+                // edges are drawn as degenerate triangles like the domain boundary in 2D
+                triangles[position] = local[0];
+                triangles[position + 2] = local[1];
+                triangles[position + 4] = nbVerticesPerFace == 3 ? local[2] : local[0];
+                position += 6;
+            }
+            CFDTriangleMesh mesh = new CFDTriangleMesh();
+            mesh.addPoints(Arrays.copyOf(points, nbPoints * 3));
+            mesh.getFaces().addAll(triangles);
+            mesh.getTexCoords().addAll(0, 0);
+            meshes.add(mesh);
+        }
+        return meshes;
+    }
+
+    private MeshView createTagView(CFDTriangleMesh mesh, Color color) {
+        MeshView view = new MeshView(mesh);
+        view.setDrawMode(is3D ? DrawMode.FILL : DrawMode.LINE);
+        view.setCullFace(CullFace.NONE);
+        view.setMaterial(new PhongMaterial(color));
+        applyScale.accept(view);
+        return view;
+    }
+
+    private static void report(BoundaryClassifier currentClassifier, List<TagDefinition> order, int[] owners) {
+        int[] owned = new int[order.size()];
+        int untagged = 0;
+        for (int owner : owners) {
+            if (owner == BoundaryClassifier.NO_OWNER) {
+                untagged++;
+            } else {
+                owned[owner]++;
+            }
+        }
+        for (int rank = 0; rank < order.size(); rank++) {
+            BitSet membership = currentClassifier.getMembership(order.get(rank).id());
+            ProgressReporter.report(buildMessage("Boundary %s captures %d boundary faces, %d kept after priority",
+                    order.get(rank).name(), membership.cardinality(), owned[rank]));
+        }
+        if (untagged > 0) {
+            ProgressReporter.report(buildMessage("Warning: %d boundary faces are not captured by any boundary definition",
+                    untagged));
+        }
+    }
+
+    /**
+     * Build the analytic region of a standard boundary definition, null for immersed objects
+     */
+    private BoundaryRegion toRegion(BoundaryDefinitionController controller) {
+        ShapeType type = controller.getComboBoxInitialValue();
+        if (type == null || type == ShapeType.Immersed) {
+            return null;
+        }
+        double ox = parse(controller.getOriginX().getText());
+        double oy = parse(controller.getOriginY().getText());
+        double oz = is3D ? parse(controller.getOriginZ().getText()) : 0;
+        return switch (type) {
+            case Half_Plane -> {
+                HalfPlaneBoundaryController halfPlane = controller.getHalfPlaneBoundaryController();
+                double nz = halfPlane instanceof HalfPlane3DBoundaryController halfPlane3D
+                        ? parse(halfPlane3D.getNormalZ().getText()) : 0;
+                yield BoundaryRegion.halfSpace(ox, oy, oz, parse(halfPlane.getNormalX().getText()),
+                        parse(halfPlane.getNormalY().getText()), nz, tolerance);
+            }
+            case Circle, Sphere -> BoundaryRegion.ball(ox, oy, oz,
+                    parse(controller.getCircleBoundaryController().getRadius().getText()), tolerance);
+            // same box as the displayed rectangle: the origin is its top left corner, no limit along Z
+            case Cube -> BoundaryRegion.box(ox, oy - parse(controller.getRectangleBoundaryController().getRectangleHeight().getText()),
+                    Double.NEGATIVE_INFINITY,
+                    ox + parse(controller.getRectangleBoundaryController().getRectangleWidth().getText()), oy,
+                    Double.POSITIVE_INFINITY, tolerance);
+            default -> null;
+        };
+    }
+
+    private static double parse(String value) {
+        return StringUtils.isBlank(value) ? 0 : Double.parseDouble(value);
+    }
+
+    private record Resolution(BoundaryClassifier classifier, int[] owners, List<TagDefinition> order) {
+    }
+
+    private record TagDefinition(String id, String name, Color color) {
+    }
+}
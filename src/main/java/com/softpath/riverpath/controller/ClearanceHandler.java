@@ -0,0 +1,147 @@
+package com.softpath.riverpath.controller;
+
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.ClearanceChecker;
+import com.softpath.riverpath.geometry.MeshBVH;
+import com.softpath.riverpath.geometry.SignedDistanceField;
+import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.ProgressReporter;
+import javafx.application.Platform;
+import javafx.geometry.Point3D;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
+
+/**
+ * Check the immersed objects against each other and against the domain walls each time a boundary changes.
+ * <p>
+ * Overlapping objects or objects crossing a wall make the simulation meaningless, so such issues are reported
+ * in the console and block the run. Gaps thinner than {@link #MIN_CLEARANCE_ELEMENTS} boundary elements are
+ * only reported as warnings. The check runs off the FX application thread and only the result of the
+ * latest request is delivered.
+ * </p>
+ *
+ * @author rhajou
+ */
+@Slf4j
+public class ClearanceHandler {
+
+    private static final int MIN_CLEARANCE_ELEMENTS = 2;
+    private static final double RELATIVE_TOLERANCE = 1e-6;
+    private static final String DOMAIN_NAME = "the domain boundary";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Clearance-Checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger lastRequest = new AtomicInteger();
+    private volatile MeshResolution domain;
+    private boolean is3D;
+    private double minClearance;
+    private double tolerance;
+
+    /**
+     * Set the domain whose boundary the objects must stay in
+     *
+     * @param meshResolution the domain mesh
+     */
+    public void setMeshResolution(MeshResolution meshResolution) {
+        domain = meshResolution;
+        is3D = DomainProperties.getInstance().is3D();
+        double elementSize = is3D
+                ? SignedDistanceField.meanEdgeLength(meshResolution.getCoordinates(), meshResolution.getTriangles(), 3,
+                meshResolution.getNbTriangles())
+                : SignedDistanceField.meanEdgeLength(meshResolution.getCoordinates(), meshResolution.getBoundaryEdges(), 2,
+                meshResolution.getNbBoundaryEdges());
+        minClearance = elementSize * MIN_CLEARANCE_ELEMENTS;
+        tolerance = meshResolution.getBounds().getDiagonal() * RELATIVE_TOLERANCE;
+    }
+
+    /**
+     * Check the current immersed objects, to be called on the FX application thread
+     *
+     * @param objectManager the immersed objects
+     * @param onResult      receives on the FX application thread true if no issue blocks the run
+     */
+    public void check(MeshObjectManager objectManager, Consumer<Boolean> onResult) {
+        MeshResolution currentDomain = domain;
+        if (currentDomain == null) {
+            return;
+        }
+        // snapshot the objects, the manager is only accessed from the FX application thread
+        List<ObjectSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<String, MeshResolution> entry : objectManager.getAllMeshes().entrySet()) {
+            snapshots.add(new ObjectSnapshot(objectManager.getDisplayName(entry.getKey()), entry.getValue(),
+                    objectManager.getObjectOrigins().get(entry.getKey())));
+        }
+        int request = lastRequest.incrementAndGet();
+        MeshBVH.ElementType boundaryType = is3D ? MeshBVH.ElementType.TRIANGLE : MeshBVH.ElementType.SEGMENT;
+        executor.execute(() -> {
+            boolean valid;
+            try {
+                long start = System.currentTimeMillis();
+                List<ClearanceChecker.Body> bodies = snapshots.stream()
+                        .map(snapshot -> new ClearanceChecker.Body(snapshot.name(),
+                                snapshot.mesh().getBVH(boundaryType),
+                                snapshot.origin().getX(), snapshot.origin().getY(), snapshot.origin().getZ()))
+                        .toList();
+                List<ClearanceChecker.Issue> issues = ClearanceChecker.check(currentDomain.getBVH(boundaryType), bodies,
+                        minClearance, tolerance);
+                if (request != lastRequest.get()) {
+                    // a newer check is pending
+                    return;
+                }
+                report(issues, bodies.size(), System.currentTimeMillis() - start);
+                valid = issues.stream().noneMatch(ClearanceChecker.Issue::isBlocking);
+            } catch (RuntimeException e) {
+                log.error("Error while checking the immersed objects clearance", e);
+                ProgressReporter.report(buildMessage("Error while checking the immersed objects clearance: %s",
+                        e.getMessage()));
+                valid = true;
+            }
+            boolean result = valid;
+            Platform.runLater(() -> {
+                if (request == lastRequest.get()) {
+                    onResult.accept(result);
+                }
+            });
+        });
+    }
+
+    private void report(List<ClearanceChecker.Issue> issues, int nbObjects, long duration) {
+        if (nbObjects == 0) {
+            return;
+        }
+        if (issues.isEmpty()) {
+            ProgressReporter.report(buildMessage("Clearance check: %d immersed objects clear of each other and of the domain walls (%d ms)",
+                    nbObjects, duration));
+            return;
+        }
+        for (ClearanceChecker.Issue issue : issues) {
+            String first = issue.first() == null ? DOMAIN_NAME : issue.first();
+            String message = switch (issue.type()) {
+                case INTERSECTION -> buildMessage("Error: %s crosses %s", issue.second(), first);
+                case CONTAINED -> buildMessage("Error: %s and %s overlap, one lies inside the other", first, issue.second());
+                case OUTSIDE_DOMAIN -> buildMessage("Error: %s lies outside the domain", issue.second());
+                case CLOSE -> buildMessage("Warning: the gap between %s and %s is %.4g, thinner than %d boundary elements (%.4g)",
+                        first, issue.second(), issue.distance(), MIN_CLEARANCE_ELEMENTS, minClearance);
+            };
+            ProgressReporter.report(message);
+        }
+        if (issues.stream().anyMatch(ClearanceChecker.Issue::isBlocking)) {
+            ProgressReporter.report(buildMessage("The run is blocked until the immersed objects are fixed"));
+        }
+    }
+
+    private record ObjectSnapshot(String name, MeshResolution mesh, Point3D origin) {
+    }
+}
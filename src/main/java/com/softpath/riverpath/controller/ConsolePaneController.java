@@ -1,7 +1,7 @@
 package com.softpath.riverpath.controller;
 
-import com.softpath.riverpath.custom.event.CustomEvent;
-import com.softpath.riverpath.custom.event.EventEnum;
+import com.softpath.riverpath.util.LineRingBuffer;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -18,17 +18,22 @@ import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.InlineCssTextArea;
 
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static com.softpath.riverpath.custom.event.EventManager.fireCustomEvent;
 import static javafx.scene.input.MouseEvent.MOUSE_ENTERED;
 import static javafx.scene.input.MouseEvent.MOUSE_PRESSED;
 
 /**
  * Controller for the console pane
+ * <p>
+ * Solver output lines are queued in a lock-free ring buffer, which drops lines when the console cannot keep up,
+ * while application messages go to an unbounded queue and are never dropped. Both are drained once per pulse by
+ * an {@link AnimationTimer} into a single append. The text area keeps at most {@code maxLines}
+ * paragraphs, the oldest being trimmed, so a long run does not grow the console without bound.
+ * </p>
  *
  * @author rhajou
  */
@@ -37,59 +42,80 @@ import static javafx.scene.input.MouseEvent.MOUSE_PRESSED;
 @Setter
 public class ConsolePaneController implements Initializable {
 
-    private static final String CARRIAGE_RETURN = System.lineSeparator();
     private static final String FX_BACKGROUND_COLOR_BLACK = "-fx-background-color: #1E2329;";
-    private static final int MESSAGE_BUFFER_SIZE = 50;
-    public static final String INCREMENT_DE_COMPTEUR_TEMPS = "Increment de CompteurTemps :";
+    // lines waiting for the next pulse, about a second of very verbose solver output
+    private static final int PENDING_LINES = 1 << 16;
+    // lines appended per pulse at most, the rest waits for the next pulses
+    private static final int LINES_PER_PULSE = 5000;
+    private static final int DEFAULT_MAX_LINES = Integer.getInteger("riverpath.console.maxLines", 10000);
 
     @FXML
     private VirtualizedScrollPane<InlineCssTextArea> scrollConsole;
     @FXML
     private InlineCssTextArea consoleOutput;
 
-    // message buffer used when Cimlib is called to avoir UI frequent refresh
-    private List<String> messageBuffer = new ArrayList<>();
+    // application messages waiting to be displayed, few but none of them may be lost
+    private final Queue<String> pendingMessages = new ConcurrentLinkedQueue<>();
+    // solver output lines waiting to be displayed, drained on the FX application thread
+    private final LineRingBuffer pendingLines = new LineRingBuffer(PENDING_LINES);
+    private final StringBuilder drainedText = new StringBuilder();
+    /**
+     * Maximum number of lines kept in the console, the oldest are removed
+     */
+    private int maxLines = DEFAULT_MAX_LINES;
     private AtomicBoolean autoScrollEnabled = new AtomicBoolean(true);
     private ContextMenu contextMenu;
 
     /**
-     * Display a message in the console output
+     * Display a message in the console output, from any thread. Unlike solver output, it is never dropped.
      *
      * @param message the message to display
      */
     public void displayMessage(String message) {
-        Platform.runLater(() -> {
-            appendText(message + "\n");
-        });
+        pendingMessages.add(message);
     }
 
     /**
-     * Buffer a message to display in the console output<br>
-     * Display it if the buffer is full
+     * Queue a solver output line to display in the console output, from any thread.
+     * Lines are displayed at the next pulse.
      *
      * @param message the message to buffer and display
      */
     public void displayMessageIfNeeded(String message) {
-        Platform.runLater(() -> {
-            Integer increment = extractIncrementDeCompteurTemps(message);
-            if (increment != null) {
-                CustomEvent event = new CustomEvent(EventEnum.PROGRESS_BAR_UPDATE, increment);
-                fireCustomEvent(event);
-            }
-            messageBuffer.add(message);
-            if (messageBuffer.size() > MESSAGE_BUFFER_SIZE) {
-                formatAndDisplay();
-                // clear buffer
-                messageBuffer.clear();
-            }
-        });
+        pendingLines.offer(message);
     }
 
     /**
-     * Flush the buffer to display the messages in the console output
+     * Display the waiting messages without waiting for the next pulse
      */
     public void flush() {
-        Platform.runLater(this::formatAndDisplay);
+        Platform.runLater(this::drainPendingLines);
+    }
+
+    /**
+     * Append the waiting messages in one edit, then trim the oldest lines over the cap
+     */
+    private void drainPendingLines() {
+        String message;
+        while ((message = pendingMessages.poll()) != null) {
+            collectLine(message);
+        }
+        pendingLines.drain(this::collectLine, LINES_PER_PULSE);
+        long dropped = pendingLines.takeDropped();
+        if (dropped > 0) {
+            collectLine(dropped + " lines dropped, the console could not keep up");
+        }
+        if (drainedText.isEmpty()) {
+            return;
+        }
+        appendText(drainedText.toString());
+        drainedText.setLength(0);
+        trimOldestLines();
+        autoScrollToBottom();
+    }
+
+    private void collectLine(String line) {
+        drainedText.append(line).append('\n');
     }
 
     @Override
@@ -98,15 +124,19 @@ public class ConsolePaneController implements Initializable {
         handleContextMenu();
         // handle auto scroll
         handleAutoScroll();
+        // display the waiting messages once per pulse
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drainPendingLines();
+            }
+        }.start();
     }
 
     /**
      * Handles the auto scroll feature
      */
     private void handleAutoScroll() {
-        // autoscroll to bottom when text is added
-        consoleOutput.textProperty().addListener((obs, oldText, newText) -> autoScrollToBottom());
-
         // do not autoscroll when the mouse is over the console output
         consoleOutput.setOnMouseEntered(e -> autoScrollEnabled.set(false));
         // resume autoscroll when the mouse leaves the console output
@@ -160,13 +190,6 @@ public class ConsolePaneController implements Initializable {
         }
     }
 
-    /**
-     * Format and display the messages in the console output<br>
-     */
-    private void formatAndDisplay() {
-        appendText(String.join(CARRIAGE_RETURN, messageBuffer));
-    }
-
     private void autoScrollToBottom() {
         Platform.runLater(() -> {
             // Check if the consoleOutput is not null and scrolls the text area to the bottom
@@ -177,6 +200,23 @@ public class ConsolePaneController implements Initializable {
         });
     }
 
+    /**
+     * Remove the oldest paragraphs over {@code maxLines}, keeping the selection on the same text
+     */
+    private void trimOldestLines() {
+        int excess = consoleOutput.getParagraphs().size() - maxLines;
+        if (excess <= 0) {
+            return;
+        }
+        int removed = consoleOutput.getAbsolutePosition(excess, 0);
+        int caretPosition = consoleOutput.getCaretPosition();
+        int anchorPosition = consoleOutput.getAnchor();
+        consoleOutput.deleteText(0, removed);
+        if (caretPosition != anchorPosition) {
+            consoleOutput.selectRange(Math.max(0, anchorPosition - removed), Math.max(0, caretPosition - removed));
+        }
+    }
+
     private void appendText(String text) {
         // Save the current caret and selection
         int caretPosition = consoleOutput.getCaretPosition();
@@ -187,20 +227,4 @@ public class ConsolePaneController implements Initializable {
             consoleOutput.selectRange(anchorPosition, caretPosition);
         }
     }
-
-    /**
-     * Extract the digit from message if it contains INCREMENT_DE_COMPTEUR_TEMPS
-     *
-     * @param message the message to extract the increment from
-     *                e.g. "Increment de CompteurTemps : 5"
-     * @return the increment extracted from the message
-     */
-    private Integer extractIncrementDeCompteurTemps(String message) {
-        Integer increment = null;
-        if (message.contains(INCREMENT_DE_COMPTEUR_TEMPS)) {
-            String[] split = message.split(":");
-            increment = Integer.valueOf(split[1].trim());
-        }
-        return increment;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package com.softpath.riverpath.controller;
+
+import com.softpath.riverpath.fileparser.CFDTriangleMesh;
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.MeshBVH;
+import com.softpath.riverpath.geometry.SignedDistanceField;
+import com.softpath.riverpath.model.Coordinates;
+import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.FieldColorMap;
+import com.softpath.riverpath.util.ProgressReporter;
+import javafx.application.Platform;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
+
+/**
+ * Preview the signed distance from the domain nodes to the immersed objects, negative inside the objects.
+ * <p>
+ * The distance of each object is computed off the FX application thread when the object is validated,
+ * and the field shown is the union of the objects (minimum distance). The distance is truncated at
+ * {@link #BAND_ELEMENTS} domain element sizes: the preview is meant to check that the interface is
+ * resolved by the domain mesh, far nodes only need their sign.
+ * </p>
+ *
+ * @author rhajou
+ */
+@Slf4j
+public class DistanceFieldHandler {
+
+    private static final int BAND_ELEMENTS = 10;
+
+    private final Consumer<MeshView> applyScale;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Distance-Field");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Distance field of each object by controller id
+     */
+    private final Map<String, float[]> objectFields = new LinkedHashMap<>();
+    /**
+     * Called on the FX application thread once a new field is available
+     */
+    @Setter
+    private Runnable onFieldUpdated = () -> {
+    };
+    /**
+     * Union of the object fields, null if there is no object
+     */
+    @Getter
+    private volatile float[] field;
+    @Getter
+    private volatile FieldColorMap colorMap;
+    /**
+     * The domain coloured by the field, 2D domains only
+     */
+    @Getter
+    private volatile MeshView fieldMeshView;
+    private volatile MeshResolution domain;
+    private boolean is3D;
+    private double elementSize;
+
+    /**
+     * @param applyScale applies the domain scale to the coloured domain view
+     */
+    public DistanceFieldHandler(Consumer<MeshView> applyScale) {
+        this.applyScale = applyScale;
+    }
+
+    /**
+     * Set the domain whose nodes receive the distance
+     *
+     * @param meshResolution the domain mesh
+     */
+    public void setMeshResolution(MeshResolution meshResolution) {
+        domain = meshResolution;
+        is3D = DomainProperties.getInstance().is3D();
+        elementSize = is3D
+                ? SignedDistanceField.meanEdgeLength(meshResolution.getCoordinates(), meshResolution.getTetrahedra(), 4,
+                meshResolution.getNbTetrahedra())
+                : SignedDistanceField.meanEdgeLength(meshResolution.getCoordinates(), meshResolution.getTriangles(), 3,
+                meshResolution.getNbTriangles());
+        colorMap = new FieldColorMap(elementSize * BAND_ELEMENTS);
+        field = null;
+        fieldMeshView = null;
+        executor.execute(() -> {
+            synchronized (objectFields) {
+                objectFields.clear();
+            }
+        });
+    }
+
+    /**
+     * Compute the distance to a validated immersed object
+     *
+     * @param id     the controller id of the object
+     * @param object the object mesh, in coordinates relative to its origin
+     * @param origin the object origin in the domain
+     */
+    public void update(String id, MeshResolution object, Coordinates origin) {
+        MeshResolution currentDomain = domain;
+        if (currentDomain == null || elementSize <= 0) {
+            return;
+        }
+        double offsetX = parse(origin.getX());
+        double offsetY = parse(origin.getY());
+        double offsetZ = is3D ? parse(origin.getZ()) : 0;
+        double maxDistance = elementSize * BAND_ELEMENTS;
+        boolean volume3D = is3D;
+        executor.execute(() -> {
+            try {
+                MeshBVH surface = object.getBVH(volume3D ? MeshBVH.ElementType.TRIANGLE : MeshBVH.ElementType.SEGMENT);
+                MeshBVH volume = object.getBVH(volume3D ? MeshBVH.ElementType.TETRAHEDRON : MeshBVH.ElementType.TRIANGLE);
+                long start = System.currentTimeMillis();
+                float[] distances = SignedDistanceField.compute(currentDomain.getCoordinates(), surface, volume,
+                        offsetX, offsetY, offsetZ, maxDistance);
+                long resolved = SignedDistanceField.countWithin(distances, elementSize);
+                ProgressReporter.report(buildMessage("Distance to immersed object computed on %d nodes in %d ms, %d nodes within one element size of its surface",
+                        distances.length, System.currentTimeMillis() - start, resolved));
+                if (resolved == 0) {
+                    ProgressReporter.report(buildMessage("Warning: no domain node lies within one element size of the immersed object surface, the interface is not resolved by the domain mesh"));
+                }
+                synchronized (objectFields) {
+                    objectFields.put(id, distances);
+                }
+                publish(currentDomain);
+            } catch (RuntimeException e) {
+                log.error("Error while computing the distance to the immersed object", e);
+            }
+        });
+    }
+
+    /**
+     * Forget a removed immersed object
+     *
+     * @param id the controller id of the object
+     */
+    public void remove(String id) {
+        MeshResolution currentDomain = domain;
+        executor.execute(() -> {
+            boolean removed;
+            synchronized (objectFields) {
+                removed = objectFields.remove(id) != null;
+            }
+            if (removed && currentDomain != null) {
+                publish(currentDomain);
+            }
+        });
+    }
+
+    /**
+     * Combine the object fields and build the coloured views
+     */
+    private void publish(MeshResolution currentDomain) {
+        float[] union = union();
+        CFDTriangleMesh mesh = union == null || is3D ? null : createFieldMesh(currentDomain, union);
+        Platform.runLater(() -> {
+            if (currentDomain != domain) {
+                // the domain changed in the meantime
+                return;
+            }
+            field = union;
+            fieldMeshView = mesh == null ? null : createFieldView(mesh);
+            onFieldUpdated.run();
+        });
+    }
+
+    private float[] union() {
+        float[][] fields;
+        synchronized (objectFields) {
+            fields = objectFields.values().toArray(float[][]::new);
+        }
+        if (fields.length == 0) {
+            return null;
+        }
+        if (fields.length == 1) {
+            return fields[0];
+        }
+        float[] union = fields[0].clone();
+        IntStream.range(0, union.length).parallel().forEach(i -> {
+            for (int f = 1; f < fields.length; f++) {
+                union[i] = Math.min(union[i], fields[f][i]);
+            }
+        });
+        return union;
+    }
+
+    /**
+     * The 2D domain triangles with one texture coordinate per node
+     */
+    private CFDTriangleMesh createFieldMesh(MeshResolution currentDomain, float[] values) {
+        int nbTriangles = currentDomain.getNbTriangles();
+        int[] triangles = currentDomain.getTriangles();
+        int[] faces = new int[nbTriangles * 6];
+        for (int i = 0; i < nbTriangles * 3; i++) {
+            faces[i * 2] = triangles[i];
+            faces[i * 2 + 1] = triangles[i];
+        }
+        float[] texCoords = new float[values.length * 2];
+        for (int vertex = 0; vertex < values.length; vertex++) {
+            texCoords[vertex * 2] = colorMap.toTexCoord(values[vertex]);
+            texCoords[vertex * 2 + 1] = 0.5f;
+        }
+        CFDTriangleMesh mesh = new CFDTriangleMesh();
+        mesh.addPoints(currentDomain.getCoordinates());
+        mesh.getTexCoords().addAll(texCoords);
+        mesh.getFaces().addAll(faces);
+        return mesh;
+    }
+
+    private MeshView createFieldView(CFDTriangleMesh mesh) {
+        MeshView view = new MeshView(mesh);
+        view.setDrawMode(DrawMode.FILL);
+        view.setCullFace(CullFace.NONE);
+        view.setMaterial(colorMap.getMaterial());
+        applyScale.accept(view);
+        return view;
+    }
+
+    private static double parse(String value) {
+        return StringUtils.isBlank(value) ? 0 : Double.parseDouble(value);
+    }
+}
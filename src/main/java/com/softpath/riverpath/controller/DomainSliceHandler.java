@@ -0,0 +1,197 @@
+package com.softpath.riverpath.controller;
+
+import com.softpath.riverpath.fileparser.CFDTriangleMesh;
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.MeshSlicer;
+import com.softpath.riverpath.geometry.SlicePlane;
+import com.softpath.riverpath.util.FieldColorMap;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Handle the SLICE display mode of a 3D domain.
+ * <p>
+ * Cross-sections are computed off the FX application thread and the resulting mesh is swapped
+ * in {@link #getSliceGroup()} once ready. Only the latest requested plane is computed,
+ * so dragging the plane never piles up stale slices.
+ * A nodal field may be interpolated on the slice and drawn with a colour map.
+ * </p>
+ *
+ * @author rhajou
+ */
+@Slf4j
+public class DomainSliceHandler {
+
+    private static final double DEFAULT_POSITION = 0.5;
+
+    @Getter
+    private final Group sliceGroup = new Group();
+    private final Consumer<MeshView> applyScale;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Domain-Slicer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<SliceRequest> pendingRequest = new AtomicReference<>();
+    private volatile MeshSlicer slicer;
+    private volatile ColorField colorField;
+    private SliceRequest lastRequest;
+    @Getter
+    private int axis = 2;
+    @Getter
+    private double position = DEFAULT_POSITION;
+
+    /**
+     * @param applyScale applies the domain scale to the slice mesh view
+     */
+    public DomainSliceHandler(Consumer<MeshView> applyScale) {
+        this.applyScale = applyScale;
+    }
+
+    /**
+     * Set the volume mesh to cut. The slicer is created lazily on the first request.
+     *
+     * @param meshResolution the domain mesh
+     */
+    public void setMeshResolution(MeshResolution meshResolution) {
+        slicer = new MeshSlicer(meshResolution.getCoordinates(), meshResolution.getTetrahedra(),
+                meshResolution.getNbTetrahedra());
+        position = DEFAULT_POSITION;
+        lastRequest = null;
+        colorField = null;
+        sliceGroup.getChildren().clear();
+    }
+
+    /**
+     * Colour the slice with a nodal field of the domain, the slice is recomputed if the field changed
+     *
+     * @param field    one value per domain vertex, null to draw the slice with a plain colour
+     * @param colorMap the colour map of the field
+     */
+    public void setColorField(float[] field, FieldColorMap colorMap) {
+        ColorField current = colorField;
+        if (current == null ? field == null : current.field() == field && current.colorMap() == colorMap) {
+            return;
+        }
+        colorField = field == null ? null : new ColorField(field, colorMap);
+        lastRequest = null;
+    }
+
+    /**
+     * Change the axis orthogonal to the cutting plane and put the plane back in the middle of the domain
+     *
+     * @param axis 0 for X, 1 for Y, 2 for Z
+     */
+    public void setAxis(int axis) {
+        if (this.axis != axis) {
+            this.axis = axis;
+            position = DEFAULT_POSITION;
+        }
+        requestSlice();
+    }
+
+    /**
+     * Move the plane along its normal
+     *
+     * @param delta the displacement as a fraction of the domain extent along the normal
+     */
+    public void moveBy(double delta) {
+        position = Math.max(0, Math.min(1, position + delta));
+        requestSlice();
+    }
+
+    /**
+     * Ask for the slice at the current axis and position unless it is already displayed
+     */
+    public void requestSlice() {
+        if (slicer == null) {
+            return;
+        }
+        SliceRequest request = new SliceRequest(axis, position);
+        if (request.equals(lastRequest)) {
+            return;
+        }
+        lastRequest = request;
+        pendingRequest.set(request);
+        executor.execute(this::computeLatest);
+    }
+
+    /**
+     * Compute the latest pending request, older ones have been overwritten
+     */
+    private void computeLatest() {
+        SliceRequest request = pendingRequest.getAndSet(null);
+        if (request == null) {
+            return;
+        }
+        try {
+            MeshSlicer currentSlicer = slicer;
+            ColorField currentField = colorField;
+            SlicePlane plane = currentSlicer.planeAt(SlicePlane.alongAxis(request.axis(), 0), request.position());
+            MeshSlicer.Slice slice = currentSlicer.slice(plane, currentField == null ? null : currentField.field());
+            CFDTriangleMesh sliceMesh = toTriangleMesh(slice, currentField);
+            Platform.runLater(() -> displaySlice(sliceMesh, currentField));
+        } catch (RuntimeException e) {
+            log.error("Error while slicing the domain", e);
+        }
+    }
+
+    private void displaySlice(CFDTriangleMesh sliceMesh, ColorField field) {
+        MeshView fill = new MeshView(sliceMesh);
+        fill.setDrawMode(DrawMode.FILL);
+        fill.setCullFace(CullFace.NONE);
+        fill.setMaterial(field == null ? new PhongMaterial(Color.LIGHTSTEELBLUE) : field.colorMap().getMaterial());
+        applyScale.accept(fill);
+        MeshView edges = new MeshView(sliceMesh);
+        edges.setDrawMode(DrawMode.LINE);
+        edges.setCullFace(CullFace.NONE);
+        edges.setMaterial(new PhongMaterial(Color.BLACK));
+        applyScale.accept(edges);
+        sliceGroup.getChildren().setAll(fill, edges);
+    }
+
+    /**
+     * Build the JavaFX mesh off the FX thread, it is not attached to the scene yet
+     */
+    private static CFDTriangleMesh toTriangleMesh(MeshSlicer.Slice slice, ColorField field) {
+        CFDTriangleMesh mesh = new CFDTriangleMesh();
+        mesh.addPoints(slice.vertices());
+        int nbVertices = slice.triangleCount() * 3;
+        int[] faces = new int[nbVertices * 2];
+        for (int vertex = 0; vertex < nbVertices; vertex++) {
+            faces[vertex * 2] = vertex;
+            // one texture coordinate per vertex when coloured by a field
+            faces[vertex * 2 + 1] = field == null ? 0 : vertex;
+        }
+        mesh.getFaces().addAll(faces);
+        if (field == null) {
+            mesh.getTexCoords().addAll(0, 0);
+        } else {
+            float[] texCoords = new float[nbVertices * 2];
+            for (int vertex = 0; vertex < nbVertices; vertex++) {
+                texCoords[vertex * 2] = field.colorMap().toTexCoord(slice.values()[vertex]);
+                texCoords[vertex * 2 + 1] = 0.5f;
+            }
+            mesh.getTexCoords().addAll(texCoords);
+        }
+        return mesh;
+    }
+
+    private record SliceRequest(int axis, double position) {
+    }
+
+    private record ColorField(float[] field, FieldColorMap colorMap) {
+    }
+}
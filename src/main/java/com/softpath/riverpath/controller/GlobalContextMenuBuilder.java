@@ -2,6 +2,8 @@ package com.softpath.riverpath.controller;
 
 import com.softpath.riverpath.fileparser.MeshResolution;
 import com.softpath.riverpath.util.DisplayMode;
+import com.softpath.riverpath.util.DomainProperties;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
@@ -42,6 +44,17 @@ public class GlobalContextMenuBuilder {
         buildObjectsSection(contextMenu, onDisplayModeChanged);
     }
 
+    /**
+     * Add the choice between the JavaFX 3D scene and the OpenGL rendering inside the pane
+     */
+    public void buildViewSection(ContextMenu contextMenu, MeshDisplayController meshDisplayController) {
+        CheckMenuItem openGLItem = new CheckMenuItem(" OpenGL view");
+        openGLItem.getStyleClass().add("mode-item");
+        openGLItem.setSelected(meshDisplayController.isOpenGLViewShown());
+        openGLItem.setOnAction(e -> meshDisplayController.showOpenGLView(openGLItem.isSelected()));
+        contextMenu.getItems().addAll(new SeparatorMenuItem(), openGLItem);
+    }
+
     /**
      * Build the domain section of the menu
      */
@@ -66,6 +79,33 @@ public class GlobalContextMenuBuilder {
         });
 
         domainSubmenu.getItems().addAll(domainSimpleItem, domainMeshItem);
+
+        // Mode Slice options (volume meshes only)
+        if (DomainProperties.getInstance().is3D()) {
+            String[] axes = {"X", "Y", "Z"};
+            for (int axis = 0; axis < axes.length; axis++) {
+                int sliceAxis = axis;
+                MenuItem domainSliceItem = new MenuItem("   Mode Slice " + axes[axis]);
+                domainSliceItem.getStyleClass().add("mode-item");
+                domainSliceItem.setOnAction(e -> {
+                    sceneRenderer.getSliceHandler().setAxis(sliceAxis);
+                    sceneRenderer.setDomainDisplayMode(DisplayMode.SLICE);
+                    onDisplayModeChanged.accept(null);
+                });
+                domainSubmenu.getItems().add(domainSliceItem);
+            }
+        }
+
+        // Mode Distance option (distance to the immersed objects)
+        if (objectManager.hasObjects()) {
+            MenuItem domainDistanceItem = new MenuItem("   Mode Distance");
+            domainDistanceItem.getStyleClass().add("mode-item");
+            domainDistanceItem.setOnAction(e -> {
+                sceneRenderer.setDomainDisplayMode(DisplayMode.DISTANCE);
+                onDisplayModeChanged.accept(null);
+            });
+            domainSubmenu.getItems().add(domainDistanceItem);
+        }
         contextMenu.getItems().add(domainSubmenu);
 
         // Add separator if there are objects
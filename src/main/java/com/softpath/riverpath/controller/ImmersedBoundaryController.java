@@ -1,5 +1,7 @@
 package com.softpath.riverpath.controller;
 
+import com.softpath.riverpath.custom.event.CustomEvent;
+import com.softpath.riverpath.custom.event.EventManager;
 import com.softpath.riverpath.fileparser.MeshFileParser;
 import com.softpath.riverpath.fileparser.MeshResolution;
 import com.softpath.riverpath.meshconverter.MeshConverterFactory;
@@ -7,7 +9,9 @@ import com.softpath.riverpath.model.Boundary;
 import com.softpath.riverpath.model.Coordinates;
 import com.softpath.riverpath.model.ImmersedBoundary;
 import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.ProgressReporter;
 import com.softpath.riverpath.util.ValidatedField;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Hyperlink;
@@ -19,6 +23,9 @@ import lombok.NoArgsConstructor;
 
 import java.io.File;
 
+import static com.softpath.riverpath.custom.event.EventEnum.OBJECT_IMPORT_ENDED;
+import static com.softpath.riverpath.custom.event.EventEnum.OBJECT_IMPORT_STARTED;
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
 import static com.softpath.riverpath.util.UtilityClass.workspaceDirectory;
 
 /**
@@ -35,8 +42,14 @@ public class ImmersedBoundaryController extends BaseBoundaryController {
     @ValidatedField
     private Hyperlink importObject;
 
+    // last parsed mesh, reused while its file is unchanged
+    private File cachedMeshFile;
+    private long cachedMeshModified;
+    private MeshResolution cachedMesh;
+
     /**
-     * Import immersed object from .msh file, convert it to .t file and throw an event to display it in mesh view
+     * Import immersed object from .msh file, convert it to .t file and throw an event to display it in mesh view.
+     * The conversion runs in a background task, the link shows a placeholder meanwhile.
      *
      * @param keyEvent the event
      */
@@ -49,11 +62,37 @@ public class ImmersedBoundaryController extends BaseBoundaryController {
         Stage stage = new Stage();
         // select mesh file .msh
         File selectedFile = fileChooser.showOpenDialog(stage);
+        if (selectedFile == null) {
+            return;
+        }
+        String previousText = importObject.getText();
+        importObject.setText("Converting " + selectedFile.getName() + "...");
+        importObject.setDisable(true);
+        EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_STARTED, "Converting " + selectedFile.getName()));
         // convert msh file to .t file using python program gmsh4mtc.exe
-        String selectedFileConvertedT = MeshConverterFactory.convert(selectedFile.getAbsolutePath());
-        // store it only if the file is imported and converted successfully
-        importObject.setText(selectedFileConvertedT);
-        setDirty(true);
+        Task<String> convertTask = new Task<>() {
+            @Override
+            protected String call() {
+                return MeshConverterFactory.convert(selectedFile.getAbsolutePath());
+            }
+        };
+        convertTask.setOnSucceeded(e -> {
+            // store it only if the file is imported and converted successfully
+            importObject.setDisable(false);
+            importObject.setText(convertTask.getValue());
+            EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_ENDED));
+            setDirty(true);
+        });
+        convertTask.setOnFailed(e -> {
+            importObject.setDisable(false);
+            importObject.setText(previousText);
+            EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_ENDED));
+            ProgressReporter.report(buildMessage("Error while converting %s: %s", selectedFile.getName(),
+                    convertTask.getException().getMessage()));
+        });
+        Thread thread = new Thread(convertTask, "Immersed-Convert");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -86,13 +125,22 @@ public class ImmersedBoundaryController extends BaseBoundaryController {
     }
 
     /**
-     * Build a CFDTriangleMesh based on the immersed object file name
+     * Build a CFDTriangleMesh based on the immersed object file name.
+     * Slow for large objects, to be called off the FX application thread. The mesh is parsed again only if
+     * the file changed since the previous call, so the displayed object keeps its mesh on a new validation.
      *
+     * @param fileName the .t file name in the workspace, read from {@link #getImportObject()} on the FX thread
      * @return the immersed object mesh as {@link com.softpath.riverpath.fileparser.CFDTriangleMesh}
      */
-    public MeshResolution getImmersedObjectMesh() {
-        // parse the .t file to get the mesh object
-        return MeshFileParser.parseFile2TriangleMesh(new File(workspaceDirectory, importObject.getText()));
+    public synchronized MeshResolution getImmersedObjectMesh(String fileName) {
+        File meshFile = new File(workspaceDirectory, fileName);
+        if (cachedMesh == null || !meshFile.equals(cachedMeshFile) || meshFile.lastModified() != cachedMeshModified) {
+            // parse the .t file to get the mesh object
+            cachedMesh = MeshFileParser.parseFile2TriangleMesh(meshFile);
+            cachedMeshFile = meshFile;
+            cachedMeshModified = meshFile.lastModified();
+        }
+        return cachedMesh;
     }
 
     /**
@@ -1,6 +1,10 @@
 package com.softpath.riverpath.controller;
 
+import com.softpath.riverpath.custom.pane.EdgeCanvas;
 import com.softpath.riverpath.custom.pane.ZoomableScrollPane;
+import com.softpath.riverpath.opengl.EmbeddedView;
+import com.softpath.riverpath.opengl.OpenGLViewer;
+import com.softpath.riverpath.util.DomainProperties;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
 import javafx.scene.Group;
@@ -10,12 +14,17 @@ import javafx.scene.SceneAntialiasing;
 import javafx.scene.SubScene;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Translate;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.function.DoubleConsumer;
 
 /**
  * Controller for managing 3D mesh display with camera controls.
@@ -68,9 +77,32 @@ public class MeshDisplayController {
     private double translateX = 0;
     private double translateY = 0;
 
+    // 2D view: the scene is drawn flat, scaled then translated in pixels, with the domain edges on a canvas
+    private final Translate viewTranslate = new Translate();
+    private Pane viewPane;
+    private EdgeCanvas edgeCanvas;
+    private boolean viewFitted;
+    private boolean canvasViewBound;
+    // zoom fitting the domain to the 2D view, the zoom limits are relative to it
+    private double fitZoom = 1;
+
     @FXML
     private ZoomableScrollPane scrollablePane;
 
+    /**
+     * OpenGL rendering shown instead of the SubScene for the meshes too large for the JavaFX 3D path
+     */
+    @Getter
+    private final EmbeddedView openGLView = new EmbeddedView();
+    @Getter
+    private boolean openGLViewShown;
+
+    /**
+     * Optional handler of Ctrl + drag, receives the vertical drag as a fraction of the view height
+     */
+    @Setter
+    private DoubleConsumer onControlDrag;
+
     /**
      * Initializes the 3D view with the given target node.
      * <p>
@@ -90,6 +122,10 @@ public class MeshDisplayController {
      */
     public void applyPaneView(Node target) {
         this.target = target;
+        this.edgeCanvas = null;
+        if (openGLViewShown) {
+            showOpenGLView(false);
+        }
 
         // Build scene graph hierarchy: root -> group -> targetGroup -> target
         Group targetGroup = new Group(target);
@@ -131,6 +167,164 @@ public class MeshDisplayController {
         }
     }
 
+    /**
+     * Initializes the 2D view with the given target node and the canvas drawing the domain edges.
+     * <p>
+     * No SubScene nor camera: the target is drawn flat over the canvas, through a scale and a translation
+     * mirrored to the canvas on every change, so the canvas edges stay under the boundary tags, shapes and objects.
+     * Left drag pans, the wheel zooms about the cursor, Ctrl + drag is delegated to {@code onControlDrag} and a
+     * double click fits the domain to the view again. There is no rotation in 2D.
+     * </p>
+     *
+     * @param target the node holding the scene drawn over the edges
+     * @param canvas the canvas drawing the domain edges
+     */
+    public void applyPaneView2D(Node target, EdgeCanvas canvas) {
+        this.target = target;
+        this.edgeCanvas = canvas;
+        if (openGLViewShown) {
+            showOpenGLView(false);
+        }
+
+        Group overlay = new Group(target);
+        overlay.getTransforms().setAll(viewTranslate, sceneScale);
+        viewPane = new Pane(canvas, overlay);
+        viewPane.setStyle("-fx-background-color: white;");
+        viewPane.prefWidthProperty().bind(scrollablePane.widthProperty());
+        viewPane.prefHeightProperty().bind(scrollablePane.heightProperty());
+        canvas.prefWidthProperty().bind(viewPane.widthProperty());
+        canvas.prefHeightProperty().bind(viewPane.heightProperty());
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(viewPane.widthProperty());
+        clip.heightProperty().bind(viewPane.heightProperty());
+        viewPane.setClip(clip);
+
+        if (!canvasViewBound) {
+            canvasViewBound = true;
+            viewTranslate.xProperty().addListener((obs, oldValue, newValue) -> updateCanvasView());
+            viewTranslate.yProperty().addListener((obs, oldValue, newValue) -> updateCanvasView());
+            sceneScale.xProperty().addListener((obs, oldValue, newValue) -> updateCanvasView());
+        }
+
+        // fit the domain once the pane has its size
+        viewFitted = false;
+        viewPane.widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            if (!viewFitted && newWidth.doubleValue() > 0 && viewPane.getHeight() > 0) {
+                viewFitted = true;
+                fitView2D();
+            }
+        });
+        viewPane.heightProperty().addListener((obs, oldHeight, newHeight) -> {
+            if (!viewFitted && newHeight.doubleValue() > 0 && viewPane.getWidth() > 0) {
+                viewFitted = true;
+                fitView2D();
+            }
+        });
+
+        handleMouse2D();
+        scrollablePane.setContent(viewPane);
+    }
+
+    /**
+     * Mirror the transform of the 2D scene to the edge canvas
+     */
+    private void updateCanvasView() {
+        if (edgeCanvas != null) {
+            double scale = sceneScale.getX() * DomainProperties.getInstance().getScaleFactor();
+            edgeCanvas.setView(scale, viewTranslate.getX(), viewTranslate.getY());
+        }
+    }
+
+    /**
+     * Scale and center the 2D domain in the view, with the margin of {@link #INITIAL_DISTANCE_FACTOR}
+     */
+    private void fitView2D() {
+        DomainProperties domainProperties = DomainProperties.getInstance();
+        double width = domainProperties.getDomainMaxX() - domainProperties.getDomainMinX();
+        double height = domainProperties.getDomainMaxY() - domainProperties.getDomainMinY();
+        if (width <= 0 || height <= 0 || viewPane.getWidth() <= 0 || viewPane.getHeight() <= 0) {
+            return;
+        }
+        fitZoom = Math.min(viewPane.getWidth() / width, viewPane.getHeight() / height) / INITIAL_DISTANCE_FACTOR;
+        currentZoom = fitZoom;
+        sceneScale.setX(currentZoom);
+        sceneScale.setY(currentZoom);
+        sceneScale.setZ(currentZoom);
+        // domain limits are scaled with Y inverted like the displayed meshes
+        double centerX = (domainProperties.getDomainMinX() + domainProperties.getDomainMaxX()) / 2;
+        double centerY = (domainProperties.getDomainMinY() + domainProperties.getDomainMaxY()) / 2;
+        viewTranslate.setX(viewPane.getWidth() / 2 - currentZoom * centerX);
+        viewTranslate.setY(viewPane.getHeight() / 2 - currentZoom * centerY);
+    }
+
+    /**
+     * Configures the mouse for the 2D view: pan, zoom about the cursor, custom Ctrl + drag and reset
+     */
+    private void handleMouse2D() {
+        viewPane.setOnMousePressed(me -> {
+            mouseOldX = me.getSceneX();
+            mouseOldY = me.getSceneY();
+        });
+
+        viewPane.setOnMouseDragged(me -> {
+            double mouseDeltaX = me.getSceneX() - mouseOldX;
+            double mouseDeltaY = me.getSceneY() - mouseOldY;
+            if (me.getButton() == MouseButton.PRIMARY && me.isControlDown() && onControlDrag != null) {
+                onControlDrag.accept(-mouseDeltaY / viewPane.getHeight());
+            } else if (me.getButton() == MouseButton.PRIMARY || me.getButton() == MouseButton.SECONDARY) {
+                // the view follows the cursor
+                viewTranslate.setX(viewTranslate.getX() + mouseDeltaX);
+                viewTranslate.setY(viewTranslate.getY() + mouseDeltaY);
+            }
+            mouseOldX = me.getSceneX();
+            mouseOldY = me.getSceneY();
+        });
+
+        viewPane.setOnScroll((ScrollEvent event) -> {
+            event.consume();
+            double zoomFactor = Math.exp(event.getDeltaY() * ZOOM_SPEED / 30);
+            double newZoom = Math.max(minZoom * fitZoom, Math.min(maxZoom * fitZoom, currentZoom * zoomFactor));
+            double applied = newZoom / currentZoom;
+            // keep the point under the cursor in place
+            viewTranslate.setX(event.getX() - (event.getX() - viewTranslate.getX()) * applied);
+            viewTranslate.setY(event.getY() - (event.getY() - viewTranslate.getY()) * applied);
+            currentZoom = newZoom;
+            sceneScale.setX(currentZoom);
+            sceneScale.setY(currentZoom);
+            sceneScale.setZ(currentZoom);
+        });
+
+        viewPane.setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() >= 2) {
+                fitView2D();
+                updateCanvasView();
+            }
+        });
+    }
+
+    /**
+     * Shows the OpenGL viewer inside the pane in place of the JavaFX 3D scene, or the scene again.
+     * <p>
+     * The viewer renders offscreen at the size of the pane and its frames are displayed by an
+     * {@link EmbeddedView}, which forwards the mouse to the viewer camera. The viewer window stays hidden meanwhile.
+     * </p>
+     *
+     * @param shown true to show the OpenGL rendering, false to show the JavaFX scene
+     */
+    public void showOpenGLView(boolean shown) {
+        openGLViewShown = shown;
+        if (shown) {
+            openGLView.prefWidthProperty().bind(scrollablePane.widthProperty());
+            openGLView.prefHeightProperty().bind(scrollablePane.heightProperty());
+            scrollablePane.setContent(openGLView);
+            OpenGLViewer.embed(openGLView);
+            openGLView.requestFocus();
+        } else {
+            OpenGLViewer.embed(null);
+            scrollablePane.setContent(subScene);
+        }
+    }
+
     /**
      * Waits for the target node to have valid (non-zero) bounds before centering the view.
      * <p>
@@ -177,28 +371,28 @@ public class MeshDisplayController {
     }
 
     /**
-     * Centers the target node in the viewport by calculating its geometric center
+     * Centers the target node in the viewport by calculating the geometric center of the domain
      * and applying an offsetting translation.
      * <p>
-     * The method calculates the center point of the target's bounding box in 3D space
-     * and applies a negative translation to position this center at the origin.
-     * This ensures the target appears centered regardless of its original position.
+     * The center is read from the domain limits cached in {@link DomainProperties} (computed once
+     * by the parser) instead of walking the scene graph bounds, which would scan every mesh point.
+     * A negative translation positions this center at the origin.
      * </p>
      *
      * @param targetGroup the group to which the centering translation will be applied
      */
     private void centerTarget(Group targetGroup) {
-        Bounds bounds = target.getBoundsInParent();
+        DomainProperties domainProperties = DomainProperties.getInstance();
 
-        // Safety check: ensure bounds have been calculated by JavaFX
-        if (bounds.getWidth() == 0 && bounds.getHeight() == 0) {
-            return; // Bounds not yet valid, skip centering
+        // Safety check: ensure domain limits have been computed
+        if (domainProperties.getScaleFactor() <= 0) {
+            return; // Domain not loaded yet, skip centering
         }
 
-        // Calculate geometric center of the bounding box
-        double centerX = (bounds.getMinX() + bounds.getMaxX()) / 2;
-        double centerY = (bounds.getMinY() + bounds.getMaxY()) / 2;
-        double centerZ = (bounds.getMinZ() + bounds.getMaxZ()) / 2;
+        // Geometric center of the domain (already scaled, Y inverted like the displayed meshes)
+        double centerX = (domainProperties.getDomainMinX() + domainProperties.getDomainMaxX()) / 2;
+        double centerY = (domainProperties.getDomainMinY() + domainProperties.getDomainMaxY()) / 2;
+        double centerZ = (domainProperties.getDomainMinZ() + domainProperties.getDomainMaxZ()) / 2;
 
         // Remove any existing translation to prevent accumulation
         targetGroup.getTransforms().removeIf(t -> t instanceof Translate);
@@ -209,23 +403,23 @@ public class MeshDisplayController {
     }
 
     /**
-     * Calculates and sets the optimal camera distance to fit the entire target in the viewport.
+     * Calculates and sets the optimal camera distance to fit the entire domain in the viewport.
      * <p>
      * This method uses trigonometry to determine the camera distance required to view
-     * the complete target mesh within the SubScene's dimensions. The calculation accounts for:
+     * the complete domain within the SubScene's dimensions. The calculation accounts for:
      * <ul>
      *   <li>Camera field of view (FOV)</li>
      *   <li>Viewport aspect ratio</li>
-     *   <li>Target mesh dimensions (width and height)</li>
+     *   <li>Domain dimensions (width and height) cached in {@link DomainProperties}</li>
      *   <li>A configurable distance factor for padding</li>
      * </ul>
      * The camera is positioned on the Z-axis, with negative Z moving away from the viewer.
      * </p>
      */
     private void adjustCameraDistance() {
-        Bounds bounds = target.getBoundsInParent();
-        double width = bounds.getWidth();
-        double height = bounds.getHeight();
+        DomainProperties domainProperties = DomainProperties.getInstance();
+        double width = domainProperties.getDomainMaxX() - domainProperties.getDomainMinX();
+        double height = domainProperties.getDomainMaxY() - domainProperties.getDomainMinY();
 
         // Ensure SubScene has valid dimensions before calculating
         if (subScene.getWidth() <= 0 || subScene.getHeight() <= 0) {
@@ -256,6 +450,7 @@ public class MeshDisplayController {
      *   <li><b>Pan:</b> Left-click + drag - Translates the view horizontally and vertically</li>
      *   <li><b>Rotate:</b> Shift + left-click + drag OR right-click + drag - Rotates around X and Y axes</li>
      *   <li><b>Zoom:</b> Mouse wheel scroll - Scales the view in/out</li>
+     *   <li><b>Custom:</b> Ctrl + left-click + drag - Delegated to {@code onControlDrag} if set (e.g. slice plane)</li>
      *   <li><b>Reset:</b> Double left-click - Resets camera to initial position and orientation</li>
      * </ul>
      * All transformations are applied to the scene root, affecting the entire 3D scene.
@@ -280,7 +475,10 @@ public class MeshDisplayController {
             double mouseDeltaY = (me.getSceneY() - mouseOldY);
 
             boolean shiftDown = me.isShiftDown();
-            if ((me.getButton() == MouseButton.PRIMARY && shiftDown) || me.getButton() == MouseButton.SECONDARY) {
+            if (me.getButton() == MouseButton.PRIMARY && me.isControlDown() && onControlDrag != null) {
+                // Custom mode: Ctrl + left-click, e.g. move the slice plane
+                onControlDrag.accept(-mouseDeltaY / subScene.getHeight());
+            } else if ((me.getButton() == MouseButton.PRIMARY && shiftDown) || me.getButton() == MouseButton.SECONDARY) {
                 // Rotation mode: Shift + left-click OR right-click
                 rotateY.setAngle(rotateY.getAngle() - mouseDeltaX * MOUSE_SPEED * ROTATION_SPEED);
                 rotateX.setAngle(rotateX.getAngle() + mouseDeltaY * MOUSE_SPEED * ROTATION_SPEED);
@@ -31,6 +31,11 @@ public class MeshObjectManager {
     private final Map<String, String> objectDisplayNames = new HashMap<>();
     @Getter
     private final Map<String, DisplayMode> objectDisplayModes = new HashMap<>();
+    /**
+     * Origin of each object in domain coordinates
+     */
+    @Getter
+    private final Map<String, Point3D> objectOrigins = new HashMap<>();
     @Getter
     private final Map<String, Shape> shapes = new HashMap<>();
     @Getter
@@ -41,9 +46,12 @@ public class MeshObjectManager {
      */
     public void addObject(String controllerID, MeshResolution meshResolution, Coordinates origin, Color existingColor) {
         double scaleFactor = DomainProperties.getInstance().getScaleFactor();
-        meshResolution.setPosition(new Point3D(parseDouble(origin.getX()) * scaleFactor,
-                - parseDouble(origin.getY()) * scaleFactor,
-                parseDouble(origin.getZ() != null ? origin.getZ() : "0.0") * scaleFactor));
+        Point3D domainOrigin = new Point3D(parseDouble(origin.getX()), parseDouble(origin.getY()),
+                parseDouble(origin.getZ() != null ? origin.getZ() : "0.0"));
+        objectOrigins.put(controllerID, domainOrigin);
+        meshResolution.setPosition(new Point3D(domainOrigin.getX() * scaleFactor,
+                - domainOrigin.getY() * scaleFactor,
+                domainOrigin.getZ() * scaleFactor));
         if (existingColor != null) {
             meshResolution.setColor(existingColor);
         } else {
@@ -87,6 +95,7 @@ public class MeshObjectManager {
      */
     public void removeObject(String objectId) {
         allMeshes.remove(objectId);
+        objectOrigins.remove(objectId);
         objectDisplayNames.remove(objectId);
         objectDisplayModes.remove(objectId);
     }
@@ -3,6 +3,8 @@ package com.softpath.riverpath.controller;
 import com.softpath.riverpath.custom.event.CustomEvent;
 import com.softpath.riverpath.custom.event.EventManager;
 import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.fileparser.SensorFileTailer;
+import com.softpath.riverpath.fileparser.SolverLogParser;
 import com.softpath.riverpath.meshconverter.MeshConverterFactory;
 import com.softpath.riverpath.opengl.OpenGLViewer;
 import com.softpath.riverpath.service.RunnerService;
@@ -29,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -79,6 +82,8 @@ public class ProjectSetupController implements Initializable {
 
     private boolean isTimeDiscretizationSet;
 
+    private boolean isClearanceValid = true;
+
     private RunnerService runnerService;
 
     private String domainExtentionT;
@@ -86,6 +91,7 @@ public class ProjectSetupController implements Initializable {
     private Button stopButton;
 
     private Process currentProcess; // To store the current process
+    private final SensorFileTailer sensorTailer = new SensorFileTailer();
 
     @FXML
     private Button meshingParametersButton;
@@ -191,9 +197,12 @@ public class ProjectSetupController implements Initializable {
             MeshResolution meshResolution = task.getValue();
             // TODO display light version
             mainController.getRightPaneController().initiateDomain(meshResolution);
+            // boundary faces are given to the definition whose condition has the highest priority
+            mainController.getRightPaneController().getSceneRenderer().getTagHandler()
+                    .setPriorityProvider(leftBottomPaneController.getConditionGlobalController()::getPriority);
             // TODO propose this only for hight resolution version
             if (DomainProperties.getInstance().is3D()) {
-                OpenGLViewer.show(meshResolution.getTriangleMesh());
+                OpenGLViewer.show(meshResolution);
             }
             mainController.getRightPaneController().applySelectedDisplayMode();
             importMSHButton.setStyle(FX_BASE_LIGHTGREEN);
@@ -262,6 +271,11 @@ public class ProjectSetupController implements Initializable {
 
     @FXML
     private void handleRun(ActionEvent e) {
+        if (!isClearanceValid) {
+            mainController.displayMessageConsoleOutput("Cannot run: immersed objects overlap or cross the domain walls");
+            runButton.setDisable(true);
+            return;
+        }
         // setup cimlib project
         try {
             runnerService.generateAllMTCFiles(domainExtentionT);
@@ -277,6 +291,8 @@ public class ProjectSetupController implements Initializable {
             // use python programme to convert to .t
             List<String> command = buildCimlibCommanLine();
             currentProcess = runnerService.startProcess(mainController, workspaceDirectory, command);
+            // drag and lift written by the DragLift sensor, for the live charts
+            sensorTailer.start(workspaceDirectory);
             // log cimblib output
             runThreadTologCimlibOutput();
             // handle cimlib end run
@@ -292,6 +308,7 @@ public class ProjectSetupController implements Initializable {
         try {
             if (currentProcess != null) {
                 int exitCode = currentProcess.waitFor();
+                sensorTailer.stop();
                 Platform.runLater(() -> {
                     stopButton.setVisible(false);
                     runButton.setDisable(false);
@@ -329,14 +346,18 @@ public class ProjectSetupController implements Initializable {
         // Step 2: Submit a Runnable task to the executor
         Future<?> future = executorService.submit(() -> {
             ConsolePaneController consolePaneController = mainController.getRightPaneController().getConsolePaneController();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(currentProcess.getInputStream()))) {
+            SolverLogParser solverLogParser = new SolverLogParser();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(currentProcess.getInputStream(),
+                    StandardCharsets.UTF_8))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    final String output = line;
-                    Platform.runLater(() -> consolePaneController.displayMessageIfNeeded(output));
+                    // typed records to the solver event channel
+                    solverLogParser.parse(line);
+                    // queued without blocking, displayed at the next pulse
+                    consolePaneController.displayMessageIfNeeded(line);
                 }
             } catch (IOException ex) {
-                Platform.runLater(() -> consolePaneController.displayMessage("Error reading process output: " + ex.getMessage()));
+                consolePaneController.displayMessage("Error reading process output: " + ex.getMessage());
             }
         });
         try {
@@ -391,6 +412,8 @@ public class ProjectSetupController implements Initializable {
         listenAndHandleBoundaryRemoved();
         // register to listen to any modification in the titled panes
         listenAndHandleActionOnPane();
+        // register to listen to condition changes which may change the boundary tags priority
+        listenAndHandleConditionValidated();
     }
 
     /**
@@ -401,7 +424,9 @@ public class ProjectSetupController implements Initializable {
             BoundaryDefinitionController boundaryDefController = (BoundaryDefinitionController) event.getObject();
             //leftBottomPaneController.addBoundaryDefinition(boundaryDefController);
             // add and display boundary in the right pane
-            mainController.getRightPaneController().addAndDisplay(boundaryDefController);
+            // immersed objects are loaded in background, the clearance is checked once displayed and its result
+            // updates the run button
+            mainController.getRightPaneController().addAndDisplay(boundaryDefController, this::checkClearance);
             // Handle the custom event
             if (conditionButton.isDisable()) {
                 boundaryButton.setStyle(FX_BASE_LIGHTGREEN);
@@ -419,12 +444,33 @@ public class ProjectSetupController implements Initializable {
             BoundaryDefinitionController boundaryDefinitionController = (BoundaryDefinitionController) event.getObject();
             leftBottomPaneController.removeBoundaryDefinition(boundaryDefinitionController);
             mainController.getRightPaneController().removeAndDisplay(boundaryDefinitionController);
+            checkClearance();
             leftBottomPaneController.displayAllBoundaries();
             mainController.getRightPaneController().applySelectedDisplayMode();
             handleModificationOrValidationAction();
         });
     }
 
+    /**
+     * Check the immersed objects against each other and the domain walls, the run is blocked on overlaps
+     */
+    private void checkClearance() {
+        RightPaneController rightPaneController = mainController.getRightPaneController();
+        rightPaneController.getClearanceHandler().check(rightPaneController.getObjectManager(), valid -> {
+            isClearanceValid = valid;
+            // the result arrives after the caller returned, the run button is only up to date now
+            handleModificationOrValidationAction();
+        });
+    }
+
+    /**
+     * Register a listener to refresh the boundary tags when a condition (and its priority) is validated
+     */
+    private void listenAndHandleConditionValidated() {
+        EventManager.addEventHandler(NEW_CONDITION_VALIDATED, event ->
+                mainController.getRightPaneController().getSceneRenderer().getTagHandler().refresh());
+    }
+
     private void listenAndHandleAllConditionValid() {
         EventManager.addEventHandler(ALL_CONDITION_VALID, event -> {
             // Handle the custom event
@@ -524,7 +570,8 @@ public class ProjectSetupController implements Initializable {
         updateButtonStatus(meshingParametersButton, meshingDataInvalid);
 
         // Disable run button if any step is invalid
-        boolean isAnyStepInvalid = isAnyBoundaryDefInvalid || isAnyConditionInvalid || isTimeDisInvalid || dataIngNotInvalid;
+        boolean isAnyStepInvalid = isAnyBoundaryDefInvalid || isAnyConditionInvalid || isTimeDisInvalid || dataIngNotInvalid
+                || !isClearanceValid;
         runButton.setDisable(isAnyStepInvalid);
     }
 
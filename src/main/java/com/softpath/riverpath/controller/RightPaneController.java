@@ -1,17 +1,28 @@
 package com.softpath.riverpath.controller;
 
+import com.softpath.riverpath.custom.event.CustomEvent;
+import com.softpath.riverpath.custom.event.EventManager;
 import com.softpath.riverpath.custom.pane.ZoomableScrollPane;
 import com.softpath.riverpath.fileparser.MeshResolution;
 import com.softpath.riverpath.model.Coordinates;
+import com.softpath.riverpath.opengl.MeshDataAdapter;
+import com.softpath.riverpath.opengl.OpenGLViewer;
+import com.softpath.riverpath.opengl.PickResult;
 import com.softpath.riverpath.util.DisplayMode;
 import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.ProgressReporter;
+import javafx.concurrent.Task;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.Point3D;
+import javafx.scene.Node;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -22,7 +33,15 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.softpath.riverpath.custom.event.EventEnum.OBJECT_IMPORT_ENDED;
+import static com.softpath.riverpath.custom.event.EventEnum.OBJECT_IMPORT_STARTED;
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
 
 @NoArgsConstructor
 @Getter
@@ -31,6 +50,16 @@ public class RightPaneController implements Initializable {
     private final MeshObjectManager objectManager = new MeshObjectManager();
     private final SceneRenderer sceneRenderer = new SceneRenderer(objectManager);
     private final GlobalContextMenuBuilder menuBuilder = new GlobalContextMenuBuilder(objectManager, sceneRenderer);
+    private final ClearanceHandler clearanceHandler = new ClearanceHandler();
+    /**
+     * Immersed object meshes being loaded, by controller id
+     */
+    private final Map<String, Task<MeshResolution>> objectLoads = new HashMap<>();
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Immersed-Load");
+        thread.setDaemon(true);
+        return thread;
+    });
     @FXML
     private VBox displayBox;
     @FXML
@@ -56,9 +85,9 @@ public class RightPaneController implements Initializable {
      */
     public void initiateDomain(MeshResolution meshResolution) {
 
-        // Compute domain properties
+        // Compute domain properties from the bounds computed by the parser
+        DomainProperties.getInstance().computeDomainProperties(meshPane, meshResolution.getBounds());
         MeshView surfaceDomainMeshView = new MeshView(meshResolution.getTriangleSurface());
-        DomainProperties.getInstance().computeDomainProperties(meshPane, surfaceDomainMeshView);
 
         // Apply scale to domain
         MeshView domainMeshView = new MeshView(meshResolution.getReducedMesh());
@@ -66,6 +95,17 @@ public class RightPaneController implements Initializable {
         sceneRenderer.setDomainMeshView(domainMeshView);
         sceneRenderer.applyScale(surfaceDomainMeshView);
         sceneRenderer.setSurfaceDomainMeshView(surfaceDomainMeshView);
+        if (DomainProperties.getInstance().is3D()) {
+            sceneRenderer.getSliceHandler().setMeshResolution(meshResolution);
+        }
+        sceneRenderer.getTagHandler().setMeshResolution(meshResolution);
+        sceneRenderer.getDistanceHandler().setMeshResolution(meshResolution);
+        clearanceHandler.setMeshResolution(meshResolution);
+        sceneRenderer.getDistanceHandler().setOnFieldUpdated(() -> {
+            if (sceneRenderer.getDomainDisplayMode() == DisplayMode.DISTANCE) {
+                displayBorderlines();
+            }
+        });
 
         // Initialize root pane
         rootPane = new Pane();
@@ -73,11 +113,53 @@ public class RightPaneController implements Initializable {
         // Initial display
         sceneRenderer.renderScene(rootPane);
 
-        // Apply pane view
-        meshPaneController.applyPaneView(rootPane);
+        // Apply pane view: 2D domains are drawn flat, their edges on a canvas
+        if (DomainProperties.getInstance().is3D()) {
+            meshPaneController.applyPaneView(rootPane);
+        } else {
+            sceneRenderer.setDomainEdges(meshResolution);
+            meshPaneController.applyPaneView2D(rootPane, sceneRenderer.getDomainCanvas());
+        }
+        // Ctrl + drag moves the slice plane in SLICE and DISTANCE modes
+        meshPaneController.setOnControlDrag(delta -> {
+            DisplayMode mode = sceneRenderer.getDomainDisplayMode();
+            if (mode == DisplayMode.SLICE || (mode == DisplayMode.DISTANCE && DomainProperties.getInstance().is3D())) {
+                sceneRenderer.getSliceHandler().moveBy(delta);
+            }
+        });
 
         // Setup global context menu (only way to change display modes)
         setupGlobalContextMenu();
+
+        // Report what is clicked in the OpenGL viewer
+        OpenGLViewer.setOnPick(result -> reportPick(meshResolution, result));
+    }
+
+    /**
+     * Report the domain entities or the immersed object under a click in the OpenGL viewer
+     */
+    private void reportPick(MeshResolution meshResolution, PickResult result) {
+        if (result.objectId() != null) {
+            ProgressReporter.report(buildMessage("Picked immersed object %s, face %d at (%.4g, %.4g, %.4g)",
+                    objectManager.getDisplayName(result.objectId()), result.triangle(),
+                    result.x(), result.y(), result.z()));
+            return;
+        }
+        MeshDataAdapter.MeshEntities entities = MeshDataAdapter.entitiesOfTriangle(meshResolution,
+                result.triangle(), result.x(), result.y(), result.z());
+        StringBuilder message = new StringBuilder(buildMessage("Picked node %d at (%.4g, %.4g, %.4g)",
+                entities.node(), result.x(), result.y(), result.z()));
+        if (entities.element() >= 0) {
+            message.append(buildMessage(", element %d", entities.element()));
+        }
+        if (entities.boundaryFace() >= 0) {
+            String owner = sceneRenderer.getTagHandler().getFaceOwnerName(entities.boundaryFace());
+            message.append(buildMessage(", boundary face %d", entities.boundaryFace()));
+            if (owner != null) {
+                message.append(buildMessage(" of %s", owner));
+            }
+        }
+        ProgressReporter.report(message.toString());
     }
 
     /**
@@ -105,40 +187,105 @@ public class RightPaneController implements Initializable {
     /**
      * Add and display the boundary to the right pane
      * Delegates to objectManager
+     * <p>
+     * The mesh of an immersed object is loaded in background: the scene keeps its previous state meanwhile and
+     * the object is attached on the FX application thread once loaded.
+     * </p>
+     *
+     * @param onDisplayed called on the FX application thread once the boundary is displayed, or once its loading
+     *                    failed and the scene kept its previous state
      */
-    public void addAndDisplay(BoundaryDefinitionController boundaryDefinitionController) {
+    public void addAndDisplay(BoundaryDefinitionController boundaryDefinitionController, Runnable onDisplayed) {
         String controllerId = boundaryDefinitionController.toString();
-        Color existingColor = objectManager.getExistingColor(controllerId);
-
-        // Remove from both collections to ensure no duplicates
-        objectManager.removeObject(controllerId);
-        objectManager.removeShape(controllerId);
 
         // if standard shape then add it to shape list in the right pane
         if (boundaryDefinitionController.isStandardShape()) {
+            // Remove from both collections to ensure no duplicates
+            cancelObjectLoad(controllerId);
+            objectManager.removeObject(controllerId);
+            objectManager.removeShape(controllerId);
             addShape(boundaryDefinitionController);
-        } else {
-            ImmersedBoundaryController immersedController = boundaryDefinitionController.getImmersedBoundaryController();
-            Coordinates origin = new Coordinates(
-                    boundaryDefinitionController.getOriginX().getText(),
-                    boundaryDefinitionController.getOriginY().getText(),
-                    boundaryDefinitionController.getOriginZ().getText()
-            );
+            displayBoundary(boundaryDefinitionController, onDisplayed);
+            return;
+        }
+
+        ImmersedBoundaryController immersedController = boundaryDefinitionController.getImmersedBoundaryController();
+        Coordinates origin = new Coordinates(
+                boundaryDefinitionController.getOriginX().getText(),
+                boundaryDefinitionController.getOriginY().getText(),
+                boundaryDefinitionController.getOriginZ().getText()
+        );
+        String fileName = immersedController.getImportObject().getText();
+        String displayName = boundaryDefinitionController.getNameValue().getText();
+        if (displayName == null || displayName.trim().isEmpty()) {
+            displayName = fileName;
+        }
+        String objectName = displayName;
+
+        Task<MeshResolution> loadTask = new Task<>() {
+            @Override
+            protected MeshResolution call() {
+                return immersedController.getImmersedObjectMesh(fileName);
+            }
+        };
+        cancelObjectLoad(controllerId);
+        objectLoads.put(controllerId, loadTask);
+        EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_STARTED, "Loading " + objectName));
+        loadTask.setOnSucceeded(e -> {
+            EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_ENDED));
+            if (!objectLoads.remove(controllerId, loadTask)) {
+                // removed or validated again in the meantime
+                return;
+            }
+            Color existingColor = objectManager.getExistingColor(controllerId);
+            // Remove from both collections to ensure no duplicates
+            objectManager.removeObject(controllerId);
+            objectManager.removeShape(controllerId);
 
             // Add object to manager
-            objectManager.addObject(controllerId, immersedController.getImmersedObjectMesh(), origin, existingColor);
+            MeshResolution objectMesh = loadTask.getValue();
+            objectManager.addObject(controllerId, objectMesh, origin, existingColor);
+            sceneRenderer.getDistanceHandler().update(controllerId, objectMesh, origin);
+            if (DomainProperties.getInstance().is3D()) {
+                // objects imported from the same file share their geometry in the OpenGL viewer
+                Point3D objectOrigin = objectManager.getObjectOrigins().get(controllerId);
+                OpenGLViewer.showObject(controllerId, fileName, objectMesh,
+                        objectMesh.getColor(), objectOrigin.getX(), objectOrigin.getY(), objectOrigin.getZ());
+            }
 
             // Store the display name
-            String displayName = boundaryDefinitionController.getNameValue().getText();
-            if (displayName != null && !displayName.trim().isEmpty()) {
-                objectManager.setDisplayName(controllerId, displayName);
-            } else {
-                objectManager.setDisplayName(controllerId, immersedController.getImportObject().getText());
-            }
-        }
+            objectManager.setDisplayName(controllerId, objectName);
+            displayBoundary(boundaryDefinitionController, onDisplayed);
+        });
+        loadTask.setOnFailed(e -> {
+            EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_ENDED));
+            objectLoads.remove(controllerId, loadTask);
+            ProgressReporter.report(buildMessage("Error while loading immersed object %s: %s", objectName,
+                    loadTask.getException().getMessage()));
+            // the state computed at validation time is stale, refresh it against the objects actually displayed
+            onDisplayed.run();
+        });
+        loadTask.setOnCancelled(e -> EventManager.fireCustomEvent(new CustomEvent(OBJECT_IMPORT_ENDED)));
+        loadExecutor.execute(loadTask);
+    }
 
-        // Refresh display
+    /**
+     * Tag the domain boundary faces captured by the definition and refresh the display
+     */
+    private void displayBoundary(BoundaryDefinitionController boundaryDefinitionController, Runnable onDisplayed) {
+        sceneRenderer.getTagHandler().update(boundaryDefinitionController);
         displayBorderlines();
+        onDisplayed.run();
+    }
+
+    /**
+     * Drop the pending load of an object, its result is not attached
+     */
+    private void cancelObjectLoad(String controllerId) {
+        Task<MeshResolution> pending = objectLoads.remove(controllerId);
+        if (pending != null) {
+            pending.cancel(false);
+        }
     }
 
     /**
@@ -147,12 +294,16 @@ public class RightPaneController implements Initializable {
 
      */
     public void removeAndDisplay(BoundaryDefinitionController boundaryDefinitionController) {
+        cancelObjectLoad(boundaryDefinitionController.toString());
         if (boundaryDefinitionController.isImmersedObject()) {
             objectManager.removeObject(boundaryDefinitionController.toString());
+            sceneRenderer.getDistanceHandler().remove(boundaryDefinitionController.toString());
+            OpenGLViewer.removeObject(boundaryDefinitionController.toString());
         } else {
             objectManager.removeShape(boundaryDefinitionController.toString());
             objectManager.removeNormalArrow(boundaryDefinitionController.toString());
         }
+        sceneRenderer.getTagHandler().remove(boundaryDefinitionController);
 
         // refresh the display
         applySelectedDisplayMode();
@@ -184,6 +335,12 @@ public class RightPaneController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         ////Initialization complete - display modes are now controlled via context menu only  : )
+        // same menu on the OpenGL view, on a right click without drag since the right drag pans its camera
+        meshPaneController.getOpenGLView().addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            if (event.isStillSincePress() && rootPane != null && rootPane.getOnMouseClicked() != null) {
+                rootPane.getOnMouseClicked().handle(event);
+            }
+        });
     }
 
     /**
@@ -193,15 +350,19 @@ public class RightPaneController implements Initializable {
         globalContextMenu = new ContextMenu();
 
         /// Attach right-click listener to rootPane
-        rootPane.setOnMouseClicked(event -> {
+        EventHandler<MouseEvent> menuHandler = event -> {
             if (event.getButton() == MouseButton.SECONDARY) {
                 menuBuilder.buildContextMenu(globalContextMenu, v -> displayBorderlines());
-                globalContextMenu.show(rootPane, event.getScreenX(), event.getScreenY());
+                if (DomainProperties.getInstance().is3D()) {
+                    menuBuilder.buildViewSection(globalContextMenu, meshPaneController);
+                }
+                globalContextMenu.show((Node) event.getSource(), event.getScreenX(), event.getScreenY());
                 event.consume();
             } else if (event.getButton() == MouseButton.PRIMARY) {
                 // Close menu on left click
                 globalContextMenu.hide();
             }
-        });
+        };
+        rootPane.setOnMouseClicked(menuHandler);
     }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.softpath.riverpath.controller;
 
+import com.softpath.riverpath.custom.pane.EdgeCanvas;
 import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.EdgeChunks;
 import com.softpath.riverpath.util.DisplayMode;
 import com.softpath.riverpath.util.DomainProperties;
+import com.softpath.riverpath.util.ProgressReporter;
+import javafx.application.Platform;
 import javafx.scene.AmbientLight;
 import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
@@ -16,15 +21,27 @@ import javafx.scene.transform.Scale;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.softpath.riverpath.util.UtilityClass.buildMessage;
 
 /**
  * Responsible for rendering the complete scene:
- * Domain with SIMPLE or MESH mode
+ * Domain with SIMPLE, MESH or SLICE mode
+ * Boundary faces coloured by boundary definition
  * Immersed objects with individual modes
  * Shapes standard boundaries
  * Normal arrows
+ * <p>
+ * The mesh of a 2D domain is not a MeshView: its edges are drawn by an {@link EdgeCanvas} behind the scene.
+ * </p>
  */
 public class SceneRenderer {
 
@@ -36,112 +53,214 @@ public class SceneRenderer {
     private DisplayMode domainDisplayMode = DisplayMode.MESH;
     @Setter
     private MeshView surfaceDomainMeshView;
+    @Getter
+    private final DomainSliceHandler sliceHandler = new DomainSliceHandler(this::applyScale);
+    @Getter
+    private final BoundaryTagHandler tagHandler = new BoundaryTagHandler(this::applyScale);
+    @Getter
+    private final DistanceFieldHandler distanceHandler = new DistanceFieldHandler(this::applyScale);
+    /**
+     * Edges of the 2D domain in MESH mode
+     */
+    @Getter
+    private final EdgeCanvas domainCanvas = new EdgeCanvas();
+    private final ExecutorService edgeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Domain-Edges");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // incremented for each domain, an edge set built for a previous domain is dropped
+    private final AtomicInteger edgeGeneration = new AtomicInteger();
+
+    // Retained scene graph: one layer per kind of node, the light is added once
+    private final PhongMaterial blackMaterial = new PhongMaterial(Color.BLACK);
+    private final Group domainLayer = new Group();
+    private final Group objectLayer = new Group();
+    private final Group shapeLayer = new Group();
+    private final Group arrowLayer = new Group();
+    private final Group mainGroup = new Group(domainLayer, objectLayer, shapeLayer, arrowLayer,
+            new AmbientLight(Color.WHITE));
+    /**
+     * Displayed nodes of each immersed object by controller id
+     */
+    private final Map<String, ObjectNode> objectNodes = new LinkedHashMap<>();
+
+    /**
+     * The nodes of an immersed object and the state they were built for, the scale factor being the one of the
+     * domain displayed at that time
+     */
+    private record ObjectNode(MeshResolution mesh, DisplayMode mode, double scaleFactor, MeshView meshView,
+                              PhongMaterial material, Group group) {
+    }
 
     public SceneRenderer(MeshObjectManager objectManager) {
         this.objectManager = objectManager;
     }
 
     /**
-     * Render the complete scene to the root pane
+     * Build the unique edges of a 2D domain in background and hand them to the domain canvas
+     *
+     * @param meshResolution the 2D domain mesh
+     */
+    public void setDomainEdges(MeshResolution meshResolution) {
+        int generation = edgeGeneration.incrementAndGet();
+        domainCanvas.setEdges(null);
+        edgeExecutor.execute(() -> {
+            long start = System.currentTimeMillis();
+            EdgeChunks edges = EdgeChunks.build(meshResolution.getCoordinates(), meshResolution.getTriangles(),
+                    meshResolution.getNbTriangles(), meshResolution.getBounds());
+            ProgressReporter.report(buildMessage("Domain edges built in %d ms: %d edges in %d chunks",
+                    System.currentTimeMillis() - start, edges.getEdgeCount(), edges.getChunkCount()));
+            Platform.runLater(() -> {
+                if (generation == edgeGeneration.get()) {
+                    domainCanvas.setEdges(edges);
+                }
+            });
+        });
+    }
+
+    /**
+     * Render the complete scene to the root pane.
+     * <p>
+     * The scene graph is retained between calls: the desired nodes are compared to the current ones and only the
+     * layers or objects that changed are updated, the mesh views and materials of unchanged objects being reused.
+     * </p>
      */
     public void renderScene(Pane rootPane) {
         if (domainMeshView == null || rootPane == null) {
             return;
         }
 
-        rootPane.getChildren().clear();
-        Group mainGroup = new Group();
+        // a new root pane comes with a new domain
+        if (rootPane.getChildren().size() != 1 || rootPane.getChildren().get(0) != mainGroup) {
+            rootPane.getChildren().setAll(mainGroup);
+        }
 
         // Display domain according to its mode
-        renderDomain(mainGroup);
+        renderDomain();
 
         // Display objects according to their individual modes
-        renderObjects(mainGroup);
+        renderObjects();
 
         // Add shapes and normal arrows
-        renderShapes(mainGroup);
-        mainGroup.getChildren().addAll(objectManager.getNormalArrows().values());
-        // Add once to your scene
-        AmbientLight light = new AmbientLight(Color.WHITE);
-        mainGroup.getChildren().add(light);
+        renderShapes();
+        syncChildren(arrowLayer, new ArrayList<>(objectManager.getNormalArrows().values()));
+    }
 
-        rootPane.getChildren().add(mainGroup);
+    /**
+     * Replace the children of a layer only if they differ from the desired nodes
+     */
+    private static void syncChildren(Group layer, List<? extends Node> desired) {
+        if (!layer.getChildren().equals(desired)) {
+            layer.getChildren().setAll(desired);
+        }
     }
 
     /**
-     * Render the domain in SIMPLE or MESH mode
+     * Render the domain in SIMPLE, MESH, SLICE or DISTANCE mode
      */
-    private void renderDomain(Group mainGroup) {
-        if (domainDisplayMode == DisplayMode.SIMPLE) {
+    private void renderDomain() {
+        domainCanvas.setEdgesVisible(domainDisplayMode == DisplayMode.MESH);
+        if (domainDisplayMode == DisplayMode.DISTANCE) {
+            renderDistance();
+        } else if (domainDisplayMode == DisplayMode.SLICE) {
+            // Domain in SLICE mode: only the cross-section, computed in background
+            sliceHandler.setColorField(null, null);
+            sliceHandler.requestSlice();
+            syncChildren(domainLayer, List.of(sliceHandler.getSliceGroup()));
+        } else if (domainDisplayMode == DisplayMode.SIMPLE) {
             // Domain in SIMPLE mode
-            surfaceDomainMeshView.setDrawMode(DrawMode.LINE);
-            surfaceDomainMeshView.setMaterial(new PhongMaterial(Color.BLACK));
-            // this can help for inside view
-            surfaceDomainMeshView.setCullFace(CullFace.NONE);
-            mainGroup.getChildren().add(surfaceDomainMeshView);
+            showLines(surfaceDomainMeshView, blackMaterial);
+            syncChildren(domainLayer, List.of(surfaceDomainMeshView, tagHandler.getTagGroup()));
+        } else if (!DomainProperties.getInstance().is3D()) {
+            // Domain in MESH mode, 2D: the edges are drawn by the domain canvas
+            syncChildren(domainLayer, List.of(tagHandler.getTagGroup()));
         } else {
             // Domain in MESH mode: show full mesh
-            domainMeshView.setDrawMode(DrawMode.LINE);
-            domainMeshView.setCullFace(CullFace.NONE);
-            domainMeshView.setMaterial(new PhongMaterial(Color.BLACK));
-            mainGroup.getChildren().add(domainMeshView);
+            showLines(domainMeshView, blackMaterial);
+            syncChildren(domainLayer, List.of(domainMeshView, tagHandler.getTagGroup()));
+        }
+    }
+
+    /**
+     * Render the distance to the immersed objects: on the slice in 3D, on the whole domain in 2D
+     */
+    private void renderDistance() {
+        if (DomainProperties.getInstance().is3D()) {
+            sliceHandler.setColorField(distanceHandler.getField(), distanceHandler.getColorMap());
+            sliceHandler.requestSlice();
+            syncChildren(domainLayer, List.of(sliceHandler.getSliceGroup()));
+        } else if (distanceHandler.getFieldMeshView() != null) {
+            syncChildren(domainLayer, List.of(distanceHandler.getFieldMeshView()));
+        } else {
+            // field not computed yet: show the domain boundary
+            showLines(surfaceDomainMeshView, blackMaterial);
+            syncChildren(domainLayer, List.of(surfaceDomainMeshView));
         }
     }
 
     /**
-     * Render all objects with their individual modes
+     * Render all objects with their individual modes: an object whose mesh, mode and scale are unchanged keeps its
+     * mesh view, only its colour and position are updated
      */
-    private void renderObjects(Group mainGroup) {
-        for (Map.Entry<String, MeshResolution> entry : objectManager.getAllMeshes().entrySet()) {
+    private void renderObjects() {
+        Map<String, MeshResolution> meshes = objectManager.getAllMeshes();
+        double scaleFactor = DomainProperties.getInstance().getScaleFactor();
+        objectNodes.keySet().retainAll(meshes.keySet());
+        for (Map.Entry<String, MeshResolution> entry : meshes.entrySet()) {
             String objectId = entry.getKey(); // Use the correct key (controllerId)
             MeshResolution meshResolution = entry.getValue();
             DisplayMode objectMode = objectManager.getDisplayMode(objectId);
-            MeshView meshViewImmersedObj = meshViewImmersedObj(meshResolution, objectMode);
-            Group objectGroup = new Group(meshViewImmersedObj);
-            objectGroup.setPickOnBounds(true);
-            mainGroup.getChildren().add(objectGroup);
+            ObjectNode node = objectNodes.get(objectId);
+            // a new domain changes the scale factor baked in the mesh view
+            if (node == null || node.mesh() != meshResolution || node.mode() != objectMode
+                    || node.scaleFactor() != scaleFactor) {
+                node = createObjectNode(meshResolution, objectMode, scaleFactor);
+                objectNodes.put(objectId, node);
+            }
+            if (!meshResolution.getColor().equals(node.material().getDiffuseColor())) {
+                node.material().setDiffuseColor(meshResolution.getColor());
+            }
+            applyTranslate(meshResolution, node.meshView());
         }
+        List<Group> groups = new ArrayList<>(objectNodes.size());
+        objectNodes.values().forEach(node -> groups.add(node.group()));
+        syncChildren(objectLayer, groups);
     }
 
     /**
      * Render all shapes (standard boundaries)
      */
-    private void renderShapes(Group mainGroup) {
-        Map<String, Shape> shapes = objectManager.getShapes();
-        if (!shapes.isEmpty()) {
-            Collection<Shape> shapesCollection = shapes.values();
-            shapesCollection.forEach(shape -> {
-                shape.setFill(Color.TRANSPARENT);
-                shape.setStroke(Color.RED);
-                shape.setStrokeWidth(1);
-            });
-            mainGroup.getChildren().addAll(shapesCollection);
-        }
+    private void renderShapes() {
+        Collection<Shape> shapesCollection = objectManager.getShapes().values();
+        shapesCollection.forEach(shape -> {
+            shape.setFill(Color.TRANSPARENT);
+            shape.setStroke(Color.RED);
+            shape.setStrokeWidth(1);
+        });
+        syncChildren(shapeLayer, new ArrayList<>(shapesCollection));
+    }
+
+    private static void showLines(MeshView meshView, PhongMaterial material) {
+        meshView.setDrawMode(DrawMode.LINE);
+        // this can help for inside view
+        meshView.setCullFace(CullFace.NONE);
+        meshView.setMaterial(material);
     }
 
     /**
-     * Create nodes for an object based on its display mode
+     * Create the nodes of an object based on its display mode
      */
-    private MeshView meshViewImmersedObj(MeshResolution meshResolution, DisplayMode mode) {
-        if (mode == DisplayMode.SIMPLE) {
-            // Mode SIMPLE: show only borders
-            MeshView meshView = new MeshView(meshResolution.getTriangleSurface());
-            applyScale(meshView);
-            meshView.setDrawMode(DrawMode.LINE);
-            meshView.setCullFace(CullFace.NONE);
-            meshView.setMaterial(new PhongMaterial(meshResolution.getColor()));
-            applyTranslate(meshResolution, meshView);
-            return meshView;
-        } else {
-            // For 3D objects, create MeshView
-            MeshView objectMeshView = new MeshView(meshResolution.getReducedMesh());
-            applyScale(objectMeshView);
-            objectMeshView.setDrawMode(DrawMode.LINE);
-            objectMeshView.setCullFace(CullFace.NONE);
-            objectMeshView.setMaterial(new PhongMaterial(meshResolution.getColor()));
-            applyTranslate(meshResolution, objectMeshView);
-            return objectMeshView;
-        }
+    private ObjectNode createObjectNode(MeshResolution meshResolution, DisplayMode mode, double scaleFactor) {
+        // Mode SIMPLE: show only borders, otherwise the whole mesh
+        MeshView meshView = new MeshView(mode == DisplayMode.SIMPLE
+                ? meshResolution.getTriangleSurface() : meshResolution.getReducedMesh());
+        applyScale(meshView, scaleFactor);
+        PhongMaterial material = new PhongMaterial(meshResolution.getColor());
+        showLines(meshView, material);
+        Group objectGroup = new Group(meshView);
+        objectGroup.setPickOnBounds(true);
+        return new ObjectNode(meshResolution, mode, scaleFactor, meshView, material, objectGroup);
     }
 
     private void applyTranslate(MeshResolution meshResolution, MeshView meshView) {
@@ -154,7 +273,10 @@ public class SceneRenderer {
      * Apply scale transformation to a mesh view
      */
     public void applyScale(MeshView meshView) {
-        double scaleFactor = DomainProperties.getInstance().getScaleFactor();
+        applyScale(meshView, DomainProperties.getInstance().getScaleFactor());
+    }
+
+    private static void applyScale(MeshView meshView, double scaleFactor) {
         // ⚠️JAVAFX_INVERTED_AXIS_Y
         Scale scale = new Scale(scaleFactor, -scaleFactor, scaleFactor);
         meshView.getTransforms().add(scale);
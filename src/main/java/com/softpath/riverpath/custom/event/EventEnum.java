@@ -20,7 +20,6 @@ public enum EventEnum {
     BOUNDARY_NAME_CHANGED,
     BOUNDARY_REMOVED,
     NEW_TOTAL_INCREMENT_VALUE,
-    PROGRESS_BAR_UPDATE,
     NEW_PROJECT,
     IMPORT_PROJECT,
     DATA_SAVED,
@@ -29,5 +28,7 @@ public enum EventEnum {
     TITLE_PANE_VALIDATED,
     TITLE_PANE_BOUNDARY_DEF_CREATED,
     NEW_RUN_FIRED,
-    SAVED_STATE
+    SAVED_STATE,
+    OBJECT_IMPORT_STARTED,
+    OBJECT_IMPORT_ENDED
 }
@@ -0,0 +1,47 @@
+package com.softpath.riverpath.custom.event;
+
+import com.softpath.riverpath.fileparser.SolverEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Channel of the typed records parsed from the solver output, apart from the UI events of {@link EventManager}.
+ * <p>
+ * Events are delivered on the thread reading the solver output, in order, so a listener must be fast and hand
+ * over to the FX application thread itself if it updates the UI.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class SolverEventChannel {
+
+    private static final SolverEventChannel INSTANCE = new SolverEventChannel();
+
+    private final List<Consumer<SolverEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    private SolverEventChannel() {
+    }
+
+    public static SolverEventChannel getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Consumer<SolverEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<SolverEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Deliver an event to all listeners, on the calling thread
+     */
+    public void publish(SolverEvent event) {
+        for (Consumer<SolverEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.softpath.riverpath.custom.pane;
+
+import com.softpath.riverpath.geometry.EdgeChunks;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws the edges of a 2D mesh into a {@link Canvas}, for the domains too large for the JavaFX 3D pipeline.
+ * <p>
+ * The edges are pre-rasterized into a pyramid of {@value #TILE_SIZE} pixel tiles: level 0 holds the whole mesh in
+ * one tile and each level doubles the resolution. Tiles are rendered on background threads and kept in a cache
+ * bounded to {@value #MAX_TILES} tiles with LRU eviction of the tiles neither visible nor of level 0, so a pan or
+ * a zoom only draws a few cached images and its cost does not depend on the mesh size. A tile not rendered yet is replaced by the part of its closest cached
+ * ancestor, upscaled, until it is ready.
+ * </p>
+ * <p>
+ * A tile is rasterized into an int array and written to its image in one call: chunks of edges outside the tile
+ * are skipped, and a chunk or an edge smaller than a pixel is drawn as one pixel.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class EdgeCanvas extends Region {
+
+    private static final int TILE_SIZE = 256;
+    private static final int MAX_LEVEL = 12;
+    // 64 MB of tiles, exceeded only when more tiles are visible at once
+    private static final int MAX_TILES = 256;
+    private static final long ROOT_TILE = key(0, 0, 0);
+    private static final int EDGE_COLOR = 0xFF000000;
+
+    private final Canvas canvas = new Canvas();
+    private final ExecutorService tileExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+                Thread thread = new Thread(runnable, "Edge-Tiles");
+                thread.setDaemon(true);
+                return thread;
+            });
+    /**
+     * Rendered tiles by key, least recently drawn first, FX application thread only. The visible tiles and the
+     * level 0 tile are never evicted: evicting a visible tile would request it again at the next redraw.
+     */
+    private final Map<Long, WritableImage> tiles = new LinkedHashMap<>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+            if (size() <= MAX_TILES) {
+                return false;
+            }
+            // back to the bound once the tiles visible before are no longer visible
+            Set<Long> visible = wanted;
+            Iterator<Long> keys = keySet().iterator();
+            while (size() > MAX_TILES && keys.hasNext()) {
+                long key = keys.next();
+                if (key != ROOT_TILE && !visible.contains(key)) {
+                    keys.remove();
+                }
+            }
+            return false;
+        }
+    };
+    // tiles queued or being rendered
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    // tiles visible at the last redraw, a queued tile no longer visible is not rendered
+    private volatile Set<Long> wanted = Set.of();
+    private EdgeChunks edges;
+    // incremented when the edges change, the tiles rendered for previous edges are dropped
+    private int generation;
+    private boolean edgesVisible = true;
+    // square covered by the level 0 tile, in mesh coordinates
+    private double originX, originY, extent;
+    // screen x = translateX + scale * x, screen y = translateY - scale * y
+    private double scale = 1;
+    private double translateX;
+    private double translateY;
+    private boolean redrawRequested;
+
+    public EdgeCanvas() {
+        getChildren().add(canvas);
+        setMouseTransparent(true);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            requestRedraw();
+        }
+    }
+
+    /**
+     * Set the edges to draw, null to draw nothing
+     */
+    public void setEdges(EdgeChunks edges) {
+        this.edges = edges;
+        generation++;
+        tiles.clear();
+        pending.clear();
+        if (edges != null && edges.getChunkCount() > 0) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int chunk = 0; chunk < edges.getChunkCount(); chunk++) {
+                minX = Math.min(minX, edges.getBound(chunk, 0));
+                minY = Math.min(minY, edges.getBound(chunk, 1));
+                maxX = Math.max(maxX, edges.getBound(chunk, 2));
+                maxY = Math.max(maxY, edges.getBound(chunk, 3));
+            }
+            extent = Math.max(Math.max(maxX - minX, maxY - minY), Double.MIN_NORMAL);
+            originX = minX;
+            // tiles go downwards from the top of the mesh
+            originY = maxY;
+        }
+        requestRedraw();
+    }
+
+    public void setEdgesVisible(boolean edgesVisible) {
+        if (this.edgesVisible != edgesVisible) {
+            this.edgesVisible = edgesVisible;
+            requestRedraw();
+        }
+    }
+
+    /**
+     * Set the transform from mesh coordinates to canvas pixels, the y axis pointing up in the mesh
+     *
+     * @param scale      pixels per mesh unit
+     * @param translateX canvas x of the mesh origin
+     * @param translateY canvas y of the mesh origin
+     */
+    public void setView(double scale, double translateX, double translateY) {
+        this.scale = scale;
+        this.translateX = translateX;
+        this.translateY = translateY;
+        requestRedraw();
+    }
+
+    private void requestRedraw() {
+        if (!redrawRequested) {
+            redrawRequested = true;
+            Platform.runLater(this::redraw);
+        }
+    }
+
+    private void redraw() {
+        redrawRequested = false;
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, width, height);
+        if (edges == null || edges.getChunkCount() == 0 || !edgesVisible || width <= 0 || height <= 0) {
+            wanted = Set.of();
+            return;
+        }
+        // the coarsest level at least as fine as the screen, tiles are downscaled by less than 2 when drawn
+        int level = (int) Math.ceil(Math.log(scale * extent / TILE_SIZE) / Math.log(2));
+        level = Math.max(0, Math.min(MAX_LEVEL, level));
+        double tileExtent = extent / (1 << level);
+        double tilePixels = tileExtent * scale;
+        int lastTile = (1 << level) - 1;
+        int firstColumn = Math.max(0, (int) Math.floor((-translateX / scale - originX) / tileExtent));
+        int lastColumn = Math.min(lastTile, (int) Math.floor(((width - translateX) / scale - originX) / tileExtent));
+        int firstRow = Math.max(0, (int) Math.floor((originY - translateY / scale) / tileExtent));
+        int lastRow = Math.min(lastTile, (int) Math.floor((originY - (translateY - height) / scale) / tileExtent));
+
+        // the whole mesh in one tile, drawn under the tiles not rendered yet
+        if (!tiles.containsKey(ROOT_TILE)) {
+            requestTile(0, 0, 0);
+        }
+        // published before the tiles are requested, read by the tile threads
+        Set<Long> visible = ConcurrentHashMap.newKeySet();
+        wanted = visible;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                long key = key(level, column, row);
+                visible.add(key);
+                double x = translateX + scale * (originX + column * tileExtent);
+                double y = translateY - scale * (originY - row * tileExtent);
+                WritableImage tile = tiles.get(key);
+                if (tile != null) {
+                    gc.drawImage(tile, x, y, tilePixels, tilePixels);
+                } else {
+                    requestTile(level, column, row);
+                    drawAncestor(gc, level, column, row, x, y, tilePixels);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw the part of the closest cached ancestor covering a tile not rendered yet
+     */
+    private void drawAncestor(GraphicsContext gc, int level, int column, int row, double x, double y, double size) {
+        for (int up = 1; up <= level; up++) {
+            WritableImage ancestor = tiles.get(key(level - up, column >> up, row >> up));
+            if (ancestor != null) {
+                double part = (double) TILE_SIZE / (1 << up);
+                double sourceX = (column & ((1 << up) - 1)) * part;
+                double sourceY = (row & ((1 << up) - 1)) * part;
+                gc.drawImage(ancestor, sourceX, sourceY, part, part, x, y, size, size);
+                return;
+            }
+        }
+    }
+
+    private void requestTile(int level, int column, int row) {
+        long key = key(level, column, row);
+        if (!pending.add(key)) {
+            return;
+        }
+        EdgeChunks tileEdges = edges;
+        int tileGeneration = generation;
+        double tileScale = TILE_SIZE / (extent / (1 << level));
+        double tileTranslateX = -(originX + column * extent / (1 << level)) * tileScale;
+        double tileTranslateY = (originY - row * extent / (1 << level)) * tileScale;
+        tileExecutor.execute(() -> {
+            if (level > 0 && !wanted.contains(key)) {
+                // scrolled away before its turn, rendered again if it comes back
+                pending.remove(key);
+                return;
+            }
+            int[] raster = new int[TILE_SIZE * TILE_SIZE];
+            rasterize(tileEdges, raster, tileScale, tileTranslateX, tileTranslateY);
+            WritableImage image = new WritableImage(TILE_SIZE, TILE_SIZE);
+            image.getPixelWriter().setPixels(0, 0, TILE_SIZE, TILE_SIZE, PixelFormat.getIntArgbPreInstance(),
+                    raster, 0, TILE_SIZE);
+            Platform.runLater(() -> {
+                if (tileGeneration == generation) {
+                    pending.remove(key);
+                    tiles.put(key, image);
+                    requestRedraw();
+                }
+            });
+        });
+    }
+
+    private static long key(int level, int column, int row) {
+        return ((long) level << 56) | ((long) column << 28) | row;
+    }
+
+    /**
+     * Rasterize the edges into a tile
+     */
+    private static void rasterize(EdgeChunks chunks, int[] raster, double scale, double translateX, double translateY) {
+        for (int chunk = 0; chunk < chunks.getChunkCount(); chunk++) {
+            double minX = translateX + scale * chunks.getBound(chunk, 0);
+            double maxX = translateX + scale * chunks.getBound(chunk, 2);
+            double minY = translateY - scale * chunks.getBound(chunk, 3);
+            double maxY = translateY - scale * chunks.getBound(chunk, 1);
+            if (maxX < 0 || maxY < 0 || minX >= TILE_SIZE || minY >= TILE_SIZE) {
+                continue;
+            }
+            if (maxX - minX < 1 && maxY - minY < 1) {
+                plot(raster, (int) minX, (int) minY);
+                continue;
+            }
+            int last = chunks.getFirstEdge(chunk + 1);
+            for (int edge = chunks.getFirstEdge(chunk); edge < last; edge++) {
+                drawEdge(raster, translateX + scale * chunks.getX(edge, 0), translateY - scale * chunks.getY(edge, 0),
+                        translateX + scale * chunks.getX(edge, 1), translateY - scale * chunks.getY(edge, 1));
+            }
+        }
+    }
+
+    /**
+     * Clip an edge to the tile (Liang-Barsky), so that an edge far longer than the tile at a deep level only
+     * walks its pixels inside the tile, then draw it with Bresenham or as one pixel if it is smaller than a pixel
+     */
+    private static void drawEdge(int[] raster, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1, dy = y2 - y1;
+        double enter = 0, exit = 1;
+        // the parameters of the crossings of the two vertical then the two horizontal tile sides
+        if (dx == 0) {
+            if (x1 < 0 || x1 > TILE_SIZE) {
+                return;
+            }
+        } else {
+            double t1 = -x1 / dx, t2 = (TILE_SIZE - x1) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y1 < 0 || y1 > TILE_SIZE) {
+                return;
+            }
+        } else {
+            double t1 = -y1 / dy, t2 = (TILE_SIZE - y1) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (enter > exit) {
+            return;
+        }
+        int startX = (int) Math.floor(x1 + enter * dx), startY = (int) Math.floor(y1 + enter * dy);
+        int endX = (int) Math.floor(x1 + exit * dx), endY = (int) Math.floor(y1 + exit * dy);
+        if (startX == endX && startY == endY) {
+            plot(raster, startX, startY);
+        } else {
+            drawLine(raster, startX, startY, endX, endY);
+        }
+    }
+
+    /**
+     * Bresenham line between two pixels
+     */
+    private static void drawLine(int[] raster, int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x2 - x1), dy = -Math.abs(y2 - y1);
+        int stepX = x1 < x2 ? 1 : -1, stepY = y1 < y2 ? 1 : -1;
+        int error = dx + dy;
+        int x = x1, y = y1;
+        while (true) {
+            plot(raster, x, y);
+            if (x == x2 && y == y2) {
+                return;
+            }
+            int doubled = 2 * error;
+            if (doubled >= dy) {
+                error += dy;
+                x += stepX;
+            }
+            if (doubled <= dx) {
+                error += dx;
+                y += stepY;
+            }
+        }
+    }
+
+    private static void plot(int[] raster, int x, int y) {
+        if (x >= 0 && y >= 0 && x < TILE_SIZE && y < TILE_SIZE) {
+            raster[y * TILE_SIZE + x] = EDGE_COLOR;
+        }
+    }
+}
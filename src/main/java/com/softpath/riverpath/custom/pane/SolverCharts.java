@@ -0,0 +1,175 @@
+package com.softpath.riverpath.custom.pane;
+
+import com.softpath.riverpath.custom.event.EventEnum;
+import com.softpath.riverpath.custom.event.EventManager;
+import com.softpath.riverpath.custom.event.SolverEventChannel;
+import com.softpath.riverpath.fileparser.SolverEvent;
+import com.softpath.riverpath.util.DoubleArrayList;
+import com.softpath.riverpath.util.LttbDownsampler;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live charts of the running simulation: residuals, time step size, drag and lift.
+ * <p>
+ * The points come from the {@link SolverEventChannel} and are stored in primitive arrays, all of them. The charts
+ * are refreshed at a fixed cadence whatever the time step rate: each changed series is downsampled with
+ * Largest-Triangle-Three-Buckets to the pixel width of its chart, so a chart never holds more points than it can
+ * show.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class SolverCharts extends VBox {
+
+    private static final Duration REFRESH_PERIOD = Duration.millis(250);
+
+    private final ChartSeries residuals = new ChartSeries("Residual");
+    private final ChartSeries timeStepSizes = new ChartSeries("Time step size");
+    private final ChartSeries drag = new ChartSeries("Drag");
+    private final ChartSeries lift = new ChartSeries("Lift");
+    private final LineChart<Number, Number> residualChart = createChart("Solve", "log10 residual", residuals);
+    private final LineChart<Number, Number> timeStepChart = createChart("Time step", "Time step size",
+            timeStepSizes);
+    private final LineChart<Number, Number> dragLiftChart = createChart("Time", "Coefficient", drag, lift);
+    // written by the solver output reader thread, reset for a new run
+    private volatile double currentStep;
+    private volatile long residualCount;
+
+    public SolverCharts() {
+        getStyleClass().add("solver-charts");
+        dragLiftChart.setLegendVisible(true);
+        getChildren().addAll(residualChart, timeStepChart, dragLiftChart);
+        SolverEventChannel.getInstance().addListener(this::accept);
+        // a new run starts new curves
+        EventManager.addEventHandler(EventEnum.NEW_RUN_FIRED, event -> clear());
+        Timeline refresh = new Timeline(new KeyFrame(REFRESH_PERIOD, event -> refresh()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        refresh.play();
+    }
+
+    private static LineChart<Number, Number> createChart(String xLabel, String yLabel, ChartSeries... series) {
+        NumberAxis xAxis = new NumberAxis();
+        xAxis.setLabel(xLabel);
+        xAxis.setForceZeroInRange(false);
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel(yLabel);
+        yAxis.setForceZeroInRange(false);
+        LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
+        chart.setAnimated(false);
+        chart.setCreateSymbols(false);
+        chart.setLegendVisible(false);
+        for (ChartSeries s : series) {
+            chart.getData().add(s.series);
+            chart.widthProperty().addListener((obs, oldWidth, newWidth) -> s.invalidate());
+        }
+        VBox.setVgrow(chart, Priority.ALWAYS);
+        return chart;
+    }
+
+    /**
+     * Store a solver event, called on the solver output reader thread
+     */
+    private void accept(SolverEvent event) {
+        switch (event.type()) {
+            case TIME_STEP -> currentStep = event.value();
+            case RESIDUAL -> {
+                residualCount++;
+                // no logarithm for an exact solve
+                if (event.value() != 0) {
+                    residuals.add(residualCount, Math.log10(Math.abs(event.value())));
+                }
+            }
+            case TIME_STEP_SIZE -> timeStepSizes.add(currentStep, event.value());
+            case DRAG -> drag.add(event.time(), event.value());
+            case LIFT -> lift.add(event.time(), event.value());
+            default -> {
+                // not charted
+            }
+        }
+    }
+
+    private void refresh() {
+        residuals.refresh(residualChart);
+        timeStepSizes.refresh(timeStepChart);
+        drag.refresh(dragLiftChart);
+        lift.refresh(dragLiftChart);
+    }
+
+    private void clear() {
+        currentStep = 0;
+        residualCount = 0;
+        residuals.clear();
+        timeStepSizes.clear();
+        drag.clear();
+        lift.clear();
+    }
+
+    /**
+     * All the points of a curve and the downsampled points shown by its chart
+     */
+    private static class ChartSeries {
+
+        // all points, guarded by this
+        private final DoubleArrayList x = new DoubleArrayList(1024);
+        private final DoubleArrayList y = new DoubleArrayList(1024);
+        private boolean changed;
+        // points shown, FX application thread only
+        private final DoubleArrayList shownX = new DoubleArrayList();
+        private final DoubleArrayList shownY = new DoubleArrayList();
+        private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+
+        ChartSeries(String name) {
+            series.setName(name);
+        }
+
+        synchronized void add(double pointX, double pointY) {
+            x.add(pointX);
+            y.add(pointY);
+            changed = true;
+        }
+
+        /**
+         * Downsample again at the next refresh, the chart width changed
+         */
+        synchronized void invalidate() {
+            changed = true;
+        }
+
+        synchronized void clear() {
+            x.clear();
+            y.clear();
+            changed = true;
+        }
+
+        /**
+         * Show the points downsampled to the chart width, if they changed since the previous refresh
+         */
+        void refresh(LineChart<Number, Number> chart) {
+            synchronized (this) {
+                // not laid out yet, e.g. in a tab never shown
+                if (!changed || chart.getWidth() <= 0) {
+                    return;
+                }
+                changed = false;
+                int threshold = Math.max(3, (int) chart.getWidth());
+                LttbDownsampler.downsample(x.elements(), y.elements(), x.size(), threshold, shownX, shownY);
+            }
+            List<XYChart.Data<Number, Number>> points = new ArrayList<>(shownX.size());
+            for (int i = 0; i < shownX.size(); i++) {
+                points.add(new XYChart.Data<>(shownX.get(i), shownY.get(i)));
+            }
+            series.getData().setAll(points);
+        }
+    }
+}
@@ -23,6 +23,15 @@ public class CFDTriangleMesh extends TriangleMesh {
         //vertexMap.put(vertexId, new Point3D(point.getX(), point.getY(), point.getZ()));
     }
 
+    /**
+     * Add several points to the mesh at once
+     *
+     * @param coordinates the point coordinates (x, y, z interleaved)
+     */
+    public void addPoints(float[] coordinates) {
+        getPoints().addAll(coordinates);
+    }
+
     /**
      * Add a triangle / face to the mesh based on 3 vertices
      *
@@ -2,7 +2,6 @@ package com.softpath.riverpath.fileparser;
 
 import com.softpath.riverpath.util.DomainProperties;
 import com.softpath.riverpath.util.ProgressReporter;
-import javafx.geometry.Point3D;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.BufferedReader;
@@ -39,21 +38,22 @@ public class MeshFileParser {
             boolean is3D = dimension == 3;
 
             // Read points
+            float[] coordinates = new float[numberOfPoints * 3];
             for (int i = 0; i < numberOfPoints; i++) {
                 String line = reader.readLine();
                 int idx1 = line.indexOf(' ');
+                int offset = i * 3;
                 if (is3D) {
                     int idx2 = line.indexOf(' ', idx1 + 1);
-                    double x = Double.parseDouble(line.substring(0, idx1));
-                    double y = Double.parseDouble(line.substring(idx1 + 1, idx2));
-                    double z = Double.parseDouble(line.substring(idx2 + 1));
-                    meshResolution.addPoint(new Point3D(x, y, z));
+                    coordinates[offset] = (float) Double.parseDouble(line.substring(0, idx1));
+                    coordinates[offset + 1] = (float) Double.parseDouble(line.substring(idx1 + 1, idx2));
+                    coordinates[offset + 2] = (float) Double.parseDouble(line.substring(idx2 + 1));
                 } else {
-                    double x = Double.parseDouble(line.substring(0, idx1));
-                    double y = Double.parseDouble(line.substring(idx1 + 1));
-                    meshResolution.addPoint(new Point3D(x, y, 0));
+                    coordinates[offset] = (float) Double.parseDouble(line.substring(0, idx1));
+                    coordinates[offset + 1] = (float) Double.parseDouble(line.substring(idx1 + 1));
                 }
             }
+            meshResolution.addPoints(coordinates);
             // handle faces of triangle mesh
             handleFaces(reader, meshResolution);
             // add texture coordinates at the end
@@ -1,11 +1,16 @@
 package com.softpath.riverpath.fileparser;
 
+import com.softpath.riverpath.geometry.MeshBVH;
+import com.softpath.riverpath.geometry.MeshBounds;
+import com.softpath.riverpath.util.IntArrayList;
 import com.softpath.riverpath.util.ProgressReporter;
 import javafx.geometry.Point3D;
 import javafx.scene.paint.Color;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.softpath.riverpath.util.UtilityClass.buildMessage;
@@ -24,6 +29,32 @@ public class MeshResolution {
     private boolean isReduced;
     private double reductionFactor;
     private final AtomicInteger currentNbTriangles;
+    /**
+     * Point coordinates (x, y, z interleaved) shared with geometric algorithms
+     */
+    @Getter
+    private float[] coordinates = new float[0];
+    /**
+     * Bounds and centroid computed once when the points are loaded
+     */
+    @Getter
+    private MeshBounds bounds = MeshBounds.EMPTY;
+    /**
+     * Tetrahedra vertex indices (4 per tetrahedron), kept since the triangle meshes only store their faces
+     */
+    private final IntArrayList tetrahedra;
+    /**
+     * Triangle vertex indices (3 per triangle): the elements of a 2D mesh or the boundary faces of a 3D mesh
+     */
+    private final IntArrayList triangles = new IntArrayList();
+    /**
+     * Boundary edge vertex indices (2 per edge) of a 2D mesh
+     */
+    private final IntArrayList boundaryEdges = new IntArrayList();
+    /**
+     * Spatial indexes built on first use and kept with the mesh
+     */
+    private final Map<MeshBVH.ElementType, MeshBVH> bvhCache = new EnumMap<>(MeshBVH.ElementType.class);
     @Getter
     @Setter
     private Color color;
@@ -36,6 +67,7 @@ public class MeshResolution {
         this.triangleMeshReduced = new CFDTriangleMesh();
         this.triangleSurface = new CFDTriangleMesh();
         currentNbTriangles = new AtomicInteger(0);
+        tetrahedra = new IntArrayList(Math.max(0, nbTetra) * 4);
         if (nbTetra > MAX_REDUCED_TETRA) {
             ProgressReporter.report(buildMessage("Warning: The mesh contains %d tetrahedrons which is more " +
                             "than the maximum allowed %d. The mesh will be reduced for performance reasons.",
@@ -54,27 +86,93 @@ public class MeshResolution {
         }
     }
 
-    public void addPoint(Point3D point) {
-        triangleMesh.addPoint(point);
-        triangleSurface.addPoint(point);
+    /**
+     * Add all points of the mesh at once and compute their bounds
+     *
+     * @param coordinates the point coordinates (x, y, z interleaved)
+     */
+    public void addPoints(float[] coordinates) {
+        this.coordinates = coordinates;
+        this.bounds = MeshBounds.compute(coordinates);
+        triangleMesh.addPoints(coordinates);
+        triangleSurface.addPoints(coordinates);
         if (isReduced) {
-            triangleMeshReduced.addPoint(point);
+            triangleMeshReduced.addPoints(coordinates);
         }
     }
 
+    /**
+     * Return the tetrahedra vertex indices without copy.
+     * Only the first 4 * {@link #getNbTetrahedra()} values are meaningful.
+     *
+     * @return the tetrahedra vertex indices
+     */
+    public int[] getTetrahedra() {
+        return tetrahedra.elements();
+    }
+
+    public int getNbTetrahedra() {
+        return tetrahedra.size() / 4;
+    }
+
+    /**
+     * Return the triangle vertex indices without copy: the elements of a 2D mesh or the boundary faces of a 3D mesh.
+     * Only the first 3 * {@link #getNbTriangles()} values are meaningful.
+     *
+     * @return the triangle vertex indices
+     */
+    public int[] getTriangles() {
+        return triangles.elements();
+    }
+
+    public int getNbTriangles() {
+        return triangles.size() / 3;
+    }
+
+    /**
+     * Return the boundary edge vertex indices of a 2D mesh without copy.
+     * Only the first 2 * {@link #getNbBoundaryEdges()} values are meaningful.
+     *
+     * @return the boundary edge vertex indices
+     */
+    public int[] getBoundaryEdges() {
+        return boundaryEdges.elements();
+    }
+
+    public int getNbBoundaryEdges() {
+        return boundaryEdges.size() / 2;
+    }
+
+    /**
+     * Return the spatial index of the given elements, built in parallel on the first call
+     *
+     * @param type SEGMENT for the 2D boundary edges, TRIANGLE for the triangles, TETRAHEDRON for the tetrahedra
+     * @return the spatial index
+     */
+    public synchronized MeshBVH getBVH(MeshBVH.ElementType type) {
+        return bvhCache.computeIfAbsent(type, key -> switch (key) {
+            case SEGMENT -> MeshBVH.build(key, coordinates, getBoundaryEdges(), getNbBoundaryEdges());
+            case TRIANGLE -> MeshBVH.build(key, coordinates, getTriangles(), getNbTriangles());
+            case TETRAHEDRON -> MeshBVH.build(key, coordinates, getTetrahedra(), getNbTetrahedra());
+        });
+    }
+
     public void add2DTriangle(int vertex1, int vertex2, int vertex3) {
         if (vertex3 == -1) {
+            boundaryEdges.addAll(vertex1, vertex2);
             triangleSurface.addTriangle(vertex1, vertex2, vertex1);
             triangleMesh.addTriangle(vertex1, vertex2, vertex1);
             if (isReduced) {
                 triangleMeshReduced.addTriangle(vertex1, vertex2, vertex1);
             }
         } else {
+            triangles.addAll(vertex1, vertex2, vertex3);
             triangleMesh.addTriangle(vertex1, vertex2, vertex3);
         }
     }
 
     public void addTriangleSurface(int vertex1, int vertex2, int vertex3) {
+        triangles.addAll(vertex1, vertex2, vertex3);
         triangleMesh.addTriangle(vertex1, vertex2, vertex3);
         triangleSurface.addTriangle(vertex1, vertex2, vertex3);
         if (isReduced) {
@@ -83,6 +181,7 @@ public class MeshResolution {
     }
 
     public void addTetraFaces(int vertex1, int vertex2, int vertex3, int vertex4) {
+        tetrahedra.addAll(vertex1, vertex2, vertex3, vertex4);
         // Face 1
         triangleMesh.addTriangle(vertex1, vertex2, vertex3);
         // Face 2
@@ -0,0 +1,186 @@
+package com.softpath.riverpath.fileparser;
+
+import com.softpath.riverpath.custom.event.SolverEventChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Follows the file written by the DragLift sensor of the solver and publishes its drag and lift values.
+ * <p>
+ * The sensor writes one line per output step with the fields of its dependencies: time step counter, time,
+ * drag (Cx0) and lift (Cy0). The file is looked for under the run directory once the run started, then polled:
+ * only the bytes appended since the previous poll are read, and lines that are not all numbers (headers) are
+ * skipped.
+ * </p>
+ *
+ * @author rhajou
+ */
+@Slf4j
+public class SensorFileTailer {
+
+    private static final long POLL_MILLIS = 500;
+    private static final int SEARCH_DEPTH = 3;
+    private static final int COLUMNS = 4;
+
+    private final String sensorName;
+    private final Consumer<SolverEvent> sink;
+    private ScheduledExecutorService scheduler;
+    private File directory;
+    private long startTime;
+    private File file;
+    private long offset;
+    private final StringBuilder partialLine = new StringBuilder();
+    private final double[] columns = new double[COLUMNS];
+
+    /**
+     * Tailer of the DragLift sensor publishing to the {@link SolverEventChannel}
+     */
+    public SensorFileTailer() {
+        this("DragLift", SolverEventChannel.getInstance()::publish);
+    }
+
+    /**
+     * @param sensorName the file name of the sensor, without extension
+     * @param sink       receives the events, on the polling thread
+     */
+    public SensorFileTailer(String sensorName, Consumer<SolverEvent> sink) {
+        this.sensorName = sensorName;
+        this.sink = sink;
+    }
+
+    /**
+     * Start following the sensor file of a run, the files older than the run are ignored
+     *
+     * @param runDirectory the directory the solver runs in
+     */
+    public synchronized void start(File runDirectory) {
+        stop();
+        directory = runDirectory;
+        // file times may be rounded to the second
+        startTime = System.currentTimeMillis() - 1000;
+        file = null;
+        offset = 0;
+        partialLine.setLength(0);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sensor-Tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read what was appended since the last poll and stop following the file
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            poll();
+        }
+    }
+
+    /**
+     * Publish the lines appended since the previous poll, run by the scheduler
+     */
+    synchronized void poll() {
+        if (file == null) {
+            file = findSensorFile().orElse(null);
+            if (file == null) {
+                return;
+            }
+        }
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            long length = input.length();
+            if (length < offset) {
+                // rewritten from the start
+                offset = 0;
+                partialLine.setLength(0);
+            }
+            if (length == offset) {
+                return;
+            }
+            byte[] bytes = new byte[(int) Math.min(Integer.MAX_VALUE, length - offset)];
+            input.seek(offset);
+            input.readFully(bytes);
+            offset += bytes.length;
+            partialLine.append(new String(bytes, StandardCharsets.ISO_8859_1));
+        } catch (IOException e) {
+            log.warn("Cannot read the sensor file {}", file, e);
+            return;
+        }
+        int lineStart = 0;
+        for (int i = 0; i < partialLine.length(); i++) {
+            if (partialLine.charAt(i) == '\n') {
+                parseLine(partialLine.substring(lineStart, i));
+                lineStart = i + 1;
+            }
+        }
+        // keep the last line until it is complete
+        partialLine.delete(0, lineStart);
+    }
+
+    private Optional<File> findSensorFile() {
+        if (directory == null || !directory.isDirectory()) {
+            return Optional.empty();
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath(), SEARCH_DEPTH)) {
+            return paths.map(Path::toFile)
+                    .filter(File::isFile)
+                    .filter(candidate -> candidate.getName().equals(sensorName)
+                            || candidate.getName().equals(sensorName + ".txt"))
+                    .filter(candidate -> candidate.lastModified() >= startTime)
+                    .findFirst();
+        } catch (IOException | RuntimeException e) {
+            // the solver may create and delete files meanwhile, try again at the next poll
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Publish the drag and lift of a line of numbers: counter, time, drag, lift
+     */
+    private void parseLine(String line) {
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            int tokenStart = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (tokenStart == i) {
+                break;
+            }
+            if (count == COLUMNS) {
+                // extra columns are ignored
+                continue;
+            }
+            try {
+                columns[count++] = Double.parseDouble(line.substring(tokenStart, i));
+            } catch (NumberFormatException e) {
+                // header line
+                return;
+            }
+        }
+        if (count == COLUMNS) {
+            sink.accept(new SolverEvent(SolverEvent.Type.DRAG, columns[2], columns[1], null));
+            sink.accept(new SolverEvent(SolverEvent.Type.LIFT, columns[3], columns[1], null));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.softpath.riverpath.fileparser;
+
+/**
+ * A record recognized in the solver output by the {@link SolverLogParser}
+ *
+ * @param type    the kind of record
+ * @param value   the value of the record, NaN for a warning
+ * @param time    the physical time of the record when it carries one, NaN otherwise
+ * @param message the whole line for a warning, null otherwise
+ * @author rhajou
+ */
+public record SolverEvent(Type type, double value, double time, String message) {
+
+    public enum Type {
+        /**
+         * Time step counter, the value is the increment
+         */
+        TIME_STEP,
+        /**
+         * Physical time reached by the simulation
+         */
+        PHYSICAL_TIME,
+        /**
+         * Time step size
+         */
+        TIME_STEP_SIZE,
+        /**
+         * Residual of the current solve
+         */
+        RESIDUAL,
+        /**
+         * Iteration count of the current solve
+         */
+        SOLVER_ITERATION,
+        /**
+         * CPU time in seconds
+         */
+        CPU_TIME,
+        /**
+         * Drag coefficient written by the DragLift sensor, with its time
+         */
+        DRAG,
+        /**
+         * Lift coefficient written by the DragLift sensor, with its time
+         */
+        LIFT,
+        /**
+         * Warning printed by the solver
+         */
+        WARNING
+    }
+}
@@ -0,0 +1,180 @@
+package com.softpath.riverpath.fileparser;
+
+import com.softpath.riverpath.custom.event.SolverEventChannel;
+
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser of the solver output, turning the lines it recognizes into {@link SolverEvent}s.
+ * <p>
+ * A record is a line {@code <label> : <value>} (or {@code =}) whose label is one of {@link #LABELS}, such as
+ * {@code Increment de CompteurTemps : 5}, or a line starting with a warning keyword. Each line is scanned once
+ * with character comparisons and the number is read in place: no regex, no split and no allocation for the lines
+ * that are not records, which are the vast majority of the output.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class SolverLogParser {
+
+    /**
+     * A known label: the whole label, or its beginning if {@code prefix}, compared ignoring case
+     */
+    private record Label(String text, boolean prefix, SolverEvent.Type type) {
+    }
+
+    // most specific first, "Temps CPU" before "Temps". Only the time step increment drives the progress, not the
+    // other lines printing the time step counter
+    private static final Label[] LABELS = {
+            new Label("Increment de CompteurTemps", false, SolverEvent.Type.TIME_STEP),
+            new Label("Temps CPU", true, SolverEvent.Type.CPU_TIME),
+            new Label("CPU", true, SolverEvent.Type.CPU_TIME),
+            new Label("Temps", false, SolverEvent.Type.PHYSICAL_TIME),
+            new Label("PasDeTemps", false, SolverEvent.Type.TIME_STEP_SIZE),
+            new Label("Pas de temps", false, SolverEvent.Type.TIME_STEP_SIZE),
+            new Label("Residu", true, SolverEvent.Type.RESIDUAL),
+            new Label("Résidu", true, SolverEvent.Type.RESIDUAL),
+            new Label("Nombre d'iterations", true, SolverEvent.Type.SOLVER_ITERATION),
+            new Label("Nombre d'itérations", true, SolverEvent.Type.SOLVER_ITERATION),
+            new Label("Iteration", true, SolverEvent.Type.SOLVER_ITERATION),
+            new Label("Itération", true, SolverEvent.Type.SOLVER_ITERATION)
+    };
+    private static final String[] WARNING_KEYWORDS = {"Warning", "Attention"};
+    // significant digits kept in the mantissa, the next ones only scale it
+    private static final int MAX_DIGITS = 18;
+
+    private final Consumer<SolverEvent> sink;
+
+    /**
+     * Parser publishing to the {@link SolverEventChannel}
+     */
+    public SolverLogParser() {
+        this(SolverEventChannel.getInstance()::publish);
+    }
+
+    /**
+     * @param sink receives the events, on the thread calling {@link #parse(String)}
+     */
+    public SolverLogParser(Consumer<SolverEvent> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Parse a line of the solver output, an event is emitted if it is a record
+     *
+     * @param line the line, without line separator
+     */
+    public void parse(String line) {
+        int length = line.length();
+        int start = 0;
+        while (start < length && line.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == length) {
+            return;
+        }
+        for (String keyword : WARNING_KEYWORDS) {
+            if (line.regionMatches(true, start, keyword, 0, keyword.length())) {
+                sink.accept(new SolverEvent(SolverEvent.Type.WARNING, Double.NaN, Double.NaN, line.substring(start)));
+                return;
+            }
+        }
+        int separator = start;
+        while (separator < length && line.charAt(separator) != ':' && line.charAt(separator) != '=') {
+            separator++;
+        }
+        if (separator == length) {
+            return;
+        }
+        int end = separator;
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        SolverEvent.Type type = classify(line, start, end - start);
+        if (type == null) {
+            return;
+        }
+        double value = parseNumber(line, separator + 1);
+        if (!Double.isNaN(value)) {
+            sink.accept(new SolverEvent(type, value, Double.NaN, null));
+        }
+    }
+
+    private static SolverEvent.Type classify(String line, int start, int labelLength) {
+        for (Label label : LABELS) {
+            int textLength = label.text().length();
+            boolean lengthMatches = label.prefix() ? labelLength >= textLength : labelLength == textLength;
+            if (lengthMatches && line.regionMatches(true, start, label.text(), 0, textLength)) {
+                return label.type();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a decimal number such as {@code -1.5e-03} in place
+     *
+     * @return the number, NaN if there is no number at the position
+     */
+    static double parseNumber(String line, int from) {
+        int length = line.length();
+        int i = from;
+        while (i < length && line.charAt(i) <= ' ') {
+            i++;
+        }
+        boolean negative = false;
+        if (i < length && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; i < length; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    if (mantissa != 0 || c != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return Double.NaN;
+        }
+        // exponent, also with the Fortran D
+        if (i + 1 < length && "eEdD".indexOf(line.charAt(i)) >= 0) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (line.charAt(j) == '-' || line.charAt(j) == '+') {
+                negativeExponent = line.charAt(j) == '-';
+                j++;
+            }
+            int value = 0;
+            boolean exponentDigit = false;
+            for (; j < length && line.charAt(j) >= '0' && line.charAt(j) <= '9'; j++) {
+                exponentDigit = true;
+                value = Math.min(1000, value * 10 + (line.charAt(j) - '0'));
+            }
+            if (exponentDigit) {
+                exponent += negativeExponent ? -value : value;
+            }
+        }
+        double result = exponent >= 0 ? mantissa * Math.pow(10, exponent) : mantissa / Math.pow(10, -exponent);
+        return negative ? -result : result;
+    }
+}
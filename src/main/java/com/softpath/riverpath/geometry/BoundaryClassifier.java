@@ -0,0 +1,123 @@
+package com.softpath.riverpath.geometry;
+
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Tag the boundary faces of a mesh with the boundary definitions containing them.
+ * <p>
+ * A face belongs to a definition when all its vertices lie in the definition region.
+ * The membership of each definition is kept as a bit set, so changing one definition only
+ * re-classifies the faces against this definition. Owners are then resolved by priority:
+ * a face captured by several definitions belongs to the first one in the priority order.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class BoundaryClassifier {
+
+    public static final int NO_OWNER = -1;
+
+    @Getter
+    private final float[] coordinates;
+    @Getter
+    private final int[] faces;
+    @Getter
+    private final int nbVerticesPerFace;
+    @Getter
+    private final int nbFaces;
+    private final Map<String, BitSet> memberships = new HashMap<>();
+
+    /**
+     * @param coordinates       the mesh coordinates (x, y, z interleaved)
+     * @param faces             the boundary face vertex indices
+     * @param nbVerticesPerFace 2 for the edges of a 2D mesh, 3 for the triangles of a 3D mesh
+     * @param nbFaces           the number of faces stored in the array
+     */
+    public BoundaryClassifier(float[] coordinates, int[] faces, int nbVerticesPerFace, int nbFaces) {
+        this.coordinates = coordinates;
+        this.faces = faces;
+        this.nbVerticesPerFace = nbVerticesPerFace;
+        this.nbFaces = nbFaces;
+    }
+
+    /**
+     * Classify all faces against the region of a definition, replacing its previous membership
+     *
+     * @param id     the definition identifier
+     * @param region the definition region
+     * @return the faces contained in the region
+     */
+    public synchronized BitSet update(String id, BoundaryRegion region) {
+        // each task fills a 64 bits word, so no synchronization is needed between tasks
+        long[] words = new long[(nbFaces + 63) / 64];
+        IntStream.range(0, words.length).parallel().forEach(w -> {
+            long word = 0;
+            int end = Math.min(nbFaces, (w + 1) * 64);
+            for (int face = w * 64; face < end; face++) {
+                if (isInside(face, region)) {
+                    word |= 1L << (face - w * 64);
+                }
+            }
+            words[w] = word;
+        });
+        BitSet membership = BitSet.valueOf(words);
+        memberships.put(id, membership);
+        return membership;
+    }
+
+    /**
+     * Forget the membership of a definition
+     *
+     * @param id the definition identifier
+     */
+    public synchronized void remove(String id) {
+        memberships.remove(id);
+    }
+
+    /**
+     * @param id the definition identifier
+     * @return the faces contained in the definition region, empty if the definition is unknown
+     */
+    public synchronized BitSet getMembership(String id) {
+        return (BitSet) memberships.getOrDefault(id, new BitSet()).clone();
+    }
+
+    /**
+     * Resolve the owner of every face
+     *
+     * @param idsByPriority the definition identifiers, highest priority first
+     * @return for each face the position of its owner in idsByPriority, {@link #NO_OWNER} if no definition contains it
+     */
+    public synchronized int[] resolveOwners(List<String> idsByPriority) {
+        BitSet[] ordered = idsByPriority.stream()
+                .map(id -> memberships.getOrDefault(id, new BitSet()))
+                .toArray(BitSet[]::new);
+        int[] owners = new int[nbFaces];
+        IntStream.range(0, nbFaces).parallel().forEach(face -> {
+            owners[face] = NO_OWNER;
+            for (int rank = 0; rank < ordered.length; rank++) {
+                if (ordered[rank].get(face)) {
+                    owners[face] = rank;
+                    break;
+                }
+            }
+        });
+        return owners;
+    }
+
+    private boolean isInside(int face, BoundaryRegion region) {
+        for (int k = 0; k < nbVerticesPerFace; k++) {
+            int vertex = faces[face * nbVerticesPerFace + k] * 3;
+            if (!region.contains(coordinates[vertex], coordinates[vertex + 1], coordinates[vertex + 2])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
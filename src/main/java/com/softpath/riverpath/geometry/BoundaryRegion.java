@@ -0,0 +1,55 @@
+package com.softpath.riverpath.geometry;
+
+/**
+ * Analytic region of space used to decide which domain boundary nodes a boundary definition captures.
+ * The regions mirror the analytic geometries written in the solver input (DemiPlan, Boule, Brique).
+ *
+ * @author rhajou
+ */
+@FunctionalInterface
+public interface BoundaryRegion {
+
+    /**
+     * @return true if the point belongs to the region
+     */
+    boolean contains(double x, double y, double z);
+
+    /**
+     * Half-space on the side of the normal: the points whose signed distance to the plane is at least -tolerance.
+     * A plane lying on a domain face with an outward normal captures exactly this face.
+     */
+    static BoundaryRegion halfSpace(double originX, double originY, double originZ,
+                                    double normalX, double normalY, double normalZ, double tolerance) {
+        double length = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+        if (length == 0) {
+            throw new IllegalArgumentException("Normal vector must not be zero.");
+        }
+        double nx = normalX / length;
+        double ny = normalY / length;
+        double nz = normalZ / length;
+        return (x, y, z) -> (x - originX) * nx + (y - originY) * ny + (z - originZ) * nz >= -tolerance;
+    }
+
+    /**
+     * Disk in 2D or ball in 3D
+     */
+    static BoundaryRegion ball(double centerX, double centerY, double centerZ, double radius, double tolerance) {
+        double limit = (radius + tolerance) * (radius + tolerance);
+        return (x, y, z) -> {
+            double dx = x - centerX;
+            double dy = y - centerY;
+            double dz = z - centerZ;
+            return dx * dx + dy * dy + dz * dz <= limit;
+        };
+    }
+
+    /**
+     * Axis-aligned box, use infinite bounds to leave an axis unbounded
+     */
+    static BoundaryRegion box(double minX, double minY, double minZ,
+                              double maxX, double maxY, double maxZ, double tolerance) {
+        return (x, y, z) -> x >= minX - tolerance && x <= maxX + tolerance
+                && y >= minY - tolerance && y <= maxY + tolerance
+                && z >= minZ - tolerance && z <= maxZ + tolerance;
+    }
+}
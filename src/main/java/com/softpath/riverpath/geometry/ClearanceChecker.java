@@ -0,0 +1,137 @@
+package com.softpath.riverpath.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Check that immersed objects neither overlap each other nor cross the domain boundary, and report
+ * the gaps thinner than a minimum clearance.
+ * <p>
+ * Every pair (object, domain boundary) and (object, object) is checked in parallel with a distance query
+ * between the boundary hierarchies, limited to the minimum clearance so that distant pairs are pruned at the
+ * first levels. Pairs whose surfaces do not touch may still overlap when one contains the other: this is
+ * tested by the parity of ray crossings from a point of each surface.
+ * </p>
+ *
+ * @author rhajou
+ */
+public final class ClearanceChecker {
+
+    private ClearanceChecker() {
+    }
+
+    /**
+     * Check the objects against the domain boundary and against each other
+     *
+     * @param domain       the domain boundary: triangles in 3D, segments in 2D
+     * @param objects      the immersed objects, their surfaces holding the same kind of elements as the domain
+     * @param minClearance gaps thinner than this distance are reported
+     * @param tolerance    surfaces closer than this distance are considered as intersecting
+     * @return the issues found, objects against the domain first, empty if all objects are clear
+     */
+    public static List<Issue> check(MeshBVH domain, List<Body> objects, double minClearance, double tolerance) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < objects.size(); i++) {
+            // -1 stands for the domain boundary
+            pairs.add(new int[]{-1, i});
+        }
+        for (int i = 0; i < objects.size(); i++) {
+            for (int j = i + 1; j < objects.size(); j++) {
+                pairs.add(new int[]{i, j});
+            }
+        }
+        Body domainBody = new Body(null, domain, 0, 0, 0);
+        return IntStream.range(0, pairs.size()).parallel()
+                .mapToObj(p -> {
+                    int[] pair = pairs.get(p);
+                    Body first = pair[0] < 0 ? domainBody : objects.get(pair[0]);
+                    return checkPair(first, objects.get(pair[1]), pair[0] < 0, minClearance, tolerance);
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static Issue checkPair(Body first, Body second, boolean isDomain, double minClearance, double tolerance) {
+        double distance = first.surface().distanceTo(second.surface(),
+                second.x() - first.x(), second.y() - first.y(), second.z() - first.z(), minClearance);
+        if (distance <= tolerance) {
+            return new Issue(IssueType.INTERSECTION, first.name(), second.name(), 0);
+        }
+        if (isDomain && !encloses(first, second)) {
+            return new Issue(IssueType.OUTSIDE_DOMAIN, null, second.name(), distance);
+        }
+        if (!isDomain && (encloses(first, second) || encloses(second, first))) {
+            return new Issue(IssueType.CONTAINED, first.name(), second.name(), distance);
+        }
+        if (distance < minClearance) {
+            return new Issue(IssueType.CLOSE, first.name(), second.name(), distance);
+        }
+        return null;
+    }
+
+    /**
+     * Test if a point of the inner body lies inside the outer one
+     */
+    private static boolean encloses(Body outer, Body inner) {
+        if (inner.surface().getNbElements() == 0) {
+            return false;
+        }
+        double[] point = new double[9];
+        inner.surface().firstVertex(point);
+        return outer.surface().encloses(point[0] + inner.x() - outer.x(),
+                point[1] + inner.y() - outer.y(),
+                point[2] + inner.z() - outer.z());
+    }
+
+    /**
+     * Kind of problem found between two surfaces
+     */
+    public enum IssueType {
+        /**
+         * the surfaces cross or touch each other
+         */
+        INTERSECTION,
+        /**
+         * one object lies inside the other
+         */
+        CONTAINED,
+        /**
+         * the object lies outside the domain
+         */
+        OUTSIDE_DOMAIN,
+        /**
+         * the gap between the surfaces is thinner than the minimum clearance
+         */
+        CLOSE
+    }
+
+    /**
+     * Boundary of an immersed object placed in the domain
+     *
+     * @param name    the name reported in issues
+     * @param surface the object boundary, in coordinates relative to its origin
+     * @param x       the object origin in the domain
+     */
+    public record Body(String name, MeshBVH surface, double x, double y, double z) {
+    }
+
+    /**
+     * Problem found between two surfaces
+     *
+     * @param type     the kind of problem
+     * @param first    the first object name, null for the domain boundary
+     * @param second   the second object name
+     * @param distance the distance between the surfaces
+     */
+    public record Issue(IssueType type, String first, String second, double distance) {
+
+        /**
+         * @return true if the problem makes the simulation meaningless
+         */
+        public boolean isBlocking() {
+            return type != IssueType.CLOSE;
+        }
+    }
+}
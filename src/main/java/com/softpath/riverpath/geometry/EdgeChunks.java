@@ -0,0 +1,159 @@
+package com.softpath.riverpath.geometry;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Unique edges of a 2D mesh, sorted along a Morton curve of their midpoint and cut in chunks with their
+ * bounding box, so that a renderer skips the chunks outside its viewport and draws a chunk smaller than
+ * a pixel as a single point.
+ * <p>
+ * Edges shared by two triangles are kept once: the set is built by sorting the packed vertex pairs of all
+ * triangle sides and removing the duplicates, in parallel.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class EdgeChunks {
+
+    /**
+     * Maximum number of edges per chunk
+     */
+    public static final int CHUNK_EDGES = 1 << 10;
+    // 2 x 15 bits, so that the shifted code stays positive
+    private static final int MORTON_BITS = 15;
+
+    private final float[] coordinates;
+    private final int[] edges;
+    private final int[] firstEdge;
+    private final float[] bounds;
+
+    private EdgeChunks(float[] coordinates, int[] edges, int[] firstEdge, float[] bounds) {
+        this.coordinates = coordinates;
+        this.edges = edges;
+        this.firstEdge = firstEdge;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Build the unique edges of the triangles
+     *
+     * @param coordinates the mesh coordinates (x, y, z interleaved), z being ignored
+     * @param triangles   the triangle vertex indices (3 per triangle)
+     * @param nbTriangles the number of triangles stored in the array
+     * @param meshBounds  the mesh bounds
+     */
+    public static EdgeChunks build(float[] coordinates, int[] triangles, int nbTriangles, MeshBounds meshBounds) {
+        // every triangle side as (smallest vertex, largest vertex) packed in a long
+        long[] sides = new long[nbTriangles * 3];
+        IntStream.range(0, nbTriangles).parallel().forEach(t -> {
+            for (int c = 0; c < 3; c++) {
+                int v1 = triangles[t * 3 + c];
+                int v2 = triangles[t * 3 + (c + 1) % 3];
+                sides[t * 3 + c] = ((long) Math.min(v1, v2) << 32) | Math.max(v1, v2);
+            }
+        });
+        Arrays.parallelSort(sides);
+        int nbEdges = 0;
+        for (int i = 0; i < sides.length; i++) {
+            if (i == 0 || sides[i] != sides[i - 1]) {
+                sides[nbEdges++] = sides[i];
+            }
+        }
+
+        // sort the unique edges along the Morton curve of their midpoint
+        double minX = meshBounds.minX(), minY = meshBounds.minY();
+        double width = meshBounds.getWidth(), height = meshBounds.getHeight();
+        int cells = (1 << MORTON_BITS) - 1;
+        long[] keys = new long[nbEdges];
+        IntStream.range(0, nbEdges).parallel().forEach(e -> {
+            int v1 = (int) (sides[e] >>> 32), v2 = (int) sides[e];
+            double x = (coordinates[v1 * 3] + coordinates[v2 * 3]) / 2;
+            double y = (coordinates[v1 * 3 + 1] + coordinates[v2 * 3 + 1]) / 2;
+            int cellX = width > 0 ? (int) Math.round((x - minX) / width * cells) : 0;
+            int cellY = height > 0 ? (int) Math.round((y - minY) / height * cells) : 0;
+            long code = spreadBits(Math.max(0, Math.min(cells, cellX)))
+                    | spreadBits(Math.max(0, Math.min(cells, cellY))) << 1;
+            // the edge index in the low bits keeps the order deterministic
+            keys[e] = (code << 32) | e;
+        });
+        Arrays.parallelSort(keys);
+        int[] edges = new int[nbEdges * 2];
+        IntStream.range(0, nbEdges).parallel().forEach(k -> {
+            long edge = sides[(int) keys[k]];
+            edges[k * 2] = (int) (edge >>> 32);
+            edges[k * 2 + 1] = (int) edge;
+        });
+
+        int nbChunks = (nbEdges + CHUNK_EDGES - 1) / CHUNK_EDGES;
+        int[] firstEdge = new int[nbChunks + 1];
+        for (int c = 0; c <= nbChunks; c++) {
+            firstEdge[c] = Math.min(nbEdges, c * CHUNK_EDGES);
+        }
+        float[] bounds = new float[nbChunks * 4];
+        IntStream.range(0, nbChunks).parallel().forEach(c -> {
+            float chunkMinX = Float.MAX_VALUE, chunkMinY = Float.MAX_VALUE;
+            float chunkMaxX = -Float.MAX_VALUE, chunkMaxY = -Float.MAX_VALUE;
+            for (int i = firstEdge[c] * 2; i < firstEdge[c + 1] * 2; i++) {
+                float x = coordinates[edges[i] * 3], y = coordinates[edges[i] * 3 + 1];
+                chunkMinX = Math.min(chunkMinX, x);
+                chunkMinY = Math.min(chunkMinY, y);
+                chunkMaxX = Math.max(chunkMaxX, x);
+                chunkMaxY = Math.max(chunkMaxY, y);
+            }
+            bounds[c * 4] = chunkMinX;
+            bounds[c * 4 + 1] = chunkMinY;
+            bounds[c * 4 + 2] = chunkMaxX;
+            bounds[c * 4 + 3] = chunkMaxY;
+        });
+        return new EdgeChunks(coordinates, edges, firstEdge, bounds);
+    }
+
+    /**
+     * Insert a zero bit between each of the 15 low bits of the value
+     */
+    private static long spreadBits(int value) {
+        long x = value & 0x7FFF;
+        x = (x | (x << 8)) & 0x00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0FL;
+        x = (x | (x << 2)) & 0x33333333L;
+        x = (x | (x << 1)) & 0x55555555L;
+        return x;
+    }
+
+    public int getChunkCount() {
+        return firstEdge.length - 1;
+    }
+
+    public int getEdgeCount() {
+        return edges.length / 2;
+    }
+
+    /**
+     * @return the first edge of the chunk, the edges of the chunk going up to the first edge of the next one
+     */
+    public int getFirstEdge(int chunk) {
+        return firstEdge[chunk];
+    }
+
+    /**
+     * @return the bounding box of the chunk: min x, min y, max x, max y
+     */
+    public float getBound(int chunk, int corner) {
+        return bounds[chunk * 4 + corner];
+    }
+
+    /**
+     * @return the x coordinate of an end of an edge
+     */
+    public float getX(int edge, int end) {
+        return coordinates[edges[edge * 2 + end] * 3];
+    }
+
+    /**
+     * @return the y coordinate of an end of an edge
+     */
+    public float getY(int edge, int end) {
+        return coordinates[edges[edge * 2 + end] * 3 + 1];
+    }
+}
@@ -0,0 +1,335 @@
+package com.softpath.riverpath.geometry;
+
+/**
+ * Elementary geometric predicates and distance computations on points, segments, triangles and tetrahedra.
+ * <p>
+ * All methods work on raw coordinates to stay allocation free in parallel loops.
+ * Methods computing a point write it in the {@code out} array (x, y, z) and return a squared distance.
+ * Degeneracy tests are relative to the size of the elements, so the results do not depend on the mesh units.
+ * </p>
+ *
+ * @author rhajou
+ */
+public final class GeometryUtils {
+
+    // relative tolerance: a product of lengths smaller than EPSILON times the same product of edge lengths is 0
+    private static final double EPSILON = 1e-12;
+
+    private GeometryUtils() {
+    }
+
+    /**
+     * Closest point of the segment [a, b] to p
+     *
+     * @return the squared distance between p and the closest point
+     */
+    public static double closestPointOnSegment(double px, double py, double pz,
+                                               double ax, double ay, double az,
+                                               double bx, double by, double bz,
+                                               double[] out) {
+        double abx = bx - ax, aby = by - ay, abz = bz - az;
+        double length2 = abx * abx + aby * aby + abz * abz;
+        double t = length2 == 0 ? 0 : ((px - ax) * abx + (py - ay) * aby + (pz - az) * abz) / length2;
+        t = Math.max(0, Math.min(1, t));
+        return setAndMeasure(px, py, pz, ax + t * abx, ay + t * aby, az + t * abz, out);
+    }
+
+    /**
+     * Closest point of the triangle (a, b, c) to p, following Ericson, Real-Time Collision Detection, 5.1.5
+     *
+     * @return the squared distance between p and the closest point
+     */
+    public static double closestPointOnTriangle(double px, double py, double pz,
+                                                double ax, double ay, double az,
+                                                double bx, double by, double bz,
+                                                double cx, double cy, double cz,
+                                                double[] out) {
+        double abx = bx - ax, aby = by - ay, abz = bz - az;
+        double acx = cx - ax, acy = cy - ay, acz = cz - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+        double d1 = abx * apx + aby * apy + abz * apz;
+        double d2 = acx * apx + acy * apy + acz * apz;
+        if (d1 <= 0 && d2 <= 0) {
+            return setAndMeasure(px, py, pz, ax, ay, az, out);
+        }
+        double bpx = px - bx, bpy = py - by, bpz = pz - bz;
+        double d3 = abx * bpx + aby * bpy + abz * bpz;
+        double d4 = acx * bpx + acy * bpy + acz * bpz;
+        if (d3 >= 0 && d4 <= d3) {
+            return setAndMeasure(px, py, pz, bx, by, bz, out);
+        }
+        double vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            double v = d1 / (d1 - d3);
+            return setAndMeasure(px, py, pz, ax + v * abx, ay + v * aby, az + v * abz, out);
+        }
+        double cpx = px - cx, cpy = py - cy, cpz = pz - cz;
+        double d5 = abx * cpx + aby * cpy + abz * cpz;
+        double d6 = acx * cpx + acy * cpy + acz * cpz;
+        if (d6 >= 0 && d5 <= d6) {
+            return setAndMeasure(px, py, pz, cx, cy, cz, out);
+        }
+        double vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            double w = d2 / (d2 - d6);
+            return setAndMeasure(px, py, pz, ax + w * acx, ay + w * acy, az + w * acz, out);
+        }
+        double va = d3 * d6 - d5 * d4;
+        if (va <= 0 && (d4 - d3) >= 0 && (d5 - d6) >= 0) {
+            double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            return setAndMeasure(px, py, pz, bx + w * (cx - bx), by + w * (cy - by), bz + w * (cz - bz), out);
+        }
+        // the sum is |ab x ac|^2
+        double sum = va + vb + vc;
+        if (isNegligible(sum, square(abx * abx + aby * aby + abz * abz) * square(acx * acx + acy * acy + acz * acz))) {
+            // degenerate (flat) triangle: closest point of its edges
+            return closestPointOnEdges(px, py, pz, ax, ay, az, bx, by, bz, cx, cy, cz, out);
+        }
+        double v = vb / sum;
+        double w = vc / sum;
+        return setAndMeasure(px, py, pz, ax + abx * v + acx * w, ay + aby * v + acy * w, az + abz * v + acz * w, out);
+    }
+
+    /**
+     * Intersect the ray o + t * d with the triangle (a, b, c) (Moller-Trumbore)
+     *
+     * @return the ray parameter t of the hit, or -1 if there is no hit in front of the origin
+     */
+    public static double rayTriangle(double ox, double oy, double oz,
+                                     double dx, double dy, double dz,
+                                     double ax, double ay, double az,
+                                     double bx, double by, double bz,
+                                     double cx, double cy, double cz) {
+        double e1x = bx - ax, e1y = by - ay, e1z = bz - az;
+        double e2x = cx - ax, e2y = cy - ay, e2z = cz - az;
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        // ray parallel to the triangle, or flat triangle
+        if (isNegligible(det, (dx * dx + dy * dy + dz * dz) * (e1x * e1x + e1y * e1y + e1z * e1z)
+                * (e2x * e2x + e2y * e2y + e2z * e2z))) {
+            return -1;
+        }
+        double invDet = 1 / det;
+        double tx = ox - ax, ty = oy - ay, tz = oz - az;
+        double u = (tx * px + ty * py + tz * pz) * invDet;
+        if (u < 0 || u > 1) {
+            return -1;
+        }
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * invDet;
+        if (v < 0 || u + v > 1) {
+            return -1;
+        }
+        double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        return t >= 0 ? t : -1;
+    }
+
+    /**
+     * Test if p lies inside the triangle (a, b, c) projected on the XY plane
+     *
+     * @param tolerance relative tolerance on the barycentric coordinates
+     */
+    public static boolean isInsideTriangle2D(double px, double py,
+                                             double ax, double ay,
+                                             double bx, double by,
+                                             double cx, double cy,
+                                             double tolerance) {
+        double abx = bx - ax, aby = by - ay;
+        double acx = cx - ax, acy = cy - ay;
+        double det = abx * acy - acx * aby;
+        if (isNegligible(det, (abx * abx + aby * aby) * (acx * acx + acy * acy))) {
+            return false;
+        }
+        double l1 = ((px - ax) * acy - acx * (py - ay)) / det;
+        double l2 = (abx * (py - ay) - (px - ax) * aby) / det;
+        return l1 >= -tolerance && l2 >= -tolerance && 1 - l1 - l2 >= -tolerance;
+    }
+
+    /**
+     * Test if p lies inside the tetrahedron (a, b, c, d)
+     *
+     * @param tolerance relative tolerance on the barycentric coordinates
+     */
+    public static boolean isInsideTetrahedron(double px, double py, double pz,
+                                              double ax, double ay, double az,
+                                              double bx, double by, double bz,
+                                              double cx, double cy, double cz,
+                                              double dx, double dy, double dz,
+                                              double tolerance) {
+        double abx = bx - ax, aby = by - ay, abz = bz - az;
+        double acx = cx - ax, acy = cy - ay, acz = cz - az;
+        double adx = dx - ax, ady = dy - ay, adz = dz - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+        double volume = determinant(abx, aby, abz, acx, acy, acz, adx, ady, adz);
+        if (isNegligible(volume, (abx * abx + aby * aby + abz * abz) * (acx * acx + acy * acy + acz * acz)
+                * (adx * adx + ady * ady + adz * adz))) {
+            return false;
+        }
+        double l1 = determinant(apx, apy, apz, acx, acy, acz, adx, ady, adz) / volume;
+        double l2 = determinant(abx, aby, abz, apx, apy, apz, adx, ady, adz) / volume;
+        double l3 = determinant(abx, aby, abz, acx, acy, acz, apx, apy, apz) / volume;
+        return l1 >= -tolerance && l2 >= -tolerance && l3 >= -tolerance && 1 - l1 - l2 - l3 >= -tolerance;
+    }
+
+    /**
+     * Squared distance between the segments [p1, q1] and [p2, q2], following Ericson, Real-Time Collision
+     * Detection, 5.1.9
+     */
+    public static double segmentSegmentDistanceSquared(double p1x, double p1y, double p1z,
+                                                       double q1x, double q1y, double q1z,
+                                                       double p2x, double p2y, double p2z,
+                                                       double q2x, double q2y, double q2z) {
+        double d1x = q1x - p1x, d1y = q1y - p1y, d1z = q1z - p1z;
+        double d2x = q2x - p2x, d2y = q2y - p2y, d2z = q2z - p2z;
+        double rx = p1x - p2x, ry = p1y - p2y, rz = p1z - p2z;
+        double a = d1x * d1x + d1y * d1y + d1z * d1z;
+        double e = d2x * d2x + d2y * d2y + d2z * d2z;
+        double f = d2x * rx + d2y * ry + d2z * rz;
+        double s = 0;
+        double t = 0;
+        // a segment is a point if it is negligible against the other one
+        double scale = a + e;
+        if (a <= EPSILON * scale) {
+            t = e <= EPSILON * scale ? 0 : clamp(f / e);
+        } else {
+            double c = d1x * rx + d1y * ry + d1z * rz;
+            if (e <= EPSILON * scale) {
+                s = clamp(-c / a);
+            } else {
+                double b = d1x * d2x + d1y * d2y + d1z * d2z;
+                double denominator = a * e - b * b;
+                // parallel segments: any s is fine, t is then corrected
+                s = denominator > EPSILON * a * e ? clamp((b * f - c * e) / denominator) : 0;
+                t = (b * s + f) / e;
+                if (t < 0) {
+                    t = 0;
+                    s = clamp(-c / a);
+                } else if (t > 1) {
+                    t = 1;
+                    s = clamp((b - c) / a);
+                }
+            }
+        }
+        double dx = p1x + d1x * s - p2x - d2x * t;
+        double dy = p1y + d1y * s - p2y - d2y * t;
+        double dz = p1z + d1z * s - p2z - d2z * t;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Squared distance between two triangles, 0 if they intersect
+     *
+     * @param a   the vertices of the first triangle (9 values)
+     * @param b   the vertices of the second triangle (9 values)
+     * @param out scratch array of 3 values
+     */
+    public static double triangleTriangleDistanceSquared(double[] a, double[] b, double[] out) {
+        if (edgesCrossTriangle(a, b) || edgesCrossTriangle(b, a)) {
+            return 0;
+        }
+        // disjoint triangles: the closest points are a vertex and a face, or two edges
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            best = Math.min(best, closestPointOnTriangle(a[i * 3], a[i * 3 + 1], a[i * 3 + 2],
+                    b[0], b[1], b[2], b[3], b[4], b[5], b[6], b[7], b[8], out));
+            best = Math.min(best, closestPointOnTriangle(b[i * 3], b[i * 3 + 1], b[i * 3 + 2],
+                    a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], out));
+            int i2 = (i + 1) % 3;
+            for (int j = 0; j < 3; j++) {
+                int j2 = (j + 1) % 3;
+                best = Math.min(best, segmentSegmentDistanceSquared(
+                        a[i * 3], a[i * 3 + 1], a[i * 3 + 2], a[i2 * 3], a[i2 * 3 + 1], a[i2 * 3 + 2],
+                        b[j * 3], b[j * 3 + 1], b[j * 3 + 2], b[j2 * 3], b[j2 * 3 + 1], b[j2 * 3 + 2]));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Squared distance between a point and an axis-aligned box, 0 if the point is inside
+     */
+    public static double boxDistanceSquared(double px, double py, double pz,
+                                            double minX, double minY, double minZ,
+                                            double maxX, double maxY, double maxZ) {
+        double dx = Math.max(0, Math.max(minX - px, px - maxX));
+        double dy = Math.max(0, Math.max(minY - py, py - maxY));
+        double dz = Math.max(0, Math.max(minZ - pz, pz - maxZ));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double closestPointOnEdges(double px, double py, double pz,
+                                              double ax, double ay, double az,
+                                              double bx, double by, double bz,
+                                              double cx, double cy, double cz,
+                                              double[] out) {
+        double best = closestPointOnSegment(px, py, pz, ax, ay, az, bx, by, bz, out);
+        double qx = out[0], qy = out[1], qz = out[2];
+        double d2 = closestPointOnSegment(px, py, pz, bx, by, bz, cx, cy, cz, out);
+        if (d2 < best) {
+            best = d2;
+            qx = out[0];
+            qy = out[1];
+            qz = out[2];
+        }
+        d2 = closestPointOnSegment(px, py, pz, cx, cy, cz, ax, ay, az, out);
+        if (d2 < best) {
+            return d2;
+        }
+        out[0] = qx;
+        out[1] = qy;
+        out[2] = qz;
+        return best;
+    }
+
+    /**
+     * Test if one of the edges of the triangle a crosses the triangle b
+     */
+    private static boolean edgesCrossTriangle(double[] a, double[] b) {
+        for (int i = 0; i < 3; i++) {
+            int i2 = (i + 1) % 3;
+            double t = rayTriangle(a[i * 3], a[i * 3 + 1], a[i * 3 + 2],
+                    a[i2 * 3] - a[i * 3], a[i2 * 3 + 1] - a[i * 3 + 1], a[i2 * 3 + 2] - a[i * 3 + 2],
+                    b[0], b[1], b[2], b[3], b[4], b[5], b[6], b[7], b[8]);
+            if (t >= 0 && t <= 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test if a value is negligible against a scale, both being products of lengths of the same degree
+     *
+     * @param squaredScale the square of the scale
+     */
+    private static boolean isNegligible(double value, double squaredScale) {
+        return value * value <= EPSILON * EPSILON * squaredScale;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    private static double determinant(double ax, double ay, double az,
+                                      double bx, double by, double bz,
+                                      double cx, double cy, double cz) {
+        return ax * (by * cz - bz * cy) - ay * (bx * cz - bz * cx) + az * (bx * cy - by * cx);
+    }
+
+    private static double setAndMeasure(double px, double py, double pz,
+                                        double qx, double qy, double qz, double[] out) {
+        out[0] = qx;
+        out[1] = qy;
+        out[2] = qz;
+        double dx = px - qx, dy = py - qy, dz = pz - qz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,870 @@
+package com.softpath.riverpath.geometry;
+
+import com.softpath.riverpath.util.IntArrayList;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Bounding volume hierarchy over the elements (segments, triangles or tetrahedra) of a mesh.
+ * <p>
+ * Nodes are stored in flat arrays: 6 floats of bounds per node, and for each node either the index
+ * of its first child (the second one follows it) or the range of its elements in {@link #elements}.
+ * The tree is built with a binned surface area heuristic, the top levels being split in parallel.
+ * Queries are read-only and may be run concurrently.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class MeshBVH {
+
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int NB_BINS = 16;
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    private static final double INSIDE_TOLERANCE = 1e-9;
+    // ray direction for parity tests, skewed to avoid running along mesh edges
+    private static final double[] PARITY_DIRECTION = {0.9998, 0.0141, 0.0173};
+    // number of node pairs expanded before traversing them in parallel
+    private static final int PARALLEL_PAIRS = 256;
+
+    @Getter
+    private final ElementType type;
+    private final float[] coordinates;
+    private final int[] connectivity;
+    @Getter
+    private final int nbElements;
+    // 6 floats per node: minX, minY, minZ, maxX, maxY, maxZ
+    private final float[] nodeBounds;
+    // first child for inner nodes, first position in elements for leaves
+    private final int[] nodeFirst;
+    // number of elements of a leaf, 0 for inner nodes
+    private final int[] nodeCount;
+    // element indices ordered by leaf
+    private final int[] elements;
+
+    private MeshBVH(ElementType type, float[] coordinates, int[] connectivity, int nbElements,
+                    float[] nodeBounds, int[] nodeFirst, int[] nodeCount, int[] elements) {
+        this.type = type;
+        this.coordinates = coordinates;
+        this.connectivity = connectivity;
+        this.nbElements = nbElements;
+        this.nodeBounds = nodeBounds;
+        this.nodeFirst = nodeFirst;
+        this.nodeCount = nodeCount;
+        this.elements = elements;
+    }
+
+    /**
+     * Build the hierarchy of the given elements
+     *
+     * @param type         the kind of elements
+     * @param coordinates  the mesh coordinates (x, y, z interleaved)
+     * @param connectivity the element vertex indices ({@link ElementType#getNbVertices()} per element)
+     * @param nbElements   the number of elements stored in the connectivity array
+     * @return the hierarchy
+     */
+    public static MeshBVH build(ElementType type, float[] coordinates, int[] connectivity, int nbElements) {
+        int nbVertices = type.getNbVertices();
+        float[] elementBounds = new float[nbElements * 6];
+        float[] centroids = new float[nbElements * 3];
+        IntStream.range(0, nbElements).parallel().forEach(e -> {
+            for (int c = 0; c < 3; c++) {
+                float min = Float.MAX_VALUE;
+                float max = -Float.MAX_VALUE;
+                for (int k = 0; k < nbVertices; k++) {
+                    float value = coordinates[connectivity[e * nbVertices + k] * 3 + c];
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                elementBounds[e * 6 + c] = min;
+                elementBounds[e * 6 + 3 + c] = max;
+                centroids[e * 3 + c] = (min + max) / 2;
+            }
+        });
+        int maxNodes = Math.max(1, 2 * nbElements - 1);
+        Builder builder = new Builder(elementBounds, centroids, new float[maxNodes * 6],
+                new int[maxNodes], new int[maxNodes], IntStream.range(0, nbElements).toArray());
+        ForkJoinPool.commonPool().invoke(new BuildTask(builder, 0, 0, nbElements));
+        int nbNodes = builder.nodeCounter.get();
+        return new MeshBVH(type, coordinates, connectivity, nbElements,
+                Arrays.copyOf(builder.nodeBounds, nbNodes * 6),
+                Arrays.copyOf(builder.nodeFirst, nbNodes),
+                Arrays.copyOf(builder.nodeCount, nbNodes),
+                builder.elements);
+    }
+
+    /**
+     * @return the number of nodes of the tree
+     */
+    public int getNbNodes() {
+        return nodeFirst.length;
+    }
+
+    /**
+     * Find the first element hit by the ray o + t * d. Triangles and tetrahedron faces are hit,
+     * segments are never hit.
+     *
+     * @param maxDistance the largest ray parameter to consider
+     * @return the hit (distance is the ray parameter), null if nothing is hit
+     */
+    public Hit rayCast(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+        if (type == ElementType.SEGMENT || nbElements == 0) {
+            return null;
+        }
+        double bestT = maxDistance;
+        int bestElement = -1;
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int node = stack.removeLast();
+            if (!rayHitsBox(node, ox, oy, oz, dx, dy, dz, bestT)) {
+                continue;
+            }
+            if (nodeCount[node] == 0) {
+                stack.add(nodeFirst[node]);
+                stack.add(nodeFirst[node] + 1);
+                continue;
+            }
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                double t = rayElement(elements[i], ox, oy, oz, dx, dy, dz);
+                if (t >= 0 && t < bestT) {
+                    bestT = t;
+                    bestElement = elements[i];
+                }
+            }
+        }
+        return bestElement < 0 ? null
+                : new Hit(bestElement, bestT, ox + bestT * dx, oy + bestT * dy, oz + bestT * dz);
+    }
+
+    /**
+     * Count the elements crossed by the ray o + t * d, t >= 0. Used to test if a point is inside a closed
+     * triangulated surface by parity; segments are crossed in the XY plane, for closed 2D contours.
+     *
+     * @return the number of crossed elements
+     */
+    public int countRayHits(double ox, double oy, double oz, double dx, double dy, double dz) {
+        if (type == ElementType.TETRAHEDRON || nbElements == 0) {
+            return 0;
+        }
+        if (type == ElementType.SEGMENT) {
+            // the ray is projected on the plane of the contour
+            oz = nodeBounds[2];
+            dz = 0;
+        }
+        int count = 0;
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int node = stack.removeLast();
+            if (!rayHitsBox(node, ox, oy, oz, dx, dy, dz, Double.MAX_VALUE)) {
+                continue;
+            }
+            if (nodeCount[node] == 0) {
+                stack.add(nodeFirst[node]);
+                stack.add(nodeFirst[node] + 1);
+                continue;
+            }
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                boolean crossed = type == ElementType.SEGMENT
+                        ? raySegment2D(elements[i], ox, oy, dx, dy)
+                        : rayElement(elements[i], ox, oy, oz, dx, dy, dz) >= 0;
+                if (crossed) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Minimum distance between the elements of this hierarchy and those of another one translated by (tx, ty, tz).
+     * Both hierarchies hold segments or triangles of the same type; crossing elements are at distance 0.
+     * <p>
+     * Pairs of nodes are first expanded breadth first, then the pairs are traversed in parallel,
+     * sharing the best distance found so far to prune the other pairs.
+     * </p>
+     *
+     * @param maxDistance pairs of elements further than this distance are ignored
+     * @return the minimum distance, maxDistance if no pair of elements is closer
+     */
+    public double distanceTo(MeshBVH other, double tx, double ty, double tz, double maxDistance) {
+        if (type != other.type || type == ElementType.TETRAHEDRON) {
+            throw new IllegalArgumentException("Distance is computed between segments or triangles, not "
+                    + type + " and " + other.type);
+        }
+        if (nbElements == 0 || other.nbElements == 0) {
+            return maxDistance;
+        }
+        double[] translation = {tx, ty, tz};
+        double initial = maxDistance == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : maxDistance * maxDistance;
+        // squared distances are positive, so their bits are ordered like the values
+        AtomicLong best = new AtomicLong(Double.doubleToLongBits(initial));
+        IntArrayList pairs = new IntArrayList();
+        pairs.add(0);
+        pairs.add(0);
+        boolean expanded = true;
+        while (expanded && pairs.size() < PARALLEL_PAIRS * 2) {
+            expanded = false;
+            IntArrayList next = new IntArrayList(pairs.size() * 2);
+            for (int i = 0; i < pairs.size(); i += 2) {
+                int nodeA = pairs.get(i);
+                int nodeB = pairs.get(i + 1);
+                if (pairDistanceSquared(nodeA, other, nodeB, translation) > initial) {
+                    continue;
+                }
+                expanded |= split(nodeA, other, nodeB, next);
+            }
+            pairs = next;
+        }
+        IntArrayList frontier = pairs;
+        IntStream.range(0, frontier.size() / 2).parallel().forEach(i ->
+                traversePair(frontier.get(i * 2), other, frontier.get(i * 2 + 1), translation, best));
+        double distance = Math.sqrt(Double.longBitsToDouble(best.get()));
+        return Math.min(distance, maxDistance);
+    }
+
+    /**
+     * Test if a point is enclosed by the closed surface (triangles) or contour (segments) stored in the hierarchy,
+     * by the parity of the crossings of a ray
+     *
+     * @return true if the point is inside
+     */
+    public boolean encloses(double x, double y, double z) {
+        return isInsideBounds(x, y, z)
+                && countRayHits(x, y, z, PARITY_DIRECTION[0], PARITY_DIRECTION[1], PARITY_DIRECTION[2]) % 2 == 1;
+    }
+
+    /**
+     * @return true if the point lies in the bounding box of all elements
+     */
+    public boolean isInsideBounds(double x, double y, double z) {
+        return nbElements > 0
+                && x >= nodeBounds[0] && x <= nodeBounds[3]
+                && y >= nodeBounds[1] && y <= nodeBounds[4]
+                && z >= nodeBounds[2] && z <= nodeBounds[5];
+    }
+
+    /**
+     * Find the element containing the given point. Tetrahedra are located in space, triangles in the XY plane
+     * (2D meshes); segments contain no point.
+     *
+     * @return the index of the element, -1 if the point is outside the mesh
+     */
+    public int locate(double x, double y, double z) {
+        if (type == ElementType.SEGMENT || nbElements == 0) {
+            return -1;
+        }
+        boolean planar = type == ElementType.TRIANGLE;
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int node = stack.removeLast();
+            int b = node * 6;
+            if (x < nodeBounds[b] || x > nodeBounds[b + 3] || y < nodeBounds[b + 1] || y > nodeBounds[b + 4]
+                    || (!planar && (z < nodeBounds[b + 2] || z > nodeBounds[b + 5]))) {
+                continue;
+            }
+            if (nodeCount[node] == 0) {
+                stack.add(nodeFirst[node]);
+                stack.add(nodeFirst[node] + 1);
+                continue;
+            }
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                if (contains(elements[i], x, y, z)) {
+                    return elements[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the elements whose bounding box overlaps the given box
+     *
+     * @return the indices of the elements, in no particular order
+     */
+    public int[] queryBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        IntArrayList result = new IntArrayList();
+        if (nbElements == 0) {
+            return result.toArray();
+        }
+        int nbVertices = type.getNbVertices();
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int node = stack.removeLast();
+            int b = node * 6;
+            if (!boxesOverlap(nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2],
+                    nodeBounds[b + 3], nodeBounds[b + 4], nodeBounds[b + 5],
+                    minX, minY, minZ, maxX, maxY, maxZ)) {
+                continue;
+            }
+            if (nodeCount[node] == 0) {
+                stack.add(nodeFirst[node]);
+                stack.add(nodeFirst[node] + 1);
+                continue;
+            }
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                int element = elements[i];
+                float elementMinX = Float.MAX_VALUE, elementMinY = Float.MAX_VALUE, elementMinZ = Float.MAX_VALUE;
+                float elementMaxX = -Float.MAX_VALUE, elementMaxY = -Float.MAX_VALUE, elementMaxZ = -Float.MAX_VALUE;
+                for (int k = 0; k < nbVertices; k++) {
+                    int vertex = connectivity[element * nbVertices + k] * 3;
+                    elementMinX = Math.min(elementMinX, coordinates[vertex]);
+                    elementMinY = Math.min(elementMinY, coordinates[vertex + 1]);
+                    elementMinZ = Math.min(elementMinZ, coordinates[vertex + 2]);
+                    elementMaxX = Math.max(elementMaxX, coordinates[vertex]);
+                    elementMaxY = Math.max(elementMaxY, coordinates[vertex + 1]);
+                    elementMaxZ = Math.max(elementMaxZ, coordinates[vertex + 2]);
+                }
+                if (boxesOverlap(elementMinX, elementMinY, elementMinZ, elementMaxX, elementMaxY, elementMaxZ,
+                        minX, minY, minZ, maxX, maxY, maxZ)) {
+                    result.add(element);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Find the closest point of the mesh elements to the given point.
+     * A point inside a tetrahedron is at distance 0 of it.
+     *
+     * @param maxDistance elements further than this distance are ignored
+     * @return the closest element and point, null if no element is closer than maxDistance
+     */
+    public Hit nearest(double x, double y, double z, double maxDistance) {
+        if (nbElements == 0) {
+            return null;
+        }
+        double best = maxDistance == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : maxDistance * maxDistance;
+        int bestElement = -1;
+        double closestX = 0, closestY = 0, closestZ = 0;
+        double[] candidate = new double[3];
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int node = stack.removeLast();
+            if (boxDistanceSquared(node, x, y, z) > best) {
+                continue;
+            }
+            if (nodeCount[node] == 0) {
+                // push the farthest child first so that the nearest one is visited first
+                int left = nodeFirst[node];
+                double leftDistance = boxDistanceSquared(left, x, y, z);
+                double rightDistance = boxDistanceSquared(left + 1, x, y, z);
+                if (leftDistance < rightDistance) {
+                    stack.add(left + 1);
+                    stack.add(left);
+                } else {
+                    stack.add(left);
+                    stack.add(left + 1);
+                }
+                continue;
+            }
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                double d2 = closestPoint(elements[i], x, y, z, candidate);
+                if (d2 <= best) {
+                    best = d2;
+                    bestElement = elements[i];
+                    closestX = candidate[0];
+                    closestY = candidate[1];
+                    closestZ = candidate[2];
+                }
+            }
+        }
+        return bestElement < 0 ? null : new Hit(bestElement, Math.sqrt(best), closestX, closestY, closestZ);
+    }
+
+    /**
+     * Squared distance between the given point and the closest point of an element
+     *
+     * @param element the element index
+     * @param out     receives the closest point
+     */
+    public double closestPoint(int element, double x, double y, double z, double[] out) {
+        int n = type.getNbVertices();
+        int a = connectivity[element * n] * 3;
+        int b = connectivity[element * n + 1] * 3;
+        if (type == ElementType.SEGMENT) {
+            return GeometryUtils.closestPointOnSegment(x, y, z,
+                    coordinates[a], coordinates[a + 1], coordinates[a + 2],
+                    coordinates[b], coordinates[b + 1], coordinates[b + 2], out);
+        }
+        int c = connectivity[element * n + 2] * 3;
+        if (type == ElementType.TRIANGLE) {
+            return closestPointOnFace(a, b, c, x, y, z, out);
+        }
+        if (contains(element, x, y, z)) {
+            out[0] = x;
+            out[1] = y;
+            out[2] = z;
+            return 0;
+        }
+        int d = connectivity[element * n + 3] * 3;
+        // closest point of the 4 faces, the best one so far is kept aside while out receives the next one
+        double best = closestPointOnFace(a, b, c, x, y, z, out);
+        double bestX = out[0], bestY = out[1], bestZ = out[2];
+        for (int f = 0; f < 3; f++) {
+            double d2 = f == 0 ? closestPointOnFace(a, b, d, x, y, z, out)
+                    : f == 1 ? closestPointOnFace(a, c, d, x, y, z, out)
+                    : closestPointOnFace(b, c, d, x, y, z, out);
+            if (d2 < best) {
+                best = d2;
+                bestX = out[0];
+                bestY = out[1];
+                bestZ = out[2];
+            }
+        }
+        out[0] = bestX;
+        out[1] = bestY;
+        out[2] = bestZ;
+        return best;
+    }
+
+    private double closestPointOnFace(int a, int b, int c, double x, double y, double z, double[] out) {
+        return GeometryUtils.closestPointOnTriangle(x, y, z,
+                coordinates[a], coordinates[a + 1], coordinates[a + 2],
+                coordinates[b], coordinates[b + 1], coordinates[b + 2],
+                coordinates[c], coordinates[c + 1], coordinates[c + 2], out);
+    }
+
+    private boolean contains(int element, double x, double y, double z) {
+        int n = type.getNbVertices();
+        int a = connectivity[element * n] * 3;
+        int b = connectivity[element * n + 1] * 3;
+        int c = connectivity[element * n + 2] * 3;
+        if (type == ElementType.TRIANGLE) {
+            return GeometryUtils.isInsideTriangle2D(x, y,
+                    coordinates[a], coordinates[a + 1],
+                    coordinates[b], coordinates[b + 1],
+                    coordinates[c], coordinates[c + 1], INSIDE_TOLERANCE);
+        }
+        int d = connectivity[element * n + 3] * 3;
+        return GeometryUtils.isInsideTetrahedron(x, y, z,
+                coordinates[a], coordinates[a + 1], coordinates[a + 2],
+                coordinates[b], coordinates[b + 1], coordinates[b + 2],
+                coordinates[c], coordinates[c + 1], coordinates[c + 2],
+                coordinates[d], coordinates[d + 1], coordinates[d + 2], INSIDE_TOLERANCE);
+    }
+
+    /**
+     * Test if the ray o + t * d, t >= 0 crosses a segment in the XY plane. The second end of the segment is
+     * excluded so that a ray through a shared vertex crosses the contour once.
+     */
+    private boolean raySegment2D(int element, double ox, double oy, double dx, double dy) {
+        int a = connectivity[element * 2] * 3;
+        int b = connectivity[element * 2 + 1] * 3;
+        double ex = coordinates[b] - coordinates[a];
+        double ey = coordinates[b + 1] - coordinates[a + 1];
+        double denominator = dx * ey - dy * ex;
+        // parallel, relative to the lengths of the ray direction and the segment
+        if (denominator * denominator <= INSIDE_TOLERANCE * INSIDE_TOLERANCE
+                * (dx * dx + dy * dy) * (ex * ex + ey * ey)) {
+            return false;
+        }
+        double wx = coordinates[a] - ox;
+        double wy = coordinates[a + 1] - oy;
+        double t = (wx * ey - wy * ex) / denominator;
+        double s = (wx * dy - wy * dx) / denominator;
+        return t >= 0 && s >= 0 && s < 1;
+    }
+
+    /**
+     * Traverse a pair of nodes depth first, closest pairs first
+     */
+    private void traversePair(int rootA, MeshBVH other, int rootB, double[] translation, AtomicLong best) {
+        // scratch arrays of this task
+        double[] verticesA = new double[9];
+        double[] verticesB = new double[9];
+        double[] closest = new double[3];
+        IntArrayList children = new IntArrayList(4);
+        IntArrayList stack = new IntArrayList(64);
+        stack.add(rootA);
+        stack.add(rootB);
+        while (!stack.isEmpty()) {
+            int nodeB = stack.removeLast();
+            int nodeA = stack.removeLast();
+            double bound = Double.longBitsToDouble(best.get());
+            if (bound == 0 || pairDistanceSquared(nodeA, other, nodeB, translation) > bound) {
+                continue;
+            }
+            if (nodeCount[nodeA] == 0 || other.nodeCount[nodeB] == 0) {
+                children.clear();
+                split(nodeA, other, nodeB, children);
+                // push the farthest pair first so that the closest one is visited first
+                double first = pairDistanceSquared(children.get(0), other, children.get(1), translation);
+                double second = pairDistanceSquared(children.get(2), other, children.get(3), translation);
+                int near = first <= second ? 0 : 2;
+                stack.add(children.get(2 - near));
+                stack.add(children.get(3 - near));
+                stack.add(children.get(near));
+                stack.add(children.get(near + 1));
+                continue;
+            }
+            for (int i = nodeFirst[nodeA]; i < nodeFirst[nodeA] + nodeCount[nodeA]; i++) {
+                loadVertices(elements[i], 0, 0, 0, verticesA);
+                for (int j = other.nodeFirst[nodeB]; j < other.nodeFirst[nodeB] + other.nodeCount[nodeB]; j++) {
+                    other.loadVertices(other.elements[j], translation[0], translation[1], translation[2], verticesB);
+                    double d2 = type == ElementType.SEGMENT
+                            ? GeometryUtils.segmentSegmentDistanceSquared(
+                            verticesA[0], verticesA[1], verticesA[2], verticesA[3], verticesA[4], verticesA[5],
+                            verticesB[0], verticesB[1], verticesB[2], verticesB[3], verticesB[4], verticesB[5])
+                            : GeometryUtils.triangleTriangleDistanceSquared(verticesA, verticesB, closest);
+                    best.accumulateAndGet(Double.doubleToLongBits(d2), Math::min);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the children pairs of a pair of nodes, splitting the inner node with the largest bounds.
+     * A pair of leaves is kept as is.
+     *
+     * @return true if the pair was split
+     */
+    private boolean split(int nodeA, MeshBVH other, int nodeB, IntArrayList pairs) {
+        boolean leafA = nodeCount[nodeA] != 0;
+        boolean leafB = other.nodeCount[nodeB] != 0;
+        if (leafA && leafB) {
+            pairs.add(nodeA);
+            pairs.add(nodeB);
+            return false;
+        }
+        if (leafB || (!leafA && extent(nodeBounds, nodeA) >= extent(other.nodeBounds, nodeB))) {
+            pairs.add(nodeFirst[nodeA]);
+            pairs.add(nodeB);
+            pairs.add(nodeFirst[nodeA] + 1);
+            pairs.add(nodeB);
+        } else {
+            pairs.add(nodeA);
+            pairs.add(other.nodeFirst[nodeB]);
+            pairs.add(nodeA);
+            pairs.add(other.nodeFirst[nodeB] + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Squared distance between the bounds of a node and the translated bounds of a node of another hierarchy
+     */
+    private double pairDistanceSquared(int nodeA, MeshBVH other, int nodeB, double[] translation) {
+        double d2 = 0;
+        for (int c = 0; c < 3; c++) {
+            double gap = Math.max(nodeBounds[nodeA * 6 + c] - other.nodeBounds[nodeB * 6 + 3 + c] - translation[c],
+                    other.nodeBounds[nodeB * 6 + c] + translation[c] - nodeBounds[nodeA * 6 + 3 + c]);
+            if (gap > 0) {
+                d2 += gap * gap;
+            }
+        }
+        return d2;
+    }
+
+    private static double extent(float[] bounds, int node) {
+        return (double) bounds[node * 6 + 3] - bounds[node * 6]
+                + bounds[node * 6 + 4] - bounds[node * 6 + 1]
+                + bounds[node * 6 + 5] - bounds[node * 6 + 2];
+    }
+
+    /**
+     * Copy the vertices of the first element, the first one giving a point of the mesh
+     *
+     * @param out receives 3 values per vertex of an element
+     */
+    void firstVertex(double[] out) {
+        loadVertices(0, 0, 0, 0, out);
+    }
+
+    /**
+     * Copy the translated vertices of an element
+     */
+    private void loadVertices(int element, double tx, double ty, double tz, double[] out) {
+        int n = type.getNbVertices();
+        for (int k = 0; k < n; k++) {
+            int vertex = connectivity[element * n + k] * 3;
+            out[k * 3] = coordinates[vertex] + tx;
+            out[k * 3 + 1] = coordinates[vertex + 1] + ty;
+            out[k * 3 + 2] = coordinates[vertex + 2] + tz;
+        }
+    }
+
+    private double rayElement(int element, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int n = type.getNbVertices();
+        int a = connectivity[element * n] * 3;
+        int b = connectivity[element * n + 1] * 3;
+        int c = connectivity[element * n + 2] * 3;
+        double best = rayFace(a, b, c, ox, oy, oz, dx, dy, dz);
+        if (type == ElementType.TRIANGLE) {
+            return best;
+        }
+        int d = connectivity[element * n + 3] * 3;
+        best = nearestHit(best, rayFace(a, b, d, ox, oy, oz, dx, dy, dz));
+        best = nearestHit(best, rayFace(a, c, d, ox, oy, oz, dx, dy, dz));
+        return nearestHit(best, rayFace(b, c, d, ox, oy, oz, dx, dy, dz));
+    }
+
+    private double rayFace(int a, int b, int c, double ox, double oy, double oz, double dx, double dy, double dz) {
+        return GeometryUtils.rayTriangle(ox, oy, oz, dx, dy, dz,
+                coordinates[a], coordinates[a + 1], coordinates[a + 2],
+                coordinates[b], coordinates[b + 1], coordinates[b + 2],
+                coordinates[c], coordinates[c + 1], coordinates[c + 2]);
+    }
+
+    /**
+     * @return the nearest of two ray parameters, -1 standing for no hit
+     */
+    private static double nearestHit(double t1, double t2) {
+        return t1 < 0 || (t2 >= 0 && t2 < t1) ? t2 : t1;
+    }
+
+    /**
+     * Slab test of the ray against the bounds of a node, limited to [0, maxT]
+     */
+    private boolean rayHitsBox(int node, double ox, double oy, double oz,
+                               double dx, double dy, double dz, double maxT) {
+        int b = node * 6;
+        double tMin = 0;
+        double tMax = maxT;
+        for (int c = 0; c < 3; c++) {
+            double min = nodeBounds[b + c];
+            double max = nodeBounds[b + 3 + c];
+            double origin = c == 0 ? ox : c == 1 ? oy : oz;
+            double direction = c == 0 ? dx : c == 1 ? dy : dz;
+            if (direction == 0) {
+                if (origin < min || origin > max) {
+                    return false;
+                }
+                continue;
+            }
+            double t1 = (min - origin) / direction;
+            double t2 = (max - origin) / direction;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double boxDistanceSquared(int node, double x, double y, double z) {
+        int b = node * 6;
+        return GeometryUtils.boxDistanceSquared(x, y, z,
+                nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2],
+                nodeBounds[b + 3], nodeBounds[b + 4], nodeBounds[b + 5]);
+    }
+
+    private static boolean boxesOverlap(double aMinX, double aMinY, double aMinZ,
+                                        double aMaxX, double aMaxY, double aMaxZ,
+                                        double bMinX, double bMinY, double bMinZ,
+                                        double bMaxX, double bMaxY, double bMaxZ) {
+        return aMinX <= bMaxX && aMaxX >= bMinX
+                && aMinY <= bMaxY && aMaxY >= bMinY
+                && aMinZ <= bMaxZ && aMaxZ >= bMinZ;
+    }
+
+    /**
+     * Kind of elements stored in the hierarchy
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum ElementType {
+        SEGMENT(2),
+        TRIANGLE(3),
+        TETRAHEDRON(4);
+
+        private final int nbVertices;
+    }
+
+    /**
+     * Result of a ray cast or nearest point query
+     *
+     * @param element  the element index
+     * @param distance the ray parameter or the distance to the query point
+     * @param x        the hit or closest point
+     */
+    public record Hit(int element, double distance, double x, double y, double z) {
+    }
+
+    /**
+     * Working arrays shared by the build tasks
+     */
+    @RequiredArgsConstructor
+    private static final class Builder {
+        private final float[] elementBounds;
+        private final float[] centroids;
+        private final float[] nodeBounds;
+        private final int[] nodeFirst;
+        private final int[] nodeCount;
+        private final int[] elements;
+        private final AtomicInteger nodeCounter = new AtomicInteger(1);
+    }
+
+    /**
+     * Build the subtree of a node over the range [start, end) of the element array
+     */
+    @RequiredArgsConstructor
+    private static final class BuildTask extends RecursiveAction {
+        private final transient Builder builder;
+        private final int node;
+        private final int start;
+        private final int end;
+
+        @Override
+        protected void compute() {
+            float[] centroidBounds = computeNodeBounds();
+            int count = end - start;
+            if (count <= MAX_LEAF_SIZE) {
+                makeLeaf();
+                return;
+            }
+            int axis = 0;
+            for (int c = 1; c < 3; c++) {
+                if (centroidBounds[c + 3] - centroidBounds[c] > centroidBounds[axis + 3] - centroidBounds[axis]) {
+                    axis = c;
+                }
+            }
+            float min = centroidBounds[axis];
+            float extent = centroidBounds[axis + 3] - min;
+            int mid = extent > 0 ? splitBySurfaceArea(axis, min, extent) : -1;
+            if (mid <= start || mid >= end) {
+                // all centroids in one bin: split the range in two halves
+                mid = (start + end) >>> 1;
+            }
+            int left = builder.nodeCounter.getAndAdd(2);
+            builder.nodeFirst[node] = left;
+            builder.nodeCount[node] = 0;
+            BuildTask leftTask = new BuildTask(builder, left, start, mid);
+            BuildTask rightTask = new BuildTask(builder, left + 1, mid, end);
+            if (count > PARALLEL_THRESHOLD) {
+                invokeAll(leftTask, rightTask);
+            } else {
+                leftTask.compute();
+                rightTask.compute();
+            }
+        }
+
+        /**
+         * Store the bounds of the node and return the bounds of the element centroids
+         */
+        private float[] computeNodeBounds() {
+            float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                    -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+            float[] centroidBounds = bounds.clone();
+            for (int i = start; i < end; i++) {
+                int element = builder.elements[i];
+                for (int c = 0; c < 3; c++) {
+                    bounds[c] = Math.min(bounds[c], builder.elementBounds[element * 6 + c]);
+                    bounds[c + 3] = Math.max(bounds[c + 3], builder.elementBounds[element * 6 + 3 + c]);
+                    float centroid = builder.centroids[element * 3 + c];
+                    centroidBounds[c] = Math.min(centroidBounds[c], centroid);
+                    centroidBounds[c + 3] = Math.max(centroidBounds[c + 3], centroid);
+                }
+            }
+            System.arraycopy(bounds, 0, builder.nodeBounds, node * 6, 6);
+            return centroidBounds;
+        }
+
+        private void makeLeaf() {
+            builder.nodeFirst[node] = start;
+            builder.nodeCount[node] = end - start;
+        }
+
+        /**
+         * Bin the centroids along the axis, pick the cheapest split and partition the range around it
+         *
+         * @return the first position of the right side
+         */
+        private int splitBySurfaceArea(int axis, float min, float extent) {
+            int[] binCounts = new int[NB_BINS];
+            float[][] binBounds = new float[NB_BINS][];
+            for (int i = start; i < end; i++) {
+                int element = builder.elements[i];
+                int bin = binOf(element, axis, min, extent);
+                binCounts[bin]++;
+                binBounds[bin] = grow(binBounds[bin], builder.elementBounds, element * 6);
+            }
+            // sweep from the right to know the area and count of every right side
+            float[] rightAreas = new float[NB_BINS];
+            int[] rightCounts = new int[NB_BINS];
+            float[] accumulated = null;
+            int accumulatedCount = 0;
+            for (int bin = NB_BINS - 1; bin > 0; bin--) {
+                accumulated = grow(accumulated, binBounds[bin], 0);
+                accumulatedCount += binCounts[bin];
+                rightAreas[bin] = area(accumulated);
+                rightCounts[bin] = accumulatedCount;
+            }
+            int bestSplit = -1;
+            float bestCost = Float.MAX_VALUE;
+            accumulated = null;
+            accumulatedCount = 0;
+            for (int split = 1; split < NB_BINS; split++) {
+                accumulated = grow(accumulated, binBounds[split - 1], 0);
+                accumulatedCount += binCounts[split - 1];
+                if (accumulatedCount == 0 || rightCounts[split] == 0) {
+                    continue;
+                }
+                float cost = accumulatedCount * area(accumulated) + rightCounts[split] * rightAreas[split];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = split;
+                }
+            }
+            if (bestSplit < 0) {
+                return -1;
+            }
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                if (binOf(builder.elements[i], axis, min, extent) < bestSplit) {
+                    i++;
+                } else {
+                    int swap = builder.elements[i];
+                    builder.elements[i] = builder.elements[j];
+                    builder.elements[j--] = swap;
+                }
+            }
+            return i;
+        }
+
+        private int binOf(int element, int axis, float min, float extent) {
+            int bin = (int) ((builder.centroids[element * 3 + axis] - min) / extent * NB_BINS);
+            return Math.min(NB_BINS - 1, Math.max(0, bin));
+        }
+
+        /**
+         * Grow the box (allocated on first use) with the box stored at the given offset, null boxes are empty
+         */
+        private static float[] grow(float[] box, float[] source, int offset) {
+            if (source == null) {
+                return box;
+            }
+            if (box == null) {
+                return Arrays.copyOfRange(source, offset, offset + 6);
+            }
+            for (int c = 0; c < 3; c++) {
+                box[c] = Math.min(box[c], source[offset + c]);
+                box[c + 3] = Math.max(box[c + 3], source[offset + 3 + c]);
+            }
+            return box;
+        }
+
+        private static float area(float[] box) {
+            if (box == null) {
+                return 0;
+            }
+            float dx = box[3] - box[0];
+            float dy = box[4] - box[1];
+            float dz = box[5] - box[2];
+            return dx * dy + dy * dz + dz * dx;
+        }
+    }
+}
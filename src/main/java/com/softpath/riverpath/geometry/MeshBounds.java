@@ -0,0 +1,107 @@
+package com.softpath.riverpath.geometry;
+
+import java.util.stream.IntStream;
+
+/**
+ * Axis-aligned bounds and centroid of a set of points
+ *
+ * @author rhajou
+ */
+public record MeshBounds(double minX, double minY, double minZ,
+                         double maxX, double maxY, double maxZ,
+                         double centroidX, double centroidY, double centroidZ) {
+
+    public static final MeshBounds EMPTY = new MeshBounds(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Compute the bounds and centroid of the given points with a parallel reduction
+     *
+     * @param coordinates the point coordinates (x, y, z interleaved)
+     * @return the bounds, {@link #EMPTY} if there is no point
+     */
+    public static MeshBounds compute(float[] coordinates) {
+        int nbPoints = coordinates.length / 3;
+        if (nbPoints == 0) {
+            return EMPTY;
+        }
+        int nbChunks = (nbPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Accumulator total = IntStream.range(0, nbChunks).parallel()
+                .mapToObj(chunk -> new Accumulator().accumulate(coordinates,
+                        chunk * CHUNK_SIZE, Math.min(nbPoints, (chunk + 1) * CHUNK_SIZE)))
+                .reduce(new Accumulator(), Accumulator::merge);
+        return new MeshBounds(total.min[0], total.min[1], total.min[2],
+                total.max[0], total.max[1], total.max[2],
+                total.sum[0] / nbPoints, total.sum[1] / nbPoints, total.sum[2] / nbPoints);
+    }
+
+    public double getWidth() {
+        return maxX - minX;
+    }
+
+    public double getHeight() {
+        return maxY - minY;
+    }
+
+    public double getDepth() {
+        return maxZ - minZ;
+    }
+
+    public double getCenterX() {
+        return (minX + maxX) / 2;
+    }
+
+    public double getCenterY() {
+        return (minY + maxY) / 2;
+    }
+
+    public double getCenterZ() {
+        return (minZ + maxZ) / 2;
+    }
+
+    /**
+     * @return the largest extent along the three axes
+     */
+    public double getMaxExtent() {
+        return Math.max(getWidth(), Math.max(getHeight(), getDepth()));
+    }
+
+    /**
+     * @return the length of the box diagonal
+     */
+    public double getDiagonal() {
+        return Math.sqrt(getWidth() * getWidth() + getHeight() * getHeight() + getDepth() * getDepth());
+    }
+
+    /**
+     * Partial result of the reduction, one per chunk of points
+     */
+    private static final class Accumulator {
+        private final double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        private final double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        private final double[] sum = new double[3];
+
+        private Accumulator accumulate(float[] coordinates, int from, int to) {
+            for (int i = from; i < to; i++) {
+                for (int c = 0; c < 3; c++) {
+                    double value = coordinates[i * 3 + c];
+                    min[c] = Math.min(min[c], value);
+                    max[c] = Math.max(max[c], value);
+                    sum[c] += value;
+                }
+            }
+            return this;
+        }
+
+        private Accumulator merge(Accumulator other) {
+            Accumulator merged = new Accumulator();
+            for (int c = 0; c < 3; c++) {
+                merged.min[c] = Math.min(min[c], other.min[c]);
+                merged.max[c] = Math.max(max[c], other.max[c]);
+                merged.sum[c] = sum[c] + other.sum[c];
+            }
+            return merged;
+        }
+    }
+}
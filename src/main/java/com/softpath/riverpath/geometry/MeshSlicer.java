@@ -0,0 +1,287 @@
+package com.softpath.riverpath.geometry;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Intersect the tetrahedra of a volume mesh with a plane to build a triangulated cross-section.
+ * <p>
+ * The tetrahedra are indexed by their extent along the plane normal (sorted by minimum projection).
+ * Moving the plane along its normal only visits the tetrahedra whose extent may straddle the new offset,
+ * so the cost of a slice is proportional to the size of the cut and not to the size of the mesh.
+ * The index is rebuilt in parallel only when the normal changes.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class MeshSlicer {
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final float[] coordinates;
+    private final int[] tetrahedra;
+    private final int nbTetra;
+
+    // index along the current normal
+    private SlicePlane indexedPlane;
+    private float[] projections;
+    private long[] sortedTetra;
+    private float maxExtent;
+    private float minProjection;
+    private float maxProjection;
+
+    /**
+     * @param coordinates the mesh coordinates (x, y, z interleaved)
+     * @param tetrahedra  the tetrahedra vertex indices (4 per tetrahedron)
+     * @param nbTetra     the number of tetrahedra stored in the array
+     */
+    public MeshSlicer(float[] coordinates, int[] tetrahedra, int nbTetra) {
+        this.coordinates = coordinates;
+        this.tetrahedra = tetrahedra;
+        this.nbTetra = nbTetra;
+    }
+
+    /**
+     * Build a plane with the given normal located at a fraction of the mesh extent along this normal
+     *
+     * @param normal   a plane giving the normal to use (its offset is ignored)
+     * @param fraction 0 for the lowest point of the mesh, 1 for the highest one
+     * @return the positioned plane
+     */
+    public synchronized SlicePlane planeAt(SlicePlane normal, double fraction) {
+        ensureIndex(normal);
+        double clamped = Math.max(0, Math.min(1, fraction));
+        return normal.withOffset(minProjection + clamped * (maxProjection - minProjection));
+    }
+
+    /**
+     * Compute the cross-section of the mesh by the given plane
+     *
+     * @param plane the cutting plane
+     * @return the triangles of the cross-section
+     */
+    public Slice slice(SlicePlane plane) {
+        return slice(plane, null);
+    }
+
+    /**
+     * Compute the cross-section of the mesh by the given plane and interpolate a nodal field on it
+     *
+     * @param plane the cutting plane
+     * @param field one value per mesh vertex, null if no field is needed
+     * @return the triangles of the cross-section with the interpolated values
+     */
+    public synchronized Slice slice(SlicePlane plane, float[] field) {
+        ensureIndex(plane);
+        float offset = (float) plane.offset();
+        // candidates have min <= offset and max >= offset, hence min >= offset - maxExtent
+        int from = firstKeyAtLeast(sortableBits(offset - maxExtent));
+        int to = firstKeyAtLeast((long) sortableBits(offset) + 1);
+        int nbCandidates = Math.max(0, to - from);
+        int nbChunks = (nbCandidates + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        // first pass: count triangles per chunk to know where each chunk writes
+        int[] offsets = new int[nbChunks + 1];
+        IntStream.range(0, nbChunks).parallel().forEach(chunk -> {
+            int count = 0;
+            int end = Math.min(to, from + (chunk + 1) * CHUNK_SIZE);
+            for (int i = from + chunk * CHUNK_SIZE; i < end; i++) {
+                count += countTriangles((int) sortedTetra[i], offset);
+            }
+            offsets[chunk + 1] = count;
+        });
+        for (int chunk = 0; chunk < nbChunks; chunk++) {
+            offsets[chunk + 1] += offsets[chunk];
+        }
+
+        // second pass: write triangles, each chunk in its own range so the output is deterministic
+        float[] vertices = new float[offsets[nbChunks] * 9];
+        float[] values = field == null ? null : new float[offsets[nbChunks] * 3];
+        IntStream.range(0, nbChunks).parallel().forEach(chunk -> {
+            // scratch arrays of this chunk
+            int[] above = new int[4];
+            int[] below = new int[4];
+            int position = offsets[chunk] * 9;
+            int end = Math.min(to, from + (chunk + 1) * CHUNK_SIZE);
+            for (int i = from + chunk * CHUNK_SIZE; i < end; i++) {
+                position = writeTriangles((int) sortedTetra[i], offset, field, vertices, values, position,
+                        above, below);
+            }
+        });
+        return new Slice(plane, vertices, values, offsets[nbChunks]);
+    }
+
+    /**
+     * Rebuild the index if the normal of the plane changed
+     */
+    private void ensureIndex(SlicePlane plane) {
+        if (plane.hasSameNormal(indexedPlane)) {
+            return;
+        }
+        float nx = (float) plane.normalX();
+        float ny = (float) plane.normalY();
+        float nz = (float) plane.normalZ();
+        int nbVertices = coordinates.length / 3;
+        float[] newProjections = new float[nbVertices];
+        IntStream.range(0, nbVertices).parallel().forEach(v ->
+                newProjections[v] = coordinates[v * 3] * nx + coordinates[v * 3 + 1] * ny + coordinates[v * 3 + 2] * nz);
+
+        long[] keys = new long[nbTetra];
+        int nbChunks = (nbTetra + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // each chunk writes its own keys and returns its largest extent
+        double extent = IntStream.range(0, nbChunks).parallel().mapToDouble(chunk -> {
+            float chunkExtent = 0;
+            int end = Math.min(nbTetra, (chunk + 1) * CHUNK_SIZE);
+            for (int t = chunk * CHUNK_SIZE; t < end; t++) {
+                float min = Float.MAX_VALUE;
+                float max = -Float.MAX_VALUE;
+                for (int k = 0; k < 4; k++) {
+                    float d = newProjections[tetrahedra[t * 4 + k]];
+                    min = Math.min(min, d);
+                    max = Math.max(max, d);
+                }
+                keys[t] = ((long) sortableBits(min) << 32) | t;
+                chunkExtent = Math.max(chunkExtent, max - min);
+            }
+            return chunkExtent;
+        }).max().orElse(0);
+        Arrays.parallelSort(keys);
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (float d : newProjections) {
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+        projections = newProjections;
+        sortedTetra = keys;
+        maxExtent = (float) extent;
+        minProjection = nbVertices == 0 ? 0 : min;
+        maxProjection = nbVertices == 0 ? 0 : max;
+        indexedPlane = plane;
+    }
+
+    /**
+     * Binary search of the first key whose sortable minimum is greater or equal to the given bits
+     */
+    private int firstKeyAtLeast(long bits) {
+        long target = bits << 32;
+        int low = 0;
+        int high = sortedTetra.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedTetra[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int countTriangles(int tetra, float offset) {
+        int above = 0;
+        for (int k = 0; k < 4; k++) {
+            if (projections[tetrahedra[tetra * 4 + k]] > offset) {
+                above++;
+            }
+        }
+        return switch (above) {
+            case 1, 3 -> 1;
+            case 2 -> 2;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Write the triangles of the cut of a tetrahedron
+     *
+     * @param above scratch array receiving the vertices above the plane
+     * @param below scratch array receiving the vertices below the plane
+     */
+    private int writeTriangles(int tetra, float offset, float[] field, float[] out, float[] values, int position,
+                               int[] above, int[] below) {
+        int nbAbove = 0;
+        int nbBelow = 0;
+        for (int k = 0; k < 4; k++) {
+            int vertex = tetrahedra[tetra * 4 + k];
+            if (projections[vertex] > offset) {
+                above[nbAbove++] = vertex;
+            } else {
+                below[nbBelow++] = vertex;
+            }
+        }
+        if (nbAbove == 1) {
+            // the lone vertex is cut on its 3 edges
+            position = writeCut(above[0], below[0], offset, field, out, values, position);
+            position = writeCut(above[0], below[1], offset, field, out, values, position);
+            position = writeCut(above[0], below[2], offset, field, out, values, position);
+        } else if (nbAbove == 3) {
+            position = writeCut(above[0], below[0], offset, field, out, values, position);
+            position = writeCut(above[1], below[0], offset, field, out, values, position);
+            position = writeCut(above[2], below[0], offset, field, out, values, position);
+        } else if (nbAbove == 2) {
+            // quad a0b0, a0b1, a1b1, a1b0 split into 2 triangles
+            int start = position;
+            position = writeCut(above[0], below[0], offset, field, out, values, position);
+            position = writeCut(above[0], below[1], offset, field, out, values, position);
+            position = writeCut(above[1], below[1], offset, field, out, values, position);
+            position = copyCut(start, out, values, position);
+            position = copyCut(start + 6, out, values, position);
+            position = writeCut(above[1], below[0], offset, field, out, values, position);
+        }
+        return position;
+    }
+
+    /**
+     * Write the intersection of the edge (above, below) with the plane
+     */
+    private int writeCut(int above, int below, float offset, float[] field, float[] out, float[] values, int position) {
+        float da = projections[above] - offset;
+        float db = projections[below] - offset;
+        // da > 0 and db <= 0 so the denominator is strictly positive
+        float t = da / (da - db);
+        for (int c = 0; c < 3; c++) {
+            float a = coordinates[above * 3 + c];
+            out[position + c] = a + t * (coordinates[below * 3 + c] - a);
+        }
+        if (values != null) {
+            values[position / 3] = field[above] + t * (field[below] - field[above]);
+        }
+        return position + 3;
+    }
+
+    /**
+     * Write again a vertex already written at the given position
+     */
+    private static int copyCut(int from, float[] out, float[] values, int position) {
+        System.arraycopy(out, from, out, position, 3);
+        if (values != null) {
+            values[position / 3] = values[from / 3];
+        }
+        return position + 3;
+    }
+
+    /**
+     * Map a float to an int whose signed order matches the float order
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /**
+     * Triangulated cross-section
+     *
+     * @param plane         the cutting plane
+     * @param vertices      the triangle vertices (9 floats per triangle, not shared)
+     * @param values        the interpolated field (one value per vertex), null if no field was given
+     * @param triangleCount the number of triangles
+     */
+    public record Slice(SlicePlane plane, float[] vertices, float[] values, int triangleCount) {
+
+        public boolean isEmpty() {
+            return triangleCount == 0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.softpath.riverpath.geometry;
+
+import java.util.stream.IntStream;
+
+/**
+ * Signed distance from the nodes of a mesh to the surface of an immersed object, negative inside the object.
+ * <p>
+ * The distance is truncated: nodes further than a given distance from the surface get this distance with
+ * their sign, like the level set thickness used by the solver. The search of such nodes stops at the first
+ * levels of the hierarchy, so the cost is driven by the number of nodes near the object.
+ * Nodes are processed in parallel chunks. Inside a chunk, consecutive nodes are usually close to each other,
+ * so the distance to the closest point found for the previous node also bounds the search of the next one.
+ * </p>
+ *
+ * @author rhajou
+ */
+public final class SignedDistanceField {
+
+    private static final int CHUNK_SIZE = 1 << 12;
+    // relative slack so that the closest point of the previous node is still accepted despite rounding
+    private static final double BOUND_SLACK = 1e-6;
+
+    private SignedDistanceField() {
+    }
+
+    /**
+     * Compute the signed distance of every point to an object
+     *
+     * @param points  the point coordinates (x, y, z interleaved)
+     * @param surface the object boundary: triangles in 3D, segments in 2D
+     * @param volume  the object elements giving the sign (tetrahedra in 3D, triangles in 2D),
+     *                null to use the parity of ray crossings of the closed surface
+     * @param offsetX translation of the object along X, the object coordinates being relative to its origin
+     * @param offsetY translation of the object along Y
+     * @param offsetZ translation of the object along Z
+     * @param maxDistance the truncation distance
+     * @return the signed distance of each point, between -maxDistance and maxDistance
+     */
+    public static float[] compute(float[] points, MeshBVH surface, MeshBVH volume,
+                                  double offsetX, double offsetY, double offsetZ, double maxDistance) {
+        if (surface.getNbElements() == 0) {
+            throw new IllegalArgumentException("The immersed object has no boundary element");
+        }
+        int nbPoints = points.length / 3;
+        float[] distances = new float[nbPoints];
+        int nbChunks = (nbPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, nbChunks).parallel().forEach(chunk -> {
+            int end = Math.min(nbPoints, (chunk + 1) * CHUNK_SIZE);
+            MeshBVH.Hit previous = null;
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                // work in the object frame
+                double x = points[i * 3] - offsetX;
+                double y = points[i * 3 + 1] - offsetY;
+                double z = points[i * 3 + 2] - offsetZ;
+                MeshBVH.Hit hit = null;
+                if (previous != null) {
+                    double dx = x - previous.x();
+                    double dy = y - previous.y();
+                    double dz = z - previous.z();
+                    double bound = Math.sqrt(dx * dx + dy * dy + dz * dz) * (1 + BOUND_SLACK) + BOUND_SLACK;
+                    if (bound < maxDistance) {
+                        hit = surface.nearest(x, y, z, bound);
+                    }
+                }
+                if (hit == null) {
+                    hit = surface.nearest(x, y, z, maxDistance);
+                }
+                if (hit != null) {
+                    previous = hit;
+                }
+                double distance = hit == null ? maxDistance : hit.distance();
+                distances[i] = (float) (isInside(x, y, z, surface, volume) ? -distance : distance);
+            }
+        });
+        return distances;
+    }
+
+    /**
+     * Count the values whose absolute value is lower or equal to the given band
+     *
+     * @param distances the signed distances
+     * @param band      the half width of the band around the interface
+     * @return the number of values in the band
+     */
+    public static long countWithin(float[] distances, double band) {
+        return IntStream.range(0, distances.length).parallel()
+                .filter(i -> Math.abs(distances[i]) <= band)
+                .count();
+    }
+
+    /**
+     * Mean length of the element edges, used as the element size of a mesh.
+     * Edges shared by several elements are counted once per element.
+     *
+     * @param coordinates the mesh coordinates (x, y, z interleaved)
+     * @param elements    the element vertex indices
+     * @param nbVertices  the number of vertices per element (2, 3 or 4)
+     * @param nbElements  the number of elements stored in the array
+     * @return the mean edge length, 0 if there is no element
+     */
+    public static double meanEdgeLength(float[] coordinates, int[] elements, int nbVertices, int nbElements) {
+        if (nbElements == 0) {
+            return 0;
+        }
+        double sum = IntStream.range(0, nbElements).parallel().mapToDouble(e -> {
+            double length = 0;
+            for (int a = 0; a < nbVertices; a++) {
+                for (int b = a + 1; b < nbVertices; b++) {
+                    int va = elements[e * nbVertices + a] * 3;
+                    int vb = elements[e * nbVertices + b] * 3;
+                    double dx = coordinates[va] - coordinates[vb];
+                    double dy = coordinates[va + 1] - coordinates[vb + 1];
+                    double dz = coordinates[va + 2] - coordinates[vb + 2];
+                    length += Math.sqrt(dx * dx + dy * dy + dz * dz);
+                }
+            }
+            return length;
+        }).sum();
+        return sum / ((double) nbElements * nbVertices * (nbVertices - 1) / 2);
+    }
+
+    private static boolean isInside(double x, double y, double z, MeshBVH surface, MeshBVH volume) {
+        if (!surface.isInsideBounds(x, y, z)) {
+            return false;
+        }
+        if (volume != null && volume.getNbElements() > 0) {
+            return volume.locate(x, y, z) >= 0;
+        }
+        return surface.encloses(x, y, z);
+    }
+}
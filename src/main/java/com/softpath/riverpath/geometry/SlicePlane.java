@@ -0,0 +1,47 @@
+package com.softpath.riverpath.geometry;
+
+/**
+ * Plane used to cut a volume mesh, defined by its unit normal and its offset along this normal:
+ * a point p belongs to the plane when dot(p, normal) == offset
+ *
+ * @author rhajou
+ */
+public record SlicePlane(double normalX, double normalY, double normalZ, double offset) {
+
+    public SlicePlane {
+        double length = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+        if (length < 1e-12) {
+            throw new IllegalArgumentException("Slice plane normal must not be zero.");
+        }
+        normalX /= length;
+        normalY /= length;
+        normalZ /= length;
+    }
+
+    /**
+     * Build a plane orthogonal to one of the axes
+     *
+     * @param axis   0 for X, 1 for Y, 2 for Z
+     * @param offset the position of the plane along the axis
+     * @return the plane
+     */
+    public static SlicePlane alongAxis(int axis, double offset) {
+        return new SlicePlane(axis == 0 ? 1 : 0, axis == 1 ? 1 : 0, axis == 2 ? 1 : 0, offset);
+    }
+
+    /**
+     * @param offset the new offset
+     * @return a plane with the same normal moved to the given offset
+     */
+    public SlicePlane withOffset(double offset) {
+        return new SlicePlane(normalX, normalY, normalZ, offset);
+    }
+
+    /**
+     * @param other another plane
+     * @return true if both planes share the same normal
+     */
+    public boolean hasSameNormal(SlicePlane other) {
+        return other != null && normalX == other.normalX && normalY == other.normalY && normalZ == other.normalZ;
+    }
+}
@@ -0,0 +1,22 @@
+package com.softpath.riverpath.opengl;
+
+/**
+ * Draw ranges of a mesh split in spatial chunks.
+ * Each chunk is drawn with its own base vertex and position transform, and culled with its bounding box.
+ *
+ * @param baseVertex      the first vertex of each chunk, added to its indices
+ * @param firstIndex      the first index of each chunk in the index buffer
+ * @param indexCount      the number of indices of each chunk
+ * @param origin          the position of the chunk vertex (0, 0, 0), 3 values per chunk
+ * @param scale           the extent of the chunk along each axis, 3 values per chunk
+ * @param bounds          the bounding box of each chunk: min x, y, z then max x, y, z
+ * @param sourceTriangles the source mesh data triangle drawn as each triangle of the index buffer
+ * @param surfaceChunks   the number of leading chunks holding the closed surface of the mesh, 0 if it has none
+ */
+public record ChunkLayout(int[] baseVertex, int[] firstIndex, int[] indexCount, float[] origin, float[] scale,
+                          float[] bounds, int[] sourceTriangles, int surfaceChunks) {
+
+    public int getChunkCount() {
+        return baseVertex.length;
+    }
+}
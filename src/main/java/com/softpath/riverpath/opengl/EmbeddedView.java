@@ -0,0 +1,210 @@
+package com.softpath.riverpath.opengl;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Region;
+import javafx.stage.Window;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Displays the frames of the {@link OpenGLViewer} inside the JavaFX scene.
+ * <p>
+ * Once attached with {@link OpenGLViewer#embed(EmbeddedView)}, the viewer renders to an offscreen framebuffer at
+ * the size of this region and reads the frames back asynchronously (see {@link OffscreenTarget}). Each frame is
+ * copied into one of two images backed by a {@link PixelBuffer}, the one not displayed, then the images are
+ * swapped on the FX application thread, so the JavaFX texture upload never reads a frame being written.
+ * Mouse and keyboard input are forwarded to the viewer camera, with the bindings of the viewer window.
+ * </p>
+ */
+public class EmbeddedView extends Region {
+
+    // a press and release further apart than this, in pixels, is a drag and not a click
+    private static final double CLICK_TOLERANCE = 3;
+
+    private final ImageView imageView = new ImageView();
+    // image the render thread may write, null while it is being written or not swapped in yet
+    private final AtomicReference<Frame> writable = new AtomicReference<>();
+    // image displayed, FX application thread only
+    private Frame displayed;
+    // size of the frames in pixels, read by the render thread
+    private volatile int frameWidth = 1;
+    private volatile int frameHeight = 1;
+    private double pressX, pressY, lastX, lastY;
+
+    /**
+     * An image and the direct buffer holding its pixels, premultiplied ARGB in native order
+     */
+    record Frame(int width, int height, IntBuffer pixels, PixelBuffer<IntBuffer> buffer, WritableImage image) {
+
+        static Frame create(int width, int height) {
+            IntBuffer pixels = ByteBuffer.allocateDirect(width * height * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            PixelBuffer<IntBuffer> buffer = new PixelBuffer<>(width, height, pixels,
+                    PixelFormat.getIntArgbPreInstance());
+            return new Frame(width, height, pixels, buffer, new WritableImage(buffer));
+        }
+    }
+
+    public EmbeddedView() {
+        getStyleClass().add("opengl-view");
+        imageView.setManaged(false);
+        getChildren().add(imageView);
+        setFocusTraversable(true);
+        handleMouse();
+        handleKeys();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double scale = getOutputScale();
+        int width = (int) Math.max(1, Math.round(getWidth() * scale));
+        int height = (int) Math.max(1, Math.round(getHeight() * scale));
+        if (width != frameWidth || height != frameHeight || displayed == null) {
+            resize(width, height);
+        }
+        imageView.relocate(0, 0);
+        imageView.setFitWidth(getWidth());
+        imageView.setFitHeight(getHeight());
+    }
+
+    /**
+     * Allocate both images at the new size, the frames of the previous size still in flight are dropped
+     */
+    private void resize(int width, int height) {
+        writable.set(null);
+        displayed = Frame.create(width, height);
+        imageView.setImage(displayed.image());
+        frameWidth = width;
+        frameHeight = height;
+        writable.set(Frame.create(width, height));
+        OpenGLViewer.requestRedraw();
+    }
+
+    int getFrameWidth() {
+        return frameWidth;
+    }
+
+    int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Take the image not displayed to write a frame, called from the render thread
+     *
+     * @return the image, null if the previous frame is not displayed yet
+     */
+    Frame acquire() {
+        return writable.getAndSet(null);
+    }
+
+    /**
+     * Give back an image that was not written, called from the render thread
+     */
+    void release(Frame frame) {
+        if (frame.width() == frameWidth && frame.height() == frameHeight) {
+            writable.compareAndSet(null, frame);
+        }
+    }
+
+    /**
+     * Display a written image, the image displayed so far becomes writable once swapped
+     */
+    void present(Frame frame) {
+        Platform.runLater(() -> {
+            if (frame.width() != frameWidth || frame.height() != frameHeight) {
+                // resized in the meantime, new images were allocated
+                return;
+            }
+            // the whole image changed
+            frame.buffer().updateBuffer(buffer -> null);
+            imageView.setImage(frame.image());
+            Frame previous = displayed;
+            displayed = frame;
+            writable.set(previous);
+        });
+    }
+
+    private double getOutputScale() {
+        Window window = getScene() != null ? getScene().getWindow() : null;
+        return window != null ? window.getOutputScaleX() : 1;
+    }
+
+    /**
+     * Left drag rotates, right drag pans, the wheel zooms and Shift + wheel moves the last toggled clip plane.
+     * A left click without drag picks the triangle under the cursor and a double click resets the camera.
+     */
+    private void handleMouse() {
+        setOnMousePressed(event -> {
+            requestFocus();
+            pressX = event.getX();
+            pressY = event.getY();
+            lastX = event.getX();
+            lastY = event.getY();
+        });
+        setOnMouseDragged(event -> {
+            double dx = event.getX() - lastX;
+            double dy = event.getY() - lastY;
+            lastX = event.getX();
+            lastY = event.getY();
+            if (event.getButton() == MouseButton.PRIMARY) {
+                OpenGLViewer.post(viewer -> viewer.rotate(dx, dy));
+            } else if (event.getButton() == MouseButton.SECONDARY) {
+                OpenGLViewer.post(viewer -> viewer.pan(dx, dy));
+            }
+        });
+        setOnMouseReleased(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && Math.abs(event.getX() - pressX) < CLICK_TOLERANCE
+                    && Math.abs(event.getY() - pressY) < CLICK_TOLERANCE) {
+                double scale = getOutputScale();
+                double x = event.getX() * scale;
+                double y = event.getY() * scale;
+                OpenGLViewer.post(viewer -> viewer.requestPick(x, y));
+            }
+        });
+        setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() >= 2) {
+                OpenGLViewer.post(OpenGLViewer::resetCamera);
+            }
+        });
+        setOnScroll(event -> {
+            event.consume();
+            // one wheel notch is about 40 pixels
+            double steps = event.getDeltaY() / 40;
+            if (event.isShiftDown()) {
+                // Windows and macOS report a shifted wheel as a horizontal scroll
+                double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY();
+                OpenGLViewer.post(viewer -> viewer.moveClipPlane((float) (delta / 40)));
+            } else {
+                OpenGLViewer.post(viewer -> viewer.zoom(steps));
+            }
+        });
+    }
+
+    private void handleKeys() {
+        setOnKeyPressed(event -> {
+            KeyCode code = event.getCode();
+            if (code == KeyCode.DIGIT1 || code == KeyCode.DIGIT2 || code == KeyCode.DIGIT3) {
+                int plane = code.ordinal() - KeyCode.DIGIT1.ordinal();
+                OpenGLViewer.post(viewer -> viewer.toggleClipPlane(plane));
+            } else if (code == KeyCode.F) {
+                OpenGLViewer.post(OpenGLViewer::flipClipPlane);
+            } else if (code == KeyCode.PAGE_UP || code == KeyCode.PAGE_DOWN) {
+                OpenGLViewer.post(viewer -> viewer.moveClipPlane(code == KeyCode.PAGE_UP ? 1 : -1));
+            } else if (code == KeyCode.R) {
+                OpenGLViewer.post(OpenGLViewer::resetRotation);
+            } else {
+                return;
+            }
+            event.consume();
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.softpath.riverpath.opengl;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free ring of the last frame samples of the viewer.
+ * <p>
+ * A single thread, the render thread, writes the samples and any thread may read them without blocking it:
+ * samples are immutable and carry their sequence number, so a reader detects the slots overwritten while it
+ * was copying them and drops them.
+ * </p>
+ */
+public class FrameStats {
+
+    private static final String CSV_HEADER = "frame,time_ms,cpu_ms,gpu_ms,draw_calls,triangles,uploaded_bytes,gpu_memory_bytes";
+
+    /**
+     * Measures of a frame
+     *
+     * @param frame          the sequence number of the frame
+     * @param timeMillis     the wall clock time of the frame
+     * @param cpuMillis      the time spent by the render thread to issue the frame
+     * @param gpuMillis      the time spent by the GPU to draw the frame, -1 if timer queries are not supported
+     * @param drawCalls      the number of draw calls
+     * @param triangles      the number of triangles drawn
+     * @param uploadedBytes  the bytes uploaded since the viewer started
+     * @param gpuMemoryBytes the estimated size of the buffers of the displayed mesh
+     */
+    public record Sample(long frame, long timeMillis, float cpuMillis, float gpuMillis, int drawCalls,
+                         long triangles, long uploadedBytes, long gpuMemoryBytes) {
+
+        String toCsv() {
+            return String.format(Locale.US, "%d,%d,%.3f,%.3f,%d,%d,%d,%d", frame, timeMillis, cpuMillis, gpuMillis,
+                    drawCalls, triangles, uploadedBytes, gpuMemoryBytes);
+        }
+    }
+
+    private final AtomicReferenceArray<Sample> samples;
+    private final int mask;
+    // number of samples written, published after the sample itself
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * @param capacity the number of samples kept, rounded up to a power of 2
+     */
+    public FrameStats(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        samples = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Append a sample, render thread only
+     */
+    void add(Sample sample) {
+        long index = written.get();
+        samples.lazySet((int) (index & mask), sample);
+        written.lazySet(index + 1);
+    }
+
+    /**
+     * @return the sequence number of the next sample
+     */
+    long nextFrame() {
+        return written.get();
+    }
+
+    /**
+     * @return the last sample, null if none
+     */
+    public Sample latest() {
+        long count = written.get();
+        if (count == 0) {
+            return null;
+        }
+        Sample sample = samples.get((int) ((count - 1) & mask));
+        return sample != null && sample.frame() == count - 1 ? sample : null;
+    }
+
+    /**
+     * @return the samples still in the ring, oldest first
+     */
+    public List<Sample> snapshot() {
+        long count = written.get();
+        long start = Math.max(0, count - samples.length());
+        List<Sample> result = new ArrayList<>((int) (count - start));
+        for (long frame = start; frame < count; frame++) {
+            Sample sample = samples.get((int) (frame & mask));
+            // skip the slots already overwritten by newer frames
+            if (sample != null && sample.frame() == frame) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write the samples still in the ring as CSV
+     *
+     * @param path the file to write
+     */
+    public void exportCsv(String path) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (Sample sample : snapshot()) {
+                writer.write(sample.toCsv());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.softpath.riverpath.opengl;
+
+import com.softpath.riverpath.geometry.MeshBounds;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
+import static org.lwjgl.opengl.GL32.glDeleteSync;
+
+/**
+ * Buffers of a mesh uploaded to the GPU.
+ * <p>
+ * Buffers are created by the upload context and shared with the render context, vertex arrays are not
+ * shared between contexts so the vertex array is created by the render thread when the mesh is swapped in.
+ * </p>
+ */
+class GpuMesh {
+
+    final MeshBounds bounds;
+    final int vboVertices;
+    final int vboNormals;
+    final int ebo;
+    final int indexCount;
+    // normals stored as 2 octahedron encoded shorts instead of 3 floats
+    final boolean packedNormals;
+    // positions stored as 3 unsigned shorts relative to the bounds of their chunk, with 16 bits indices
+    final boolean quantized;
+    // draw range and position transform of each chunk
+    final ChunkLayout chunks;
+    // size of the buffers, for the memory estimate of the viewer
+    final long byteSize;
+    // signaled once the upload commands are executed, 0 once waited for
+    long fence;
+    // created by the render context, 0 until the mesh is displayed
+    int vao;
+    // per instance offsets and colours of a scene object geometry, render context only
+    int instanceVbo;
+    int instanceCount;
+    // decimated levels, attached by the upload thread once built and set to DELETED when the mesh is deleted
+    final AtomicReference<Lod> lod = new AtomicReference<>();
+
+    GpuMesh(MeshBounds bounds, int indexCount, boolean packedNormals, boolean quantized, ChunkLayout chunks,
+            int vboVertices, int vboNormals, int ebo, long byteSize, long fence) {
+        this.bounds = bounds;
+        this.packedNormals = packedNormals;
+        this.quantized = quantized;
+        this.chunks = chunks;
+        this.byteSize = byteSize;
+        this.vboVertices = vboVertices;
+        this.vboNormals = vboNormals;
+        this.ebo = ebo;
+        this.indexCount = indexCount;
+        this.fence = fence;
+    }
+
+    /**
+     * Attach the decimated levels of the mesh
+     *
+     * @return false if the mesh was deleted in the meantime, the levels are then left to the caller
+     */
+    boolean attachLod(Lod levels) {
+        return lod.compareAndSet(null, levels);
+    }
+
+    /**
+     * @return the decimated levels ready to be drawn, null if they are not built yet
+     */
+    Lod getDrawableLod() {
+        Lod levels = lod.get();
+        return levels != null && levels != Lod.DELETED && levels.vao != 0 ? levels : null;
+    }
+
+    /**
+     * @return the size of the buffers of the mesh and of its levels
+     */
+    long getTotalByteSize() {
+        Lod levels = lod.get();
+        return byteSize + (levels != null ? levels.byteSize : 0);
+    }
+
+    /**
+     * Delete the GPU objects, the vertex array must be deleted from the render context
+     */
+    void delete() {
+        Lod levels = lod.getAndSet(Lod.DELETED);
+        if (levels != null && levels != Lod.DELETED) {
+            levels.delete();
+        }
+        if (fence != 0) {
+            glDeleteSync(fence);
+            fence = 0;
+        }
+        if (vao != 0) {
+            glDeleteVertexArrays(vao);
+            vao = 0;
+        }
+        if (instanceVbo != 0) {
+            glDeleteBuffers(instanceVbo);
+            instanceVbo = 0;
+        }
+        glDeleteBuffers(vboVertices);
+        glDeleteBuffers(vboNormals);
+        glDeleteBuffers(ebo);
+    }
+
+    /**
+     * Index buffer of the decimated levels, drawn with the vertex buffers of the mesh
+     */
+    static class Lod {
+
+        static final Lod DELETED = new Lod(null, 0, 0, 0);
+
+        final LodLevels ranges;
+        final int ebo;
+        final long byteSize;
+        // signaled once the upload commands are executed, 0 once waited for
+        long fence;
+        // created by the render context, 0 until the levels are first drawn
+        int vao;
+
+        /**
+         * @param ranges the level ranges, their off-heap indices are no longer used once uploaded
+         */
+        Lod(LodLevels ranges, int ebo, long byteSize, long fence) {
+            this.ranges = ranges;
+            this.ebo = ebo;
+            this.byteSize = byteSize;
+            this.fence = fence;
+        }
+
+        void delete() {
+            if (fence != 0) {
+                glDeleteSync(fence);
+                fence = 0;
+            }
+            if (vao != 0) {
+                glDeleteVertexArrays(vao);
+                vao = 0;
+            }
+            glDeleteBuffers(ebo);
+        }
+    }
+}
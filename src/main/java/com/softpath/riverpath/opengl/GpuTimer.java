@@ -0,0 +1,95 @@
+package com.softpath.riverpath.opengl;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL15.glBeginQuery;
+import static org.lwjgl.opengl.GL15.glDeleteQueries;
+import static org.lwjgl.opengl.GL15.glEndQuery;
+import static org.lwjgl.opengl.GL15.glGenQueries;
+import static org.lwjgl.opengl.GL15.glGetQueryObjecti;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjecti64;
+
+/**
+ * GPU time of the frames, measured with GL_TIME_ELAPSED queries.
+ * <p>
+ * Results become available a few frames after the query ends, reading them earlier would stall the pipeline,
+ * so queries rotate in a ring and are read once available. Render thread only.
+ * </p>
+ */
+class GpuTimer {
+
+    private static final int QUERIES = 4;
+
+    private final int[] queries = new int[QUERIES];
+    // frame measured by each query, -1 if the query is free
+    private final long[] frames = new long[QUERIES];
+    private int next;
+    private int active = -1;
+
+    GpuTimer() {
+        glGenQueries(queries);
+        Arrays.fill(frames, -1);
+    }
+
+    /**
+     * Start measuring a frame, skipped if all queries are still pending
+     */
+    void begin(long frame) {
+        if (frames[next] >= 0) {
+            return;
+        }
+        active = next;
+        frames[active] = frame;
+        glBeginQuery(GL_TIME_ELAPSED, queries[active]);
+        next = (next + 1) % QUERIES;
+    }
+
+    void end() {
+        if (active >= 0) {
+            glEndQuery(GL_TIME_ELAPSED);
+            active = -1;
+        }
+    }
+
+    /**
+     * Deliver the available results without waiting, oldest first
+     *
+     * @param consumer receives the measured frame and its GPU time in nanoseconds
+     */
+    void collect(ResultConsumer consumer) {
+        for (int i = 0; i < QUERIES; i++) {
+            int query = (next + i) % QUERIES;
+            if (frames[query] < 0 || query == active) {
+                continue;
+            }
+            if (glGetQueryObjecti(queries[query], GL_QUERY_RESULT_AVAILABLE) == 0) {
+                continue;
+            }
+            consumer.accept(frames[query], glGetQueryObjecti64(queries[query], GL_QUERY_RESULT));
+            frames[query] = -1;
+        }
+    }
+
+    /**
+     * @return true if some results are not read yet
+     */
+    boolean hasPending() {
+        for (long frame : frames) {
+            if (frame >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void delete() {
+        glDeleteQueries(queries);
+    }
+
+    interface ResultConsumer {
+        void accept(long frame, long elapsedNanos);
+    }
+}
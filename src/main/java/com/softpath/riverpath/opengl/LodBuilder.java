@@ -0,0 +1,154 @@
+package com.softpath.riverpath.opengl;
+
+import com.softpath.riverpath.util.IntArrayList;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.memAllocInt;
+import static org.lwjgl.system.MemoryUtil.memAllocShort;
+
+/**
+ * Build the decimated levels of the chunks of a mesh by vertex clustering.
+ * <p>
+ * The vertices of a chunk are snapped to a grid whose cell doubles at each level, each cell being represented by
+ * the first of its vertices, and triangles collapsed by the snapping are dropped. Vertices shared with another
+ * chunk are never moved, so a chunk matches its neighbours whatever their level and switching levels at chunk
+ * granularity leaves no crack. Representatives are vertices of the mesh, so the levels only need new indices.
+ * Chunks are processed in parallel.
+ * </p>
+ */
+public class LodBuilder {
+
+    static final int LEVELS = 3;
+    // number of cells along the chunk diagonal at the first level
+    private static final int FIRST_LEVEL_CELLS = 32;
+
+    private LodBuilder() {
+    }
+
+    /**
+     * @param vertices      the float positions of the mesh
+     * @param sourceIndices the vertex of each index of the chunked mesh
+     * @param drawnIndices  the indices as uploaded, equal to the source indices or local to their block
+     *                      when quantized
+     * @param chunks        the chunks of the mesh
+     * @return the levels, to be freed once uploaded
+     */
+    public static LodLevels build(FloatBuffer vertices, IntBuffer sourceIndices, Buffer drawnIndices,
+                                  ChunkLayout chunks) {
+        int nbChunks = chunks.getChunkCount();
+        boolean[] shared = findSharedVertices(vertices.capacity() / 3, sourceIndices, chunks);
+        int[][] levelIndices = new int[nbChunks * LEVELS][];
+        float[] cellSize = new float[nbChunks * LEVELS];
+        IntStream.range(0, nbChunks).parallel().forEach(c ->
+                decimate(c, vertices, sourceIndices, drawnIndices, chunks, shared, levelIndices, cellSize));
+
+        // level major layout
+        int[] firstIndex = new int[nbChunks * LEVELS];
+        int[] indexCount = new int[nbChunks * LEVELS];
+        int total = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int c = 0; c < nbChunks; c++) {
+                int slot = c * LEVELS + level;
+                firstIndex[slot] = total;
+                indexCount[slot] = levelIndices[slot].length;
+                total += indexCount[slot];
+            }
+        }
+        Buffer indices;
+        if (drawnIndices instanceof ShortBuffer) {
+            ShortBuffer shorts = memAllocShort(total);
+            IntStream.range(0, levelIndices.length).parallel().forEach(slot -> {
+                for (int i = 0; i < indexCount[slot]; i++) {
+                    shorts.put(firstIndex[slot] + i, (short) levelIndices[slot][i]);
+                }
+            });
+            indices = shorts;
+        } else {
+            IntBuffer ints = memAllocInt(total);
+            IntStream.range(0, levelIndices.length).parallel().forEach(slot ->
+                    ints.put(firstIndex[slot], levelIndices[slot]));
+            indices = ints;
+        }
+        return new LodLevels(indices, firstIndex, indexCount, cellSize, LEVELS);
+    }
+
+    /**
+     * @return true for the vertices used by more than one chunk
+     */
+    private static boolean[] findSharedVertices(int numVertices, IntBuffer sourceIndices, ChunkLayout chunks) {
+        AtomicIntegerArray owner = new AtomicIntegerArray(numVertices);
+        boolean[] shared = new boolean[numVertices];
+        // chunk + 1 of the first chunk seen using the vertex, 0 if none
+        IntStream.range(0, chunks.getChunkCount()).parallel().forEach(c -> {
+            int first = chunks.firstIndex()[c];
+            for (int i = first; i < first + chunks.indexCount()[c]; i++) {
+                int vertex = sourceIndices.get(i);
+                int previous = owner.compareAndExchange(vertex, 0, c + 1);
+                if (previous != 0 && previous != c + 1) {
+                    shared[vertex] = true;
+                }
+            }
+        });
+        return shared;
+    }
+
+    private static void decimate(int c, FloatBuffer vertices, IntBuffer sourceIndices, Buffer drawnIndices,
+                                 ChunkLayout chunks, boolean[] shared, int[][] levelIndices, float[] cellSize) {
+        float[] bounds = chunks.bounds();
+        float minX = bounds[c * 6], minY = bounds[c * 6 + 1], minZ = bounds[c * 6 + 2];
+        float dx = bounds[c * 6 + 3] - minX, dy = bounds[c * 6 + 4] - minY, dz = bounds[c * 6 + 5] - minZ;
+        float diagonal = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int first = chunks.firstIndex()[c];
+        int count = chunks.indexCount()[c];
+        int[] mapped = new int[3];
+        for (int level = 0; level < LEVELS; level++) {
+            float cell = diagonal / (FIRST_LEVEL_CELLS >> level);
+            cellSize[c * LEVELS + level] = cell;
+            // index position of the representative of each cell
+            Map<Long, Integer> representatives = new HashMap<>();
+            IntArrayList kept = new IntArrayList(count);
+            for (int t = first; t < first + count; t += 3) {
+                for (int corner = 0; corner < 3; corner++) {
+                    int i = t + corner;
+                    int vertex = sourceIndices.get(i);
+                    int representative = i;
+                    if (!shared[vertex] && cell > 0) {
+                        long key = cellKey((vertices.get(vertex * 3) - minX) / cell,
+                                (vertices.get(vertex * 3 + 1) - minY) / cell,
+                                (vertices.get(vertex * 3 + 2) - minZ) / cell);
+                        representative = representatives.computeIfAbsent(key, k -> i);
+                    }
+                    mapped[corner] = drawnIndex(drawnIndices, representative);
+                }
+                // keep the triangle unless the snapping merged some of its distinct corners
+                int a = drawnIndex(drawnIndices, t), b = drawnIndex(drawnIndices, t + 1), d = drawnIndex(drawnIndices, t + 2);
+                if (distinct(a, b, d) == distinct(mapped[0], mapped[1], mapped[2])) {
+                    kept.addAll(mapped);
+                }
+            }
+            levelIndices[c * LEVELS + level] = kept.toArray();
+        }
+    }
+
+    private static long cellKey(float x, float y, float z) {
+        return ((long) x << 42) | ((long) y << 21) | (long) z;
+    }
+
+    private static int drawnIndex(Buffer drawnIndices, int position) {
+        return drawnIndices instanceof ShortBuffer shorts
+                ? shorts.get(position) & 0xFFFF
+                : ((IntBuffer) drawnIndices).get(position);
+    }
+
+    private static int distinct(int a, int b, int c) {
+        return 1 + (b != a ? 1 : 0) + (c != a && c != b ? 1 : 0);
+    }
+}
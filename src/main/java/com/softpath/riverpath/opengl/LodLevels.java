@@ -0,0 +1,25 @@
+package com.softpath.riverpath.opengl;
+
+import java.nio.Buffer;
+
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Decimated index ranges of the chunks of a mesh, drawn from the same vertex buffers as the full mesh.
+ * Ranges are stored level by level, so consecutive chunks drawn at the same level stay contiguous.
+ *
+ * @param indices    off-heap indices of every level, of the same type as the full mesh indices
+ * @param firstIndex the first index of each level of each chunk, at chunk * levels + level - 1
+ * @param indexCount the number of indices of each level of each chunk
+ * @param cellSize   the clustering cell size of each level of each chunk, the largest error of the level
+ * @param levels     the number of decimated levels per chunk, the full mesh being level 0
+ */
+public record LodLevels(Buffer indices, int[] firstIndex, int[] indexCount, float[] cellSize, int levels) {
+
+    /**
+     * Release the off-heap indices, the data must not be used afterwards
+     */
+    public void free() {
+        memFree(indices);
+    }
+}
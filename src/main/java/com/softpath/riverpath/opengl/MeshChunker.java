@@ -0,0 +1,154 @@
+package com.softpath.riverpath.opengl;
+
+import com.softpath.riverpath.geometry.MeshBounds;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Partition a mesh in spatially coherent chunks that the viewer culls against the view frustum.
+ * <p>
+ * Triangles are sorted along a Morton curve of their centroid, so that consecutive triangles are close to each
+ * other, then cut into chunks of at most {@link #CHUNK_TRIANGLES} triangles with their bounding box.
+ * Chunks are contiguous in the index buffer: consecutive visible chunks are drawn with a single call.
+ * The triangles of the closed surface of the mesh are sorted before the others and cut in their own chunks,
+ * so that the surface alone is drawn with a range of chunks.
+ * </p>
+ */
+public class MeshChunker {
+
+    /**
+     * Maximum number of triangles per chunk, small enough to cull finely and large enough to keep
+     * the number of draw calls low
+     */
+    static final int CHUNK_TRIANGLES = 1 << 12;
+    private static final int MORTON_BITS = 10;
+    // sorts the triangles that are not on the surface after the surface, above the 30 bits Morton code
+    private static final long VOLUME_KEY = 1L << 62;
+
+    private MeshChunker() {
+    }
+
+    /**
+     * Reorder the triangles of a mesh along the Morton curve and compute its chunks.
+     * The index buffer is rewritten in place.
+     *
+     * @param mesh the mesh data
+     * @return the chunks, all drawn from the float positions
+     */
+    public static ChunkLayout chunk(MeshData mesh) {
+        IntBuffer indices = mesh.indices();
+        int numTriangles = mesh.getTriangleCount();
+        int surfaceTriangles = mesh.surfaceTriangles();
+        int[] order = sortAlongMortonCurve(mesh.vertices(), indices, numTriangles, surfaceTriangles, mesh.bounds());
+        int[] sorted = new int[numTriangles * 3];
+        IntStream.range(0, numTriangles).parallel().forEach(k -> {
+            for (int c = 0; c < 3; c++) {
+                sorted[k * 3 + c] = indices.get(order[k] * 3 + c);
+            }
+        });
+        indices.put(0, sorted);
+
+        // the surface and the other triangles are cut separately
+        int surfaceChunks = countChunks(surfaceTriangles);
+        int nbChunks = surfaceChunks + countChunks(numTriangles - surfaceTriangles);
+        int[] firstIndex = new int[nbChunks];
+        int[] indexCount = new int[nbChunks];
+        float[] scale = new float[nbChunks * 3];
+        for (int c = 0; c < nbChunks; c++) {
+            int start = c < surfaceChunks ? 0 : surfaceTriangles;
+            int end = c < surfaceChunks ? surfaceTriangles : numTriangles;
+            int rank = c < surfaceChunks ? c : c - surfaceChunks;
+            firstIndex[c] = (start + rank * CHUNK_TRIANGLES) * 3;
+            indexCount[c] = Math.min(end * 3, firstIndex[c] + CHUNK_TRIANGLES * 3) - firstIndex[c];
+        }
+        Arrays.fill(scale, 1);
+        float[] bounds = computeBounds(mesh.vertices(), indices, firstIndex, indexCount, 0);
+        return new ChunkLayout(new int[nbChunks], firstIndex, indexCount, new float[nbChunks * 3], scale, bounds,
+                order, surfaceChunks);
+    }
+
+    private static int countChunks(int numTriangles) {
+        return (numTriangles + CHUNK_TRIANGLES - 1) / CHUNK_TRIANGLES;
+    }
+
+    /**
+     * Bounding box of each chunk, computed in parallel
+     *
+     * @param vertices   the float positions
+     * @param indices    the vertex indices of the sorted triangles
+     * @param firstIndex the first index of each chunk
+     * @param indexCount the number of indices of each chunk
+     * @param padding    margin added around each box
+     * @return min x, y, z then max x, y, z of each chunk
+     */
+    static float[] computeBounds(FloatBuffer vertices, IntBuffer indices, int[] firstIndex, int[] indexCount,
+                                 float padding) {
+        int nbChunks = firstIndex.length;
+        float[] bounds = new float[nbChunks * 6];
+        IntStream.range(0, nbChunks).parallel().forEach(c -> {
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+            for (int i = firstIndex[c]; i < firstIndex[c] + indexCount[c]; i++) {
+                int v = indices.get(i) * 3;
+                float x = vertices.get(v), y = vertices.get(v + 1), z = vertices.get(v + 2);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                maxZ = Math.max(maxZ, z);
+            }
+            int b = c * 6;
+            bounds[b] = minX - padding;
+            bounds[b + 1] = minY - padding;
+            bounds[b + 2] = minZ - padding;
+            bounds[b + 3] = maxX + padding;
+            bounds[b + 4] = maxY + padding;
+            bounds[b + 5] = maxZ + padding;
+        });
+        return bounds;
+    }
+
+    /**
+     * @param surfaceTriangles the number of leading surface triangles, kept before the others
+     * @return the triangle indices sorted by the Morton code of their centroid
+     */
+    static int[] sortAlongMortonCurve(FloatBuffer vertices, IntBuffer indices, int numTriangles, int surfaceTriangles,
+                                      MeshBounds bounds) {
+        double[] min = {bounds.minX(), bounds.minY(), bounds.minZ()};
+        double[] extent = {bounds.getWidth(), bounds.getHeight(), bounds.getDepth()};
+        int cells = (1 << MORTON_BITS) - 1;
+        long[] keys = new long[numTriangles];
+        IntStream.range(0, numTriangles).parallel().forEach(t -> {
+            long code = 0;
+            for (int a = 0; a < 3; a++) {
+                double centroid = (vertices.get(indices.get(t * 3) * 3 + a)
+                        + vertices.get(indices.get(t * 3 + 1) * 3 + a)
+                        + vertices.get(indices.get(t * 3 + 2) * 3 + a)) / 3;
+                int cell = extent[a] > 0 ? (int) Math.round((centroid - min[a]) / extent[a] * cells) : 0;
+                code |= spreadBits(Math.max(0, Math.min(cells, cell))) << a;
+            }
+            // the triangle index in the low bits keeps the order deterministic
+            keys[t] = (t >= surfaceTriangles ? VOLUME_KEY : 0) | (code << 32) | t;
+        });
+        Arrays.parallelSort(keys);
+        int[] order = new int[numTriangles];
+        IntStream.range(0, numTriangles).parallel().forEach(k -> order[k] = (int) keys[k]);
+        return order;
+    }
+
+    /**
+     * Insert two zero bits between each of the 10 low bits of the value
+     */
+    private static long spreadBits(int value) {
+        long x = value & 0x3FF;
+        x = (x | (x << 16)) & 0x30000FF;
+        x = (x | (x << 8)) & 0x300F00F;
+        x = (x | (x << 4)) & 0x30C30C3;
+        x = (x | (x << 2)) & 0x9249249;
+        return x;
+    }
+}
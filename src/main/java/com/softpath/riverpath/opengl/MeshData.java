@@ -1,15 +1,56 @@
 package com.softpath.riverpath.opengl;
 
+import com.softpath.riverpath.geometry.MeshBounds;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.system.MemoryUtil.memFree;
+
 /**
  * Simple container for OpenGL mesh data
+ * <p>
+ * The buffers are allocated off-heap so that they are handed to glBufferData without copy,
+ * they must be released with {@link #free()} once uploaded.
+ * Normals are either 3 floats per vertex or, when packed, 2 octahedron encoded signed normalized shorts.
+ * </p>
+ *
+ * @param surfaceTriangles the number of leading triangles forming the closed boundary surface of the mesh,
+ *                         used to cap the clipped volume, 0 if the mesh has no closed surface
  */
-public record MeshData(float[] vertices, float[] normals, int[] indices) {
+public record MeshData(FloatBuffer vertices, Buffer normals, IntBuffer indices, MeshBounds bounds,
+                       int surfaceTriangles) {
+
+    /**
+     * Mesh data without closed surface
+     */
+    public MeshData(FloatBuffer vertices, Buffer normals, IntBuffer indices, MeshBounds bounds) {
+        this(vertices, normals, indices, bounds, 0);
+    }
+
+    /**
+     * @return true if the normals are octahedron encoded in a {@link ShortBuffer}
+     */
+    public boolean isPackedNormals() {
+        return normals instanceof ShortBuffer;
+    }
 
     public int getVertexCount() {
-        return vertices.length / 3;
+        return vertices.capacity() / 3;
     }
 
     public int getTriangleCount() {
-        return indices.length / 3;
+        return indices.capacity() / 3;
+    }
+
+    /**
+     * Release the off-heap buffers, the data must not be used afterwards
+     */
+    public void free() {
+        memFree(vertices);
+        memFree(normals);
+        memFree(indices);
     }
 }
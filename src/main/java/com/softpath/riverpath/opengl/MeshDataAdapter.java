@@ -1,80 +1,312 @@
 package com.softpath.riverpath.opengl;
 
 import com.softpath.riverpath.fileparser.CFDTriangleMesh;
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.MeshBounds;
+import com.softpath.riverpath.util.DomainProperties;
 import javafx.collections.ObservableFloatArray;
 import javafx.scene.shape.ObservableFaceArray;
 
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.memAllocFloat;
+import static org.lwjgl.system.MemoryUtil.memAllocInt;
+import static org.lwjgl.system.MemoryUtil.memAllocShort;
+import static org.lwjgl.system.MemoryUtil.memCallocFloat;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
 /**
- * Converts CFDTriangleMesh to OpenGL-compatible format
+ * Converts meshes to OpenGL-compatible format, written straight into off-heap buffers
  */
 public class MeshDataAdapter {
 
+    // number of values copied at once from the JavaFX arrays
+    private static final int COPY_CHUNK = 1 << 16;
+
+    /**
+     * Convert the parsed mesh to OpenGL MeshData without going through the JavaFX arrays:
+     * the coordinates are copied once off-heap and the indices are generated in parallel from the elements.
+     * Renders the same triangles as the full triangle mesh.
+     *
+     * @param meshResolution the parsed mesh
+     * @param packNormals    true to encode the normals in 4 bytes per vertex instead of 12
+     */
+    public static MeshData fromMeshResolution(MeshResolution meshResolution, boolean packNormals) {
+        float[] coordinates = meshResolution.getCoordinates();
+        FloatBuffer vertices = memAllocFloat(coordinates.length);
+        vertices.put(coordinates).flip();
+
+        int[] triangles = meshResolution.getTriangles();
+        int nbTriangles = meshResolution.getNbTriangles();
+        IntBuffer indices;
+        int surfaceTriangles = 0;
+        if (DomainProperties.getInstance().is3D()) {
+            // surface triangles followed by the 4 faces of each tetrahedron
+            int[] tetrahedra = meshResolution.getTetrahedra();
+            int nbTetrahedra = meshResolution.getNbTetrahedra();
+            indices = memAllocInt(nbTriangles * 3 + nbTetrahedra * 12);
+            copyTriangles(triangles, nbTriangles, indices);
+            surfaceTriangles = nbTriangles;
+            int offset = nbTriangles * 3;
+            IntStream.range(0, nbTetrahedra).parallel().forEach(t -> {
+                int v1 = tetrahedra[t * 4], v2 = tetrahedra[t * 4 + 1];
+                int v3 = tetrahedra[t * 4 + 2], v4 = tetrahedra[t * 4 + 3];
+                int i = offset + t * 12;
+                putTriangle(indices, i, v1, v2, v3);
+                putTriangle(indices, i + 3, v1, v2, v4);
+                putTriangle(indices, i + 6, v2, v3, v4);
+                putTriangle(indices, i + 9, v1, v3, v4);
+            });
+        } else {
+            // elements followed by the boundary edges as degenerate triangles
+            int[] edges = meshResolution.getBoundaryEdges();
+            int nbEdges = meshResolution.getNbBoundaryEdges();
+            indices = memAllocInt((nbTriangles + nbEdges) * 3);
+            copyTriangles(triangles, nbTriangles, indices);
+            int offset = nbTriangles * 3;
+            IntStream.range(0, nbEdges).parallel().forEach(e ->
+                    putTriangle(indices, offset + e * 3, edges[e * 2], edges[e * 2 + 1], edges[e * 2]));
+        }
+
+        return new MeshData(vertices, buildNormals(vertices, indices, packNormals), indices, meshResolution.getBounds(),
+                surfaceTriangles);
+    }
+
+    /**
+     * Convert the boundary triangles of a parsed mesh to OpenGL MeshData, used for the closed surface
+     * of the immersed objects whose volume elements are hidden anyway
+     *
+     * @param meshResolution the parsed mesh
+     * @param packNormals    true to encode the normals in 4 bytes per vertex instead of 12
+     */
+    public static MeshData surfaceFromMeshResolution(MeshResolution meshResolution, boolean packNormals) {
+        float[] coordinates = meshResolution.getCoordinates();
+        FloatBuffer vertices = memAllocFloat(coordinates.length);
+        vertices.put(coordinates).flip();
+        int nbTriangles = meshResolution.getNbTriangles();
+        IntBuffer indices = memAllocInt(nbTriangles * 3);
+        copyTriangles(meshResolution.getTriangles(), nbTriangles, indices);
+        return new MeshData(vertices, buildNormals(vertices, indices, packNormals), indices, meshResolution.getBounds());
+    }
+
+    /**
+     * Find the mesh entities behind a triangle of {@link #fromMeshResolution} in constant time, from the
+     * order in which the triangles are generated
+     *
+     * @param meshResolution the parsed mesh
+     * @param triangle       the triangle index in the generated indices
+     * @param x              the picked point, used to select the nearest node
+     * @param y              the picked point
+     * @param z              the picked point
+     */
+    public static MeshEntities entitiesOfTriangle(MeshResolution meshResolution, int triangle, double x, double y, double z) {
+        int nbTriangles = meshResolution.getNbTriangles();
+        int element = -1;
+        int boundaryFace = -1;
+        int[] corners;
+        if (DomainProperties.getInstance().is3D()) {
+            if (triangle < nbTriangles) {
+                boundaryFace = triangle;
+                int[] triangles = meshResolution.getTriangles();
+                corners = new int[]{triangles[triangle * 3], triangles[triangle * 3 + 1], triangles[triangle * 3 + 2]};
+            } else {
+                element = (triangle - nbTriangles) / 4;
+                int[] tetrahedra = meshResolution.getTetrahedra();
+                corners = new int[]{tetrahedra[element * 4], tetrahedra[element * 4 + 1],
+                        tetrahedra[element * 4 + 2], tetrahedra[element * 4 + 3]};
+            }
+        } else if (triangle < nbTriangles) {
+            element = triangle;
+            int[] triangles = meshResolution.getTriangles();
+            corners = new int[]{triangles[triangle * 3], triangles[triangle * 3 + 1], triangles[triangle * 3 + 2]};
+        } else {
+            boundaryFace = triangle - nbTriangles;
+            int[] edges = meshResolution.getBoundaryEdges();
+            corners = new int[]{edges[boundaryFace * 2], edges[boundaryFace * 2 + 1]};
+        }
+        float[] coordinates = meshResolution.getCoordinates();
+        int node = corners[0];
+        double nearest = Double.MAX_VALUE;
+        for (int corner : corners) {
+            double dx = coordinates[corner * 3] - x, dy = coordinates[corner * 3 + 1] - y, dz = coordinates[corner * 3 + 2] - z;
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < nearest) {
+                nearest = distance;
+                node = corner;
+            }
+        }
+        return new MeshEntities(node, element, boundaryFace);
+    }
+
     /**
      * Convert CFDTriangleMesh to OpenGL MeshData
      * Renders the full mesh (triangles)
+     *
+     * @param mesh   the mesh to convert
+     * @param bounds      the mesh bounds computed by the parser
+     * @param packNormals true to encode the normals in 4 bytes per vertex instead of 12
      */
-    public static MeshData fromCFDMesh(CFDTriangleMesh mesh) {
-        // Get vertices directly from TriangleMesh points
+    public static MeshData fromCFDMesh(CFDTriangleMesh mesh, MeshBounds bounds, boolean packNormals) {
+        // Copy the points by chunks so that no full size array is allocated on the heap
         ObservableFloatArray points = mesh.getPoints();
-        float[] vertices = new float[points.size()];
-        points.toArray(vertices);
+        FloatBuffer vertices = memAllocFloat(points.size());
+        float[] pointChunk = new float[Math.min(COPY_CHUNK, points.size())];
+        for (int start = 0; start < points.size(); start += pointChunk.length) {
+            int length = Math.min(pointChunk.length, points.size() - start);
+            points.copyTo(start, pointChunk, 0, length);
+            vertices.put(pointChunk, 0, length);
+        }
+        vertices.flip();
 
-        // Get faces directly from TriangleMesh faces
         // Format: v1, t1, v2, t2, v3, t3 (every 2nd value is texture index)
         ObservableFaceArray faces = mesh.getFaces();
-        int[] indices = new int[faces.size() / 2]; // Half size (skip texture indices)
-
-        int j = 0;
-        for (int i = 0; i < faces.size(); i += 2) {
-            indices[j++] = faces.get(i); // Skip texture index at i+1
+        IntBuffer indices = memAllocInt(faces.size() / 2);
+        int[] faceChunk = new int[Math.min(COPY_CHUNK, faces.size())];
+        for (int start = 0; start < faces.size(); start += faceChunk.length) {
+            int length = Math.min(faceChunk.length, faces.size() - start);
+            faces.copyTo(start, faceChunk, 0, length);
+            for (int i = 0; i < length; i += 2) {
+                indices.put(faceChunk[i]); // Skip texture index at i+1
+            }
         }
+        indices.flip();
+
+        return new MeshData(vertices, buildNormals(vertices, indices, packNormals), indices, bounds);
+    }
 
-        // Compute normals
-        float[] normals = computeNormals(vertices, indices);
+    private static void copyTriangles(int[] triangles, int nbTriangles, IntBuffer indices) {
+        IntStream.range(0, nbTriangles).parallel().forEach(t ->
+                putTriangle(indices, t * 3, triangles[t * 3], triangles[t * 3 + 1], triangles[t * 3 + 2]));
+    }
+
+    private static void putTriangle(IntBuffer indices, int position, int vertex1, int vertex2, int vertex3) {
+        // absolute puts do not move the buffer position, so distinct positions may be written concurrently
+        indices.put(position, vertex1);
+        indices.put(position + 1, vertex2);
+        indices.put(position + 2, vertex3);
+    }
 
-        return new MeshData(vertices, normals, indices);
+    private static Buffer buildNormals(FloatBuffer vertices, IntBuffer indices, boolean packNormals) {
+        FloatBuffer normals = computeNormals(vertices, indices);
+        if (!packNormals) {
+            return normals;
+        }
+        ShortBuffer packed = packNormals(normals);
+        memFree(normals);
+        return packed;
     }
 
-    private static float[] computeNormals(float[] vertices, int[] indices) {
-        int numVertices = vertices.length / 3;
-        float[] normals = new float[numVertices * 3];
-
-        for (int i = 0; i < indices.length; i += 3) {
-            int i0 = indices[i], i1 = indices[i + 1], i2 = indices[i + 2];
-
-            float x0 = vertices[i0 * 3], y0 = vertices[i0 * 3 + 1], z0 = vertices[i0 * 3 + 2];
-            float x1 = vertices[i1 * 3], y1 = vertices[i1 * 3 + 1], z1 = vertices[i1 * 3 + 2];
-            float x2 = vertices[i2 * 3], y2 = vertices[i2 * 3 + 1], z2 = vertices[i2 * 3 + 2];
-
-            float ux = x1 - x0, uy = y1 - y0, uz = z1 - z0;
-            float vx = x2 - x0, vy = y2 - y0, vz = z2 - z0;
-
-            float nx = uy * vz - uz * vy;
-            float ny = uz * vx - ux * vz;
-            float nz = ux * vy - uy * vx;
-
-            normals[i0 * 3] += nx;
-            normals[i0 * 3 + 1] += ny;
-            normals[i0 * 3 + 2] += nz;
-            normals[i1 * 3] += nx;
-            normals[i1 * 3 + 1] += ny;
-            normals[i1 * 3 + 2] += nz;
-            normals[i2 * 3] += nx;
-            normals[i2 * 3 + 1] += ny;
-            normals[i2 * 3 + 2] += nz;
+    /**
+     * Compute the vertex normals as the sum of the area weighted normals of the triangles around each vertex.
+     * <p>
+     * The triangles around each vertex are gathered in a compressed row storage, so that each vertex sums its
+     * own triangles without conflict, in increasing triangle order: the result does not depend on the threads.
+     * </p>
+     */
+    static FloatBuffer computeNormals(FloatBuffer vertices, IntBuffer indices) {
+        int numVertices = vertices.capacity() / 3;
+        int numTriangles = indices.capacity() / 3;
+
+        // Area weighted normal of each triangle
+        FloatBuffer faceNormals = memAllocFloat(numTriangles * 3);
+        IntStream.range(0, numTriangles).parallel().forEach(t -> {
+            int i0 = indices.get(t * 3), i1 = indices.get(t * 3 + 1), i2 = indices.get(t * 3 + 2);
+
+            float x0 = vertices.get(i0 * 3), y0 = vertices.get(i0 * 3 + 1), z0 = vertices.get(i0 * 3 + 2);
+            float ux = vertices.get(i1 * 3) - x0, uy = vertices.get(i1 * 3 + 1) - y0, uz = vertices.get(i1 * 3 + 2) - z0;
+            float vx = vertices.get(i2 * 3) - x0, vy = vertices.get(i2 * 3 + 1) - y0, vz = vertices.get(i2 * 3 + 2) - z0;
+
+            faceNormals.put(t * 3, uy * vz - uz * vy);
+            faceNormals.put(t * 3 + 1, uz * vx - ux * vz);
+            faceNormals.put(t * 3 + 2, ux * vy - uy * vx);
+        });
+
+        // Triangles around each vertex: offsets[v] to offsets[v + 1] in vertexTriangles
+        AtomicIntegerArray cursors = new AtomicIntegerArray(numVertices);
+        IntStream.range(0, indices.capacity()).parallel().forEach(i -> cursors.incrementAndGet(indices.get(i)));
+        int[] offsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++) {
+            offsets[v + 1] = offsets[v] + cursors.get(v);
+            cursors.set(v, offsets[v]);
         }
+        IntBuffer vertexTriangles = memAllocInt(indices.capacity());
+        IntStream.range(0, indices.capacity()).parallel().forEach(i ->
+                vertexTriangles.put(cursors.getAndIncrement(indices.get(i)), i / 3));
 
-        // Normalize
-        for (int i = 0; i < numVertices; i++) {
-            float nx = normals[i * 3], ny = normals[i * 3 + 1], nz = normals[i * 3 + 2];
+        // Gather and normalize
+        FloatBuffer normals = memCallocFloat(numVertices * 3);
+        IntStream.range(0, numVertices).parallel().forEach(v -> {
+            sortRange(vertexTriangles, offsets[v], offsets[v + 1]);
+            float nx = 0, ny = 0, nz = 0;
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int t = vertexTriangles.get(k);
+                nx += faceNormals.get(t * 3);
+                ny += faceNormals.get(t * 3 + 1);
+                nz += faceNormals.get(t * 3 + 2);
+            }
             float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
             if (len > 0) {
-                normals[i * 3] /= len;
-                normals[i * 3 + 1] /= len;
-                normals[i * 3 + 2] /= len;
+                normals.put(v * 3, nx / len);
+                normals.put(v * 3 + 1, ny / len);
+                normals.put(v * 3 + 2, nz / len);
             }
-        }
+        });
 
+        memFree(faceNormals);
+        memFree(vertexTriangles);
         return normals;
     }
-}
\ No newline at end of file
+
+    /**
+     * Encode unit normals with the octahedron mapping in two signed normalized shorts per vertex
+     *
+     * @param normals the unit normals, 3 floats per vertex
+     * @return the packed normals, 4 bytes per vertex
+     */
+    static ShortBuffer packNormals(FloatBuffer normals) {
+        int numVertices = normals.capacity() / 3;
+        ShortBuffer packed = memAllocShort(numVertices * 2);
+        IntStream.range(0, numVertices).parallel().forEach(v -> {
+            float nx = normals.get(v * 3), ny = normals.get(v * 3 + 1), nz = normals.get(v * 3 + 2);
+            float norm1 = Math.abs(nx) + Math.abs(ny) + Math.abs(nz);
+            float px = norm1 > 0 ? nx / norm1 : 0;
+            float py = norm1 > 0 ? ny / norm1 : 0;
+            if (nz < 0) {
+                // fold the lower hemisphere over the diagonals
+                float foldedX = (1 - Math.abs(py)) * (px >= 0 ? 1 : -1);
+                float foldedY = (1 - Math.abs(px)) * (py >= 0 ? 1 : -1);
+                px = foldedX;
+                py = foldedY;
+            }
+            packed.put(v * 2, (short) Math.round(px * Short.MAX_VALUE));
+            packed.put(v * 2 + 1, (short) Math.round(py * Short.MAX_VALUE));
+        });
+        return packed;
+    }
+
+    /**
+     * Node, element and boundary face behind a rendered triangle, -1 when the triangle has none
+     */
+    public record MeshEntities(int node, int element, int boundaryFace) {
+    }
+
+    /**
+     * Insertion sort of a small range of the buffer
+     */
+    private static void sortRange(IntBuffer buffer, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int value = buffer.get(i);
+            int j = i - 1;
+            while (j >= from && buffer.get(j) > value) {
+                buffer.put(j + 1, buffer.get(j));
+                j--;
+            }
+            buffer.put(j + 1, value);
+        }
+    }
+}
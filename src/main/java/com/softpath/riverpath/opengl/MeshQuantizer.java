@@ -0,0 +1,179 @@
+package com.softpath.riverpath.opengl;
+
+import com.softpath.riverpath.util.IntArrayList;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.memAllocInt;
+import static org.lwjgl.system.MemoryUtil.memAllocShort;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Convert mesh data to the compact {@link QuantizedMeshData} format.
+ * <p>
+ * Triangles are sorted along a Morton curve of their centroid so that each block covers a compact region,
+ * then cut into blocks of at most 65536 vertices so that 16 bits indices are enough. Vertices shared by
+ * two blocks are duplicated. Positions are quantized relative to the bounds of their block, so the error
+ * is 1/131070 of the block extent. Blocks are made of whole culling chunks, see {@link MeshChunker}.
+ * </p>
+ */
+public class MeshQuantizer {
+
+    private static final int MAX_BLOCK_VERTICES = 1 << 16;
+    private static final float QUANTIZATION_STEPS = 65535f;
+
+    private MeshQuantizer() {
+    }
+
+    /**
+     * Quantize a mesh, the source data is left untouched
+     *
+     * @param mesh the mesh data
+     * @return the quantized data, to be freed once uploaded
+     */
+    public static QuantizedMeshData quantize(MeshData mesh) {
+        FloatBuffer vertices = mesh.vertices();
+        IntBuffer indices = mesh.indices();
+        int numVertices = mesh.getVertexCount();
+        int numTriangles = mesh.getTriangleCount();
+        int surfaceTriangles = mesh.surfaceTriangles();
+        int[] order = MeshChunker.sortAlongMortonCurve(vertices, indices, numTriangles, surfaceTriangles,
+                mesh.bounds());
+
+        // Cut the sorted triangles in blocks of vertices addressed by 16 bits indices, themselves cut in chunks
+        // for culling. Vertices get a local index in each block they are used in.
+        int[] blockOf = new int[numVertices];
+        Arrays.fill(blockOf, -1);
+        int[] localIndex = new int[numVertices];
+        IntArrayList vertexIds = new IntArrayList(numVertices);
+        IntArrayList blockBase = new IntArrayList();
+        IntArrayList chunkBlock = new IntArrayList();
+        IntArrayList chunkFirst = new IntArrayList();
+        IntBuffer sorted = memAllocInt(numTriangles * 3);
+        ShortBuffer quantizedIndices = memAllocShort(numTriangles * 3);
+        int block = -1;
+        int blockVertices = 0;
+        int chunkTriangles = 0;
+        int[] corners = new int[3];
+        for (int k = 0; k < numTriangles; k++) {
+            int t = order[k];
+            int newVertices = 0;
+            for (int c = 0; c < 3; c++) {
+                corners[c] = indices.get(t * 3 + c);
+                boolean repeated = (c > 0 && corners[c] == corners[0]) || (c > 1 && corners[c] == corners[1]);
+                if (blockOf[corners[c]] != block && !repeated) {
+                    newVertices++;
+                }
+            }
+            if (block < 0 || blockVertices + newVertices > MAX_BLOCK_VERTICES) {
+                // start a new block, all vertices of the triangle become new
+                block++;
+                blockVertices = 0;
+                blockBase.add(vertexIds.size());
+                chunkTriangles = MeshChunker.CHUNK_TRIANGLES;
+            }
+            if (chunkTriangles == MeshChunker.CHUNK_TRIANGLES || k == surfaceTriangles) {
+                // the surface triangles end a chunk
+                chunkTriangles = 0;
+                chunkBlock.add(block);
+                chunkFirst.add(k * 3);
+            }
+            chunkTriangles++;
+            for (int c = 0; c < 3; c++) {
+                int vertex = corners[c];
+                if (blockOf[vertex] != block) {
+                    blockOf[vertex] = block;
+                    localIndex[vertex] = blockVertices++;
+                    vertexIds.add(vertex);
+                }
+                sorted.put(k * 3 + c, vertex);
+                quantizedIndices.put(k * 3 + c, (short) localIndex[vertex]);
+            }
+        }
+
+        int nbBlocks = blockBase.size();
+        int nbOutput = vertexIds.size();
+        int[] ids = vertexIds.elements();
+        int[] bases = blockBase.toArray();
+        float[] blockOrigin = new float[nbBlocks * 3];
+        float[] blockScale = new float[nbBlocks * 3];
+        ShortBuffer positions = memAllocShort(nbOutput * 3);
+        IntStream.range(0, nbBlocks).parallel().forEach(b -> {
+            int end = b + 1 < nbBlocks ? bases[b + 1] : nbOutput;
+            quantizeBlock(vertices, ids, bases[b], end, positions, blockOrigin, blockScale, b);
+        });
+
+        // Chunks share the base vertex and position transform of their block
+        int nbChunks = chunkFirst.size();
+        int[] firstIndex = chunkFirst.toArray();
+        int[] indexCount = new int[nbChunks];
+        int[] baseVertex = new int[nbChunks];
+        float[] origin = new float[nbChunks * 3];
+        float[] scale = new float[nbChunks * 3];
+        float maxStep = 0;
+        int surfaceChunks = 0;
+        for (int c = 0; c < nbChunks; c++) {
+            int b = chunkBlock.get(c);
+            if (firstIndex[c] < surfaceTriangles * 3) {
+                surfaceChunks++;
+            }
+            indexCount[c] = (c + 1 < nbChunks ? firstIndex[c + 1] : numTriangles * 3) - firstIndex[c];
+            baseVertex[c] = bases[b];
+            System.arraycopy(blockOrigin, b * 3, origin, c * 3, 3);
+            System.arraycopy(blockScale, b * 3, scale, c * 3, 3);
+            for (int a = 0; a < 3; a++) {
+                maxStep = Math.max(maxStep, blockScale[b * 3 + a] / QUANTIZATION_STEPS);
+            }
+        }
+        // the quantized positions may move by half a step out of the float bounds
+        float[] bounds = MeshChunker.computeBounds(vertices, sorted, firstIndex, indexCount, maxStep);
+
+        // Normals of the output vertices, packed if they are not already
+        ShortBuffer packed = mesh.normals() instanceof ShortBuffer shorts
+                ? shorts : MeshDataAdapter.packNormals((FloatBuffer) mesh.normals());
+        ShortBuffer normals = memAllocShort(nbOutput * 2);
+        IntStream.range(0, nbOutput).parallel().forEach(i -> {
+            normals.put(i * 2, packed.get(ids[i] * 2));
+            normals.put(i * 2 + 1, packed.get(ids[i] * 2 + 1));
+        });
+        if (packed != mesh.normals()) {
+            memFree(packed);
+        }
+
+        return new QuantizedMeshData(positions, normals, quantizedIndices, sorted,
+                new ChunkLayout(baseVertex, firstIndex, indexCount, origin, scale, bounds, order,
+                surfaceChunks), mesh.bounds());
+    }
+
+    /**
+     * Quantize the positions of the vertices of a block relative to their bounds
+     */
+    private static void quantizeBlock(FloatBuffer vertices, int[] ids, int start, int end, ShortBuffer positions,
+                                      float[] origin, float[] scale, int block) {
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = start; i < end; i++) {
+            for (int a = 0; a < 3; a++) {
+                float value = vertices.get(ids[i] * 3 + a);
+                min[a] = Math.min(min[a], value);
+                max[a] = Math.max(max[a], value);
+            }
+        }
+        for (int a = 0; a < 3; a++) {
+            origin[block * 3 + a] = min[a];
+            scale[block * 3 + a] = max[a] - min[a];
+        }
+        for (int i = start; i < end; i++) {
+            for (int a = 0; a < 3; a++) {
+                float extent = max[a] - min[a];
+                float relative = extent > 0 ? (vertices.get(ids[i] * 3 + a) - min[a]) / extent : 0;
+                // stored as unsigned shorts
+                positions.put(i * 3 + a, (short) Math.round(relative * QUANTIZATION_STEPS));
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.softpath.riverpath.opengl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static org.lwjgl.system.MemoryUtil.memCopy;
+
+/**
+ * Offscreen framebuffer of the embedded viewer and the pixel buffers its frames are read back into.
+ * <p>
+ * glReadPixels into a pixel pack buffer returns immediately, the copy being done by the GPU after the frame.
+ * Frames alternate between two pixel buffers and are copied into the {@link EmbeddedView} once their fence is
+ * signaled, so the render thread never waits for the GPU: the displayed frame is one or two frames behind.
+ * Render context only.
+ * </p>
+ */
+class OffscreenTarget {
+
+    private static final int BUFFERS = 2;
+
+    private int framebuffer, colorBuffer, depthStencilBuffer;
+    private int width, height;
+    private final int[] pixelBuffers = new int[BUFFERS];
+    private final long[] capacities = new long[BUFFERS];
+    // signaled once the frame is in the pixel buffer, 0 if the buffer holds no pending frame
+    private final long[] fences = new long[BUFFERS];
+    private final int[] frameWidths = new int[BUFFERS];
+    private final int[] frameHeights = new int[BUFFERS];
+    // pixel buffer written by the next read back, the other one holds the older frame
+    private int next;
+
+    /**
+     * Bind the framebuffer for a frame of the given size, created or resized if needed
+     */
+    void bind(int width, int height) {
+        if (framebuffer == 0) {
+            framebuffer = glGenFramebuffers();
+            for (int b = 0; b < BUFFERS; b++) {
+                pixelBuffers[b] = glGenBuffers();
+            }
+        }
+        if (width != this.width || height != this.height) {
+            deleteRenderbuffers();
+            this.width = width;
+            this.height = height;
+            colorBuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, colorBuffer);
+            glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+            // the clip plane caps need a stencil
+            depthStencilBuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, depthStencilBuffer);
+            glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH24_STENCIL8, width, height);
+            glBindRenderbuffer(GL_RENDERBUFFER, 0);
+            glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, colorBuffer);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_STENCIL_ATTACHMENT, GL_RENDERBUFFER, depthStencilBuffer);
+        }
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glViewport(0, 0, width, height);
+    }
+
+    /**
+     * Start copying the frame drawn to the framebuffer into the next pixel buffer, then unbind the framebuffer.
+     * A frame still pending in that buffer is dropped, the view being more than a frame behind.
+     *
+     * @return the number of bytes read back
+     */
+    long readBack() {
+        int b = next;
+        next = (next + 1) % BUFFERS;
+        if (fences[b] != 0) {
+            glDeleteSync(fences[b]);
+            fences[b] = 0;
+        }
+        long bytes = (long) width * height * Integer.BYTES;
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[b]);
+        if (capacities[b] < bytes) {
+            glBufferData(GL_PIXEL_PACK_BUFFER, bytes, GL_STREAM_READ);
+            capacities[b] = bytes;
+        }
+        glReadBuffer(GL_COLOR_ATTACHMENT0);
+        // one native int per pixel, alpha in the high byte: the ARGB format of the JavaFX image
+        glReadPixels(0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        fences[b] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        frameWidths[b] = width;
+        frameHeights[b] = height;
+        return bytes;
+    }
+
+    /**
+     * Copy the latest frame read back into the view, if its pixel buffer is ready and the view has an image free
+     */
+    void present(EmbeddedView view) {
+        // fences are signaled in order, the newest signaled frame supersedes the older ones
+        int latest = -1;
+        for (int k = 0; k < BUFFERS; k++) {
+            int b = (next + k) % BUFFERS;
+            if (fences[b] != 0 && glClientWaitSync(fences[b], 0, 0) != GL_TIMEOUT_EXPIRED) {
+                if (latest >= 0) {
+                    drop(latest);
+                }
+                latest = b;
+            }
+        }
+        if (latest < 0) {
+            return;
+        }
+        if (frameWidths[latest] != view.getFrameWidth() || frameHeights[latest] != view.getFrameHeight()) {
+            // the view was resized, a frame at the new size is coming
+            drop(latest);
+            return;
+        }
+        EmbeddedView.Frame frame = view.acquire();
+        if (frame == null) {
+            // the previous frame is not displayed yet, try again later
+            return;
+        }
+        if (frame.width() != frameWidths[latest] || frame.height() != frameHeights[latest]) {
+            view.release(frame);
+            drop(latest);
+            return;
+        }
+        drop(latest);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[latest]);
+        long rowBytes = (long) frame.width() * Integer.BYTES;
+        ByteBuffer pixels = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, rowBytes * frame.height(), GL_MAP_READ_BIT);
+        if (pixels != null) {
+            // OpenGL rows go upwards, image rows downwards
+            long source = memAddress(pixels);
+            long target = memAddress(frame.pixels());
+            for (int row = 0; row < frame.height(); row++) {
+                memCopy(source + (frame.height() - 1 - row) * rowBytes, target + row * rowBytes, rowBytes);
+            }
+            glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        }
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        if (pixels != null) {
+            view.present(frame);
+        } else {
+            view.release(frame);
+        }
+    }
+
+    /**
+     * @return true if a frame is still being read back
+     */
+    boolean hasPending() {
+        for (long fence : fences) {
+            if (fence != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drop(int b) {
+        glDeleteSync(fences[b]);
+        fences[b] = 0;
+    }
+
+    private void deleteRenderbuffers() {
+        if (colorBuffer != 0) {
+            glDeleteRenderbuffers(colorBuffer);
+            glDeleteRenderbuffers(depthStencilBuffer);
+            colorBuffer = 0;
+            depthStencilBuffer = 0;
+        }
+    }
+
+    void delete() {
+        for (int b = 0; b < BUFFERS; b++) {
+            if (fences[b] != 0) {
+                drop(b);
+            }
+        }
+        deleteRenderbuffers();
+        if (framebuffer != 0) {
+            glDeleteFramebuffers(framebuffer);
+            glDeleteBuffers(pixelBuffers);
+            framebuffer = 0;
+        }
+        width = 0;
+        height = 0;
+        next = 0;
+        Arrays.fill(capacities, 0);
+    }
+}
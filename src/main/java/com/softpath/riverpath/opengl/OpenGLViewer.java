@@ -1,78 +1,317 @@
 package com.softpath.riverpath.opengl;
 
-import com.softpath.riverpath.fileparser.CFDTriangleMesh;
+import com.softpath.riverpath.fileparser.MeshResolution;
+import com.softpath.riverpath.geometry.MeshBounds;
 import javafx.application.Platform;
+import javafx.scene.paint.Color;
+import lombok.extern.slf4j.Slf4j;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
-import org.lwjgl.BufferUtils;
+import org.joml.Vector3f;
 import org.lwjgl.glfw.GLFWMouseButtonCallback;
 import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.lwjgl.glfw.Callbacks.glfwFreeCallbacks;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.*;
 import static org.lwjgl.opengl.GL20.*;
 import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL33.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 /**
  * OpenGL Mesh Viewer - opens a separate window for high-resolution rendering
  * <p>
+ * Rendering is on demand: the render thread blocks in glfwWaitEvents and only redraws when an input,
+ * a resize or a data change marked the frame dirty, so an idle viewer uses no CPU nor GPU.
+ * <p>
+ * The window and its context live until {@link #close()}: closing the window only hides it, and new meshes
+ * are queued and uploaded by a background thread through a context shared with the window, then swapped in
+ * by the render thread once their upload fence is signaled. Switching meshes never re-creates the window.
+ * <p>
+ * Meshes are split in spatial chunks (see {@link MeshChunker}) culled against the view frustum every frame,
+ * so the cost of a zoomed in frame follows the number of visible triangles. Once a mesh is displayed, the upload
+ * thread builds decimated levels of each chunk (see {@link LodBuilder}) and distant chunks are drawn coarser.
+ * <p>
  * Usage:
- * OpenGLViewer.show(cfdMesh, is3D);           // Open viewer
+ * OpenGLViewer.show(meshResolution);          // Open viewer
  * OpenGLViewer.close();                        // Close viewer
  * OpenGLViewer.isRunning();                    // Check if open
+ * OpenGLViewer.requestRedraw();                // Redraw after a data change
+ * OpenGLViewer.setIdleFrameRate(fps);          // Also redraw periodically when idle, 0 to disable
+ * OpenGLViewer.setPackedNormals(true);         // Upload normals in 4 bytes per vertex instead of 12
+ * OpenGLViewer.setQuantized(true);             // Upload 10 bytes per vertex and 2 bytes per index
+ * OpenGLViewer.exportFrameStats(path);         // Write the last frame times and counters as CSV
+ * OpenGLViewer.showObject(id, key, mesh, color, x, y, z); // Show an immersed object with the domain
+ * OpenGLViewer.moveObject(id, x, y, z);        // Move it without uploading its mesh again
+ * OpenGLViewer.removeObject(id);
+ * OpenGLViewer.setOnPick(result -> ...);       // Receive the triangle clicked
+ * OpenGLViewer.embed(view);                    // Render inside a JavaFX EmbeddedView instead of the window
+ * <p>
+ * Press I in the viewer to show the frame statistics in the title bar and log them every second (debug level).
+ * <p>
+ * Press 1, 2 or 3 to toggle the clip plane normal to X, Y or Z, F to flip the last toggled plane and
+ * Shift + scroll or Page Up / Page Down to move it. Planes are applied by the shaders with clip distances and the
+ * cross-section of the closed domain surface is filled using the stencil buffer, so moving a plane costs no upload.
  */
+@Slf4j
 public class OpenGLViewer {
 
+    private static final float FIELD_OF_VIEW = (float) Math.toRadians(45);
+    private static final float NEAR_PLANE = 0.1f;
+    // largest error on screen, in pixels, of the decimated levels drawn
+    private static final float LOD_PIXEL_ERROR = 1.5f;
+    private static final int STATS_CAPACITY = 4096;
+    // seconds between two reads of the pending GPU timer queries
+    private static final double GPU_TIMER_POLL = 0.005;
+    private static final long STATS_DISPLAY_PERIOD = 1000;
+    private static final String TITLE = "High-Resolution Mesh Viewer";
+    // offset then colour of each instance
+    private static final int INSTANCE_FLOATS = 6;
+    // draw ids written by the picking pass, 0 being the background
+    private static final int DOMAIN_DRAW_ID = 1;
+    private static final int FIRST_OBJECT_DRAW_ID = 2;
+    // draw id, triangle and depth of the picked pixel
+    private static final int PICK_BYTES = 12;
+    // a press and release further apart than this, in pixels, is a drag and not a click
+    private static final double CLICK_TOLERANCE = 3;
+    // fraction of the domain extent a clip plane moves by per key press or scroll step
+    private static final float CLIP_STEP = 0.01f;
     private static OpenGLViewer instance;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean shouldClose = new AtomicBoolean(false);
+    // set when the frame must be drawn again
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    // frames per second drawn while idle, 0 to only draw on events
+    private static volatile double idleFrameRate = 0;
+    // octahedron encoded normals for the next meshes shown
+    private static volatile boolean packedNormals = false;
+    // 16 bits positions and indices per chunk for the next meshes shown
+    private static volatile boolean quantized = false;
+    // immersed objects shown with the domain, by object id, kept across viewer restarts
+    private static final Map<String, SceneObject> SCENE = new ConcurrentHashMap<>();
+    // geometry of the immersed objects by geometry key, replaced when an object is shown with another mesh
+    private static final Map<String, SceneGeometry> GEOMETRIES = new ConcurrentHashMap<>();
+    // incremented on every scene change
+    private static final AtomicLong SCENE_VERSION = new AtomicLong();
     // Matrices
     private final Matrix4f viewMatrix = new Matrix4f();
     private final Matrix4f projMatrix = new Matrix4f();
     private final Matrix3f normalMatrix = new Matrix3f();
+    private final Matrix4f viewProjMatrix = new Matrix4f();
+    // planes of the view frustum, chunks outside are not drawn
+    private final FrustumIntersection frustum = new FrustumIntersection();
     private final float[] mvBuffer = new float[16];
     private final float[] projBuffer = new float[16];
     private final float[] normBuffer = new float[9];
     private long window;
     private Thread renderThread;
+    // hidden window owning the upload context, shared with the window context
+    private long uploadWindow;
+    private Thread uploadThread;
+    // meshes waiting for upload, only the latest one is uploaded
+    private final BlockingQueue<UploadRequest> uploadQueue = new LinkedBlockingQueue<>();
+    // uploaded mesh waiting to be swapped in by the render thread
+    private final AtomicReference<GpuMesh> pendingMesh = new AtomicReference<>();
+    private final AtomicBoolean showRequested = new AtomicBoolean(false);
+    private final AtomicBoolean visible = new AtomicBoolean(false);
     // OpenGL resources
-    private int vao, vboVertices, vboNormals, ebo, shaderProgram;
-    private int indexCount;
+    private ViewerProgram shading;
+    private ViewerProgram picking;
+    private ViewerProgram cap;
+    // empty vertex array bound to draw the cap quads, whose corners come from the vertex id
+    private int capVao;
+    // program used by the current pass
+    private ViewerProgram program;
+    // Picking
+    private final AtomicReference<double[]> pickRequest = new AtomicReference<>();
+    // scene objects by draw id - 2 in the last pass
+    private final List<PickTarget> pickTargets = new ArrayList<>();
+    private int pickFramebuffer, pickColorBuffer, pickDepthBuffer, pickWidth, pickHeight;
+    private int pickPixelBuffer;
+    // readback in flight, render thread only
+    private PendingPick pendingPick;
+    private static volatile Consumer<PickResult> onPick;
+    private double pressX, pressY;
+    // Embedding in the JavaFX scene
+    private static volatile EmbeddedView embeddedView;
+    // view rendered to, null when rendering to the window, render thread only
+    private EmbeddedView attachedView;
+    private final OffscreenTarget offscreen = new OffscreenTarget();
+    // camera input of the embedded view, run by the render thread
+    private final Queue<Runnable> inputs = new ConcurrentLinkedQueue<>();
+    // Clip planes normal to X, Y and Z, render thread only
+    private final boolean[] clipEnabled = new boolean[ViewerProgram.CLIP_PLANES];
+    // position of each plane as a fraction of the domain extent
+    private final float[] clipPositions = {0.5f, 0.5f, 0.5f};
+    // 1 to keep the side above the position, -1 to keep the side below
+    private final float[] clipSides = {1, 1, 1};
+    private final float[] clipEquations = new float[ViewerProgram.CLIP_PLANES * 4];
+    private int selectedClipPlane;
+    // Instrumentation
+    private final FrameStats frameStats = new FrameStats(STATS_CAPACITY);
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    // frames drawn, waiting for their GPU time, oldest first
+    private final Deque<FrameStats.Sample> timedFrames = new ArrayDeque<>();
+    private GpuTimer gpuTimer;
+    private long frameCount;
+    private int drawCalls;
+    private long trianglesDrawn;
+    private boolean showStats = false;
+    private long lastStatsDisplay;
+    // displayed mesh, render thread only
+    private GpuMesh gpuMesh;
+    // scene object geometries uploaded, waiting for their vertex array
+    private final Queue<UploadedGeometry> uploadedGeometries = new ConcurrentLinkedQueue<>();
+    // scene object geometries by geometry key and the objects drawn with each of them, render thread only
+    private final Map<String, GpuMesh> objectMeshes = new HashMap<>();
+    // mesh each geometry was uploaded from, and the uploads in flight, by geometry key
+    private final Map<String, Supplier<MeshData>> objectSources = new HashMap<>();
+    private final Map<String, Supplier<MeshData>> requestedGeometries = new HashMap<>();
+    private Map<String, List<SceneObject>> sceneGroups = Map.of();
+    private long syncedSceneVersion = -1;
     // Camera
     private float distance = 5f, rotX = 30f, rotY = 45f;
     private float targetX = 0, targetY = 0, targetZ = 0;
     private double lastMouseX, lastMouseY;
     private boolean rotating = false;
     private int width = 1280, height = 720;
-    private MeshData currentMesh;
+    private MeshBounds currentBounds;
     private boolean panning = false;
 
     // ==================== Public API ====================
     private Runnable onCloseCallback;
 
     /**
-     * Show mesh in OpenGL viewer
+     * Show mesh in OpenGL viewer, reusing the window if the viewer is already started
      */
-    public static void show(CFDTriangleMesh mesh) {
-        if (instance != null && instance.running.get()) {
-            instance.shouldClose.set(true);
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ignored) {
+    public static void show(MeshResolution meshResolution) {
+        boolean pack = packedNormals;
+        show(() -> MeshDataAdapter.fromMeshResolution(meshResolution, pack));
+    }
+
+    /**
+     * Show mesh in OpenGL viewer, the mesh data being built by the upload thread
+     */
+    public static synchronized void show(Supplier<MeshData> meshSupplier) {
+        UploadRequest request = new UploadRequest(meshSupplier, quantized, null);
+        ensureStarted();
+        instance.uploadQueue.add(request);
+        instance.showRequested.set(true);
+        instance.wakeUp();
+    }
+
+    /**
+     * Render inside a view of the JavaFX scene instead of the viewer window, which stays hidden meanwhile
+     *
+     * @param view the view to render to, null to render to the window again on the next mesh shown
+     */
+    public static synchronized void embed(EmbeddedView view) {
+        embeddedView = view;
+        if (view != null) {
+            ensureStarted();
+        }
+        requestRedraw();
+    }
+
+    private static void ensureStarted() {
+        if (instance == null || instance.shouldClose.get()) {
+            Thread previous = instance != null ? instance.renderThread : null;
+            instance = new OpenGLViewer();
+            instance.start(previous);
+        }
+    }
+
+    /**
+     * Run an input of the embedded view on the render thread
+     */
+    static void post(Consumer<OpenGLViewer> input) {
+        OpenGLViewer viewer = instance;
+        if (viewer != null) {
+            viewer.inputs.add(() -> input.accept(viewer));
+            viewer.wakeUp();
+        }
+    }
+
+    /**
+     * Show an immersed object with the domain, or update it. Objects sharing the same geometry key share their
+     * buffers on the GPU and are drawn with a single instanced call.
+     *
+     * @param id          the object id
+     * @param geometryKey identifies the geometry, the object file name for example
+     * @param mesh        the object mesh, in coordinates relative to the object origin
+     * @param color       the object colour
+     * @param x           the object origin along X, in domain coordinates
+     * @param y           the object origin along Y
+     * @param z           the object origin along Z
+     */
+    public static void showObject(String id, String geometryKey, MeshResolution mesh, Color color,
+                                  double x, double y, double z) {
+        // a file imported again comes with a new mesh, its geometry is uploaded again
+        GEOMETRIES.compute(geometryKey, (key, geometry) -> geometry != null && geometry.source() == mesh
+                ? geometry : new SceneGeometry(mesh, () -> MeshDataAdapter.surfaceFromMeshResolution(mesh, false)));
+        SCENE.put(id, new SceneObject(id, geometryKey, (float) color.getRed(), (float) color.getGreen(),
+                (float) color.getBlue(), (float) x, (float) y, (float) z));
+        sceneChanged();
+    }
+
+    /**
+     * Move an object, its transform being a uniform or an instance attribute the mesh is not uploaded again
+     */
+    public static void moveObject(String id, double x, double y, double z) {
+        SCENE.computeIfPresent(id, (key, object) -> new SceneObject(id, object.geometryKey(),
+                object.red(), object.green(), object.blue(), (float) x, (float) y, (float) z));
+        sceneChanged();
+    }
+
+    /**
+     * Remove an object from the scene
+     */
+    public static void removeObject(String id) {
+        SceneObject removed = SCENE.remove(id);
+        if (removed != null) {
+            if (SCENE.values().stream().noneMatch(object -> object.geometryKey().equals(removed.geometryKey()))) {
+                GEOMETRIES.remove(removed.geometryKey());
             }
+            sceneChanged();
         }
+    }
 
-        instance = new OpenGLViewer();
-        MeshData data = MeshDataAdapter.fromCFDMesh(mesh);
-        instance.start(data);
+    private static void sceneChanged() {
+        SCENE_VERSION.incrementAndGet();
+        requestRedraw();
     }
 
     /**
@@ -81,14 +320,81 @@ public class OpenGLViewer {
     public static void close() {
         if (instance != null) {
             instance.shouldClose.set(true);
+            instance.wakeUp();
+        }
+    }
+
+    /**
+     * Redraw the viewer, to be called after a data change
+     */
+    public static void requestRedraw() {
+        if (instance != null) {
+            instance.markDirty();
+            instance.wakeUp();
+        }
+    }
+
+    /**
+     * Set the frame rate of the periodic redraw while no event occurs
+     *
+     * @param framesPerSecond the idle frame rate, 0 to only redraw on input, resize or data change
+     */
+    public static void setIdleFrameRate(double framesPerSecond) {
+        idleFrameRate = Math.max(0, framesPerSecond);
+        if (instance != null) {
+            instance.wakeUp();
+        }
+    }
+
+    /**
+     * Upload the normals of the next meshes octahedron encoded in 4 bytes per vertex instead of 12,
+     * at the cost of a slightly less precise shading
+     */
+    public static void setPackedNormals(boolean packed) {
+        packedNormals = packed;
+    }
+
+    /**
+     * Upload the next meshes in the quantized format: positions on 16 bits relative to the bounds of
+     * spatial chunks, 16 bits indices local to each chunk and packed normals. A vertex takes 10 bytes
+     * instead of 24 and an index 2 bytes instead of 4, the position error being 1/131070 of a chunk extent
+     */
+    public static void setQuantized(boolean enabled) {
+        quantized = enabled;
+    }
+
+    /**
+     * @return the frame samples of the viewer, null if it was never started
+     */
+    public static FrameStats getFrameStats() {
+        OpenGLViewer viewer = instance;
+        return viewer != null ? viewer.frameStats : null;
+    }
+
+    /**
+     * Write the last frame samples of the viewer as CSV
+     *
+     * @param path the file to write
+     */
+    public static void exportFrameStats(String path) {
+        FrameStats stats = getFrameStats();
+        if (stats != null) {
+            stats.exportCsv(path);
         }
     }
 
+    /**
+     * Set the callback receiving the triangle clicked in the viewer, called on the FX application thread
+     */
+    public static void setOnPick(Consumer<PickResult> callback) {
+        onPick = callback;
+    }
+
     /**
      * Check if viewer is running
      */
     public static boolean isRunning() {
-        return instance != null && instance.running.get();
+        return instance != null && instance.running.get() && instance.visible.get();
     }
 
     /**
@@ -102,24 +408,83 @@ public class OpenGLViewer {
 
     // ==================== Internal ====================
 
-    private void start(MeshData mesh) {
+    /**
+     * @param previous the render thread of a closed viewer, waited for so that its GLFW termination
+     *                 does not destroy the new window
+     */
+    private void start(Thread previous) {
         renderThread = new Thread(() -> {
             try {
+                if (previous != null) {
+                    previous.join();
+                }
                 initWindow();
                 initGL();
-                uploadMesh(mesh);
-                currentMesh = mesh;
-                fitCamera(mesh);
                 running.set(true);
+                uploadThread = new Thread(this::uploadLoop, "OpenGL-Upload");
+                uploadThread.setDaemon(true);
+                uploadThread.start();
 
-                while (!shouldClose.get() && !glfwWindowShouldClose(window)) {
-                    render();
-                    glfwSwapBuffers(window);
-                    glfwPollEvents();
+                while (!shouldClose.get()) {
+                    if (glfwWindowShouldClose(window)) {
+                        hide();
+                    }
+                    EmbeddedView view = embeddedView;
+                    if (view != attachedView) {
+                        attach(view);
+                    }
+                    if (showRequested.getAndSet(false)) {
+                        if (attachedView == null) {
+                            glfwShowWindow(window);
+                            glfwFocusWindow(window);
+                        }
+                        visible.set(true);
+                        markDirty();
+                    }
+                    Runnable input;
+                    while ((input = inputs.poll()) != null) {
+                        input.run();
+                    }
+                    swapPendingMesh();
+                    attachPendingLevels();
+                    syncScene();
+                    if (dirty.getAndSet(false) && visible.get()) {
+                        long start = System.nanoTime();
+                        gpuTimer.begin(frameCount);
+                        if (attachedView != null) {
+                            width = attachedView.getFrameWidth();
+                            height = attachedView.getFrameHeight();
+                            offscreen.bind(width, height);
+                            render();
+                            offscreen.readBack();
+                        } else {
+                            render();
+                        }
+                        gpuTimer.end();
+                        if (attachedView == null) {
+                            glfwSwapBuffers(window);
+                        }
+                        recordFrame(System.nanoTime() - start);
+                    }
+                    if (attachedView != null) {
+                        offscreen.present(attachedView);
+                    }
+                    if (pendingPick == null && gpuMesh != null && visible.get()) {
+                        double[] click = pickRequest.getAndSet(null);
+                        if (click != null) {
+                            pick(click[0], click[1]);
+                        }
+                    }
+                    readPick();
+                    collectGpuTimes();
+                    waitEvents();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } finally {
                 cleanup();
                 running.set(false);
+                visible.set(false);
                 if (onCloseCallback != null) {
                     Platform.runLater(onCloseCallback);
                 }
@@ -129,6 +494,539 @@ public class OpenGLViewer {
         renderThread.start();
     }
 
+    /**
+     * Switch between the window and an embedded view
+     *
+     * @param view the view to render to, null to render to the window
+     */
+    private void attach(EmbeddedView view) {
+        attachedView = view;
+        if (view != null) {
+            glfwHideWindow(window);
+            visible.set(true);
+        } else {
+            offscreen.delete();
+            int[] windowWidth = new int[1], windowHeight = new int[1];
+            glfwGetFramebufferSize(window, windowWidth, windowHeight);
+            width = Math.max(1, windowWidth[0]);
+            height = Math.max(1, windowHeight[0]);
+            glViewport(0, 0, width, height);
+            // the window is shown again with the next mesh
+            visible.set(false);
+        }
+        markDirty();
+    }
+
+    /**
+     * Hide the window instead of destroying it, the next mesh shown reuses it
+     */
+    private void hide() {
+        glfwSetWindowShouldClose(window, false);
+        glfwHideWindow(window);
+        visible.set(false);
+        if (onCloseCallback != null) {
+            Platform.runLater(onCloseCallback);
+        }
+    }
+
+    /**
+     * Upload the queued meshes with the shared context, then hand them to the render thread
+     */
+    private void uploadLoop() {
+        glfwMakeContextCurrent(uploadWindow);
+        GL.createCapabilities();
+        try {
+            while (!shouldClose.get()) {
+                // requests queued in the meantime for the same target replace the older ones
+                Map<String, UploadRequest> requests = new LinkedHashMap<>();
+                UploadRequest next = uploadQueue.take();
+                do {
+                    requests.remove(next.target());
+                    requests.put(next.target(), next);
+                } while ((next = uploadQueue.poll()) != null);
+                for (UploadRequest request : requests.values()) {
+                    upload(request);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            glfwMakeContextCurrent(NULL);
+        }
+    }
+
+    private void upload(UploadRequest request) {
+        MeshData data = null;
+        try {
+            data = request.meshSupplier().get();
+            if (request.geometryKey() != null) {
+                uploadedGeometries.add(new UploadedGeometry(request.geometryKey(), request.meshSupplier(),
+                        uploadMesh(data)));
+                markDirty();
+                wakeUp();
+            } else if (request.quantized()) {
+                uploadQuantized(data);
+            } else {
+                GpuMesh uploaded = uploadMesh(data);
+                publish(uploaded);
+                buildLevels(uploaded, data.vertices(), data.indices(), data.indices());
+            }
+        } catch (RuntimeException e) {
+            log.error("OpenGL: Upload failed", e);
+            if (request.geometryKey() != null) {
+                // no mesh, the render thread forgets the request so that the next scene change retries it
+                uploadedGeometries.add(new UploadedGeometry(request.geometryKey(), request.meshSupplier(), null));
+                wakeUp();
+            }
+        } finally {
+            // glBufferData copied the data, the off-heap buffers are no longer needed
+            if (data != null) {
+                data.free();
+            }
+        }
+    }
+
+    /**
+     * Hand an uploaded mesh to the render thread
+     */
+    private void publish(GpuMesh uploaded) {
+        GpuMesh skipped = pendingMesh.getAndSet(uploaded);
+        if (skipped != null) {
+            // never displayed, so it has no vertex array
+            skipped.delete();
+        }
+        markDirty();
+        wakeUp();
+    }
+
+    /**
+     * Build and upload the decimated levels of a mesh already displayed at full resolution,
+     * skipped when a newer domain mesh is queued since this one will be replaced
+     */
+    private void buildLevels(GpuMesh mesh, FloatBuffer vertices, IntBuffer sourceIndices, Buffer drawnIndices) {
+        if (uploadQueue.stream().anyMatch(request -> request.geometryKey() == null)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LodLevels levels = LodBuilder.build(vertices, sourceIndices, drawnIndices, mesh.chunks);
+        try {
+            int ebo = glGenBuffers();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+            if (levels.indices() instanceof ShortBuffer shorts) {
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, shorts, GL_STATIC_DRAW);
+            } else {
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, (IntBuffer) levels.indices(), GL_STATIC_DRAW);
+            }
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+            long fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            glFlush();
+            long byteSize = byteSize(levels.indices());
+            uploadedBytes.addAndGet(byteSize);
+            GpuMesh.Lod lod = new GpuMesh.Lod(levels, ebo, byteSize, fence);
+            if (!mesh.attachLod(lod)) {
+                // the mesh was replaced in the meantime
+                lod.delete();
+                return;
+            }
+            log.info("OpenGL: Built {} levels of detail in {} ms", levels.levels(), System.currentTimeMillis() - start);
+            markDirty();
+            wakeUp();
+        } finally {
+            levels.free();
+        }
+    }
+
+    /**
+     * Swap in the last uploaded mesh, the render thread waits for its upload to complete on the GPU
+     */
+    private void swapPendingMesh() {
+        GpuMesh next = pendingMesh.getAndSet(null);
+        if (next == null) {
+            return;
+        }
+        glWaitSync(next.fence, 0, GL_TIMEOUT_IGNORED);
+        glDeleteSync(next.fence);
+        next.fence = 0;
+        next.vao = createVertexArray(next, next.ebo);
+        boolean sameBounds = next.bounds.equals(currentBounds);
+        if (gpuMesh != null) {
+            gpuMesh.delete();
+        }
+        gpuMesh = next;
+        currentBounds = next.bounds;
+        if (!sameBounds) {
+            fitCamera(currentBounds);
+        }
+        markDirty();
+    }
+
+    /**
+     * Create the vertex array of the decimated levels of the displayed mesh once they are uploaded
+     */
+    private void attachPendingLevels() {
+        GpuMesh.Lod lod = gpuMesh != null ? gpuMesh.lod.get() : null;
+        if (lod == null || lod == GpuMesh.Lod.DELETED || lod.vao != 0) {
+            return;
+        }
+        glWaitSync(lod.fence, 0, GL_TIMEOUT_IGNORED);
+        glDeleteSync(lod.fence);
+        lod.fence = 0;
+        lod.vao = createVertexArray(gpuMesh, lod.ebo);
+        markDirty();
+    }
+
+    /**
+     * Keep the measures of the frame just drawn until its GPU time is known
+     */
+    private void recordFrame(long cpuNanos) {
+        long memory = gpuMesh != null ? gpuMesh.getTotalByteSize() : 0;
+        timedFrames.add(new FrameStats.Sample(frameCount++, System.currentTimeMillis(), cpuNanos / 1e6f, -1,
+                drawCalls, trianglesDrawn, uploadedBytes.get(), memory));
+    }
+
+    /**
+     * Complete the frames whose GPU time is available and add them to the statistics, in frame order
+     */
+    private void collectGpuTimes() {
+        gpuTimer.collect((frame, elapsedNanos) -> {
+            while (!timedFrames.isEmpty() && timedFrames.peek().frame() <= frame) {
+                FrameStats.Sample sample = timedFrames.poll();
+                // frames not measured because all queries were pending keep no GPU time
+                float gpuMillis = sample.frame() == frame ? elapsedNanos / 1e6f : -1;
+                frameStats.add(new FrameStats.Sample(sample.frame(), sample.timeMillis(), sample.cpuMillis(),
+                        gpuMillis, sample.drawCalls(), sample.triangles(), sample.uploadedBytes(),
+                        sample.gpuMemoryBytes()));
+            }
+        });
+        if (!gpuTimer.hasPending()) {
+            // frames left behind were not measured
+            while (!timedFrames.isEmpty()) {
+                frameStats.add(timedFrames.poll());
+            }
+        }
+        displayStats();
+    }
+
+    /**
+     * Show the last sample in the title bar and the log, at most once per {@link #STATS_DISPLAY_PERIOD} ms
+     */
+    private void displayStats() {
+        long now = System.currentTimeMillis();
+        FrameStats.Sample sample = frameStats.latest();
+        if (!showStats || sample == null || now - lastStatsDisplay < STATS_DISPLAY_PERIOD) {
+            return;
+        }
+        lastStatsDisplay = now;
+        String stats = String.format(Locale.US, "CPU %.2f ms | GPU %.2f ms | %d draws | %d triangles | %.1f MB on GPU | %.1f MB uploaded",
+                sample.cpuMillis(), sample.gpuMillis(), sample.drawCalls(), sample.triangles(),
+                sample.gpuMemoryBytes() / 1e6, sample.uploadedBytes() / 1e6);
+        glfwSetWindowTitle(window, TITLE + " - " + stats);
+        log.debug("OpenGL: {}", stats);
+    }
+
+    /**
+     * Bring the scene objects on the GPU in line with the scene: swap in the uploaded geometries, request the
+     * missing or replaced ones, delete the unused ones and refresh the instance buffers after a scene change
+     */
+    private void syncScene() {
+        UploadedGeometry uploaded;
+        boolean changed = false;
+        while ((uploaded = uploadedGeometries.poll()) != null) {
+            GpuMesh mesh = uploaded.mesh();
+            if (!requestedGeometries.remove(uploaded.geometryKey(), uploaded.source())) {
+                // replaced by another mesh or no longer shown during the upload
+                if (mesh != null) {
+                    mesh.delete();
+                }
+                continue;
+            }
+            if (mesh == null) {
+                // the upload failed, it is requested again on the next scene change
+                continue;
+            }
+            glWaitSync(mesh.fence, 0, GL_TIMEOUT_IGNORED);
+            glDeleteSync(mesh.fence);
+            mesh.fence = 0;
+            mesh.vao = createVertexArray(mesh, mesh.ebo);
+            mesh.instanceVbo = glGenBuffers();
+            addInstanceAttributes(mesh);
+            GpuMesh previous = objectMeshes.put(uploaded.geometryKey(), mesh);
+            objectSources.put(uploaded.geometryKey(), uploaded.source());
+            if (previous != null) {
+                previous.delete();
+            }
+            changed = true;
+        }
+        long version = SCENE_VERSION.get();
+        if (version == syncedSceneVersion && !changed) {
+            return;
+        }
+        syncedSceneVersion = version;
+        Map<String, List<SceneObject>> groups = new HashMap<>();
+        for (SceneObject object : SCENE.values()) {
+            groups.computeIfAbsent(object.geometryKey(), key -> new ArrayList<>()).add(object);
+        }
+        sceneGroups = groups;
+        for (String geometryKey : groups.keySet()) {
+            SceneGeometry geometry = GEOMETRIES.get(geometryKey);
+            if (geometry == null || objectSources.get(geometryKey) == geometry.mesh()) {
+                continue;
+            }
+            // uploaded from an older mesh of the object file, released before the new one is uploaded
+            GpuMesh stale = objectMeshes.remove(geometryKey);
+            if (stale != null) {
+                objectSources.remove(geometryKey);
+                stale.delete();
+            }
+            if (requestedGeometries.get(geometryKey) != geometry.mesh()) {
+                requestedGeometries.put(geometryKey, geometry.mesh());
+                uploadQueue.add(new UploadRequest(geometry.mesh(), false, geometryKey));
+            }
+        }
+        objectMeshes.entrySet().removeIf(entry -> {
+            if (groups.containsKey(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().delete();
+            objectSources.remove(entry.getKey());
+            return true;
+        });
+        requestedGeometries.keySet().retainAll(groups.keySet());
+        // offsets and colours of the instanced geometries, a few floats per object
+        for (Map.Entry<String, GpuMesh> entry : objectMeshes.entrySet()) {
+            List<SceneObject> objects = groups.get(entry.getKey());
+            GpuMesh mesh = entry.getValue();
+            mesh.instanceCount = objects.size();
+            if (objects.size() > 1) {
+                float[] instances = new float[objects.size() * INSTANCE_FLOATS];
+                for (int i = 0; i < objects.size(); i++) {
+                    SceneObject object = objects.get(i);
+                    int o = i * INSTANCE_FLOATS;
+                    instances[o] = object.x();
+                    instances[o + 1] = object.y();
+                    instances[o + 2] = object.z();
+                    instances[o + 3] = object.red();
+                    instances[o + 4] = object.green();
+                    instances[o + 5] = object.blue();
+                }
+                glBindBuffer(GL_ARRAY_BUFFER, mesh.instanceVbo);
+                glBufferData(GL_ARRAY_BUFFER, instances, GL_DYNAMIC_DRAW);
+                glBindBuffer(GL_ARRAY_BUFFER, 0);
+            }
+        }
+        markDirty();
+    }
+
+    /**
+     * Bind the instance offsets and colours of a scene object geometry to its vertex array
+     */
+    private void addInstanceAttributes(GpuMesh mesh) {
+        glBindVertexArray(mesh.vao);
+        glBindBuffer(GL_ARRAY_BUFFER, mesh.instanceVbo);
+        int stride = INSTANCE_FLOATS * Float.BYTES;
+        glVertexAttribPointer(2, 3, GL_FLOAT, false, stride, 0);
+        glVertexAttribDivisor(2, 1);
+        glEnableVertexAttribArray(2);
+        glVertexAttribPointer(3, 3, GL_FLOAT, false, stride, 3L * Float.BYTES);
+        glVertexAttribDivisor(3, 1);
+        glEnableVertexAttribArray(3);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Draw the scene objects filled, each geometry with a single call
+     */
+    private void drawSceneObjects() {
+        // the objects are not clipped, so that they stay whole inside the cut domain
+        for (int i = 0; i < ViewerProgram.CLIP_PLANES; i++) {
+            glDisable(GL_CLIP_DISTANCE0 + i);
+        }
+        glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        glUniform3f(program.chunkOrigin, 0, 0, 0);
+        glUniform3f(program.chunkScale, 1, 1, 1);
+        glUniform1i(program.packedNormals, 0);
+        glUniform1ui(program.firstTriangle, 0);
+        pickTargets.clear();
+        for (Map.Entry<String, GpuMesh> entry : objectMeshes.entrySet()) {
+            GpuMesh mesh = entry.getValue();
+            List<SceneObject> objects = sceneGroups.get(entry.getKey());
+            if (objects == null || mesh.indexCount == 0) {
+                continue;
+            }
+            // instances get consecutive draw ids
+            glUniform1ui(program.drawId, FIRST_OBJECT_DRAW_ID + pickTargets.size());
+            for (SceneObject object : objects) {
+                pickTargets.add(new PickTarget(object.id(), mesh));
+            }
+            glBindVertexArray(mesh.vao);
+            if (objects.size() == 1) {
+                // a single object is placed with uniforms
+                SceneObject object = objects.get(0);
+                glUniform1i(program.instanced, 0);
+                glUniform3f(program.offset, object.x(), object.y(), object.z());
+                glUniform3f(program.color, object.red(), object.green(), object.blue());
+                glDrawElements(GL_TRIANGLES, mesh.indexCount, GL_UNSIGNED_INT, 0);
+            } else {
+                glUniform1i(program.instanced, 1);
+                glDrawElementsInstanced(GL_TRIANGLES, mesh.indexCount, GL_UNSIGNED_INT, 0, mesh.instanceCount);
+            }
+            drawCalls++;
+            trianglesDrawn += (long) mesh.indexCount / 3 * objects.size();
+        }
+        glUniform1i(program.instanced, 0);
+        glPolygonMode(GL_FRONT_AND_BACK, program == picking ? GL_FILL : GL_LINE);
+        for (int i = 0; i < ViewerProgram.CLIP_PLANES; i++) {
+            if (clipEnabled[i]) {
+                glEnable(GL_CLIP_DISTANCE0 + i);
+            }
+        }
+    }
+
+    /**
+     * Draw the ids of the triangles under the clicked pixel to the picking framebuffer and start reading the pixel
+     * back into a pixel buffer, the result is read by {@link #readPick()} once available so the frame never waits
+     *
+     * @param x the clicked pixel, from the left of the frame
+     * @param y the clicked pixel, from the top of the frame
+     */
+    private void pick(double x, double y) {
+        int pixelX = (int) x;
+        int pixelY = height - 1 - (int) y;
+        if (pixelX < 0 || pixelY < 0 || pixelX >= width || pixelY >= height) {
+            return;
+        }
+        ensurePickBuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, pickFramebuffer);
+        // only the clicked pixel is rasterized
+        glEnable(GL_SCISSOR_TEST);
+        glScissor(pixelX, pixelY, 1, 1);
+        glClearBufferuiv(GL_COLOR, 0, new int[]{0, 0, 0, 0});
+        glClear(GL_DEPTH_BUFFER_BIT);
+        glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        drawScene(picking, false);
+        glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
+        glDisable(GL_SCISSOR_TEST);
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pickPixelBuffer);
+        glReadBuffer(GL_COLOR_ATTACHMENT0);
+        glReadPixels(pixelX, pixelY, 1, 1, GL_RG_INTEGER, GL_UNSIGNED_INT, 0);
+        glReadPixels(pixelX, pixelY, 1, 1, GL_DEPTH_COMPONENT, GL_FLOAT, 2L * Integer.BYTES);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        long fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        pendingPick = new PendingPick(fence, pixelX, pixelY, width, height, new Matrix4f(viewProjMatrix),
+                List.copyOf(pickTargets), gpuMesh);
+    }
+
+    /**
+     * Read the picked pixel if the GPU is done with it, then map its ids back to the source triangle
+     */
+    private void readPick() {
+        PendingPick pick = pendingPick;
+        if (pick == null || glClientWaitSync(pick.fence(), 0, 0) == GL_TIMEOUT_EXPIRED) {
+            return;
+        }
+        pendingPick = null;
+        glDeleteSync(pick.fence());
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pickPixelBuffer);
+        ByteBuffer pixel = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, PICK_BYTES, GL_MAP_READ_BIT);
+        if (pixel == null) {
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+            return;
+        }
+        pixel.order(ByteOrder.nativeOrder());
+        int drawId = pixel.getInt(0);
+        int triangle = pixel.getInt(Integer.BYTES);
+        float depth = pixel.getFloat(2 * Integer.BYTES);
+        glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        Consumer<PickResult> callback = onPick;
+        if (drawId == 0 || callback == null) {
+            return;
+        }
+        GpuMesh mesh = pick.domain();
+        String objectId = null;
+        if (drawId != DOMAIN_DRAW_ID) {
+            PickTarget target = pick.targets().get(drawId - FIRST_OBJECT_DRAW_ID);
+            mesh = target.mesh();
+            objectId = target.objectId();
+        }
+        Vector3f point = pick.viewProj().unproject(pick.pixelX() + 0.5f, pick.pixelY() + 0.5f, depth,
+                new int[]{0, 0, pick.viewportWidth(), pick.viewportHeight()}, new Vector3f());
+        PickResult result = new PickResult(objectId, mesh.chunks.sourceTriangles()[triangle], point.x, point.y, point.z);
+        Platform.runLater(() -> callback.accept(result));
+    }
+
+    /**
+     * Create the picking framebuffer with an integer colour buffer at the window size, and its pixel buffer
+     */
+    private void ensurePickBuffers() {
+        if (pickFramebuffer != 0 && pickWidth == width && pickHeight == height) {
+            return;
+        }
+        deletePickBuffers();
+        pickWidth = width;
+        pickHeight = height;
+        pickColorBuffer = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, pickColorBuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RG32UI, width, height);
+        pickDepthBuffer = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, pickDepthBuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        pickFramebuffer = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, pickFramebuffer);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, pickColorBuffer);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, pickDepthBuffer);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        pickPixelBuffer = glGenBuffers();
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pickPixelBuffer);
+        glBufferData(GL_PIXEL_PACK_BUFFER, PICK_BYTES, GL_STREAM_READ);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private void deletePickBuffers() {
+        if (pickFramebuffer == 0) {
+            return;
+        }
+        glDeleteFramebuffers(pickFramebuffer);
+        glDeleteRenderbuffers(pickColorBuffer);
+        glDeleteRenderbuffers(pickDepthBuffer);
+        glDeleteBuffers(pickPixelBuffer);
+        pickFramebuffer = 0;
+    }
+
+    /**
+     * Block until an event occurs, or until the next idle frame if an idle frame rate is set
+     */
+    private void waitEvents() {
+        double frameRate = idleFrameRate;
+        if (gpuTimer.hasPending() || pendingPick != null || offscreen.hasPending()) {
+            // come back soon to read the GPU time of the last frames, the picked pixel or the embedded frame
+            glfwWaitEventsTimeout(GPU_TIMER_POLL);
+        } else if (frameRate > 0) {
+            glfwWaitEventsTimeout(1 / frameRate);
+            markDirty();
+        } else {
+            glfwWaitEvents();
+        }
+    }
+
+    private void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * Wake the render thread up from glfwWaitEvents, may be called from any thread
+     */
+    private void wakeUp() {
+        if (running.get()) {
+            glfwPostEmptyEvent();
+        }
+    }
+
     private void initWindow() {
         if (!glfwInit()) throw new RuntimeException("Failed to init GLFW");
 
@@ -137,10 +1035,17 @@ public class OpenGLViewer {
         glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
+        // the cross-sections of the clip planes are filled through the stencil buffer
+        glfwWindowHint(GLFW_STENCIL_BITS, 8);
 
-        window = glfwCreateWindow(width, height, "High-Resolution Mesh Viewer", NULL, NULL);
+        window = glfwCreateWindow(width, height, TITLE, NULL, NULL);
         if (window == NULL) throw new RuntimeException("Failed to create window");
 
+        // Hidden window whose context shares the buffers of the window context
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        uploadWindow = glfwCreateWindow(1, 1, "Mesh upload", NULL, window);
+        if (uploadWindow == NULL) throw new RuntimeException("Failed to create upload context");
+
         // Center window
         GLFWVidMode vidMode = glfwGetVideoMode(glfwGetPrimaryMonitor());
         if (vidMode != null) {
@@ -149,11 +1054,19 @@ public class OpenGLViewer {
 
         // Callbacks
         glfwSetFramebufferSizeCallback(window, (w, width, height) -> {
+            if (attachedView != null) {
+                // the size of the embedded view is used meanwhile
+                return;
+            }
             this.width = width;
             this.height = height;
             glViewport(0, 0, width, height);
+            markDirty();
         });
 
+        // the window content was damaged (uncovered, restored...)
+        glfwSetWindowRefreshCallback(window, w -> markDirty());
+
         glfwSetMouseButtonCallback(window, (w, button, action, mods) -> {
             double[] x = new double[1], y = new double[1];
             glfwGetCursorPos(w, x, y);
@@ -179,8 +1092,7 @@ public class OpenGLViewer {
                     long now = System.currentTimeMillis();
                     if (button == GLFW_MOUSE_BUTTON_LEFT && (now - lastClickTime) < 300) {
                         // Double-click: reset view
-                        rotX = 30; rotY = 45;
-                        fitCamera(currentMesh);
+                        resetCamera();
                     }
                     lastClickTime = now;
 
@@ -191,7 +1103,17 @@ public class OpenGLViewer {
                     }
                     lastMouseX = x[0];
                     lastMouseY = y[0];
+                    pressX = x[0];
+                    pressY = y[0];
                 } else if (action == GLFW_RELEASE) {
+                    if (button == GLFW_MOUSE_BUTTON_LEFT
+                            && Math.abs(x[0] - pressX) < CLICK_TOLERANCE && Math.abs(y[0] - pressY) < CLICK_TOLERANCE) {
+                        // a click without drag picks the triangle under the cursor, in framebuffer pixels
+                        int[] windowWidth = new int[1], windowHeight = new int[1];
+                        glfwGetWindowSize(w, windowWidth, windowHeight);
+                        requestPick(x[0] * width / Math.max(1, windowWidth[0]),
+                                y[0] * height / Math.max(1, windowHeight[0]));
+                    }
                     rotating = false;
                     panning = false;
                 }
@@ -203,13 +1125,9 @@ public class OpenGLViewer {
             double dy = y - lastMouseY;
 
             if (rotating) {
-                rotY += dx * 0.5f;
-                rotX += dy * 0.5f;
-                rotX = Math.max(-89, Math.min(89, rotX));
+                rotate(dx, dy);
             } else if (panning) {
-                float panSpeed = distance * 0.002f;
-                targetX -= dx * panSpeed;
-                targetY += dy * panSpeed;
+                pan(dx, dy);
             }
 
             lastMouseX = x;
@@ -217,21 +1135,39 @@ public class OpenGLViewer {
         });
 
         glfwSetScrollCallback(window, (w, dx, dy) -> {
-            distance *= (1 - dy * 0.1f);
-            distance = Math.max(0.1f, distance);
+            if (glfwGetKey(w, GLFW_KEY_LEFT_SHIFT) == GLFW_PRESS || glfwGetKey(w, GLFW_KEY_RIGHT_SHIFT) == GLFW_PRESS) {
+                moveClipPlane((float) dy);
+                return;
+            }
+            zoom(dy);
         });
 
         glfwSetKeyCallback(window, (w, key, scancode, action, mods) -> {
-            if (action == GLFW_PRESS && key == GLFW_KEY_ESCAPE) shouldClose.set(true);
+            if (action == GLFW_PRESS && key == GLFW_KEY_ESCAPE) glfwSetWindowShouldClose(w, true);
+            if (action == GLFW_PRESS && key == GLFW_KEY_I) {
+                showStats = !showStats;
+                if (!showStats) {
+                    glfwSetWindowTitle(window, TITLE);
+                }
+            }
             if (action == GLFW_PRESS && key == GLFW_KEY_R) {
-                rotX = 30;
-                rotY = 45;
+                resetRotation();
+            }
+            if (action == GLFW_PRESS && key >= GLFW_KEY_1 && key < GLFW_KEY_1 + ViewerProgram.CLIP_PLANES) {
+                toggleClipPlane(key - GLFW_KEY_1);
+            }
+            if (action == GLFW_PRESS && key == GLFW_KEY_F) {
+                flipClipPlane();
+            }
+            if (action != GLFW_RELEASE && (key == GLFW_KEY_PAGE_UP || key == GLFW_KEY_PAGE_DOWN)) {
+                moveClipPlane(key == GLFW_KEY_PAGE_UP ? 1 : -1);
             }
         });
 
         glfwMakeContextCurrent(window);
         glfwSwapInterval(1);
         glfwShowWindow(window);
+        visible.set(true);
     }
 
     private void initGL() {
@@ -240,67 +1176,142 @@ public class OpenGLViewer {
         glEnable(GL_CULL_FACE);
         glClearColor(1f, 1f, 1f, 1f);
 
-        shaderProgram = createShaders();
-        vao = glGenVertexArrays();
+        shading = ViewerProgram.shading();
+        picking = ViewerProgram.picking();
+        cap = ViewerProgram.cap();
+        capVao = glGenVertexArrays();
+        gpuTimer = new GpuTimer();
         glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
 
     }
 
-    private void uploadMesh(MeshData mesh) {
-        glBindVertexArray(vao);
-
-        vboVertices = glGenBuffers();
+    /**
+     * Upload the buffers of a mesh, called from the upload context.
+     * The off-heap buffers are handed to the driver as is.
+     */
+    private GpuMesh uploadMesh(MeshData mesh) {
+        ChunkLayout chunks = MeshChunker.chunk(mesh);
+        int vboVertices = glGenBuffers();
         glBindBuffer(GL_ARRAY_BUFFER, vboVertices);
-        FloatBuffer vb = BufferUtils.createFloatBuffer(mesh.vertices().length);
-        vb.put(mesh.vertices()).flip();
-        glBufferData(GL_ARRAY_BUFFER, vb, GL_STATIC_DRAW);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-        glEnableVertexAttribArray(0);
+        glBufferData(GL_ARRAY_BUFFER, mesh.vertices(), GL_STATIC_DRAW);
 
-        vboNormals = glGenBuffers();
+        int vboNormals = glGenBuffers();
         glBindBuffer(GL_ARRAY_BUFFER, vboNormals);
-        FloatBuffer nb = BufferUtils.createFloatBuffer(mesh.normals().length);
-        nb.put(mesh.normals()).flip();
-        glBufferData(GL_ARRAY_BUFFER, nb, GL_STATIC_DRAW);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
-        glEnableVertexAttribArray(1);
+        if (mesh.normals() instanceof ShortBuffer packed) {
+            glBufferData(GL_ARRAY_BUFFER, packed, GL_STATIC_DRAW);
+        } else {
+            glBufferData(GL_ARRAY_BUFFER, (FloatBuffer) mesh.normals(), GL_STATIC_DRAW);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
 
-        ebo = glGenBuffers();
+        int ebo = glGenBuffers();
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
-        IntBuffer ib = BufferUtils.createIntBuffer(mesh.indices().length);
-        ib.put(mesh.indices()).flip();
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, ib, GL_STATIC_DRAW);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, mesh.indices(), GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
 
-        indexCount = mesh.indices().length;
-        glBindVertexArray(0);
+        // the render context waits for this fence before using the buffers
+        long fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        glFlush();
+
+        long byteSize = byteSize(mesh.vertices()) + byteSize(mesh.normals()) + byteSize(mesh.indices());
+        uploadedBytes.addAndGet(byteSize);
+        log.info("OpenGL: Uploaded {} vertices, {} triangles", mesh.getVertexCount(), mesh.getTriangleCount());
+        return new GpuMesh(mesh.bounds(), mesh.indices().capacity(), mesh.isPackedNormals(), false, chunks,
+                vboVertices, vboNormals, ebo, byteSize, fence);
+    }
+
+    /**
+     * Quantize a mesh, upload and publish it, then build its levels, called from the upload context
+     */
+    private void uploadQuantized(MeshData source) {
+        QuantizedMeshData mesh = MeshQuantizer.quantize(source);
+        try {
+            int vboVertices = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, vboVertices);
+            glBufferData(GL_ARRAY_BUFFER, mesh.positions(), GL_STATIC_DRAW);
 
-        System.out.println("OpenGL: Uploaded " + mesh.getVertexCount() + " vertices, " + mesh.getTriangleCount() + " triangles");
+            int vboNormals = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, vboNormals);
+            glBufferData(GL_ARRAY_BUFFER, mesh.normals(), GL_STATIC_DRAW);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+            int ebo = glGenBuffers();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, mesh.indices(), GL_STATIC_DRAW);
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+
+            long fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            glFlush();
+
+            long byteSize = byteSize(mesh.positions()) + byteSize(mesh.normals()) + byteSize(mesh.indices());
+            uploadedBytes.addAndGet(byteSize);
+            log.info("OpenGL: Uploaded {} quantized vertices, {} triangles in {} chunks", mesh.getVertexCount(),
+                    mesh.getTriangleCount(), mesh.chunks().getChunkCount());
+            GpuMesh uploaded = new GpuMesh(mesh.bounds(), mesh.indices().capacity(), true, true, mesh.chunks(),
+                    vboVertices, vboNormals, ebo, byteSize, fence);
+            publish(uploaded);
+            buildLevels(uploaded, source.vertices(), mesh.sourceIndices(), mesh.indices());
+        } finally {
+            mesh.free();
+        }
     }
 
-    private void fitCamera(MeshData mesh) {
-        float[] v = mesh.vertices();
-        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
-        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+    private static long byteSize(Buffer buffer) {
+        long elementSize = buffer instanceof ShortBuffer ? Short.BYTES : Float.BYTES;
+        return buffer.capacity() * elementSize;
+    }
 
-        for (int i = 0; i < v.length; i += 3) {
-            minX = Math.min(minX, v[i]);
-            maxX = Math.max(maxX, v[i]);
-            minY = Math.min(minY, v[i + 1]);
-            maxY = Math.max(maxY, v[i + 1]);
-            minZ = Math.min(minZ, v[i + 2]);
-            maxZ = Math.max(maxZ, v[i + 2]);
+    /**
+     * Bind the shared buffers of a mesh to a vertex array of the render context
+     *
+     * @param ebo the index buffer of the full mesh or of its levels
+     */
+    private int createVertexArray(GpuMesh mesh, int ebo) {
+        int vao = glGenVertexArrays();
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, mesh.vboVertices);
+        if (mesh.quantized) {
+            glVertexAttribPointer(0, 3, GL_UNSIGNED_SHORT, true, 0, 0);
+        } else {
+            glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
         }
+        glEnableVertexAttribArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, mesh.vboNormals);
+        if (mesh.packedNormals) {
+            glVertexAttribPointer(1, 2, GL_SHORT, true, 0, 0);
+        } else {
+            glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
+        }
+        glEnableVertexAttribArray(1);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        return vao;
+    }
 
-        targetX = (minX + maxX) / 2;
-        targetY = (minY + maxY) / 2;
-        targetZ = (minZ + maxZ) / 2;
-        distance = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) * 1.5f;
+    private void fitCamera(MeshBounds bounds) {
+        // bounds are computed once by the parser, no need to scan the vertices again
+        targetX = (float) bounds.getCenterX();
+        targetY = (float) bounds.getCenterY();
+        targetZ = (float) bounds.getCenterZ();
+        distance = (float) bounds.getMaxExtent() * 1.5f;
     }
 
     private void render() {
+        drawCalls = 0;
+        trianglesDrawn = 0;
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        if (indexCount == 0) return;
+        if (gpuMesh == null) return;
+        drawScene(shading, true);
+        drawCaps();
+    }
 
+    /**
+     * Draw the domain and the scene objects with the given program
+     *
+     * @param levels true to draw distant chunks at their decimated levels
+     */
+    private void drawScene(ViewerProgram pass, boolean levels) {
         // Update matrices
         float radX = (float) Math.toRadians(rotX);
         float radY = (float) Math.toRadians(rotY);
@@ -309,85 +1320,363 @@ public class OpenGLViewer {
         float camZ = targetZ + distance * (float) (Math.cos(radX) * Math.cos(radY));
 
         viewMatrix.identity().lookAt(camX, camY, camZ, targetX, targetY, targetZ, 0, 1, 0);
-        projMatrix.identity().perspective((float) Math.toRadians(45), (float) width / height, 0.1f, distance * 10);
+        projMatrix.identity().perspective(FIELD_OF_VIEW, (float) width / height, NEAR_PLANE, distance * 10);
         viewMatrix.normal(normalMatrix);
 
+        projMatrix.mul(viewMatrix, viewProjMatrix);
+        frustum.set(viewProjMatrix);
+
         viewMatrix.get(mvBuffer);
         projMatrix.get(projBuffer);
         normalMatrix.get(normBuffer);
 
         // Draw
-        glUseProgram(shaderProgram);
-        glUniformMatrix4fv(glGetUniformLocation(shaderProgram, "uMV"), false, mvBuffer);
-        glUniformMatrix4fv(glGetUniformLocation(shaderProgram, "uP"), false, projBuffer);
-        glUniformMatrix3fv(glGetUniformLocation(shaderProgram, "uN"), false, normBuffer);
-        glUniform3f(glGetUniformLocation(shaderProgram, "uLight"), 0.3f, 0.5f, 1f);
-        glUniform3f(glGetUniformLocation(shaderProgram, "uColor"), 0.2f, 0.2f, 0.3f);
-        glBindVertexArray(vao);
-        glDrawElements(GL_TRIANGLES, indexCount, GL_UNSIGNED_INT, 0);
+        program = pass;
+        glUseProgram(program.program);
+        glUniformMatrix4fv(program.mv, false, mvBuffer);
+        glUniformMatrix4fv(program.p, false, projBuffer);
+        glUniformMatrix3fv(program.n, false, normBuffer);
+        glUniform3f(program.light, 0.3f, 0.5f, 1f);
+        glUniform3f(program.color, 0.2f, 0.2f, 0.3f);
+        glUniform1i(program.packedNormals, gpuMesh.packedNormals ? 1 : 0);
+        glUniform1i(program.instanced, 0);
+        glUniform3f(program.offset, 0, 0, 0);
+        glUniform1ui(program.drawId, DOMAIN_DRAW_ID);
+        updateClipPlanes();
+        glUniform4fv(program.clipPlanes, clipEquations);
+        glBindVertexArray(gpuMesh.vao);
+        drawVisibleChunks(gpuMesh, levels ? gpuMesh.getDrawableLod() : null, 0, gpuMesh.chunks.getChunkCount(),
+                camX, camY, camZ);
+        drawSceneObjects();
         glBindVertexArray(0);
     }
 
-    private void cleanup() {
-        if (vboVertices != 0) glDeleteBuffers(vboVertices);
-        if (vboNormals != 0) glDeleteBuffers(vboNormals);
-        if (ebo != 0) glDeleteBuffers(ebo);
-        if (vao != 0) glDeleteVertexArrays(vao);
-        if (shaderProgram != 0) glDeleteProgram(shaderProgram);
-
-        glfwFreeCallbacks(window);
-        glfwDestroyWindow(window);
-        glfwTerminate();
+    /**
+     * Fill the cross-section of each enabled clip plane: the clipped closed surface of the domain is drawn in the
+     * stencil buffer only, inverting the stencil value of the pixels it covers, so that the pixels covered an odd
+     * number of times are inside the domain, then a quad on the plane is drawn where the stencil value is set.
+     */
+    private void drawCaps() {
+        int surfaceChunks = gpuMesh.chunks.surfaceChunks();
+        if (surfaceChunks == 0) {
+            return;
+        }
+        MeshBounds bounds = gpuMesh.bounds;
+        float halfDiagonal = (float) bounds.getDiagonal() / 2;
+        glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        glDisable(GL_CULL_FACE);
+        glEnable(GL_STENCIL_TEST);
+        for (int i = 0; i < ViewerProgram.CLIP_PLANES; i++) {
+            if (!clipEnabled[i]) {
+                continue;
+            }
+            glClear(GL_STENCIL_BUFFER_BIT);
+            glColorMask(false, false, false, false);
+            glDepthMask(false);
+            glDisable(GL_DEPTH_TEST);
+            glStencilFunc(GL_ALWAYS, 0, 1);
+            glStencilOp(GL_KEEP, GL_KEEP, GL_INVERT);
+            glUseProgram(shading.program);
+            glUniform3f(shading.offset, 0, 0, 0);
+            glBindVertexArray(gpuMesh.vao);
+            drawVisibleChunks(gpuMesh, null, 0, surfaceChunks, 0, 0, 0);
+
+            glColorMask(true, true, true, true);
+            glDepthMask(true);
+            glEnable(GL_DEPTH_TEST);
+            glStencilFunc(GL_EQUAL, 1, 1);
+            glStencilOp(GL_KEEP, GL_KEEP, GL_KEEP);
+            // the cap lies on its own plane and is cut by the others
+            glDisable(GL_CLIP_DISTANCE0 + i);
+            glUseProgram(cap.program);
+            glUniformMatrix4fv(cap.mv, false, mvBuffer);
+            glUniformMatrix4fv(cap.p, false, projBuffer);
+            glUniform4fv(cap.clipPlanes, clipEquations);
+            glUniform3f(cap.color, 0.55f, 0.6f, 0.75f);
+            float[] center = {(float) bounds.getCenterX(), (float) bounds.getCenterY(), (float) bounds.getCenterZ()};
+            center[i] = -clipEquations[i * 4 + 3] * clipSides[i];
+            float[] u = new float[3];
+            float[] v = new float[3];
+            u[(i + 1) % 3] = halfDiagonal;
+            v[(i + 2) % 3] = halfDiagonal;
+            glUniform3f(cap.capCenter, center[0], center[1], center[2]);
+            glUniform3f(cap.capU, u[0], u[1], u[2]);
+            glUniform3f(cap.capV, v[0], v[1], v[2]);
+            glBindVertexArray(capVao);
+            glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
+            glEnable(GL_CLIP_DISTANCE0 + i);
+            drawCalls++;
+        }
+        glDisable(GL_STENCIL_TEST);
+        glEnable(GL_CULL_FACE);
+        glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
+        glBindVertexArray(0);
+        glUseProgram(shading.program);
     }
 
-    private int createShaders() {
-        String vs = """
-                #version 330 core
-                layout(location=0) in vec3 aPos;
-                layout(location=1) in vec3 aNorm;
-                uniform mat4 uMV, uP;
-                uniform mat3 uN;
-                out vec3 vNorm, vPos;
-                void main() {
-                    vec4 p = uMV * vec4(aPos, 1.0);
-                    vPos = p.xyz;
-                    vNorm = normalize(uN * aNorm);
-                    gl_Position = uP * p;
-                }
-                """;
-
-        String fs = """
-                #version 330 core
-                in vec3 vNorm, vPos;
-                uniform vec3 uLight, uColor;
-                out vec4 fragColor;
-                void main() {
-                    vec3 n = normalize(vNorm);
-                    vec3 l = normalize(uLight);
-                    float diff = max(dot(n, l), 0.0);
-                    vec3 v = normalize(-vPos);
-                    vec3 r = reflect(-l, n);
-                    float spec = pow(max(dot(v, r), 0.0), 32.0);
-                    fragColor = vec4((0.2 + diff * 0.7 + spec * 0.3) * uColor, 1.0);
+    /**
+     * Compute the equations of the clip planes in world coordinates and enable the clip distances of the enabled
+     * planes, a point being kept if the dot product of its homogeneous position with the equation is positive
+     */
+    private void updateClipPlanes() {
+        MeshBounds bounds = gpuMesh.bounds;
+        double[] min = {bounds.minX(), bounds.minY(), bounds.minZ()};
+        double[] extent = {bounds.getWidth(), bounds.getHeight(), bounds.getDepth()};
+        Arrays.fill(clipEquations, 0);
+        for (int i = 0; i < ViewerProgram.CLIP_PLANES; i++) {
+            int e = i * 4;
+            if (clipEnabled[i]) {
+                float position = (float) (min[i] + clipPositions[i] * extent[i]);
+                clipEquations[e + i] = clipSides[i];
+                clipEquations[e + 3] = -clipSides[i] * position;
+                glEnable(GL_CLIP_DISTANCE0 + i);
+            } else {
+                // keeps everything, in case the distance is enabled
+                clipEquations[e + 3] = 1;
+                glDisable(GL_CLIP_DISTANCE0 + i);
+            }
+        }
+    }
+
+    /**
+     * @return true if the box is entirely on the clipped side of an enabled plane
+     */
+    private boolean isClipped(float[] bounds, int chunk) {
+        for (int i = 0; i < ViewerProgram.CLIP_PLANES; i++) {
+            if (!clipEnabled[i]) {
+                continue;
+            }
+            // the corner of the box furthest on the kept side
+            float corner = bounds[chunk * 6 + (clipSides[i] > 0 ? 3 : 0) + i];
+            if (clipEquations[i * 4 + i] * corner + clipEquations[i * 4 + 3] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== Camera and clip plane input, render thread only ====================
+
+    void rotate(double dx, double dy) {
+        rotY += dx * 0.5f;
+        rotX += dy * 0.5f;
+        rotX = Math.max(-89, Math.min(89, rotX));
+        markDirty();
+    }
+
+    void pan(double dx, double dy) {
+        float panSpeed = distance * 0.002f;
+        targetX -= dx * panSpeed;
+        targetY += dy * panSpeed;
+        markDirty();
+    }
+
+    void zoom(double steps) {
+        distance *= (1 - steps * 0.1f);
+        distance = Math.max(0.1f, distance);
+        markDirty();
+    }
+
+    void resetRotation() {
+        rotX = 30;
+        rotY = 45;
+        markDirty();
+    }
+
+    void resetCamera() {
+        if (currentBounds != null) fitCamera(currentBounds);
+        resetRotation();
+    }
+
+    /**
+     * Pick the triangle under a pixel of the frame, counted from the top left corner
+     */
+    void requestPick(double x, double y) {
+        if (onPick != null) {
+            pickRequest.set(new double[]{x, y});
+        }
+    }
+
+    void toggleClipPlane(int plane) {
+        selectedClipPlane = plane;
+        clipEnabled[plane] = !clipEnabled[plane];
+        markDirty();
+    }
+
+    void flipClipPlane() {
+        clipSides[selectedClipPlane] = -clipSides[selectedClipPlane];
+        markDirty();
+    }
+
+    void moveClipPlane(float steps) {
+        float position = clipPositions[selectedClipPlane] + steps * CLIP_STEP;
+        clipPositions[selectedClipPlane] = Math.max(0, Math.min(1, position));
+        markDirty();
+    }
+
+    /**
+     * Draw the chunks from firstChunk to lastChunk excluded intersecting the view frustum and not clipped, each at
+     * the level of detail matching its size on screen, or at full resolution if no level is given.
+     * Consecutive visible chunks drawn at the same level and sharing the same base vertex are contiguous
+     * in their index buffer and drawn with a single call.
+     */
+    private void drawVisibleChunks(GpuMesh mesh, GpuMesh.Lod lod, int firstChunk, int lastChunk,
+                                   float eyeX, float eyeY, float eyeZ) {
+        ChunkLayout chunks = mesh.chunks;
+        // world units per pixel at unit distance
+        float pixelSize = 2 * (float) Math.tan(FIELD_OF_VIEW / 2) / height;
+        int indexType = mesh.quantized ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+        int indexSize = mesh.quantized ? Short.BYTES : Integer.BYTES;
+        int[] baseVertex = chunks.baseVertex();
+        float[] bounds = chunks.bounds();
+        int boundVao = mesh.vao;
+        // pending run of visible chunks
+        int runChunk = -1;
+        int runLevel = 0;
+        int runFirst = 0;
+        int runCount = 0;
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            boolean visible = c < lastChunk && frustum.testAab(bounds[c * 6], bounds[c * 6 + 1],
+                    bounds[c * 6 + 2], bounds[c * 6 + 3], bounds[c * 6 + 4], bounds[c * 6 + 5])
+                    && !isClipped(bounds, c);
+            int level = visible && lod != null ? selectLevel(lod.ranges, c, bounds, eyeX, eyeY, eyeZ, pixelSize) : 0;
+            int first = 0;
+            int count = 0;
+            if (visible) {
+                int slot = c * LodBuilder.LEVELS + level - 1;
+                first = level == 0 ? chunks.firstIndex()[c] : lod.ranges.firstIndex()[slot];
+                count = level == 0 ? chunks.indexCount()[c] : lod.ranges.indexCount()[slot];
+            }
+            if (visible && runChunk >= 0 && level == runLevel && baseVertex[c] == baseVertex[runChunk]
+                    && first == runFirst + runCount) {
+                runCount += count;
+                continue;
+            }
+            if (runChunk >= 0 && runCount > 0) {
+                int vao = runLevel == 0 ? mesh.vao : lod.vao;
+                if (vao != boundVao) {
+                    glBindVertexArray(vao);
+                    boundVao = vao;
                 }
-                """;
+                // chunks sharing a base vertex share the position transform of their block
+                int o = runChunk * 3;
+                glUniform3f(program.chunkOrigin, chunks.origin()[o], chunks.origin()[o + 1], chunks.origin()[o + 2]);
+                glUniform3f(program.chunkScale, chunks.scale()[o], chunks.scale()[o + 1], chunks.scale()[o + 2]);
+                glUniform1ui(program.firstTriangle, runFirst / 3);
+                glDrawElementsBaseVertex(GL_TRIANGLES, runCount, indexType,
+                        (long) runFirst * indexSize, baseVertex[runChunk]);
+                drawCalls++;
+                trianglesDrawn += runCount / 3;
+            }
+            runChunk = visible ? c : -1;
+            runLevel = level;
+            runFirst = first;
+            runCount = count;
+        }
+    }
+
+    /**
+     * @return the coarsest level of the chunk whose clustering cell stays under {@link #LOD_PIXEL_ERROR} pixels,
+     * 0 for the full resolution
+     */
+    private static int selectLevel(LodLevels levels, int chunk, float[] bounds, float eyeX, float eyeY, float eyeZ,
+                                   float pixelSize) {
+        int b = chunk * 6;
+        float halfX = (bounds[b + 3] - bounds[b]) / 2;
+        float halfY = (bounds[b + 4] - bounds[b + 1]) / 2;
+        float halfZ = (bounds[b + 5] - bounds[b + 2]) / 2;
+        float dx = bounds[b] + halfX - eyeX;
+        float dy = bounds[b + 1] + halfY - eyeY;
+        float dz = bounds[b + 2] + halfZ - eyeZ;
+        // distance to the closest point of the bounding sphere
+        float distance = (float) (Math.sqrt(dx * dx + dy * dy + dz * dz)
+                - Math.sqrt(halfX * halfX + halfY * halfY + halfZ * halfZ));
+        if (distance <= NEAR_PLANE) {
+            return 0;
+        }
+        float maxCell = LOD_PIXEL_ERROR * pixelSize * distance;
+        for (int level = levels.levels(); level > 0; level--) {
+            if (levels.cellSize()[chunk * levels.levels() + level - 1] <= maxCell) {
+                return level;
+            }
+        }
+        return 0;
+    }
 
-        int vShader = glCreateShader(GL_VERTEX_SHADER);
-        glShaderSource(vShader, vs);
-        glCompileShader(vShader);
+    /**
+     * A mesh to upload with the format chosen when it was shown
+     *
+     * @param geometryKey the scene object geometry uploaded, null for the domain
+     */
+    private record UploadRequest(Supplier<MeshData> meshSupplier, boolean quantized, String geometryKey) {
 
-        int fShader = glCreateShader(GL_FRAGMENT_SHADER);
-        glShaderSource(fShader, fs);
-        glCompileShader(fShader);
+        String target() {
+            return geometryKey != null ? geometryKey : "";
+        }
+    }
 
-        int prog = glCreateProgram();
-        glAttachShader(prog, vShader);
-        glAttachShader(prog, fShader);
-        glLinkProgram(prog);
+    /**
+     * An immersed object of the scene, its mesh being the geometry of its key, relative to its origin
+     */
+    private record SceneObject(String id, String geometryKey, float red, float green, float blue,
+                               float x, float y, float z) {
+    }
 
-        glDeleteShader(vShader);
-        glDeleteShader(fShader);
+    private record PickTarget(String objectId, GpuMesh mesh) {
+    }
 
-        return prog;
+    /**
+     * Readback of the pixel under a click, the pixel buffer being mapped once the fence is signaled
+     */
+    private record PendingPick(long fence, int pixelX, int pixelY, int viewportWidth, int viewportHeight,
+                               Matrix4f viewProj, List<PickTarget> targets, GpuMesh domain) {
+    }
+
+    /**
+     * The mesh of a geometry key and the mesh it was built from
+     */
+    private record SceneGeometry(MeshResolution source, Supplier<MeshData> mesh) {
+    }
+
+    /**
+     * A scene object geometry uploaded from a source mesh, null when the upload failed
+     */
+    private record UploadedGeometry(String geometryKey, Supplier<MeshData> source, GpuMesh mesh) {
+    }
+
+    private void cleanup() {
+        if (uploadThread != null) {
+            uploadThread.interrupt();
+            try {
+                uploadThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (window != NULL && running.get()) {
+            GpuMesh pending = pendingMesh.getAndSet(null);
+            if (pending != null) pending.delete();
+            if (gpuMesh != null) gpuMesh.delete();
+            objectMeshes.values().forEach(GpuMesh::delete);
+            UploadedGeometry uploaded;
+            while ((uploaded = uploadedGeometries.poll()) != null) {
+                if (uploaded.mesh() != null) uploaded.mesh().delete();
+            }
+            if (shading != null) shading.delete();
+            if (picking != null) picking.delete();
+            if (cap != null) cap.delete();
+            if (capVao != 0) glDeleteVertexArrays(capVao);
+            deletePickBuffers();
+            offscreen.delete();
+            if (pendingPick != null) glDeleteSync(pendingPick.fence());
+            if (gpuTimer != null) gpuTimer.delete();
+        }
+
+        if (uploadWindow != NULL) glfwDestroyWindow(uploadWindow);
+        if (window != NULL) {
+            glfwFreeCallbacks(window);
+            glfwDestroyWindow(window);
+        }
+        glfwTerminate();
     }
 }
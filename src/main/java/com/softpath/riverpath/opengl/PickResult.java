@@ -0,0 +1,14 @@
+package com.softpath.riverpath.opengl;
+
+/**
+ * Triangle under the cursor when the user clicked in the viewer
+ *
+ * @param objectId the id of the scene object picked, null for the domain mesh
+ * @param triangle the triangle picked, in the order of the triangles of the mesh data
+ *                 (see {@link MeshDataAdapter#fromMeshResolution})
+ * @param x        the picked point along X, in domain coordinates
+ * @param y        the picked point along Y
+ * @param z        the picked point along Z
+ */
+public record PickResult(String objectId, int triangle, double x, double y, double z) {
+}
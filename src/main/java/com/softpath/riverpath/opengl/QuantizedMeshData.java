@@ -0,0 +1,42 @@
+package com.softpath.riverpath.opengl;
+
+import com.softpath.riverpath.geometry.MeshBounds;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Compact off-heap mesh data: positions quantized on 16 bits relative to the bounds of their block,
+ * octahedron encoded normals and 16 bits indices local to each chunk.
+ * A vertex takes 10 bytes instead of 24 and an index 2 bytes instead of 4.
+ *
+ * @param positions     3 unsigned normalized shorts per vertex
+ * @param normals       2 signed normalized shorts per vertex
+ * @param indices       unsigned shorts, relative to the base vertex of their block
+ * @param sourceIndices the vertex of the source mesh of each index
+ * @param chunks        the draw ranges and position transform of each chunk
+ * @param bounds        the mesh bounds
+ */
+public record QuantizedMeshData(ShortBuffer positions, ShortBuffer normals, ShortBuffer indices,
+                                IntBuffer sourceIndices, ChunkLayout chunks, MeshBounds bounds) {
+
+    public int getVertexCount() {
+        return positions.capacity() / 3;
+    }
+
+    public int getTriangleCount() {
+        return indices.capacity() / 3;
+    }
+
+    /**
+     * Release the off-heap buffers, the data must not be used afterwards
+     */
+    public void free() {
+        memFree(positions);
+        memFree(normals);
+        memFree(indices);
+        memFree(sourceIndices);
+    }
+}
@@ -0,0 +1,176 @@
+package com.softpath.riverpath.opengl;
+
+import static org.lwjgl.opengl.GL20.*;
+
+/**
+ * Shader programs of the viewer with their uniform locations, looked up once after linking.
+ * <p>
+ * The shading and picking programs share the vertex stage: the shading program lights the triangles, the picking
+ * program writes the id of the draw call and of the primitive to an integer framebuffer. The cap program fills the
+ * cross-section of a clip plane with a quad generated from the vertex id.
+ * </p>
+ */
+class ViewerProgram {
+
+    static final int CLIP_PLANES = 3;
+
+    private static final String VERTEX_SHADER = """
+            #version 330 core
+            layout(location=0) in vec3 aPos;
+            layout(location=1) in vec3 aNorm;
+            // per instance offset and colour of the instanced scene objects
+            layout(location=2) in vec3 aInstanceOffset;
+            layout(location=3) in vec3 aInstanceColor;
+            uniform mat4 uMV, uP;
+            uniform mat3 uN;
+            uniform bool uPackedNormals;
+            // position of the chunk normalized positions, identity for float positions
+            uniform vec3 uChunkOrigin, uChunkScale;
+            // object offset and colour, taken from the instance attributes when instanced
+            uniform bool uInstanced;
+            uniform vec3 uOffset, uColor;
+            // clip planes in world coordinates, only the enabled clip distances cut the triangles
+            uniform vec4 uClipPlanes[3];
+            out vec3 vNorm, vPos, vColor;
+            flat out int vInstance;
+            // octahedron decoding of a normal packed in 2 components
+            vec3 decodeNormal(vec2 e) {
+                vec3 n = vec3(e, 1.0 - abs(e.x) - abs(e.y));
+                float t = max(-n.z, 0.0);
+                n.x += n.x >= 0.0 ? -t : t;
+                n.y += n.y >= 0.0 ? -t : t;
+                return normalize(n);
+            }
+            void main() {
+                vec3 offset = uInstanced ? aInstanceOffset : uOffset;
+                vColor = uInstanced ? aInstanceColor : uColor;
+                vInstance = gl_InstanceID;
+                vec4 world = vec4(uChunkOrigin + aPos * uChunkScale + offset, 1.0);
+                for (int i = 0; i < 3; i++) {
+                    gl_ClipDistance[i] = dot(uClipPlanes[i], world);
+                }
+                vec4 p = uMV * world;
+                vPos = p.xyz;
+                vec3 normal = uPackedNormals ? decodeNormal(aNorm.xy) : aNorm;
+                vNorm = normalize(uN * normal);
+                gl_Position = uP * p;
+            }
+            """;
+
+    private static final String SHADING_FRAGMENT_SHADER = """
+            #version 330 core
+            in vec3 vNorm, vPos, vColor;
+            uniform vec3 uLight;
+            out vec4 fragColor;
+            void main() {
+                vec3 n = normalize(vNorm);
+                vec3 l = normalize(uLight);
+                float diff = max(dot(n, l), 0.0);
+                vec3 v = normalize(-vPos);
+                vec3 r = reflect(-l, n);
+                float spec = pow(max(dot(v, r), 0.0), 32.0);
+                fragColor = vec4((0.2 + diff * 0.7 + spec * 0.3) * vColor, 1.0);
+            }
+            """;
+
+    // primitive ids restart at 0 for each draw call, the first triangle of the call is added back
+    private static final String PICKING_FRAGMENT_SHADER = """
+            #version 330 core
+            flat in int vInstance;
+            uniform uint uDrawId, uFirstTriangle;
+            out uvec2 pickId;
+            void main() {
+                pickId = uvec2(uDrawId + uint(vInstance), uFirstTriangle + uint(gl_PrimitiveID));
+            }
+            """;
+
+    // corners of the quad spanning the clipped domain on a plane: uCapCenter +/- uCapU +/- uCapV
+    private static final String CAP_VERTEX_SHADER = """
+            #version 330 core
+            uniform mat4 uMV, uP;
+            uniform vec3 uCapCenter, uCapU, uCapV;
+            uniform vec4 uClipPlanes[3];
+            void main() {
+                vec2 corner = vec2(gl_VertexID & 1, gl_VertexID >> 1) * 2.0 - 1.0;
+                vec4 world = vec4(uCapCenter + corner.x * uCapU + corner.y * uCapV, 1.0);
+                for (int i = 0; i < 3; i++) {
+                    gl_ClipDistance[i] = dot(uClipPlanes[i], world);
+                }
+                gl_Position = uP * uMV * world;
+            }
+            """;
+
+    private static final String CAP_FRAGMENT_SHADER = """
+            #version 330 core
+            uniform vec3 uColor;
+            out vec4 fragColor;
+            void main() {
+                fragColor = vec4(uColor, 1.0);
+            }
+            """;
+
+    final int program;
+    final int mv, p, n, light, color, packedNormals;
+    final int chunkOrigin, chunkScale, instanced, offset;
+    final int clipPlanes;
+    // picking program only, -1 otherwise so that setting them is ignored
+    final int drawId, firstTriangle;
+    // cap program only
+    final int capCenter, capU, capV;
+
+    private ViewerProgram(String vertexShader, String fragmentShader) {
+        program = link(vertexShader, fragmentShader);
+        mv = glGetUniformLocation(program, "uMV");
+        p = glGetUniformLocation(program, "uP");
+        n = glGetUniformLocation(program, "uN");
+        light = glGetUniformLocation(program, "uLight");
+        color = glGetUniformLocation(program, "uColor");
+        packedNormals = glGetUniformLocation(program, "uPackedNormals");
+        chunkOrigin = glGetUniformLocation(program, "uChunkOrigin");
+        chunkScale = glGetUniformLocation(program, "uChunkScale");
+        instanced = glGetUniformLocation(program, "uInstanced");
+        offset = glGetUniformLocation(program, "uOffset");
+        drawId = glGetUniformLocation(program, "uDrawId");
+        firstTriangle = glGetUniformLocation(program, "uFirstTriangle");
+        clipPlanes = glGetUniformLocation(program, "uClipPlanes");
+        capCenter = glGetUniformLocation(program, "uCapCenter");
+        capU = glGetUniformLocation(program, "uCapU");
+        capV = glGetUniformLocation(program, "uCapV");
+    }
+
+    static ViewerProgram shading() {
+        return new ViewerProgram(VERTEX_SHADER, SHADING_FRAGMENT_SHADER);
+    }
+
+    static ViewerProgram picking() {
+        return new ViewerProgram(VERTEX_SHADER, PICKING_FRAGMENT_SHADER);
+    }
+
+    static ViewerProgram cap() {
+        return new ViewerProgram(CAP_VERTEX_SHADER, CAP_FRAGMENT_SHADER);
+    }
+
+    void delete() {
+        glDeleteProgram(program);
+    }
+
+    private static int link(String vs, String fs) {
+        int vShader = glCreateShader(GL_VERTEX_SHADER);
+        glShaderSource(vShader, vs);
+        glCompileShader(vShader);
+
+        int fShader = glCreateShader(GL_FRAGMENT_SHADER);
+        glShaderSource(fShader, fs);
+        glCompileShader(fShader);
+
+        int prog = glCreateProgram();
+        glAttachShader(prog, vShader);
+        glAttachShader(prog, fShader);
+        glLinkProgram(prog);
+
+        glDeleteShader(vShader);
+        glDeleteShader(fShader);
+
+        return prog;
+    }
+}
@@ -240,12 +240,7 @@ public class RunnerService {
         StringBuilder allBoundaryConditions = new StringBuilder();
         BoundaryConditionGlobalController globalController = leftBottomPaneController.getConditionGlobalController();
         List<String> appartientList = new ArrayList<>();
-        for (BoundaryConditionController controller : globalController.getAllConditions().stream().sorted(Comparator.<BoundaryConditionController, Double>comparing(
-                ctr -> {
-                    String txt = ctr.getPriorityValue().getText();
-                    return txt.isBlank() ? 0.0 : Double.parseDouble(txt);
-                }
-        ).reversed()).toList()) {
+        for (BoundaryConditionController controller : globalController.getConditionsByPriority()) {
             String boundaryDefId = controller.getLabel();
             int index = indexByName.get(boundaryDefId);
             // generate new condition block
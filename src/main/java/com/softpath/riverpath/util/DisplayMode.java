@@ -2,5 +2,7 @@ package com.softpath.riverpath.util;
 
   public  enum DisplayMode {
     SIMPLE,
-    MESH
+    MESH,
+    SLICE,
+    DISTANCE
 }
@@ -1,8 +1,7 @@
 package com.softpath.riverpath.util;
 
 import com.softpath.riverpath.custom.pane.ZoomableScrollPane;
-import javafx.scene.shape.MeshView;
-import javafx.scene.shape.TriangleMesh;
+import com.softpath.riverpath.geometry.MeshBounds;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -15,7 +14,11 @@ import lombok.Setter;
 public class DomainProperties {
     private double scaleFactor;
     // Ajout des variables pour stocker les limites du domaine
-    private double domainMinX, domainMaxX, domainMinY, domainMaxY;
+    private double domainMinX, domainMaxX, domainMinY, domainMaxY, domainMinZ, domainMaxZ;
+    /**
+     * Unscaled bounds of the domain as computed by the parser
+     */
+    private MeshBounds bounds = MeshBounds.EMPTY;
     @Setter
     private int dimension = -1;
     private static DomainProperties instance;
@@ -36,37 +39,33 @@ public class DomainProperties {
     }
 
     /**
-     * Compute the domain scale and limits.
+     * Compute the domain scale and limits from the bounds computed during the parsing
      *
      * @param meshPane the mesh pane
-     * @param meshView the mesh view
+     * @param bounds   the domain bounds
      */
-    public void computeDomainProperties(ZoomableScrollPane meshPane, MeshView meshView) {
+    public void computeDomainProperties(ZoomableScrollPane meshPane, MeshBounds bounds) {
+        this.bounds = bounds;
         // compute scale factor
-        calculateScaleFactor(meshPane, meshView);
-        float[] points = ((TriangleMesh) meshView.getMesh()).getPoints().toArray(new float[0]);
-        domainMinX = Float.MAX_VALUE;
-        domainMaxX = -Float.MAX_VALUE;
-        domainMinY = Float.MAX_VALUE;
-        domainMaxY = -Float.MAX_VALUE;
-        for (int i = 0; i < points.length; i += 3) {
-            domainMinX = Math.min(domainMinX, points[i] * scaleFactor);
-            domainMaxX = Math.max(domainMaxX, points[i] * scaleFactor);
-            // ⚠️JAVAFX_INVERTED_AXIS_Y
-            domainMinY = Math.min(domainMinY, -points[i + 1] * scaleFactor);
-            domainMaxY = Math.max(domainMaxY, -points[i + 1] * scaleFactor);
-        }
+        calculateScaleFactor(meshPane, bounds);
+        domainMinX = bounds.minX() * scaleFactor;
+        domainMaxX = bounds.maxX() * scaleFactor;
+        // ⚠️JAVAFX_INVERTED_AXIS_Y
+        domainMinY = -bounds.maxY() * scaleFactor;
+        domainMaxY = -bounds.minY() * scaleFactor;
+        domainMinZ = bounds.minZ() * scaleFactor;
+        domainMaxZ = bounds.maxZ() * scaleFactor;
     }
 
     /**
      * Calculate the scale factor.
      *
      * @param meshPane the mesh pane
-     * @param meshView the mesh view
+     * @param bounds   the domain bounds
      */
-    private void calculateScaleFactor(ZoomableScrollPane meshPane, MeshView meshView) {
-        double scaleX = meshPane.getWidth() / meshView.getBoundsInLocal().getWidth();
-        double scaleY = meshPane.getHeight() / meshView.getBoundsInLocal().getHeight();
+    private void calculateScaleFactor(ZoomableScrollPane meshPane, MeshBounds bounds) {
+        double scaleX = meshPane.getWidth() / bounds.getWidth();
+        double scaleY = meshPane.getHeight() / bounds.getHeight();
         scaleFactor = Math.min(scaleX, scaleY);
     }
 
@@ -0,0 +1,85 @@
+package com.softpath.riverpath.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive double used to store chart series without boxing
+ *
+ * @author rhajou
+ */
+public class DoubleArrayList {
+
+    private double[] data;
+    private int size;
+
+    public DoubleArrayList() {
+        this(16);
+    }
+
+    public DoubleArrayList(int initialCapacity) {
+        data = new double[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Append a value at the end of the list
+     *
+     * @param value the value to add
+     */
+    public void add(double value) {
+        ensureCapacity(size + 1);
+        data[size++] = value;
+    }
+
+    /**
+     * Append several values at the end of the list
+     *
+     * @param values the values to add
+     */
+    public void addAll(double... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, data, size, values.length);
+        size += values.length;
+    }
+
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return data[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return the backing array without copying it.
+     * Only the first {@link #size()} values are meaningful.
+     *
+     * @return the backing array
+     */
+    public double[] elements() {
+        return data;
+    }
+
+    /**
+     * @return a copy of the list trimmed to its size
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length + (data.length >> 1)));
+        }
+    }
+}
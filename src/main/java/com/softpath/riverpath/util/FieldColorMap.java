@@ -0,0 +1,53 @@
+package com.softpath.riverpath.util;
+
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import lombok.Getter;
+
+/**
+ * Diverging colour map for signed fields: blue for negative values, white around 0, red for positive values.
+ * The value 0 is drawn as a dark line so the interface stands out.
+ * Meshes use it through a texture: each vertex gets the u coordinate of its value.
+ *
+ * @author rhajou
+ */
+public class FieldColorMap {
+
+    private static final int WIDTH = 256;
+
+    /**
+     * Values beyond -range and range saturate
+     */
+    @Getter
+    private final double range;
+    @Getter
+    private final PhongMaterial material;
+
+    public FieldColorMap(double range) {
+        this.range = range;
+        WritableImage image = new WritableImage(WIDTH, 1);
+        PixelWriter writer = image.getPixelWriter();
+        for (int i = 0; i < WIDTH; i++) {
+            double value = (i + 0.5) / WIDTH * 2 - 1;
+            Color color = value < 0
+                    ? Color.WHITE.interpolate(Color.BLUE, -value)
+                    : Color.WHITE.interpolate(Color.RED, value);
+            if (i == WIDTH / 2 - 1 || i == WIDTH / 2) {
+                color = Color.BLACK;
+            }
+            writer.setColor(i, 0, color);
+        }
+        material = new PhongMaterial();
+        material.setDiffuseMap(image);
+    }
+
+    /**
+     * @param value the field value
+     * @return the texture u coordinate of the value
+     */
+    public float toTexCoord(float value) {
+        return (float) (0.5 + 0.5 * Math.max(-1, Math.min(1, value / range)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.softpath.riverpath.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive int used to store mesh connectivity without boxing
+ *
+ * @author rhajou
+ */
+public class IntArrayList {
+
+    private int[] data;
+    private int size;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        data = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Append a value at the end of the list
+     *
+     * @param value the value to add
+     */
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        data[size++] = value;
+    }
+
+    /**
+     * Append several values at the end of the list
+     *
+     * @param values the values to add
+     */
+    public void addAll(int... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, data, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Remove and return the last value, the list is used as a stack by tree traversals
+     *
+     * @return the removed value
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("The list is empty");
+        }
+        return data[--size];
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return data[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return the backing array without copying it.
+     * Only the first {@link #size()} values are meaningful.
+     *
+     * @return the backing array
+     */
+    public int[] elements() {
+        return data;
+    }
+
+    /**
+     * @return a copy of the list trimmed to its size
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length + (data.length >> 1)));
+        }
+    }
+}
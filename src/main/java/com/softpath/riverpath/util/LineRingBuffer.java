@@ -0,0 +1,104 @@
+package com.softpath.riverpath.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue of text lines, written by any thread and drained by a single consumer.
+ * <p>
+ * Each slot carries a sequence number telling whether it is free for the producer of a given position or holds
+ * the line of the consumer position, so producers only contend on a compare-and-set of the tail. A producer never
+ * blocks: when the buffer is full the line is dropped and counted, so a process output reader never stalls the
+ * process.
+ * </p>
+ *
+ * @author rhajou
+ */
+public class LineRingBuffer {
+
+    private final AtomicReferenceArray<String> lines;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // consumer only
+    private long head;
+
+    /**
+     * @param capacity the maximum number of lines waiting, rounded up to a power of two
+     */
+    public LineRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        lines = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Add a line, from any thread
+     *
+     * @param line the line to add
+     * @return false if the buffer is full and the line was dropped
+     */
+    public boolean offer(String line) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    lines.set(slot, line);
+                    // publishes the line to the consumer
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the consumer has not freed the slot yet
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                // another producer took the position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the waiting lines in order, from the consumer thread only
+     *
+     * @param consumer receives the lines
+     * @param maxLines the maximum number of lines to remove
+     * @return the number of lines removed
+     */
+    public int drain(Consumer<String> consumer, int maxLines) {
+        int count = 0;
+        while (count < maxLines) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) {
+                // empty, or the producer of this position has not written its line yet
+                break;
+            }
+            String line = lines.get(slot);
+            lines.set(slot, null);
+            // frees the slot for the producer one lap later
+            sequences.set(slot, head + mask + 1);
+            head++;
+            consumer.accept(line);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of lines dropped since the previous call
+     */
+    public long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.softpath.riverpath.util;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a series for display.
+ * <p>
+ * The first and last points are kept, the other points are split in buckets of equal count and the point kept in
+ * each bucket is the one forming the largest triangle with the point kept in the previous bucket and the average of
+ * the next bucket. Peaks survive the reduction, unlike with a plain decimation or a bucket average.
+ * </p>
+ *
+ * @author rhajou
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * Downsample the first {@code size} points of a series
+     *
+     * @param x         the abscissas, increasing
+     * @param y         the ordinates
+     * @param size      the number of points of the series
+     * @param threshold the number of points to keep, at least 3 for a reduction
+     * @param outX      receives the abscissas kept, cleared first
+     * @param outY      receives the ordinates kept, cleared first
+     */
+    public static void downsample(double[] x, double[] y, int size, int threshold,
+                                  DoubleArrayList outX, DoubleArrayList outY) {
+        outX.clear();
+        outY.clear();
+        if (threshold < 3 || size <= threshold) {
+            for (int i = 0; i < size; i++) {
+                outX.add(x[i]);
+                outY.add(y[i]);
+            }
+            return;
+        }
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        outX.add(x[0]);
+        outY.add(y[0]);
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // average of the next bucket, the last point for the last bucket
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(size, (int) Math.floor((bucket + 2) * bucketSize) + 1);
+            double averageX = 0, averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                averageX /= nextCount;
+                averageY /= nextCount;
+            } else {
+                averageX = x[size - 1];
+                averageY = y[size - 1];
+            }
+
+            // point of the current bucket forming the largest triangle
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double selectedX = x[selected], selectedY = y[selected];
+            double maxArea = -1;
+            int kept = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selectedX - averageX) * (y[i] - selectedY)
+                        - (selectedX - x[i]) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    kept = i;
+                }
+            }
+            outX.add(x[kept]);
+            outY.add(y[kept]);
+            selected = kept;
+        }
+        outX.add(x[size - 1]);
+        outY.add(y[size - 1]);
+    }
+}
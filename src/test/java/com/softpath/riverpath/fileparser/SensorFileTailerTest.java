@@ -0,0 +1,123 @@
+package com.softpath.riverpath.fileparser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorFileTailerTest {
+
+    @TempDir
+    Path runDirectory;
+
+    private final List<SolverEvent> events = new ArrayList<>();
+    private final SensorFileTailer tailer = new SensorFileTailer("DragLift", this::add);
+    private Path sensorFile;
+
+    @BeforeEach
+    void start() throws IOException {
+        tailer.start(runDirectory.toFile());
+        // written by the solver in a sub directory of the run
+        sensorFile = Files.createDirectories(runDirectory.resolve("Capteurs")).resolve("DragLift.txt");
+    }
+
+    @AfterEach
+    void stop() {
+        tailer.stop();
+    }
+
+    @Test
+    void publishesDragAndLift() throws IOException {
+        append("1 0.01 1.25 -0.5\n2 0.02 1.5 0.25\n");
+        tailer.poll();
+        assertEquals(4, events.size());
+        assertEvent(SolverEvent.Type.DRAG, 1.25, 0.01, events.get(0));
+        assertEvent(SolverEvent.Type.LIFT, -0.5, 0.01, events.get(1));
+        assertEvent(SolverEvent.Type.DRAG, 1.5, 0.02, events.get(2));
+        assertEvent(SolverEvent.Type.LIFT, 0.25, 0.02, events.get(3));
+    }
+
+    @Test
+    void skipsHeadersAndShortLines() throws IOException {
+        append("CompteurTemps Temps Cx0 Cy0\n\n1 0.01 1.25\n2 0.02 1.5 0.25 99\n");
+        tailer.poll();
+        // extra columns are ignored
+        assertEquals(2, events.size());
+        assertEvent(SolverEvent.Type.DRAG, 1.5, 0.02, events.get(0));
+        assertEvent(SolverEvent.Type.LIFT, 0.25, 0.02, events.get(1));
+    }
+
+    @Test
+    void keepsAPartialLineUntilItIsComplete() throws IOException {
+        append("1 0.01 1.25 -0.5\n2 0.02 1.");
+        tailer.poll();
+        assertEquals(2, events.size());
+        append("5 0.2");
+        tailer.poll();
+        assertEquals(2, events.size());
+        append("5\n");
+        tailer.poll();
+        assertEquals(4, events.size());
+        assertEvent(SolverEvent.Type.DRAG, 1.5, 0.02, events.get(2));
+        assertEvent(SolverEvent.Type.LIFT, 0.25, 0.02, events.get(3));
+    }
+
+    @Test
+    void readsOnlyTheAppendedLines() throws IOException {
+        append("1 0.01 1.25 -0.5\n");
+        tailer.poll();
+        tailer.poll();
+        assertEquals(2, events.size());
+        append("2 0.02 1.5 0.25\n");
+        tailer.poll();
+        assertEquals(4, events.size());
+    }
+
+    @Test
+    void readsATruncatedFileFromTheStart() throws IOException {
+        append("1 0.01 1.25 -0.5\n2 0.02 1.5 0.25\n");
+        tailer.poll();
+        assertEquals(4, events.size());
+        // rewritten by a new run of the sensor, shorter than what was read
+        Files.writeString(sensorFile, "1 0.5 2 3\n", StandardCharsets.ISO_8859_1);
+        tailer.poll();
+        assertEquals(6, events.size());
+        assertEvent(SolverEvent.Type.DRAG, 2, 0.5, events.get(4));
+        assertEvent(SolverEvent.Type.LIFT, 3, 0.5, events.get(5));
+    }
+
+    @Test
+    void waitsForTheFile() throws IOException {
+        tailer.poll();
+        assertTrue(events.isEmpty());
+        append("1 0.01 1.25 -0.5\n");
+        tailer.poll();
+        assertEquals(2, events.size());
+    }
+
+    private synchronized void add(SolverEvent event) {
+        events.add(event);
+    }
+
+    private void append(String text) throws IOException {
+        Files.writeString(sensorFile, text, StandardCharsets.ISO_8859_1,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void assertEvent(SolverEvent.Type type, double value, double time, SolverEvent event) {
+        assertEquals(type, event.type());
+        assertEquals(value, event.value());
+        assertEquals(time, event.time());
+    }
+}
@@ -0,0 +1,116 @@
+package com.softpath.riverpath.fileparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverLogParserTest {
+
+    private final List<SolverEvent> events = new ArrayList<>();
+    private final SolverLogParser parser = new SolverLogParser(events::add);
+
+    @Test
+    void parseNumberReadsSignAndFraction() {
+        assertEquals(42, SolverLogParser.parseNumber("42", 0));
+        assertEquals(-1.5, SolverLogParser.parseNumber("-1.5", 0));
+        assertEquals(0.25, SolverLogParser.parseNumber("+.25", 0));
+        assertEquals(3, SolverLogParser.parseNumber("  3.", 0));
+        // reading starts at the given position and stops at the first other character
+        assertEquals(7.5, SolverLogParser.parseNumber("x = 7.5 s", 3));
+    }
+
+    @Test
+    void parseNumberReadsExponents() {
+        assertEquals(-1.5e-3, SolverLogParser.parseNumber("-1.5e-03", 0), 1e-18);
+        assertEquals(2e5, SolverLogParser.parseNumber("2E+5", 0), 1e-9);
+        assertEquals(1.25e-4, SolverLogParser.parseNumber("1.25D-4", 0), 1e-18);
+        assertEquals(3e2, SolverLogParser.parseNumber("3d2", 0), 1e-12);
+        // an exponent mark without digits is not part of the number
+        assertEquals(4, SolverLogParser.parseNumber("4e", 0));
+        assertEquals(4, SolverLogParser.parseNumber("4e-x", 0));
+    }
+
+    @Test
+    void parseNumberKeepsTheMagnitudeOfLongNumbers() {
+        double value = SolverLogParser.parseNumber("12345678901234567890123", 0);
+        assertEquals(1.2345678901234567e22, value, 1e22 * 1e-15);
+        double fraction = SolverLogParser.parseNumber("0.000000000000000000001234567890123456789", 0);
+        assertEquals(1.234567890123456789e-21, fraction, 1e-21 * 1e-15);
+        double decimals = SolverLogParser.parseNumber("3.14159265358979323846264", 0);
+        assertEquals(Math.PI, decimals, 1e-15);
+    }
+
+    @Test
+    void parseNumberWithoutDigitsIsNaN() {
+        assertTrue(Double.isNaN(SolverLogParser.parseNumber("", 0)));
+        assertTrue(Double.isNaN(SolverLogParser.parseNumber("   ", 0)));
+        assertTrue(Double.isNaN(SolverLogParser.parseNumber("-", 0)));
+        assertTrue(Double.isNaN(SolverLogParser.parseNumber(".e5", 0)));
+        assertTrue(Double.isNaN(SolverLogParser.parseNumber("abc", 0)));
+    }
+
+    @Test
+    void classifiesLabels() {
+        parser.parse("Increment de CompteurTemps : 5");
+        parser.parse("Temps : 2.5");
+        parser.parse("Temps CPU : 12.75");
+        parser.parse("  PasDeTemps = 1e-3");
+        parser.parse("Residu final : 1.5e-08");
+        parser.parse("Nombre d'iterations : 17");
+        assertEquals(6, events.size());
+        assertEvent(SolverEvent.Type.TIME_STEP, 5, events.get(0));
+        assertEvent(SolverEvent.Type.PHYSICAL_TIME, 2.5, events.get(1));
+        assertEvent(SolverEvent.Type.CPU_TIME, 12.75, events.get(2));
+        assertEvent(SolverEvent.Type.TIME_STEP_SIZE, 1e-3, events.get(3));
+        assertEvent(SolverEvent.Type.RESIDUAL, 1.5e-8, events.get(4));
+        assertEvent(SolverEvent.Type.SOLVER_ITERATION, 17, events.get(5));
+    }
+
+    @Test
+    void comparesLabelsIgnoringCase() {
+        parser.parse("TEMPS : 1");
+        parser.parse("increment de compteurtemps : 2");
+        assertEquals(2, events.size());
+        assertEvent(SolverEvent.Type.PHYSICAL_TIME, 1, events.get(0));
+        assertEvent(SolverEvent.Type.TIME_STEP, 2, events.get(1));
+    }
+
+    @Test
+    void reportsWarnings() {
+        parser.parse("   Warning: mesh quality is low");
+        parser.parse("ATTENTION pas de temps reduit");
+        assertEquals(2, events.size());
+        assertEquals(SolverEvent.Type.WARNING, events.get(0).type());
+        assertEquals("Warning: mesh quality is low", events.get(0).message());
+        assertTrue(Double.isNaN(events.get(0).value()));
+        assertEquals(SolverEvent.Type.WARNING, events.get(1).type());
+        assertEquals("ATTENTION pas de temps reduit", events.get(1).message());
+    }
+
+    @Test
+    void ignoresLinesThatAreNotRecords() {
+        parser.parse("");
+        parser.parse("    ");
+        parser.parse("Reading the mesh file");
+        parser.parse("Unknown label : 5");
+        // "Temps" is a whole label, not a prefix
+        parser.parse("Temps restant : 5");
+        // a known label without a number
+        parser.parse("Temps : n/a");
+        // the time step counter is only a record in the increment line
+        parser.parse("CompteurTemps : 5");
+        assertTrue(events.isEmpty());
+    }
+
+    private static void assertEvent(SolverEvent.Type type, double value, SolverEvent event) {
+        assertEquals(type, event.type());
+        assertEquals(value, event.value(), Math.abs(value) * 1e-15);
+        assertTrue(Double.isNaN(event.time()));
+        assertNull(event.message());
+    }
+}
@@ -0,0 +1,112 @@
+package com.softpath.riverpath.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.softpath.riverpath.geometry.MeshBVHTest.boxSurface;
+import static com.softpath.riverpath.geometry.MeshBVHTest.circleContour;
+import static com.softpath.riverpath.geometry.MeshBVHTest.squareContour;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClearanceCheckerTest {
+
+    private static final double MIN_CLEARANCE = 0.5;
+    private static final double TOLERANCE = 1e-6;
+
+    // the domain [0, 10]^3, and objects in coordinates relative to their origin
+    private final MeshBVH domain = boxSurface(10, 4).bvh(MeshBVH.ElementType.TRIANGLE);
+    private final MeshBVH unitBox = boxSurface(1, 2).bvh(MeshBVH.ElementType.TRIANGLE);
+    private final MeshBVH largeBox = boxSurface(4, 3).bvh(MeshBVH.ElementType.TRIANGLE);
+
+    @Test
+    void clearObjectsHaveNoIssue() {
+        List<ClearanceChecker.Issue> issues = check(
+                new ClearanceChecker.Body("a", unitBox, 2, 2, 2),
+                new ClearanceChecker.Body("b", unitBox, 5, 6, 5),
+                new ClearanceChecker.Body("c", largeBox, 5.25, 0.75, 0.75));
+        assertTrue(issues.isEmpty(), issues.toString());
+    }
+
+    @Test
+    void reportsAnObjectCrossingTheWall() {
+        List<ClearanceChecker.Issue> issues = check(new ClearanceChecker.Body("a", unitBox, 9.5, 5, 5));
+        assertEquals(1, issues.size());
+        ClearanceChecker.Issue issue = issues.get(0);
+        assertEquals(ClearanceChecker.IssueType.INTERSECTION, issue.type());
+        assertNull(issue.first());
+        assertEquals("a", issue.second());
+        assertTrue(issue.isBlocking());
+    }
+
+    @Test
+    void reportsAnObjectOutsideTheDomain() {
+        List<ClearanceChecker.Issue> issues = check(new ClearanceChecker.Body("a", unitBox, 20, 5, 5));
+        assertEquals(1, issues.size());
+        assertEquals(ClearanceChecker.IssueType.OUTSIDE_DOMAIN, issues.get(0).type());
+        // distances are only computed up to the minimum clearance
+        assertEquals(MIN_CLEARANCE, issues.get(0).distance(), 1e-9);
+        assertTrue(issues.get(0).isBlocking());
+    }
+
+    @Test
+    void reportsOverlappingObjects() {
+        List<ClearanceChecker.Issue> issues = check(
+                new ClearanceChecker.Body("a", unitBox, 2, 2, 2),
+                new ClearanceChecker.Body("b", unitBox, 2.5, 2.5, 2.5));
+        assertEquals(1, issues.size());
+        assertEquals(ClearanceChecker.IssueType.INTERSECTION, issues.get(0).type());
+        assertEquals("a", issues.get(0).first());
+        assertEquals("b", issues.get(0).second());
+    }
+
+    @Test
+    void reportsAnObjectInsideAnother() {
+        // the small box is 1.5 away from every face of the large one, the surfaces do not touch
+        List<ClearanceChecker.Issue> issues = check(
+                new ClearanceChecker.Body("small", unitBox, 4.5, 4.5, 4.5),
+                new ClearanceChecker.Body("large", largeBox, 3, 3, 3));
+        assertEquals(1, issues.size());
+        assertEquals(ClearanceChecker.IssueType.CONTAINED, issues.get(0).type());
+        assertTrue(issues.get(0).isBlocking());
+    }
+
+    @Test
+    void warnsAboutThinGaps() {
+        List<ClearanceChecker.Issue> issues = check(
+                new ClearanceChecker.Body("a", unitBox, 2, 2, 2),
+                new ClearanceChecker.Body("b", unitBox, 3.2, 2, 2),
+                new ClearanceChecker.Body("wall", unitBox, 8.75, 5, 5));
+        assertEquals(2, issues.size());
+        // objects against the domain first
+        assertEquals(ClearanceChecker.IssueType.CLOSE, issues.get(0).type());
+        assertNull(issues.get(0).first());
+        assertEquals("wall", issues.get(0).second());
+        assertEquals(0.25, issues.get(0).distance(), 1e-6);
+        assertEquals(ClearanceChecker.IssueType.CLOSE, issues.get(1).type());
+        assertEquals(0.2, issues.get(1).distance(), 1e-6);
+        assertFalse(issues.get(1).isBlocking());
+    }
+
+    @Test
+    void checksContoursIn2D() {
+        MeshBVH contourDomain = squareContour(10, 5).bvh(MeshBVH.ElementType.SEGMENT);
+        MeshBVH circle = circleContour(1, 32).bvh(MeshBVH.ElementType.SEGMENT);
+        List<ClearanceChecker.Issue> issues = ClearanceChecker.check(contourDomain, List.of(
+                new ClearanceChecker.Body("clear", circle, 3, 3, 0),
+                new ClearanceChecker.Body("wall", circle, 9.5, 5, 0),
+                new ClearanceChecker.Body("outside", circle, 15, 5, 0)), MIN_CLEARANCE, TOLERANCE);
+        assertEquals(2, issues.size(), issues.toString());
+        assertEquals(ClearanceChecker.IssueType.INTERSECTION, issues.get(0).type());
+        assertEquals("wall", issues.get(0).second());
+        assertEquals(ClearanceChecker.IssueType.OUTSIDE_DOMAIN, issues.get(1).type());
+        assertEquals("outside", issues.get(1).second());
+    }
+
+    private List<ClearanceChecker.Issue> check(ClearanceChecker.Body... objects) {
+        return ClearanceChecker.check(domain, List.of(objects), MIN_CLEARANCE, TOLERANCE);
+    }
+}
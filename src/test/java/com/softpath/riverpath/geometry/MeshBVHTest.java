@@ -0,0 +1,237 @@
+package com.softpath.riverpath.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeshBVHTest {
+
+    @Test
+    void distanceBetweenBoxesMatchesALinearScan() {
+        Mesh box = boxSurface(1, 3);
+        Mesh other = boxSurface(0.5, 2);
+        MeshBVH boxBVH = box.bvh(MeshBVH.ElementType.TRIANGLE);
+        MeshBVH otherBVH = other.bvh(MeshBVH.ElementType.TRIANGLE);
+        Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            double tx = random.nextDouble() * 4 - 1.75;
+            double ty = random.nextDouble() * 4 - 1.75;
+            double tz = random.nextDouble() * 4 - 1.75;
+            double expected = triangleDistanceByLinearScan(box, other, tx, ty, tz);
+            assertEquals(expected, boxBVH.distanceTo(otherBVH, tx, ty, tz, Double.POSITIVE_INFINITY), 1e-6);
+            // limited to a maximum distance
+            assertEquals(Math.min(expected, 0.3), boxBVH.distanceTo(otherBVH, tx, ty, tz, 0.3), 1e-6);
+        }
+        // face to face
+        assertEquals(0.25, boxBVH.distanceTo(otherBVH, 1.25, 0.25, 0.25, Double.POSITIVE_INFINITY), 1e-6);
+        // crossing
+        assertEquals(0, boxBVH.distanceTo(otherBVH, 0.75, 0.75, 0.75, Double.POSITIVE_INFINITY), 1e-9);
+    }
+
+    @Test
+    void distanceBetweenContoursMatchesALinearScan() {
+        Mesh circle = circleContour(1, 40);
+        Mesh square = squareContour(0.6, 3);
+        MeshBVH circleBVH = circle.bvh(MeshBVH.ElementType.SEGMENT);
+        MeshBVH squareBVH = square.bvh(MeshBVH.ElementType.SEGMENT);
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            double tx = random.nextDouble() * 5 - 2.5;
+            double ty = random.nextDouble() * 5 - 2.5;
+            double expected = segmentDistanceByLinearScan(circle, square, tx, ty);
+            assertEquals(expected, circleBVH.distanceTo(squareBVH, tx, ty, 0, Double.POSITIVE_INFINITY), 1e-6);
+        }
+    }
+
+    @Test
+    void nearestMatchesALinearScan() {
+        Mesh box = boxSurface(2, 4);
+        MeshBVH bvh = box.bvh(MeshBVH.ElementType.TRIANGLE);
+        double[] out = new double[3];
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            double x = random.nextDouble() * 4 - 1;
+            double y = random.nextDouble() * 4 - 1;
+            double z = random.nextDouble() * 4 - 1;
+            double expected = Double.MAX_VALUE;
+            for (int e = 0; e < box.nbElements(3); e++) {
+                expected = Math.min(expected, bvh.closestPoint(e, x, y, z, out));
+            }
+            MeshBVH.Hit hit = bvh.nearest(x, y, z, Double.POSITIVE_INFINITY);
+            assertNotNull(hit);
+            assertEquals(Math.sqrt(expected), hit.distance(), 1e-6);
+            double dx = hit.x() - x, dy = hit.y() - y, dz = hit.z() - z;
+            assertEquals(hit.distance(), Math.sqrt(dx * dx + dy * dy + dz * dz), 1e-6);
+        }
+    }
+
+    @Test
+    void enclosesPointsInsideABox() {
+        MeshBVH bvh = boxSurface(1, 3).bvh(MeshBVH.ElementType.TRIANGLE);
+        Random random = new Random(17);
+        int checked = 0;
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 2 - 0.5;
+            double y = random.nextDouble() * 2 - 0.5;
+            double z = random.nextDouble() * 2 - 0.5;
+            double inside = Math.min(Math.min(Math.min(x, 1 - x), Math.min(y, 1 - y)), Math.min(z, 1 - z));
+            if (Math.abs(inside) < 1e-3) {
+                // too close to the surface for a parity test
+                continue;
+            }
+            assertEquals(inside > 0, bvh.encloses(x, y, z), "point " + x + ", " + y + ", " + z);
+            checked++;
+        }
+        assertTrue(checked > 1900);
+    }
+
+    @Test
+    void enclosesPointsInsideAContour() {
+        int nbSegments = 48;
+        MeshBVH bvh = circleContour(1, nbSegments).bvh(MeshBVH.ElementType.SEGMENT);
+        // the polygon lies between its inscribed circle and the circle through its vertices
+        double inscribed = Math.cos(Math.PI / nbSegments);
+        Random random = new Random(23);
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 3 - 1.5;
+            double y = random.nextDouble() * 3 - 1.5;
+            double radius = Math.sqrt(x * x + y * y);
+            if (radius < inscribed - 1e-3) {
+                assertTrue(bvh.encloses(x, y, 0), "point " + x + ", " + y);
+            } else if (radius > 1 + 1e-3) {
+                assertFalse(bvh.encloses(x, y, 0), "point " + x + ", " + y);
+            }
+        }
+    }
+
+    private static double triangleDistanceByLinearScan(Mesh a, Mesh b, double tx, double ty, double tz) {
+        double[] verticesA = new double[9];
+        double[] verticesB = new double[9];
+        double[] out = new double[3];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < a.nbElements(3); i++) {
+            a.load(i, 3, 0, 0, 0, verticesA);
+            for (int j = 0; j < b.nbElements(3); j++) {
+                b.load(j, 3, tx, ty, tz, verticesB);
+                best = Math.min(best, GeometryUtils.triangleTriangleDistanceSquared(verticesA, verticesB, out));
+            }
+        }
+        return Math.sqrt(best);
+    }
+
+    private static double segmentDistanceByLinearScan(Mesh a, Mesh b, double tx, double ty) {
+        double[] p = new double[6];
+        double[] q = new double[6];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < a.nbElements(2); i++) {
+            a.load(i, 2, 0, 0, 0, p);
+            for (int j = 0; j < b.nbElements(2); j++) {
+                b.load(j, 2, tx, ty, 0, q);
+                best = Math.min(best, GeometryUtils.segmentSegmentDistanceSquared(
+                        p[0], p[1], p[2], p[3], p[4], p[5], q[0], q[1], q[2], q[3], q[4], q[5]));
+            }
+        }
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Surface of the box [0, size]^3, each face split in n x n squares of 2 triangles
+     */
+    static Mesh boxSurface(double size, int n) {
+        int faceVertices = (n + 1) * (n + 1);
+        float[] coordinates = new float[6 * faceVertices * 3];
+        int[] triangles = new int[6 * n * n * 6];
+        int position = 0;
+        for (int face = 0; face < 6; face++) {
+            int axis = face / 2;
+            int u = (axis + 1) % 3;
+            int v = (axis + 2) % 3;
+            int first = face * faceVertices;
+            for (int j = 0; j <= n; j++) {
+                for (int i = 0; i <= n; i++) {
+                    int vertex = (first + j * (n + 1) + i) * 3;
+                    coordinates[vertex + axis] = (float) (face % 2 * size);
+                    coordinates[vertex + u] = (float) (size * i / n);
+                    coordinates[vertex + v] = (float) (size * j / n);
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    int corner = first + j * (n + 1) + i;
+                    triangles[position++] = corner;
+                    triangles[position++] = corner + 1;
+                    triangles[position++] = corner + n + 2;
+                    triangles[position++] = corner;
+                    triangles[position++] = corner + n + 2;
+                    triangles[position++] = corner + n + 1;
+                }
+            }
+        }
+        return new Mesh(coordinates, triangles);
+    }
+
+    /**
+     * Closed polygon of n segments inscribed in the circle of the given radius centered at the origin
+     */
+    static Mesh circleContour(double radius, int n) {
+        float[] coordinates = new float[n * 3];
+        int[] segments = new int[n * 2];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            coordinates[i * 3] = (float) (radius * Math.cos(angle));
+            coordinates[i * 3 + 1] = (float) (radius * Math.sin(angle));
+            segments[i * 2] = i;
+            segments[i * 2 + 1] = (i + 1) % n;
+        }
+        return new Mesh(coordinates, segments);
+    }
+
+    /**
+     * Contour of the square [0, size]^2, each side split in n segments
+     */
+    static Mesh squareContour(double size, int n) {
+        float[] coordinates = new float[4 * n * 3];
+        int[] segments = new int[4 * n * 2];
+        double[][] corners = {{0, 0}, {size, 0}, {size, size}, {0, size}};
+        for (int side = 0; side < 4; side++) {
+            double[] from = corners[side];
+            double[] to = corners[(side + 1) % 4];
+            for (int i = 0; i < n; i++) {
+                int vertex = side * n + i;
+                coordinates[vertex * 3] = (float) (from[0] + (to[0] - from[0]) * i / n);
+                coordinates[vertex * 3 + 1] = (float) (from[1] + (to[1] - from[1]) * i / n);
+                segments[vertex * 2] = vertex;
+                segments[vertex * 2 + 1] = (vertex + 1) % (4 * n);
+            }
+        }
+        return new Mesh(coordinates, segments);
+    }
+
+    /**
+     * Hand-built mesh: coordinates (x, y, z interleaved) and element vertex indices
+     */
+    record Mesh(float[] coordinates, int[] connectivity) {
+
+        int nbElements(int nbVertices) {
+            return connectivity.length / nbVertices;
+        }
+
+        MeshBVH bvh(MeshBVH.ElementType type) {
+            return MeshBVH.build(type, coordinates, connectivity, nbElements(type.getNbVertices()));
+        }
+
+        void load(int element, int nbVertices, double tx, double ty, double tz, double[] out) {
+            for (int k = 0; k < nbVertices; k++) {
+                int vertex = connectivity[element * nbVertices + k] * 3;
+                out[k * 3] = coordinates[vertex] + tx;
+                out[k * 3 + 1] = coordinates[vertex + 1] + ty;
+                out[k * 3 + 2] = coordinates[vertex + 2] + tz;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.softpath.riverpath.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeshSlicerTest {
+
+    // the 6 tetrahedra of a cube sharing its diagonal 0-7, vertex i at (i & 1, (i >> 1) & 1, (i >> 2) & 1)
+    private static final int[] CUBE_TETRAHEDRA = {
+            0, 1, 3, 7,
+            0, 1, 5, 7,
+            0, 2, 3, 7,
+            0, 2, 6, 7,
+            0, 4, 5, 7,
+            0, 4, 6, 7
+    };
+
+    @Test
+    void slicesATetrahedron() {
+        float[] coordinates = {0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1};
+        MeshSlicer slicer = new MeshSlicer(coordinates, new int[]{0, 1, 2, 3}, 1);
+        for (double h : new double[]{0.1, 0.25, 0.5, 0.9}) {
+            MeshSlicer.Slice slice = slicer.slice(SlicePlane.alongAxis(2, h));
+            assertEquals(1, slice.triangleCount());
+            // right triangle with legs 1 - h
+            assertEquals((1 - h) * (1 - h) / 2, area(slice), 1e-6);
+            assertOnPlane(slice, 2, h);
+        }
+        // two vertices on each side: a quad in two triangles
+        MeshSlicer.Slice slice = slicer.slice(new SlicePlane(1, 1, 0, 0.5));
+        assertEquals(2, slice.triangleCount());
+        assertTrue(slicer.slice(SlicePlane.alongAxis(2, 1.5)).isEmpty());
+        assertTrue(slicer.slice(SlicePlane.alongAxis(2, -0.5)).isEmpty());
+    }
+
+    @Test
+    void cutsACubeOnItsWholeSection() {
+        MeshSlicer slicer = new MeshSlicer(cubeCoordinates(), CUBE_TETRAHEDRA, 6);
+        for (int axis = 0; axis < 3; axis++) {
+            for (double offset : new double[]{0.05, 0.3, 0.5, 0.77}) {
+                MeshSlicer.Slice slice = slicer.slice(SlicePlane.alongAxis(axis, offset));
+                assertEquals(1, area(slice), 1e-5);
+                assertOnPlane(slice, axis, offset);
+            }
+        }
+    }
+
+    @Test
+    void matchesALinearScanOnAPerturbedGrid() {
+        int n = 12;
+        float[] coordinates = perturbedGrid(n, new Random(7));
+        int[] tetrahedra = gridTetrahedra(n);
+        int nbTetra = tetrahedra.length / 4;
+        MeshSlicer slicer = new MeshSlicer(coordinates, tetrahedra, nbTetra);
+        SlicePlane normal = new SlicePlane(0.3, -0.5, 0.8, 0);
+        for (int i = 0; i <= 20; i++) {
+            // moving the plane reuses the index built for the first offset
+            SlicePlane plane = slicer.planeAt(normal, i / 20.0);
+            MeshSlicer.Slice slice = slicer.slice(plane);
+            assertEquals(countByLinearScan(coordinates, tetrahedra, nbTetra, plane), slice.triangleCount());
+            assertOnPlane(slice, plane);
+        }
+        // the whole unit cube is cut at its center
+        assertEquals(1, area(slicer.slice(SlicePlane.alongAxis(2, 0.5))), 1e-4);
+    }
+
+    @Test
+    void interpolatesAField() {
+        float[] coordinates = cubeCoordinates();
+        float[] field = new float[8];
+        for (int v = 0; v < 8; v++) {
+            // linear field, exactly interpolated on the edges
+            field[v] = coordinates[v * 3] + 2 * coordinates[v * 3 + 1] - coordinates[v * 3 + 2];
+        }
+        MeshSlicer slicer = new MeshSlicer(coordinates, CUBE_TETRAHEDRA, 6);
+        MeshSlicer.Slice slice = slicer.slice(SlicePlane.alongAxis(0, 0.4), field);
+        float[] vertices = slice.vertices();
+        for (int v = 0; v < slice.triangleCount() * 3; v++) {
+            double expected = vertices[v * 3] + 2 * vertices[v * 3 + 1] - vertices[v * 3 + 2];
+            assertEquals(expected, slice.values()[v], 1e-5);
+        }
+    }
+
+    private static float[] cubeCoordinates() {
+        float[] coordinates = new float[24];
+        for (int v = 0; v < 8; v++) {
+            coordinates[v * 3] = v & 1;
+            coordinates[v * 3 + 1] = (v >> 1) & 1;
+            coordinates[v * 3 + 2] = (v >> 2) & 1;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Grid of (n + 1)^3 vertices over the unit cube, the inner vertices moved randomly
+     */
+    private static float[] perturbedGrid(int n, Random random) {
+        int side = n + 1;
+        float[] coordinates = new float[side * side * side * 3];
+        for (int k = 0; k < side; k++) {
+            for (int j = 0; j < side; j++) {
+                for (int i = 0; i < side; i++) {
+                    int v = ((k * side + j) * side + i) * 3;
+                    coordinates[v] = coordinate(i, n, random);
+                    coordinates[v + 1] = coordinate(j, n, random);
+                    coordinates[v + 2] = coordinate(k, n, random);
+                }
+            }
+        }
+        return coordinates;
+    }
+
+    private static float coordinate(int index, int n, Random random) {
+        if (index == 0 || index == n) {
+            return (float) index / n;
+        }
+        return (float) ((index + (random.nextDouble() - 0.5) * 0.4) / n);
+    }
+
+    /**
+     * 6 tetrahedra per grid cell, with the same pattern as the cube
+     */
+    private static int[] gridTetrahedra(int n) {
+        int side = n + 1;
+        int[] tetrahedra = new int[n * n * n * CUBE_TETRAHEDRA.length];
+        int position = 0;
+        for (int k = 0; k < n; k++) {
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    for (int corner : CUBE_TETRAHEDRA) {
+                        int ci = i + (corner & 1);
+                        int cj = j + ((corner >> 1) & 1);
+                        int ck = k + ((corner >> 2) & 1);
+                        tetrahedra[position++] = (ck * side + cj) * side + ci;
+                    }
+                }
+            }
+        }
+        return tetrahedra;
+    }
+
+    private static int countByLinearScan(float[] coordinates, int[] tetrahedra, int nbTetra, SlicePlane plane) {
+        float nx = (float) plane.normalX(), ny = (float) plane.normalY(), nz = (float) plane.normalZ();
+        float offset = (float) plane.offset();
+        int count = 0;
+        for (int t = 0; t < nbTetra; t++) {
+            int above = 0;
+            for (int k = 0; k < 4; k++) {
+                int v = tetrahedra[t * 4 + k] * 3;
+                if (coordinates[v] * nx + coordinates[v + 1] * ny + coordinates[v + 2] * nz > offset) {
+                    above++;
+                }
+            }
+            count += above == 2 ? 2 : (above == 1 || above == 3) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static double area(MeshSlicer.Slice slice) {
+        float[] v = slice.vertices();
+        double area = 0;
+        for (int t = 0; t < slice.triangleCount(); t++) {
+            int p = t * 9;
+            double abx = v[p + 3] - v[p], aby = v[p + 4] - v[p + 1], abz = v[p + 5] - v[p + 2];
+            double acx = v[p + 6] - v[p], acy = v[p + 7] - v[p + 1], acz = v[p + 8] - v[p + 2];
+            double cx = aby * acz - abz * acy, cy = abz * acx - abx * acz, cz = abx * acy - aby * acx;
+            area += Math.sqrt(cx * cx + cy * cy + cz * cz) / 2;
+        }
+        return area;
+    }
+
+    private static void assertOnPlane(MeshSlicer.Slice slice, int axis, double offset) {
+        assertOnPlane(slice, SlicePlane.alongAxis(axis, offset));
+    }
+
+    private static void assertOnPlane(MeshSlicer.Slice slice, SlicePlane plane) {
+        float[] v = slice.vertices();
+        for (int i = 0; i < slice.triangleCount() * 3; i++) {
+            double d = v[i * 3] * plane.normalX() + v[i * 3 + 1] * plane.normalY() + v[i * 3 + 2] * plane.normalZ();
+            assertEquals(plane.offset(), d, 1e-5);
+        }
+    }
+}
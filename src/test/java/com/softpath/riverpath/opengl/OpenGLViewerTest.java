@@ -17,7 +17,7 @@ class OpenGLViewerTest {
         System.out.println(LocalDateTime.now() + " : Start loading .t file");
         MeshResolution meshResolution = parseFile2TriangleMesh(new File("C:\\Users\\t372639\\.riverpath\\geometrycombined\\import_20251221231232\\geometrycombined.t"));
         System.out.println(LocalDateTime.now() + " : End loading .t file");
-        OpenGLViewer.show(meshResolution.getTriangleMesh());
+        OpenGLViewer.show(meshResolution);
         System.out.println(LocalDateTime.now() + " : End openGL display");
         while (true) {
 
@@ -0,0 +1,134 @@
+package com.softpath.riverpath.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineRingBufferTest {
+
+    @Test
+    void keepsOrderOverSeveralLaps() {
+        LineRingBuffer buffer = new LineRingBuffer(4);
+        List<String> drained = new ArrayList<>();
+        int next = 0;
+        // 3 lines in, 3 lines out, 10 times: the positions wrap around the 4 slots
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer("line " + next++));
+            }
+            assertEquals(3, buffer.drain(drained::add, Integer.MAX_VALUE));
+        }
+        assertEquals(30, drained.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals("line " + i, drained.get(i));
+        }
+        assertEquals(0, buffer.takeDropped());
+    }
+
+    @Test
+    void roundsTheCapacityUpToAPowerOfTwo() {
+        LineRingBuffer buffer = new LineRingBuffer(5);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer("line " + i));
+        }
+        assertFalse(buffer.offer("line 8"));
+    }
+
+    @Test
+    void dropsAndCountsLinesWhenFull() {
+        LineRingBuffer buffer = new LineRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("line " + i));
+        }
+        assertFalse(buffer.offer("dropped 1"));
+        assertFalse(buffer.offer("dropped 2"));
+        assertEquals(2, buffer.takeDropped());
+        // the counter is reset by each call
+        assertEquals(0, buffer.takeDropped());
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(4, buffer.drain(drained::add, Integer.MAX_VALUE));
+        assertEquals(List.of("line 0", "line 1", "line 2", "line 3"), drained);
+        // the slots are free again
+        assertTrue(buffer.offer("line 4"));
+        assertEquals(0, buffer.takeDropped());
+    }
+
+    @Test
+    void drainStopsAtMaxLines() {
+        LineRingBuffer buffer = new LineRingBuffer(16);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer("line " + i);
+        }
+        List<String> drained = new ArrayList<>();
+        assertEquals(4, buffer.drain(drained::add, 4));
+        assertEquals(List.of("line 0", "line 1", "line 2", "line 3"), drained);
+        assertEquals(0, buffer.drain(drained::add, 0));
+        assertEquals(6, buffer.drain(drained::add, 100));
+        assertEquals(10, drained.size());
+        assertEquals("line 9", drained.get(9));
+        assertEquals(0, buffer.drain(drained::add, 100));
+    }
+
+    @Test
+    void concurrentProducersLoseNorDuplicateLines() throws InterruptedException {
+        int nbProducers = 4;
+        int linesPerProducer = 50_000;
+        LineRingBuffer buffer = new LineRingBuffer(1 << 10);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < nbProducers; p++) {
+            String prefix = p + ":";
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < linesPerProducer; i++) {
+                        // retry when the consumer lags behind, every line must go through
+                        while (!buffer.offer(prefix + i)) {
+                            Thread.yield();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        // each producer's lines must come out exactly once and in the order they were offered
+        int[] nextLine = new int[nbProducers];
+        long total = (long) nbProducers * linesPerProducer;
+        long received = 0;
+        start.countDown();
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (received < total && System.currentTimeMillis() < deadline) {
+            received += buffer.drain(line -> {
+                int separator = line.indexOf(':');
+                int producer = Integer.parseInt(line.substring(0, separator));
+                int index = Integer.parseInt(line.substring(separator + 1));
+                if (index != nextLine[producer]) {
+                    failed.set(true);
+                }
+                nextLine[producer] = index + 1;
+            }, 1000);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(total, received);
+        for (int p = 0; p < nbProducers; p++) {
+            assertEquals(linesPerProducer, nextLine[p]);
+        }
+        assertEquals(0, buffer.drain(line -> failed.set(true), Integer.MAX_VALUE));
+    }
+}
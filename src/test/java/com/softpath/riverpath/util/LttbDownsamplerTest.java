@@ -0,0 +1,100 @@
+package com.softpath.riverpath.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbDownsamplerTest {
+
+    private final DoubleArrayList outX = new DoubleArrayList();
+    private final DoubleArrayList outY = new DoubleArrayList();
+
+    @Test
+    void keepsAllPointsBelowTheThreshold() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {5, -1, 7, 2, 0};
+        LttbDownsampler.downsample(x, y, 5, 10, outX, outY);
+        assertUnchanged(x, y, 5);
+        LttbDownsampler.downsample(x, y, 5, 5, outX, outY);
+        assertUnchanged(x, y, 5);
+        // only the first size points are read
+        LttbDownsampler.downsample(x, y, 3, 10, outX, outY);
+        assertUnchanged(x, y, 3);
+    }
+
+    @Test
+    void keepsAllPointsForAThresholdTooSmall() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {5, -1, 7, 2, 0};
+        LttbDownsampler.downsample(x, y, 5, 2, outX, outY);
+        assertUnchanged(x, y, 5);
+    }
+
+    @Test
+    void returnsThresholdPointsWithTheEnds() {
+        int size = 10_000;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = i * 0.5;
+            y[i] = Math.sin(i * 0.01);
+        }
+        for (int threshold : new int[]{3, 4, 100, 999, 9_999}) {
+            LttbDownsampler.downsample(x, y, size, threshold, outX, outY);
+            assertEquals(threshold, outX.size());
+            assertEquals(threshold, outY.size());
+            assertEquals(x[0], outX.get(0));
+            assertEquals(y[0], outY.get(0));
+            assertEquals(x[size - 1], outX.get(threshold - 1));
+            assertEquals(y[size - 1], outY.get(threshold - 1));
+            // points of the series, in order
+            for (int i = 1; i < threshold; i++) {
+                assertTrue(outX.get(i) > outX.get(i - 1));
+                int index = (int) (outX.get(i) * 2);
+                assertEquals(y[index], outY.get(i));
+            }
+        }
+    }
+
+    @Test
+    void keepsPeaks() {
+        int size = 1_000;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = i;
+        }
+        y[333] = 100;
+        y[777] = -50;
+        LttbDownsampler.downsample(x, y, size, 20, outX, outY);
+        assertEquals(20, outX.size());
+        boolean peak = false;
+        boolean trough = false;
+        for (int i = 0; i < outX.size(); i++) {
+            peak |= outX.get(i) == 333 && outY.get(i) == 100;
+            trough |= outX.get(i) == 777 && outY.get(i) == -50;
+        }
+        assertTrue(peak);
+        assertTrue(trough);
+    }
+
+    @Test
+    void clearsTheOutput() {
+        double[] x = {0, 1};
+        double[] y = {0, 1};
+        outX.add(42);
+        outY.add(42);
+        LttbDownsampler.downsample(x, y, 2, 10, outX, outY);
+        assertUnchanged(x, y, 2);
+    }
+
+    private void assertUnchanged(double[] x, double[] y, int size) {
+        assertEquals(size, outX.size());
+        assertEquals(size, outY.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(x[i], outX.get(i));
+            assertEquals(y[i], outY.get(i));
+        }
+    }
+}